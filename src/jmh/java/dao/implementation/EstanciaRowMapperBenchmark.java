@@ -0,0 +1,61 @@
+package dao.implementation;
+
+import model.Estancia;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.reflect.Proxy;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mapeo de una fila de 'stays' a Estancia (EstanciaRowMapper), sobre un ResultSet en memoria
+ * que devuelve siempre la misma fila: mide el mapeo sin el costo del driver ni de la red.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EstanciaRowMapperBenchmark {
+
+    private ResultSet row;
+
+    @Setup
+    public void setUp() {
+        Map<String, Object> columns = new HashMap<>();
+        columns.put("stay_id", 123456);
+        columns.put("license_plate", "ABC123");
+        columns.put("entry_timestamp", new Timestamp(1_729_200_000_000L));
+        columns.put("vehicle_type", "CARRO");
+        columns.put("stay_type", "Guest");
+        columns.put("status", "INSIDE");
+        columns.put("entry_operator_id", 1);
+
+        row = (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(), new Class<?>[]{ResultSet.class},
+                (proxy, method, args) -> {
+                    if (args != null && args.length == 1 && args[0] instanceof String column) {
+                        return columns.get(column);
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    @Benchmark
+    public Estancia mapActive() throws SQLException {
+        return EstanciaRowMapper.mapActive(row);
+    }
+}
@@ -0,0 +1,83 @@
+package loadtest;
+
+import metrics.LatencyHistogram;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Resultados de una operación del servicio (ingreso, cotización, salida, listado).
+ *
+ * - responseTime se mide desde el instante en que el evento debía ocurrir (llegada del vehículo),
+ *   así que incluye la espera por un carril libre: es lo que ve el conductor, y no esconde las
+ *   esperas cuando el sistema se satura (coordinated omission).
+ * - serviceTime se mide desde que un carril empieza a atender el evento: es el costo de la llamada.
+ */
+final class OperationStats {
+
+    final String name;
+    final LatencyHistogram responseTime = new LatencyHistogram();
+    final LatencyHistogram serviceTime = new LatencyHistogram();
+    final LongAdder succeeded = new LongAdder();
+    final LongAdder refused = new LongAdder();
+    final LongAdder failed = new LongAdder();
+
+    OperationStats(String name) {
+        this.name = name;
+    }
+
+    void record(long scheduledNanos, long startNanos, long endNanos, Outcome outcome) {
+        responseTime.record(endNanos - scheduledNanos);
+        serviceTime.record(endNanos - startNanos);
+        switch (outcome) {
+            case OK: succeeded.increment(); break;
+            case REFUSED: refused.increment(); break;
+            default: failed.increment(); break;
+        }
+    }
+
+    long total() {
+        return succeeded.sum() + refused.sum() + failed.sum();
+    }
+
+    static String header() {
+        return String.format("%-10s %9s %8s %7s %10s %9s %9s %9s %9s %9s",
+                "operación", "total", "rechazo", "error", "ops/s", "srv p50", "p50 ms", "p99 ms", "p99.9 ms", "max ms");
+    }
+
+    String format(double seconds) {
+        LatencyHistogram.Snapshot response = responseTime.snapshot();
+        LatencyHistogram.Snapshot service = serviceTime.snapshot();
+        return String.format("%-10s %9d %8d %7d %10.1f %9.3f %9.3f %9.3f %9.3f %9.3f",
+                name, total(), refused.sum(), failed.sum(), total() / seconds,
+                service.percentileMillis(0.5), response.percentileMillis(0.5), response.percentileMillis(0.99),
+                response.percentileMillis(0.999), response.getMaxNanos() / 1e6);
+    }
+
+    Map<String, Object> toMap(double seconds) {
+        LatencyHistogram.Snapshot response = responseTime.snapshot();
+        LatencyHistogram.Snapshot service = serviceTime.snapshot();
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("total", total());
+        map.put("refused", refused.sum());
+        map.put("failed", failed.sum());
+        map.put("throughputPerSecond", total() / seconds);
+        map.put("serviceP50Ms", service.percentileMillis(0.5));
+        map.put("serviceP99Ms", service.percentileMillis(0.99));
+        map.put("p50Ms", response.percentileMillis(0.5));
+        map.put("p99Ms", response.percentileMillis(0.99));
+        map.put("p999Ms", response.percentileMillis(0.999));
+        map.put("maxMs", response.getMaxNanos() / 1e6);
+        return map;
+    }
+
+    enum Outcome {
+        /** La operación se completó. */
+        OK,
+        /** El servicio la rechazó por una regla de negocio (placa ya adentro, no encontrada...). */
+        REFUSED,
+        /** Falló por un error técnico (base de datos, tiempo agotado...). */
+        FAILED
+    }
+}
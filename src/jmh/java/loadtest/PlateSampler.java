@@ -0,0 +1,79 @@
+package loadtest;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Elige placas de un universo fijo de N vehículos, con distribución uniforme o Zipf
+ * (pocos vehículos muy frecuentes, como los de los empleados, y una cola larga de visitantes).
+ *
+ * Las placas tienen el formato de la portería (3 letras y 3 dígitos, p. ej. "BCD042") y son
+ * deterministas: la placa i es siempre la misma, así que un patrón grabado se puede repetir.
+ */
+final class PlateSampler {
+
+    private final int plates;
+    private final double[] cumulative; // null = uniforme
+
+    private PlateSampler(int plates, double[] cumulative) {
+        this.plates = plates;
+        this.cumulative = cumulative;
+    }
+
+    /**
+     * @param plates Tamaño del universo de placas (hasta 17.576.000).
+     * @param distribution "uniform" o "zipf:s" (s = exponente, p. ej. zipf:1.1).
+     */
+    static PlateSampler create(int plates, String distribution) {
+        if (plates <= 0 || plates > 26 * 26 * 26 * 1000) {
+            throw new IllegalArgumentException("plates debe estar entre 1 y " + (26 * 26 * 26 * 1000) + ": " + plates);
+        }
+        if ("uniform".equals(distribution)) {
+            return new PlateSampler(plates, null);
+        }
+        if (distribution.startsWith("zipf:")) {
+            double exponent = Double.parseDouble(distribution.substring("zipf:".length()));
+            double[] cumulative = new double[plates];
+            double sum = 0;
+            for (int i = 0; i < plates; i++) {
+                sum += 1.0 / Math.pow(i + 1, exponent);
+                cumulative[i] = sum;
+            }
+            for (int i = 0; i < plates; i++) {
+                cumulative[i] /= sum;
+            }
+            return new PlateSampler(plates, cumulative);
+        }
+        throw new IllegalArgumentException("distribution no válida: '" + distribution + "' (use uniform o zipf:s).");
+    }
+
+    int size() {
+        return plates;
+    }
+
+    /**
+     * Elige el índice de una placa.
+     */
+    int nextIndex(Random random) {
+        if (cumulative == null) {
+            return random.nextInt(plates);
+        }
+        int index = Arrays.binarySearch(cumulative, random.nextDouble());
+        return Math.min(index >= 0 ? index : -index - 1, plates - 1);
+    }
+
+    /**
+     * Placa del vehículo i: tres letras y tres dígitos.
+     */
+    static String plateOf(int index) {
+        int letters = index / 1000;
+        char[] plate = {
+                (char) ('A' + letters / (26 * 26) % 26),
+                (char) ('A' + letters / 26 % 26),
+                (char) ('A' + letters % 26),
+                (char) ('0' + index / 100 % 10),
+                (char) ('0' + index / 10 % 10),
+                (char) ('0' + index % 10)};
+        return new String(plate);
+    }
+}
@@ -0,0 +1,161 @@
+package loadtest;
+
+import dao.implementation.InMemoryDatabase;
+import dao.implementation.InMemoryEstanciaRepository;
+import dao.implementation.InMemoryPagoRepository;
+import dao.repository.IEstanciaRepository;
+import dao.repository.IPagoRepository;
+import model.Estancia;
+import model.Mensualidad;
+import model.Pago;
+import model.Tarifa;
+
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Reemplazo de PostgreSQL en el simulador de tráfico: la {@link InMemoryDatabase} de la aplicación
+ * con una espera de roundTripNanos en cada operación que en producción es un viaje a la base de
+ * datos, para que el simulador refleje el costo de los viajes (y el beneficio de agruparlos).
+ * Las membresías y las tarifas no esperan: en producción se sirven desde caché.
+ */
+final class StandInRepositories {
+
+    private final long roundTripNanos;
+    private final InMemoryDatabase database;
+
+    final Stays stays;
+    final Payments payments;
+
+    StandInRepositories(long roundTripNanos, Clock clock) {
+        this.roundTripNanos = roundTripNanos;
+        this.database = new InMemoryDatabase(clock);
+        this.stays = new Stays(database.getStays());
+        this.payments = new Payments(database.getPayments());
+        database.getRates().saveRate(rate("Carro", 3000, 800, 25000));
+        database.getRates().saveRate(rate("Moto", 1500, 400, 12000));
+    }
+
+    InMemoryDatabase database() {
+        return database;
+    }
+
+    /**
+     * Agrega una mensualidad vigente durante toda la simulación.
+     */
+    void addMember(String plate) {
+        Mensualidad mensualidad = new Mensualidad();
+        mensualidad.setLicensePlate(plate);
+        mensualidad.setVehicleType("Carro");
+        mensualidad.setStartDate(new Timestamp(0));
+        mensualidad.setEndDate(Timestamp.valueOf("9999-12-31 23:59:59"));
+        mensualidad.setActive(true);
+        database.getMemberships().save(mensualidad);
+    }
+
+    private static Tarifa rate(String vehicleType, double hour, double fraction, double cap) {
+        Tarifa tarifa = new Tarifa();
+        tarifa.setVehicle_type(vehicleType);
+        tarifa.setDescription("Tarifa " + vehicleType);
+        tarifa.setValuePerHour(hour);
+        tarifa.setValuePerFraction(fraction);
+        tarifa.setDailyTop(cap);
+        tarifa.setGracePeriodMinutes(15);
+        tarifa.setActive(true);
+        return tarifa;
+    }
+
+    private void roundTrip() {
+        if (roundTripNanos > 0) {
+            LockSupport.parkNanos(roundTripNanos);
+        }
+    }
+
+    final class Stays implements IEstanciaRepository {
+        private final InMemoryEstanciaRepository delegate;
+
+        private Stays(InMemoryEstanciaRepository delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public Estancia save(Estancia estancia) {
+            roundTrip();
+            return delegate.save(estancia);
+        }
+
+        @Override
+        public Optional<Estancia> registerEntry(Estancia estancia) {
+            roundTrip();
+            return delegate.registerEntry(estancia);
+        }
+
+        @Override
+        public List<Optional<Estancia>> registerEntries(List<Estancia> estancias) {
+            roundTrip(); // Una sola sentencia para todo el lote.
+            return delegate.registerEntries(estancias);
+        }
+
+        @Override
+        public Optional<Estancia> findActiveByPlate(String plate) {
+            roundTrip();
+            return delegate.findActiveByPlate(plate);
+        }
+
+        @Override
+        public List<Estancia> findAllActive() {
+            roundTrip();
+            return delegate.findAllActive();
+        }
+
+        @Override
+        public void forEachActive(Consumer<Estancia> consumer) {
+            roundTrip();
+            delegate.forEachActive(consumer);
+        }
+
+        @Override
+        public Stream<Estancia> streamAllActive() {
+            roundTrip();
+            return delegate.streamAllActive();
+        }
+
+        @Override
+        public List<Estancia> findActivePage(Timestamp afterEntryDate, int afterStayId, int limit) {
+            roundTrip();
+            return delegate.findActivePage(afterEntryDate, afterStayId, limit);
+        }
+
+        @Override
+        public boolean update(Estancia estancia) {
+            roundTrip();
+            return delegate.update(estancia);
+        }
+    }
+
+    final class Payments implements IPagoRepository {
+        final LongAdder totalCents = new LongAdder();
+        private final InMemoryPagoRepository delegate;
+
+        private Payments(InMemoryPagoRepository delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void save(Pago pago) {
+            roundTrip();
+            delegate.save(pago);
+            totalCents.add(Math.round(pago.getAmount() * 100));
+        }
+
+        long count() {
+            return delegate.count();
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package loadtest;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Secuencia de eventos de portería ordenada en el tiempo: ingresos, salidas y consultas del listado.
+ *
+ * Se genera (llegadas de Poisson, estancias de duración exponencial) o se carga de un archivo CSV
+ * con una línea por evento: {@code offsetMs,ENTRY|EXIT|LIST,placa[,tipoVehiculo]}. Las líneas vacías
+ * y las que empiezan con '#' se ignoran. Un patrón generado se puede grabar con {@link #write(Path)}
+ * para repetir exactamente la misma carga contra otra versión o contra PostgreSQL.
+ */
+final class TrafficPattern {
+
+    enum Kind { ENTRY, EXIT, LIST }
+
+    static final class Event {
+        final long offsetNanos;
+        final Kind kind;
+        final String plate;
+        final String vehicleType;
+
+        Event(long offsetNanos, Kind kind, String plate, String vehicleType) {
+            this.offsetNanos = offsetNanos;
+            this.kind = kind;
+            this.plate = plate;
+            this.vehicleType = vehicleType;
+        }
+    }
+
+    private final List<Event> events;
+
+    private TrafficPattern(List<Event> events) {
+        events.sort(Comparator.comparingLong(event -> event.offsetNanos));
+        this.events = Collections.unmodifiableList(events);
+    }
+
+    List<Event> events() {
+        return events;
+    }
+
+    long count(Kind kind) {
+        return events.stream().filter(event -> event.kind == kind).count();
+    }
+
+    /**
+     * Genera el tráfico de un intervalo.
+     * @param lengthMillis Duración del patrón.
+     * @param arrivalsPerSecond Tasa media de llegadas (proceso de Poisson).
+     * @param meanStayMillis Duración media de una estancia (exponencial); las salidas posteriores al final se descartan.
+     * @param listIntervalMillis Cada cuánto se consulta el listado de vehículos adentro (0 = nunca).
+     * @param motoRatio Fracción de placas que son motos; cada placa tiene siempre el mismo tipo.
+     */
+    static TrafficPattern generate(PlateSampler sampler, long lengthMillis, double arrivalsPerSecond,
+                                   long meanStayMillis, long listIntervalMillis, double motoRatio, long seed) {
+        Random random = new Random(seed);
+        List<Event> events = new ArrayList<>();
+        Map<Integer, Long> exitByPlate = new HashMap<>(); // vehículo -> instante de su salida
+        long lengthNanos = lengthMillis * 1_000_000L;
+        double meanGapNanos = 1e9 / arrivalsPerSecond;
+
+        long now = 0;
+        while (true) {
+            now += (long) (-Math.log(1 - random.nextDouble()) * meanGapNanos);
+            if (now >= lengthNanos) {
+                break;
+            }
+            // Un vehículo que sigue adentro no vuelve a llegar: se elige otro (pocos intentos, para
+            // que con un universo pequeño también aparezcan los ingresos duplicados que el servicio rechaza).
+            int index = sampler.nextIndex(random);
+            for (int attempt = 0; attempt < 8 && exitByPlate.getOrDefault(index, -1L) >= now; attempt++) {
+                index = sampler.nextIndex(random);
+            }
+            String plate = PlateSampler.plateOf(index);
+            String vehicleType = unit(index, 0x5EED_0001L) < motoRatio ? "Moto" : "Carro";
+            events.add(new Event(now, Kind.ENTRY, plate, vehicleType));
+
+            long exit = now + Math.max(1_000_000L, (long) (-Math.log(1 - random.nextDouble()) * meanStayMillis * 1e6));
+            exitByPlate.put(index, exit);
+            if (exit < lengthNanos) {
+                events.add(new Event(exit, Kind.EXIT, plate, vehicleType));
+            }
+        }
+        if (listIntervalMillis > 0) {
+            for (long at = listIntervalMillis * 1_000_000L; at < lengthNanos; at += listIntervalMillis * 1_000_000L) {
+                events.add(new Event(at, Kind.LIST, null, null));
+            }
+        }
+        return new TrafficPattern(events);
+    }
+
+    /**
+     * Carga un patrón grabado.
+     * @param speed Factor de velocidad: 2.0 reproduce el archivo en la mitad del tiempo.
+     */
+    static TrafficPattern read(Path file, double speed) throws IOException {
+        List<Event> events = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            int number = 0;
+            while ((line = reader.readLine()) != null) {
+                number++;
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                String[] fields = line.split(",");
+                try {
+                    long offsetNanos = (long) (Double.parseDouble(fields[0].trim()) * 1e6 / speed);
+                    Kind kind = Kind.valueOf(fields[1].trim().toUpperCase(Locale.ROOT));
+                    String plate = kind == Kind.LIST ? null : fields[2].trim().toUpperCase(Locale.ROOT);
+                    String vehicleType = fields.length > 3 ? fields[3].trim() : "Carro";
+                    events.add(new Event(offsetNanos, kind, plate, vehicleType));
+                } catch (RuntimeException e) {
+                    throw new IOException("Línea " + number + " no válida en " + file + ": '" + line + "'", e);
+                }
+            }
+        }
+        return new TrafficPattern(events);
+    }
+
+    /**
+     * Graba el patrón en el formato que acepta {@link #read(Path, double)}.
+     */
+    void write(Path file) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writer.write("# offsetMs,evento,placa,tipoVehiculo");
+            writer.newLine();
+            for (Event event : events) {
+                writer.write(String.format(Locale.ROOT, "%.3f,%s", event.offsetNanos / 1e6, event.kind));
+                if (event.kind != Kind.LIST) {
+                    writer.write("," + event.plate + "," + event.vehicleType);
+                }
+                writer.newLine();
+            }
+        }
+    }
+
+    /**
+     * Valor fijo en [0, 1) para el vehículo i: decide atributos estables (tipo, membresía) sin guardarlos.
+     */
+    static double unit(int index, long salt) {
+        long z = (index + salt) * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        z ^= z >>> 31;
+        return (z >>> 11) * 0x1.0p-53;
+    }
+}
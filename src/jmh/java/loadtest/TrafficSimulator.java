@@ -0,0 +1,391 @@
+package loadtest;
+
+import dao.implementation.GroupCommitEstanciaRepository;
+import dao.implementation.InMemoryDatabase;
+import dao.repository.IEstanciaRepository;
+import dao.repository.IEstanciaService;
+import model.Estancia;
+import service.EstanciaServiceImpl;
+import service.FeeEngine;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Simulador de tráfico: reproduce un patrón de ingresos y salidas contra {@link EstanciaServiceImpl}
+ * con varios carriles atendiendo en paralelo, y reporta el rendimiento y la latencia (p50/p99/p99.9)
+ * de cada operación.
+ *
+ * La carga es abierta: cada evento se despacha en el instante que indica el patrón, atiendan o no
+ * los carriles a tiempo, y su latencia se mide desde ese instante. Si el servicio se satura, la cola
+ * frente a los carriles crece y se ve en los percentiles (en lugar de bajar la tasa de llegadas).
+ *
+ * Uso (opciones --clave=valor, todas opcionales):
+ *   mvn -P benchmarks compile exec:java@load-test -Dload.args="--lanes=8 --rate=400 --duration=60"
+ *
+ *   --mode=memory|jdbc      Base de datos en memoria (por defecto) o la de db.properties.
+ *   --lanes=4               Carriles (hilos) que atienden los eventos.
+ *   --duration=30           Segundos medidos; --warmup=5 segundos previos que no se cuentan.
+ *   --rate=200              Llegadas por segundo (Poisson).
+ *   --plates=20000          Universo de vehículos; --distribution=uniform|zipf:1.1.
+ *   --members=0.2           Fracción de vehículos con mensualidad (modo memory).
+ *   --motoRatio=0.3         Fracción de motos.
+ *   --meanStayMs=20000      Duración media de una estancia, en tiempo real.
+ *   --timeScale=240         Aceleración del reloj de tarifas (modo memory): 20 s reales = 80 min cobrados.
+ *   --latencyMs=1.0         Espera por cada viaje a la "base de datos" en memoria.
+ *   --groupCommit=true      Agrupa los ingresos concurrentes como en producción (modo memory).
+ *   --listIntervalMs=1000   Cada cuánto se consulta el listado de vehículos adentro (0 = nunca).
+ *   --trace=archivo.csv     Reproduce un patrón grabado en lugar de generarlo; --speed=1.0.
+ *   --record=archivo.csv    Graba el patrón usado, para repetirlo.
+ *   --out=resultado.json    Guarda el reporte en JSON.
+ *   --operatorId=1, --seed=42
+ */
+public final class TrafficSimulator {
+
+    private static final Event POISON = new Event(null, 0);
+
+    private final IEstanciaService service;
+    private final int operatorId;
+    private final long warmupNanos;
+    private final OperationStats entries = new OperationStats("ingreso");
+    private final OperationStats quotes = new OperationStats("cotización");
+    private final OperationStats exits = new OperationStats("salida");
+    private final OperationStats lists = new OperationStats("listado");
+    private final BlockingQueue<Event> queue = new LinkedBlockingQueue<>();
+    private volatile long runStartNanos;
+    private volatile long maxDispatchLagNanos;
+    private volatile int maxQueueDepth;
+
+    private TrafficSimulator(IEstanciaService service, int operatorId, long warmupNanos) {
+        this.service = service;
+        this.operatorId = operatorId;
+        this.warmupNanos = warmupNanos;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parse(args);
+        String mode = options.getOrDefault("mode", "memory");
+        int lanes = intOption(options, "lanes", 4);
+        long warmupMillis = (long) (doubleOption(options, "warmup", 5) * 1000);
+        long durationMillis = (long) (doubleOption(options, "duration", 30) * 1000);
+        long seed = Long.parseLong(options.getOrDefault("seed", "42"));
+        int plates = intOption(options, "plates", 20_000);
+        double members = doubleOption(options, "members", 0.2);
+
+        // 1. El patrón de tráfico: grabado o generado.
+        TrafficPattern pattern;
+        if (options.containsKey("trace")) {
+            pattern = TrafficPattern.read(Path.of(options.get("trace")), doubleOption(options, "speed", 1.0));
+        } else {
+            PlateSampler sampler = PlateSampler.create(plates, options.getOrDefault("distribution", "uniform"));
+            pattern = TrafficPattern.generate(sampler, warmupMillis + durationMillis, doubleOption(options, "rate", 200),
+                    (long) doubleOption(options, "meanStayMs", 20_000), (long) doubleOption(options, "listIntervalMs", 1000),
+                    doubleOption(options, "motoRatio", 0.3), seed);
+        }
+        if (options.containsKey("record")) {
+            pattern.write(Path.of(options.get("record")));
+        }
+
+        // 2. El servicio: los mismos componentes que en producción, sobre la base de datos o en memoria.
+        IEstanciaService service;
+        StandInRepositories standIn = null;
+        GroupCommitEstanciaRepository entryBatcher = null;
+        if ("jdbc".equals(mode)) {
+            service = new EstanciaServiceImpl();
+        } else if ("memory".equals(mode)) {
+            ScaledClock clock = new ScaledClock(doubleOption(options, "timeScale", 240));
+            standIn = new StandInRepositories((long) (doubleOption(options, "latencyMs", 1.0) * 1_000_000), clock);
+            for (int i = 0; i < plates; i++) {
+                if (TrafficPattern.unit(i, 0x5EED_0002L) < members) {
+                    standIn.addMember(PlateSampler.plateOf(i));
+                }
+            }
+            IEstanciaRepository stays = standIn.stays;
+            if (Boolean.parseBoolean(options.getOrDefault("groupCommit", "true"))) {
+                entryBatcher = new GroupCommitEstanciaRepository(standIn.stays);
+                entryBatcher.start();
+                stays = entryBatcher;
+            }
+            InMemoryDatabase database = standIn.database();
+            service = new EstanciaServiceImpl(stays, database.getMemberships(), database.getRates(), standIn.payments,
+                    database.getUnitOfWork(), new FeeEngine(clock, 15), null);
+        } else {
+            throw new IllegalArgumentException("mode no válido: '" + mode + "' (use memory o jdbc).");
+        }
+
+        System.out.printf(Locale.ROOT, "Patrón: %d ingresos, %d salidas, %d listados en %.1f s; modo %s, %d carriles.%n",
+                pattern.count(TrafficPattern.Kind.ENTRY), pattern.count(TrafficPattern.Kind.EXIT),
+                pattern.count(TrafficPattern.Kind.LIST), (warmupMillis + durationMillis) / 1000.0, mode, lanes);
+
+        // 3. La corrida.
+        TrafficSimulator simulator = new TrafficSimulator(service, intOption(options, "operatorId", 1),
+                warmupMillis * 1_000_000L);
+        long elapsedNanos = simulator.run(pattern.events(), lanes);
+        if (entryBatcher != null) {
+            entryBatcher.stop();
+        }
+
+        // 4. El reporte. El rendimiento se calcula sobre el intervalo medido (sin el calentamiento).
+        double seconds = Math.max(1e-9, (elapsedNanos - warmupMillis * 1_000_000L) / 1e9);
+        System.out.println();
+        System.out.println(OperationStats.header());
+        for (OperationStats stats : simulator.allStats()) {
+            System.out.println(stats.format(seconds));
+        }
+        System.out.printf(Locale.ROOT, "%nCola máxima frente a los carriles: %d eventos; retraso máximo del despachador: %.3f ms.%n",
+                simulator.maxQueueDepth, simulator.maxDispatchLagNanos / 1e6);
+        if (entryBatcher != null) {
+            System.out.printf(Locale.ROOT, "Group commit: %d ingresos en %d lotes (%.1f por lote).%n",
+                    entryBatcher.getEntryCount(), entryBatcher.getBatchCount(), entryBatcher.getAverageBatchSize());
+        }
+        if (standIn != null) {
+            System.out.printf(Locale.ROOT, "Pagos: %d por $%,.2f.%n",
+                    standIn.payments.count(), standIn.payments.totalCents.sum() / 100.0);
+        }
+
+        if (options.containsKey("out")) {
+            Map<String, Object> report = new LinkedHashMap<>();
+            report.put("mode", mode);
+            report.put("lanes", lanes);
+            report.put("measuredSeconds", seconds);
+            report.put("options", options);
+            Map<String, Object> operations = new LinkedHashMap<>();
+            for (OperationStats stats : simulator.allStats()) {
+                operations.put(stats.name, stats.toMap(seconds));
+            }
+            report.put("operations", operations);
+            report.put("maxQueueDepth", simulator.maxQueueDepth);
+            report.put("maxDispatchLagMs", simulator.maxDispatchLagNanos / 1e6);
+            Files.writeString(Path.of(options.get("out")), toJson(report), StandardCharsets.UTF_8);
+        }
+        System.exit(0); // Los componentes de producción (caché, reconciliador) dejan hilos en segundo plano.
+    }
+
+    /**
+     * Despacha los eventos en su instante y espera a que los carriles terminen.
+     * @return Tiempo total transcurrido, en nanosegundos.
+     */
+    private long run(List<TrafficPattern.Event> events, int lanes) throws InterruptedException {
+        long start = System.nanoTime();
+        runStartNanos = start;
+        Thread[] workers = new Thread[lanes];
+        for (int i = 0; i < lanes; i++) {
+            workers[i] = new Thread(this::serveLane, "lane-" + (i + 1));
+            workers[i].setDaemon(true);
+            workers[i].start();
+        }
+
+        for (TrafficPattern.Event event : events) {
+            long due = start + event.offsetNanos;
+            long wait;
+            while ((wait = due - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            long lag = System.nanoTime() - due;
+            if (lag > maxDispatchLagNanos) {
+                maxDispatchLagNanos = lag;
+            }
+            queue.add(new Event(event, due));
+            int depth = queue.size();
+            if (depth > maxQueueDepth) {
+                maxQueueDepth = depth;
+            }
+        }
+        for (int i = 0; i < lanes; i++) {
+            queue.add(POISON);
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        return System.nanoTime() - start;
+    }
+
+    private void serveLane() {
+        try {
+            while (true) {
+                Event event = queue.take();
+                if (event == POISON) {
+                    return;
+                }
+                // Lo despachado durante el calentamiento se atiende, pero no se mide.
+                boolean measured = event.scheduledNanos - runStartNanos >= warmupNanos;
+                serve(event, measured);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void serve(Event event, boolean measured) {
+        TrafficPattern.Event traffic = event.traffic;
+        switch (traffic.kind) {
+            case ENTRY: {
+                long start = System.nanoTime();
+                OperationStats.Outcome outcome = call(() -> service.registerVehicleEntry(traffic.plate, traffic.vehicleType, operatorId));
+                record(entries, event, start, outcome, measured);
+                break;
+            }
+            case EXIT: {
+                long start = System.nanoTime();
+                Estancia[] quoted = new Estancia[1];
+                OperationStats.Outcome outcome = call(() -> quoted[0] = service.calculateExitDetails(traffic.plate));
+                record(quotes, event, start, outcome, measured);
+                if (outcome == OperationStats.Outcome.OK) {
+                    long payStart = System.nanoTime();
+                    Estancia estancia = quoted[0];
+                    outcome = call(() -> {
+                        service.finalizeExit(estancia, operatorId, estancia.getAmountToPay(), "Efectivo");
+                        return null;
+                    });
+                    record(exits, event, payStart, outcome, measured);
+                }
+                break;
+            }
+            case LIST: {
+                long start = System.nanoTime();
+                OperationStats.Outcome outcome = call(service::getActiveStays);
+                record(lists, event, start, outcome, measured);
+                break;
+            }
+        }
+    }
+
+    private static void record(OperationStats stats, Event event, long start, OperationStats.Outcome outcome, boolean measured) {
+        if (measured) {
+            stats.record(event.scheduledNanos, start, System.nanoTime(), outcome);
+        }
+    }
+
+    private interface Call {
+        Object run() throws Exception;
+    }
+
+    /**
+     * Las reglas de negocio se reportan con Exception (rechazo); los fallos técnicos, con RuntimeException.
+     */
+    private static OperationStats.Outcome call(Call call) {
+        try {
+            call.run();
+            return OperationStats.Outcome.OK;
+        } catch (RuntimeException e) {
+            return OperationStats.Outcome.FAILED;
+        } catch (Exception e) {
+            return OperationStats.Outcome.REFUSED;
+        }
+    }
+
+    private List<OperationStats> allStats() {
+        return List.of(entries, quotes, exits, lists);
+    }
+
+    /**
+     * Evento ya despachado: lleva el instante (nanoTime) en que debía ocurrir.
+     */
+    private static final class Event {
+        final TrafficPattern.Event traffic;
+        final long scheduledNanos;
+
+        Event(TrafficPattern.Event traffic, long scheduledNanos) {
+            this.traffic = traffic;
+            this.scheduledNanos = scheduledNanos;
+        }
+    }
+
+    /**
+     * Reloj que avanza timeScale veces más rápido que el real a partir del momento en que se crea,
+     * para que estancias de segundos se cobren como estancias de horas.
+     */
+    static final class ScaledClock extends Clock {
+        private final double scale;
+        private final long originMillis = System.currentTimeMillis();
+        private final long originNanos = System.nanoTime();
+        private final ZoneId zone;
+
+        ScaledClock(double scale) {
+            this(scale, ZoneId.systemDefault());
+        }
+
+        private ScaledClock(double scale, ZoneId zone) {
+            this.scale = scale;
+            this.zone = zone;
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return zone;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return new ScaledClock(scale, zone);
+        }
+
+        @Override
+        public long millis() {
+            return originMillis + (long) ((System.nanoTime() - originNanos) * scale / 1_000_000);
+        }
+
+        @Override
+        public Instant instant() {
+            return Instant.ofEpochMilli(millis());
+        }
+    }
+
+    private static Map<String, String> parse(String[] args) {
+        Map<String, String> options = new LinkedHashMap<>();
+        for (String arg : args) {
+            // exec:java pasa -Dload.args como un solo argumento cuando se invoca desde algunos shells.
+            for (String token : arg.trim().split("\\s+")) {
+                if (token.isEmpty()) {
+                    continue;
+                }
+                if (!token.startsWith("--") || !token.contains("=")) {
+                    throw new IllegalArgumentException("Opción no válida: '" + token + "' (use --clave=valor).");
+                }
+                int eq = token.indexOf('=');
+                options.put(token.substring(2, eq), token.substring(eq + 1));
+            }
+        }
+        return options;
+    }
+
+    private static int intOption(Map<String, String> options, String name, int defaultValue) {
+        return options.containsKey(name) ? Integer.parseInt(options.get(name)) : defaultValue;
+    }
+
+    private static double doubleOption(Map<String, String> options, String name, double defaultValue) {
+        return options.containsKey(name) ? Double.parseDouble(options.get(name)) : defaultValue;
+    }
+
+    private static String toJson(Object value) {
+        if (value instanceof Map) {
+            StringBuilder out = new StringBuilder("{");
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                if (out.length() > 1) {
+                    out.append(',');
+                }
+                out.append(toJson(String.valueOf(entry.getKey()))).append(':').append(toJson(entry.getValue()));
+            }
+            return out.append('}').toString();
+        }
+        if (value instanceof Double) {
+            double d = (Double) value;
+            return Double.isFinite(d) ? String.format(Locale.ROOT, "%.4f", d) : "null";
+        }
+        if (value instanceof Number || value instanceof Boolean) {
+            return value.toString();
+        }
+        return '"' + String.valueOf(value).replace("\\", "\\\\").replace("\"", "\\\"") + '"';
+    }
+}
@@ -0,0 +1,148 @@
+package service;
+
+import dao.repository.IEstanciaRepository;
+import dao.repository.IMensualidadRepository;
+import dao.repository.IPagoRepository;
+import dao.repository.ITarifaRepository;
+import dao.repository.IUnitOfWork;
+import model.Estancia;
+import model.FranjaTarifa;
+import model.Mensualidad;
+import model.Operator;
+import model.Pago;
+import model.Tarifa;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Datos y repositorios en memoria para los benchmarks: aíslan la lógica medida de la base de datos.
+ */
+final class BenchmarkFixtures {
+
+    private BenchmarkFixtures() {}
+
+    static Estancia stay(int id, String plate, String vehicleType, String stayType, long entryMillis) {
+        Estancia estancia = new Estancia();
+        estancia.setStay_id(id);
+        estancia.setLicense_plate(plate);
+        estancia.setVehicleType(vehicleType);
+        estancia.setStayType(stayType);
+        estancia.setStatus("INSIDE");
+        estancia.setEntryOperatorId(1);
+        estancia.setEntryDate(new Timestamp(entryMillis));
+        return estancia;
+    }
+
+    static Tarifa rate(int id, String vehicleType) {
+        Tarifa tarifa = new Tarifa();
+        tarifa.setId(id);
+        tarifa.setVehicle_type(vehicleType);
+        tarifa.setDescription("Tarifa " + vehicleType);
+        tarifa.setValuePerHour(3000);
+        tarifa.setValuePerFraction(800);
+        tarifa.setDailyTop(25000);
+        tarifa.setGracePeriodMinutes(30);
+        tarifa.setActive(true);
+        return tarifa;
+    }
+
+    static Operator operator() {
+        return new Operator(1, "operador", "", "Operador de Turno", "operador@crudpark.com", true);
+    }
+
+    /**
+     * Estancias activas fijas, indexadas por placa.
+     */
+    static final class StayRepository implements IEstanciaRepository {
+        private final Map<String, Estancia> byPlate = new HashMap<>();
+
+        StayRepository(List<Estancia> stays) {
+            for (Estancia estancia : stays) {
+                byPlate.put(estancia.getLicense_plate(), estancia);
+            }
+        }
+
+        @Override
+        public Estancia save(Estancia estancia) { return estancia; }
+
+        @Override
+        public Optional<Estancia> registerEntry(Estancia estancia) { return Optional.of(estancia); }
+
+        @Override
+        public Optional<Estancia> findActiveByPlate(String plate) { return Optional.ofNullable(byPlate.get(plate)); }
+
+        @Override
+        public List<Estancia> findAllActive() { return new ArrayList<>(byPlate.values()); }
+
+        @Override
+        public void forEachActive(Consumer<Estancia> consumer) { byPlate.values().forEach(consumer); }
+
+        @Override
+        public Stream<Estancia> streamAllActive() { return findAllActive().stream(); }
+
+        @Override
+        public List<Estancia> findActivePage(Timestamp afterEntryDate, int afterStayId, int limit) {
+            return findAllActive().stream().limit(limit).toList();
+        }
+
+        @Override
+        public boolean update(Estancia estancia) { return true; }
+    }
+
+    static final class RateRepository implements ITarifaRepository {
+        private final Map<String, Tarifa> byVehicleType = new HashMap<>();
+
+        RateRepository(Tarifa... rates) {
+            for (Tarifa tarifa : rates) {
+                byVehicleType.put(tarifa.getVehicle_type(), tarifa);
+            }
+        }
+
+        @Override
+        public Optional<Tarifa> findActiveTariff() { return byVehicleType.values().stream().findFirst(); }
+
+        @Override
+        public Optional<Tarifa> findActiveByVehicleType(String vehicleType) { return Optional.ofNullable(byVehicleType.get(vehicleType)); }
+
+        @Override
+        public List<Tarifa> findAllActive() { return new ArrayList<>(byVehicleType.values()); }
+
+        @Override
+        public String findActiveRatesVersion() { return "benchmark"; }
+
+        @Override
+        public List<FranjaTarifa> findActiveSchedules() { return List.of(); }
+
+        @Override
+        public List<FranjaTarifa> findSchedulesByRate(int rateId) { return List.of(); }
+    }
+
+    static final class NoMemberships implements IMensualidadRepository {
+        @Override
+        public Optional<Boolean> isCurrentlyActive(String plate) { return Optional.of(false); }
+
+        @Override
+        public Optional<Boolean> isActiveAt(String plate, Timestamp instant) { return Optional.of(false); }
+
+        @Override
+        public List<Mensualidad> findModifiedSince(Timestamp since) { return List.of(); }
+    }
+
+    static final class NoPayments implements IPagoRepository {
+        @Override
+        public void save(Pago pago) {}
+    }
+
+    static final class DirectUnitOfWork implements IUnitOfWork {
+        @Override
+        public <T> T execute(Supplier<T> work) { return work.get(); }
+    }
+}
@@ -0,0 +1,73 @@
+package service;
+
+import model.Estancia;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cotización de salida (EstanciaServiceImpl.calculateExitDetails) con la estancia ya en el índice
+ * de ocupación y la tarifa en memoria: mide solo el cálculo y las copias que hace el servicio.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FeeCalculationBenchmark {
+
+    private EstanciaServiceImpl service;
+
+    @Setup
+    public void setUp() throws Exception {
+        long now = System.currentTimeMillis();
+        List<Estancia> stays = List.of(
+                BenchmarkFixtures.stay(1, "GRACE1", "CARRO", "Guest", now - TimeUnit.MINUTES.toMillis(10)),
+                BenchmarkFixtures.stay(2, "HOURS2", "CARRO", "Guest", now - TimeUnit.MINUTES.toMillis(200)),
+                BenchmarkFixtures.stay(3, "DAYS03", "MOTO", "Guest", now - TimeUnit.HOURS.toMillis(30)),
+                BenchmarkFixtures.stay(4, "MEMB04", "CARRO", "Membership", now - TimeUnit.HOURS.toMillis(2)));
+
+        service = new EstanciaServiceImpl(
+                new BenchmarkFixtures.StayRepository(stays),
+                new BenchmarkFixtures.NoMemberships(),
+                new BenchmarkFixtures.RateRepository(BenchmarkFixtures.rate(1, "CARRO"), BenchmarkFixtures.rate(2, "MOTO")),
+                new BenchmarkFixtures.NoPayments(),
+                new BenchmarkFixtures.DirectUnitOfWork());
+
+        // La primera consulta de cada placa la agrega al índice de ocupación.
+        for (Estancia estancia : stays) {
+            service.calculateExitDetails(estancia.getLicense_plate());
+        }
+    }
+
+    @Benchmark
+    public Estancia withinGracePeriod() throws Exception {
+        return service.calculateExitDetails("GRACE1");
+    }
+
+    @Benchmark
+    public Estancia hoursAndFractions() throws Exception {
+        return service.calculateExitDetails("HOURS2");
+    }
+
+    @Benchmark
+    public Estancia cappedByDailyTop() throws Exception {
+        return service.calculateExitDetails("DAYS03");
+    }
+
+    @Benchmark
+    public Estancia membership() throws Exception {
+        return service.calculateExitDetails("MEMB04");
+    }
+}
@@ -0,0 +1,64 @@
+package service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cotización con la tarifa ya compilada (FeeEngine): una estancia suelta y un lote de estancias
+ * con la misma hora de salida, como en los tableros y auditorías.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FeeEngineBenchmark {
+
+    @Param({"5000"})
+    public int batchSize;
+
+    private final FeeEngine feeEngine = new FeeEngine();
+    private FeeEngine.CompiledRate rate;
+    private long exitMillis;
+    private long[] entryMillis;
+    private long[] outCents;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        rate = feeEngine.compile(BenchmarkFixtures.rate(1, "CARRO"));
+        exitMillis = System.currentTimeMillis();
+        entryMillis = new long[batchSize];
+        outCents = new long[batchSize];
+        Random random = new Random(42);
+        for (int i = 0; i < batchSize; i++) {
+            // Estancias de hasta dos días, para cubrir la tabla y el cálculo de estancias largas.
+            entryMillis[i] = exitMillis - (long) (random.nextDouble() * TimeUnit.DAYS.toMillis(2));
+        }
+    }
+
+    @Benchmark
+    public long singleQuote() {
+        int index = next;
+        next = index + 1 == batchSize ? 0 : index + 1;
+        return rate.quote(entryMillis[index], exitMillis);
+    }
+
+    @Benchmark
+    public long batchQuote() {
+        return feeEngine.quoteAll(rate, entryMillis, exitMillis, outCents);
+    }
+}
@@ -0,0 +1,63 @@
+package service;
+
+import dao.repository.OperatorRepository;
+import model.Operator;
+import org.mindrot.jbcrypt.BCrypt;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Inicio de sesión (AuthServiceImpl.login) con el operador en memoria: el costo es la verificación
+ * BCrypt, que depende del factor de costo con el que se generó el hash.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PasswordVerificationBenchmark {
+
+    private static final String EMAIL = "operador@crudpark.com";
+    private static final String PASSWORD = "clave-segura-123";
+
+    @Param({"10", "12"})
+    public int logRounds;
+
+    private AuthServiceImpl authService;
+
+    @Setup
+    public void setUp() {
+        Operator operator = BenchmarkFixtures.operator();
+        operator.setPassword(BCrypt.hashpw(PASSWORD, BCrypt.gensalt(logRounds)));
+        authService = new AuthServiceImpl(new OperatorRepository() {
+            @Override
+            public Optional<Operator> findByUsername(String username) { return Optional.of(operator); }
+
+            @Override
+            public Optional<Operator> findByEmail(String email) { return Optional.of(operator); }
+        });
+    }
+
+    @Benchmark
+    public Optional<Operator> correctPassword() {
+        return authService.login(EMAIL, PASSWORD);
+    }
+
+    @Benchmark
+    public Optional<Operator> wrongPassword() {
+        return authService.login(EMAIL, "clave-incorrecta");
+    }
+}
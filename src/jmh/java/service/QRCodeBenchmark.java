@@ -0,0 +1,42 @@
+package service;
+
+import com.google.zxing.WriterException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Generación del QR del ticket, con el mismo contenido y tamaños que usan los servicios de impresión
+ * (200x200 en la simulación, 100x100 en la impresora térmica).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class QRCodeBenchmark {
+
+    private static final String CONTENT = "TICKET:123456|PLATE:ABC123|DATE:1729200000";
+
+    private final QRCodeServiceImpl qrCodeService = new QRCodeServiceImpl();
+
+    @Benchmark
+    public BufferedImage simulatedTicket() throws WriterException {
+        return qrCodeService.generateQRCodeImage(CONTENT, 200, 200);
+    }
+
+    @Benchmark
+    public BufferedImage thermalTicket() throws WriterException {
+        return qrCodeService.generateQRCodeImage(CONTENT, 100, 100);
+    }
+}
@@ -0,0 +1,56 @@
+package service;
+
+import model.Estancia;
+import model.Operator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Construcción del texto del ticket en la simulación (TicketServiceImpl) y en la impresora
+ * térmica (TicketRenderer), y renderizado completo del ticket térmico, con y sin caché.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class TicketTextBenchmark {
+
+    private final Estancia estancia = BenchmarkFixtures.stay(123456, "ABC123", "CARRO", "Guest", 1_729_200_000_000L);
+    private final Operator operator = BenchmarkFixtures.operator();
+
+    private final TicketServiceImpl simulatedTicket = new TicketServiceImpl();
+    private final TicketRenderer thermalTicket = new TicketRenderer();
+    private final TicketRenderer uncachedRenderer = new TicketRenderer(new QRCodeServiceImpl(), 0);
+
+    @Benchmark
+    public String simulatedTicketText() {
+        return simulatedTicket.buildTicketText(estancia, operator);
+    }
+
+    @Benchmark
+    public String thermalTicketText() {
+        return thermalTicket.buildTicketText(estancia, operator);
+    }
+
+    @Benchmark
+    public BufferedImage thermalTicketRender() throws Exception {
+        return uncachedRenderer.render(estancia, operator);
+    }
+
+    @Benchmark
+    public BufferedImage thermalTicketReprint() throws Exception {
+        return thermalTicket.render(estancia, operator);
+    }
+}
@@ -1,7 +1,12 @@
+import config.ServerConfig;
+import config.StorageConfig;
 import controller.LoginController;
+import server.GateHttpServer;
 import view.LoginView;
 
 import javax.swing.*;
+import java.io.IOException;
+import java.util.Arrays;
 
 /**
  * Main class for the CrudPark Desktop Application.
@@ -11,9 +16,18 @@ public class Main {
 
     /**
      * The main method that starts the application.
-     * @param args Command line arguments (not used).
+     * @param args Command line arguments: --headless starts the gate HTTP API instead of the GUI;
+     *             --in-memory keeps the data in memory instead of PostgreSQL (demo mode).
      */
-    public static void main(String[] args) {
+    public static void main(String[] args) throws IOException {
+        if (Arrays.asList(args).contains("--in-memory")) {
+            StorageConfig.useInMemory();
+        }
+        if (Arrays.asList(args).contains("--headless")) {
+            startHeadless();
+            return;
+        }
+
         // It's a best practice to initialize Swing components on the Event Dispatch Thread (EDT).
         // SwingUtilities.invokeLater ensures that our GUI code runs safely.
 
@@ -29,4 +43,15 @@ public class Main {
             loginView.setVisible(true);
         });
     }
-}
\ No newline at end of file
+
+    /**
+     * Starts the HTTP API for cameras and kiosks, without the GUI. The server's threads keep the
+     * JVM running until it is stopped.
+     */
+    private static void startHeadless() throws IOException {
+        GateHttpServer server = ServerConfig.createServer(StorageConfig.createEstanciaService());
+        server.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> server.stop(2), "crudpark-server-shutdown"));
+        System.out.println("CrudPark API escuchando en el puerto " + server.getPort() + ".");
+    }
+}
@@ -0,0 +1,38 @@
+package config;
+
+import javax.swing.SwingUtilities;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Shared executors of the application.
+ * Blocking work (JDBC, BCrypt, printing) runs on virtual threads, one per task, so it never
+ * blocks the Swing Event Dispatch Thread (EDT); results are handed back to the EDT.
+ */
+public final class AppExecutors {
+
+    private static final ExecutorService VIRTUAL_THREADS = Executors.newVirtualThreadPerTaskExecutor();
+    private static final Executor EDT = SwingUtilities::invokeLater;
+
+    /**
+     * Private constructor to prevent instantiation of this utility class.
+     */
+    private AppExecutors() {}
+
+    /**
+     * Executor that runs each task on a new virtual thread.
+     * @return The shared virtual-thread executor.
+     */
+    public static ExecutorService virtualThreads() {
+        return VIRTUAL_THREADS;
+    }
+
+    /**
+     * Executor that runs each task on the Swing Event Dispatch Thread.
+     * @return An executor backed by SwingUtilities.invokeLater.
+     */
+    public static Executor edt() {
+        return EDT;
+    }
+}
@@ -0,0 +1,349 @@
+package config;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Pool acotado de conexiones JDBC.
+ * Reutiliza las conexiones físicas a PostgreSQL para evitar el handshake TCP y de
+ * autenticación en cada llamada a un repositorio.
+ *
+ * Características:
+ * - Tamaño máximo fijo, con tiempo de espera máximo al pedir una conexión.
+ * - Validación al prestar las conexiones que llevan tiempo ociosas.
+ * - Desalojo de conexiones ociosas por encima del mínimo configurado.
+ * - Detección de fugas (conexiones prestadas que no se devuelven a tiempo), desactivada por
+ *   defecto: guarda la pila de cada préstamo, un costo que solo se justifica al diagnosticar.
+ *   Se activa con db.pool.leakDetectionThresholdMs &gt; 0.
+ * - Estadísticas exportadas mediante {@link PoolStats}.
+ *
+ * Las conexiones entregadas son envoltorios: llamar a close() las devuelve al pool.
+ */
+public class ConnectionPool {
+
+    private final String url;
+    private final String user;
+    private final String password;
+
+    private final int maxSize;
+    private final int minIdle;
+    private final long acquireTimeoutMillis;
+    private final long idleTimeoutMillis;
+    private final long validationIntervalMillis;
+    private final int validationTimeoutSeconds;
+    private final long leakDetectionThresholdMillis;
+
+    private final Semaphore permits;
+    private final Deque<PooledEntry> idle = new ConcurrentLinkedDeque<>();
+    private final Set<PooledEntry> borrowed = ConcurrentHashMap.newKeySet();
+    private final ScheduledExecutorService housekeeper;
+    private volatile boolean closed;
+
+    // --- Estadísticas ---
+    private final long startedAtMillis = System.currentTimeMillis();
+    private final LongAdder created = new LongAdder();
+    private final LongAdder destroyed = new LongAdder();
+    private final LongAdder acquired = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder leaks = new LongAdder();
+    private final LongAdder totalWaitNanos = new LongAdder();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+
+    /**
+     * Crea el pool a partir de las propiedades de conexión (db.url, db.user, db.password)
+     * y de las propiedades opcionales db.pool.*.
+     *
+     * @param properties Las propiedades cargadas desde db.properties.
+     */
+    public ConnectionPool(Properties properties) {
+        this.url = properties.getProperty("db.url");
+        this.user = properties.getProperty("db.user");
+        this.password = properties.getProperty("db.password");
+
+        this.maxSize = intProperty(properties, "db.pool.maxSize", 10);
+        this.minIdle = Math.min(intProperty(properties, "db.pool.minIdle", 2), maxSize);
+        this.acquireTimeoutMillis = longProperty(properties, "db.pool.acquireTimeoutMs", 5_000);
+        this.idleTimeoutMillis = longProperty(properties, "db.pool.idleTimeoutMs", 600_000);
+        this.validationIntervalMillis = longProperty(properties, "db.pool.validationIntervalMs", 500);
+        this.validationTimeoutSeconds = intProperty(properties, "db.pool.validationTimeoutSeconds", 2);
+        this.leakDetectionThresholdMillis = longProperty(properties, "db.pool.leakDetectionThresholdMs", 0);
+
+        this.permits = new Semaphore(maxSize, true);
+        this.housekeeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "crudpark-pool-housekeeper");
+            t.setDaemon(true);
+            return t;
+        });
+        long period = Math.max(1_000, Math.min(idleTimeoutMillis, 30_000));
+        housekeeper.scheduleWithFixedDelay(this::housekeep, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Presta una conexión del pool, esperando como máximo db.pool.acquireTimeoutMs.
+     *
+     * @return Una conexión cuyo close() la devuelve al pool.
+     * @throws SQLException si el pool está cerrado, se agota el tiempo de espera o no se puede abrir una conexión.
+     */
+    public Connection borrow() throws SQLException {
+        if (closed) {
+            throw new SQLException("El pool de conexiones está cerrado.", "08003");
+        }
+
+        long waitStart = System.nanoTime();
+        boolean acquiredPermit;
+        try {
+            acquiredPermit = permits.tryAcquire(acquireTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLTransientConnectionException("Interrumpido esperando una conexión del pool.", "08001", e);
+        }
+        long waited = System.nanoTime() - waitStart;
+        totalWaitNanos.add(waited);
+        maxWaitNanos.accumulateAndGet(waited, Math::max);
+
+        if (!acquiredPermit) {
+            timeouts.increment();
+            throw new SQLTransientConnectionException(
+                    "No hay conexiones disponibles tras " + acquireTimeoutMillis + " ms (activas: " + borrowed.size() + ").", "08001");
+        }
+
+        try {
+            PooledEntry entry = pollValidIdle();
+            if (entry == null) {
+                entry = new PooledEntry(DriverManager.getConnection(url, user, password));
+                created.increment();
+            }
+            entry.borrowedAtMillis = System.currentTimeMillis();
+            entry.borrowSite = leakDetectionThresholdMillis > 0 ? new Throwable("Conexión prestada aquí") : null;
+            entry.leakReported = false;
+            borrowed.add(entry);
+            acquired.increment();
+            return entry.newHandle();
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Devuelve una instantánea de las estadísticas actuales del pool.
+     */
+    public PoolStats getStats() {
+        long acquires = acquired.sum();
+        long uptimeMillis = Math.max(1, System.currentTimeMillis() - startedAtMillis);
+        return new PoolStats(
+                borrowed.size(),
+                idle.size(),
+                maxSize,
+                permits.getQueueLength(),
+                acquires,
+                timeouts.sum(),
+                acquires == 0 ? 0 : totalWaitNanos.sum() / 1_000_000.0 / acquires,
+                TimeUnit.NANOSECONDS.toMillis(maxWaitNanos.get()),
+                created.sum(),
+                destroyed.sum(),
+                created.sum() * 60_000.0 / uptimeMillis,
+                leaks.sum()
+        );
+    }
+
+    /**
+     * Cierra todas las conexiones ociosas y detiene el mantenimiento.
+     * Las conexiones prestadas se cierran físicamente cuando se devuelvan.
+     */
+    public void close() {
+        closed = true;
+        housekeeper.shutdownNow();
+        PooledEntry entry;
+        while ((entry = idle.pollFirst()) != null) {
+            destroy(entry);
+        }
+    }
+
+    // --- Internals ---
+
+    private PooledEntry pollValidIdle() {
+        PooledEntry entry;
+        // LIFO: la conexión usada más recientemente es la que menos probablemente esté caída.
+        while ((entry = idle.pollFirst()) != null) {
+            if (isUsable(entry)) {
+                return entry;
+            }
+            destroy(entry);
+        }
+        return null;
+    }
+
+    private boolean isUsable(PooledEntry entry) {
+        if (System.currentTimeMillis() - entry.returnedAtMillis < validationIntervalMillis) {
+            return true;
+        }
+        try {
+            return entry.physical.isValid(validationTimeoutSeconds);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private void release(PooledEntry entry) {
+        borrowed.remove(entry);
+        boolean healthy = !closed;
+        if (healthy) {
+            try {
+                // Dejar la conexión limpia para el siguiente préstamo.
+                if (!entry.physical.getAutoCommit()) {
+                    entry.physical.rollback();
+                    entry.physical.setAutoCommit(true);
+                }
+                healthy = !entry.physical.isClosed();
+            } catch (SQLException e) {
+                healthy = false;
+            }
+        }
+
+        if (healthy) {
+            entry.returnedAtMillis = System.currentTimeMillis();
+            entry.borrowSite = null;
+            idle.offerFirst(entry);
+        } else {
+            destroy(entry);
+        }
+        permits.release();
+    }
+
+    private void destroy(PooledEntry entry) {
+        destroyed.increment();
+        try {
+            entry.physical.close();
+        } catch (SQLException ignored) {
+            // La conexión ya no es utilizable; no hay nada más que hacer.
+        }
+    }
+
+    private void housekeep() {
+        long now = System.currentTimeMillis();
+
+        // 1. Desalojar conexiones ociosas por encima del mínimo.
+        Iterator<PooledEntry> it = idle.descendingIterator();
+        while (it.hasNext() && idle.size() > minIdle) {
+            PooledEntry entry = it.next();
+            if (now - entry.returnedAtMillis > idleTimeoutMillis && idle.remove(entry)) {
+                destroy(entry);
+            }
+        }
+
+        // 2. Reportar las conexiones prestadas durante demasiado tiempo.
+        if (leakDetectionThresholdMillis > 0) {
+            for (PooledEntry entry : borrowed) {
+                if (!entry.leakReported && now - entry.borrowedAtMillis > leakDetectionThresholdMillis) {
+                    entry.leakReported = true;
+                    leaks.increment();
+                    System.err.println("Posible fuga de conexión: prestada hace " + (now - entry.borrowedAtMillis) + " ms.");
+                    Throwable site = entry.borrowSite;
+                    if (site != null) {
+                        site.printStackTrace();
+                    }
+                }
+            }
+        }
+    }
+
+    private static int intProperty(Properties properties, String key, int defaultValue) {
+        String value = properties.getProperty(key);
+        return value == null ? defaultValue : Integer.parseInt(value.trim());
+    }
+
+    private static long longProperty(Properties properties, String key, long defaultValue) {
+        String value = properties.getProperty(key);
+        return value == null ? defaultValue : Long.parseLong(value.trim());
+    }
+
+    /**
+     * Conexión física administrada por el pool.
+     */
+    private final class PooledEntry {
+        private final Connection physical;
+        private volatile long borrowedAtMillis;
+        private volatile long returnedAtMillis;
+        private volatile Throwable borrowSite;
+        private volatile boolean leakReported;
+
+        private PooledEntry(Connection physical) {
+            this.physical = physical;
+        }
+
+        private Connection newHandle() {
+            return (Connection) Proxy.newProxyInstance(
+                    ConnectionPool.class.getClassLoader(),
+                    new Class<?>[]{Connection.class},
+                    new Handle(this));
+        }
+    }
+
+    /**
+     * Envoltorio entregado a los repositorios: intercepta close() para devolver la
+     * conexión al pool en lugar de cerrarla. Cada préstamo recibe su propio Handle,
+     * de modo que un close() repetido o el uso tras close() no afectan al siguiente usuario.
+     */
+    private final class Handle implements InvocationHandler {
+        private final PooledEntry entry;
+        private boolean logicallyClosed;
+
+        private Handle(PooledEntry entry) {
+            this.entry = entry;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!logicallyClosed) {
+                        logicallyClosed = true;
+                        release(entry);
+                    }
+                    return null;
+                case "isClosed":
+                    return logicallyClosed || entry.physical.isClosed();
+                case "unwrap":
+                    if (((Class<?>) args[0]).isInstance(entry.physical)) {
+                        return entry.physical;
+                    }
+                    break;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "PooledConnection[" + entry.physical + "]";
+                default:
+                    break;
+            }
+            if (logicallyClosed) {
+                throw new SQLException("La conexión ya fue devuelta al pool.", "08003");
+            }
+            try {
+                return method.invoke(entry.physical, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
@@ -1,20 +1,39 @@
 package config;
 
+import metrics.JdbcInstrumentation;
+import metrics.MBeans;
+import metrics.QueryTimer;
+import metrics.RepositoryMetrics;
+
 import java.io.InputStream;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Properties;
 
 /**
  * Utility class for managing the database connection.
  * It reads configuration from a properties file and provides a static method
  * to get a connection to the PostgreSQL database.
+ * Connections are served from a bounded {@link ConnectionPool}; closing them returns
+ * them to the pool instead of closing the physical connection.
+ * Unless db.metrics.enabled=false, connections and repositories are instrumented and their
+ * statistics are published over JMX (see {@link DatabaseMetricsMXBean} and {@link #instrument(Class, Object)}).
+ *
+ * Writes and reads that must see the latest data use {@link #getConnection()}, which always goes to
+ * the primary (db.url). Reads that tolerate a little staleness use {@link #getReadConnection()},
+ * which is served by the read replicas listed in db.replicas, if any (see {@link ReadRouter}).
  */
 public class DatabaseConnection {
 
     private static final Properties properties = new Properties();
 
+    // Connection of the transaction (unit of work) active on the current thread, if any.
+    private static final ThreadLocal<Connection> transactionConnection = new ThreadLocal<>();
+
     // Static block to load the database configuration when the class is initialized.
     static {
         try (InputStream input = DatabaseConnection.class.getClassLoader().getResourceAsStream("db.properties")) {
@@ -27,6 +46,77 @@ public class DatabaseConnection {
         } catch (Exception e) {
             e.printStackTrace();
         }
+        QueryTimer.setSlowQueryThresholdMillis(Long.parseLong(properties.getProperty("db.slowQueryMs", "200").trim()));
+    }
+
+    /**
+     * Lazily-initialized holder so the pool is only created on first use.
+     */
+    private static final class PoolHolder {
+        private static final ConnectionPool POOL = createPool();
+
+        private static ConnectionPool createPool() {
+            ConnectionPool pool = new ConnectionPool(properties);
+            Runtime.getRuntime().addShutdownHook(new Thread(pool::close, "crudpark-pool-shutdown"));
+            if (isMetricsEnabled()) {
+                MBeans.register("crudpark:type=Database", new DatabaseMetrics(pool));
+            }
+            return pool;
+        }
+    }
+
+    /**
+     * Lazily-initialized holder for the read replicas, created on the first connection request.
+     * ROUTER is null when db.replicas is not set.
+     */
+    private static final class ReplicaHolder {
+        private static final ReadRouter ROUTER = createRouter();
+
+        private static ReadRouter createRouter() {
+            String names = properties.getProperty("db.replicas", "").trim();
+            if (names.isEmpty()) {
+                return null;
+            }
+            List<DatabaseNode> replicas = new ArrayList<>();
+            for (String name : names.split(",")) {
+                Properties replicaProperties = replicaProperties(name.trim());
+                ConnectionPool pool = new ConnectionPool(replicaProperties);
+                Runtime.getRuntime().addShutdownHook(new Thread(pool::close, "crudpark-pool-shutdown"));
+                replicas.add(DatabaseNode.replica(name.trim(), replicaProperties.getProperty("db.url"), pool));
+            }
+            ReadRouter router = new ReadRouter(DatabaseNode.primary(properties.getProperty("db.url"), PoolHolder.POOL), replicas,
+                    Long.parseLong(properties.getProperty("db.replicas.maxLagMs", "1000").trim()));
+            if (isMetricsEnabled()) {
+                MBeans.register("crudpark:type=DatabaseNode,name=" + DatabaseNode.PRIMARY, router.getPrimary());
+                for (DatabaseNode replica : replicas) {
+                    MBeans.register("crudpark:type=DatabaseNode,name=" + replica.getName(), replica);
+                }
+            }
+            router.start(Long.parseLong(properties.getProperty("db.replicas.checkIntervalMs", "1000").trim()));
+            return router;
+        }
+
+        /**
+         * The primary's properties, overridden by db.replica.&lt;name&gt;.* (e.g. db.replica.r1.url
+         * replaces db.url and db.replica.r1.pool.maxSize replaces db.pool.maxSize).
+         */
+        private static Properties replicaProperties(String name) {
+            if (DatabaseNode.PRIMARY.equals(name)) {
+                throw new IllegalArgumentException("Nombre de réplica reservado: " + name);
+            }
+            String prefix = "db.replica." + name + ".";
+            if (properties.getProperty(prefix + "url") == null) {
+                throw new IllegalArgumentException("Falta " + prefix + "url para la réplica " + name);
+            }
+            Properties replicaProperties = new Properties();
+            replicaProperties.putAll(properties);
+            for (String key : properties.stringPropertyNames()) {
+                if (key.startsWith(prefix)) {
+                    replicaProperties.setProperty("db." + key.substring(prefix.length()), properties.getProperty(key));
+                }
+            }
+            return replicaProperties;
+        }
     }
 
     /**
@@ -35,17 +125,170 @@ public class DatabaseConnection {
     private DatabaseConnection() {}
 
     /**
-     * Establishes and returns a connection to the database.
-     * It uses the properties loaded from the config.properties file.
+     * Borrows a connection to the database from the pool.
+     * It uses the properties loaded from the db.properties file.
      *
-     * @return A Connection object to the database.
-     * @throws SQLException if a database access error occurs.
+     * @return A Connection object to the database. Closing it returns it to the pool.
+     * @throws SQLException if a database access error occurs or no connection is available in time.
      */
     public static Connection getConnection() throws SQLException {
-        return DriverManager.getConnection(
-                properties.getProperty("db.url"),
-                properties.getProperty("db.user"),
-                properties.getProperty("db.password")
-        );
+        Connection bound = transactionConnection.get();
+        if (bound != null) {
+            // Inside a unit of work: every repository call shares the transaction's connection.
+            // It was instrumented when it was borrowed, so it is not wrapped again.
+            return nonClosing(bound);
+        }
+        return borrow(PoolHolder.POOL, DatabaseNode.PRIMARY);
+    }
+
+    /**
+     * Borrows a connection for a read that tolerates replication lag (dashboards, reports, lookups
+     * of data that rarely changes). It is served by a read replica when one is configured in
+     * db.replicas, is healthy and is at most db.replicas.maxLagMs behind; otherwise it goes to the
+     * primary. Recent writes do not change that: a read that must see the application's own writes
+     * (e.g. the active stay of a plate at the gate) uses {@link #getConnection()} instead.
+     * Inside a unit of work it returns the transaction's connection.
+     *
+     * @return A connection for reading. Closing it returns it to its pool.
+     * @throws SQLException if no connection is available in time, not even on the primary.
+     */
+    public static Connection getReadConnection() throws SQLException {
+        Connection bound = transactionConnection.get();
+        if (bound != null) {
+            return nonClosing(bound);
+        }
+        ReadRouter router = ReplicaHolder.ROUTER;
+        if (router == null) {
+            return borrow(PoolHolder.POOL, DatabaseNode.PRIMARY);
+        }
+        DatabaseNode primary = router.getPrimary();
+        for (DatabaseNode replica : router.candidates()) {
+            try {
+                Connection connection = borrow(replica.getConnectionPool(), replica.getName());
+                replica.recordRead();
+                return connection;
+            } catch (SQLException e) {
+                router.markFailed(replica, e);
+            }
+        }
+        primary.recordFallback();
+        primary.recordRead();
+        return borrow(PoolHolder.POOL, DatabaseNode.PRIMARY);
+    }
+
+    private static Connection borrow(ConnectionPool pool, String node) throws SQLException {
+        if (!isMetricsEnabled()) {
+            return pool.borrow();
+        }
+        long start = System.nanoTime();
+        Connection connection;
+        try {
+            connection = pool.borrow();
+        } finally {
+            // Timeouts are recorded too: waiting for the pool is connect time even if it fails.
+            QueryTimer.recordConnect(System.nanoTime() - start);
+        }
+        return JdbcInstrumentation.instrument(connection, node);
+    }
+
+    /**
+     * Wraps a repository so that the latency of its calls (split into connect, execute and map),
+     * its errors and its slow queries are measured and published over JMX.
+     * Configured with db.metrics.enabled (true by default).
+     *
+     * @param type The repository interface, e.g. IEstanciaRepository.class.
+     * @param repository The implementation.
+     * @return The instrumented repository, or the same one if metrics are disabled.
+     */
+    public static <T> T instrument(Class<T> type, T repository) {
+        return isMetricsEnabled() ? RepositoryMetrics.instrument(type, repository) : repository;
+    }
+
+    /**
+     * Whether connections and repositories are instrumented. Configured with db.metrics.enabled (true by default).
+     * @return true if the metrics are collected.
+     */
+    public static boolean isMetricsEnabled() {
+        return Boolean.parseBoolean(properties.getProperty("db.metrics.enabled", "true").trim());
+    }
+
+    /**
+     * Binds a connection to the current thread so that {@link #getConnection()} returns it
+     * until {@link #unbindTransaction()} is called. Used by the unit of work implementation.
+     * @param connection The connection holding the open transaction.
+     */
+    public static void bindTransaction(Connection connection) {
+        transactionConnection.set(connection);
+    }
+
+    /**
+     * Removes the connection bound to the current thread by {@link #bindTransaction(Connection)}.
+     */
+    public static void unbindTransaction() {
+        transactionConnection.remove();
+    }
+
+    /**
+     * Checks whether a transaction connection is bound to the current thread.
+     * @return true if the current thread is inside a unit of work.
+     */
+    public static boolean isTransactionActive() {
+        return transactionConnection.get() != null;
+    }
+
+    /**
+     * Wraps the transaction's connection so the repositories' try-with-resources blocks
+     * do not close it (or return it to the pool) before the unit of work finishes.
+     */
+    private static Connection nonClosing(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(
+                DatabaseConnection.class.getClassLoader(),
+                new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    if ("close".equals(method.getName())) {
+                        return null;
+                    }
+                    try {
+                        return method.invoke(connection, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+    }
+
+    /**
+     * Number of rows fetched per round trip by queries that read large results with a cursor.
+     * Configured with db.fetchSize (500 by default).
+     * @return The fetch size.
+     */
+    public static int getFetchSize() {
+        return Integer.parseInt(properties.getProperty("db.fetchSize", "500").trim());
+    }
+
+    /**
+     * Maximum time a vehicle entry waits for concurrent entries to share its INSERT (group commit).
+     * Configured with db.groupCommit.windowMs (2 by default).
+     * @return The window in milliseconds.
+     */
+    public static int getGroupCommitWindowMillis() {
+        return Integer.parseInt(properties.getProperty("db.groupCommit.windowMs", "2").trim());
+    }
+
+    /**
+     * Maximum number of vehicle entries inserted by one statement.
+     * Configured with db.groupCommit.maxBatchSize (64 by default).
+     * @return The batch size.
+     */
+    public static int getGroupCommitMaxBatchSize() {
+        return Integer.parseInt(properties.getProperty("db.groupCommit.maxBatchSize", "64").trim());
+    }
+
+    /**
+     * Returns a snapshot of the primary's connection pool statistics (active, idle, wait time, creation rate...).
+     * The replicas' pools are published over JMX as crudpark:type=DatabaseNode,name=&lt;replica&gt;.
+     * @return The current pool statistics.
+     */
+    public static PoolStats getPoolStats() {
+        return PoolHolder.POOL.getStats();
     }
 }
@@ -0,0 +1,112 @@
+package config;
+
+import metrics.LatencyHistogram;
+import metrics.QueryTimer;
+import metrics.SlowQuery;
+
+import java.util.List;
+
+/**
+ * Implementación de {@link DatabaseMetricsMXBean} sobre {@link DatabaseConnection} y {@link QueryTimer}.
+ */
+class DatabaseMetrics implements DatabaseMetricsMXBean {
+
+    private final ConnectionPool pool;
+
+    DatabaseMetrics(ConnectionPool pool) {
+        this.pool = pool;
+    }
+
+    @Override
+    public PoolStats getPool() {
+        return pool.getStats();
+    }
+
+    @Override
+    public long getConnectCount() {
+        return connects().getCount();
+    }
+
+    @Override
+    public double getConnectMeanMillis() {
+        return connects().getMeanNanos() / 1e6;
+    }
+
+    @Override
+    public double getConnectP99Millis() {
+        return connects().percentileMillis(0.99);
+    }
+
+    @Override
+    public double getConnectMaxMillis() {
+        return connects().getMaxNanos() / 1e6;
+    }
+
+    @Override
+    public long getStatementCount() {
+        return statements().getCount();
+    }
+
+    @Override
+    public long getStatementErrors() {
+        return QueryTimer.getStatementErrorCount();
+    }
+
+    @Override
+    public double getStatementMeanMillis() {
+        return statements().getMeanNanos() / 1e6;
+    }
+
+    @Override
+    public double getStatementP50Millis() {
+        return statements().percentileMillis(0.50);
+    }
+
+    @Override
+    public double getStatementP99Millis() {
+        return statements().percentileMillis(0.99);
+    }
+
+    @Override
+    public double getStatementP999Millis() {
+        return statements().percentileMillis(0.999);
+    }
+
+    @Override
+    public double getStatementMaxMillis() {
+        return statements().getMaxNanos() / 1e6;
+    }
+
+    @Override
+    public long getSlowQueryThresholdMillis() {
+        return QueryTimer.getSlowQueryThresholdMillis();
+    }
+
+    @Override
+    public void setSlowQueryThresholdMillis(long millis) {
+        QueryTimer.setSlowQueryThresholdMillis(millis);
+    }
+
+    @Override
+    public long getSlowQueryCount() {
+        return QueryTimer.getSlowQueryCount();
+    }
+
+    @Override
+    public List<SlowQuery> getSlowQueries() {
+        return QueryTimer.getSlowQueries();
+    }
+
+    @Override
+    public void clearSlowQueries() {
+        QueryTimer.clearSlowQueries();
+    }
+
+    private static LatencyHistogram.Snapshot connects() {
+        return QueryTimer.getConnectLatency();
+    }
+
+    private static LatencyHistogram.Snapshot statements() {
+        return QueryTimer.getStatementLatency();
+    }
+}
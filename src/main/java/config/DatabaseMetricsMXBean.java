@@ -0,0 +1,40 @@
+package config;
+
+import metrics.SlowQuery;
+
+import java.util.List;
+
+/**
+ * Vista JMX de la base de datos, registrada como crudpark:type=Database: el pool de conexiones,
+ * la latencia de obtener conexiones y de ejecutar sentencias, y las consultas lentas.
+ */
+public interface DatabaseMetricsMXBean {
+
+    /** Estadísticas del pool de conexiones. */
+    PoolStats getPool();
+
+    long getConnectCount();
+    double getConnectMeanMillis();
+    double getConnectP99Millis();
+    double getConnectMaxMillis();
+
+    /** Sentencias ejecutadas, incluidos los commit y rollback. */
+    long getStatementCount();
+    /** Sentencias que lanzaron una excepción. */
+    long getStatementErrors();
+    double getStatementMeanMillis();
+    double getStatementP50Millis();
+    double getStatementP99Millis();
+    double getStatementP999Millis();
+    double getStatementMaxMillis();
+
+    /** Las sentencias que tardan al menos este tiempo se registran como consultas lentas. */
+    long getSlowQueryThresholdMillis();
+    void setSlowQueryThresholdMillis(long millis);
+
+    /** Consultas lentas desde el arranque. */
+    long getSlowQueryCount();
+    /** Las consultas lentas más recientes (hasta 100), de la más antigua a la más nueva. */
+    List<SlowQuery> getSlowQueries();
+    void clearSlowQueries();
+}
@@ -0,0 +1,106 @@
+package config;
+
+import metrics.LatencyHistogram;
+import metrics.QueryTimer;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Un nodo de la base de datos (la primaria o una réplica de lectura) con su pool, su estado según la
+ * última verificación y sus contadores. Lo usa {@link ReadRouter} y se publica por JMX.
+ */
+final class DatabaseNode implements DatabaseNodeMXBean {
+
+    static final String PRIMARY = "primary";
+
+    private final String name;
+    private final boolean replica;
+    private final String url;
+    private final ConnectionPool pool;
+
+    // Las réplicas empiezan fuera de servicio hasta que la primera verificación mide su retraso.
+    private volatile boolean healthy;
+    private volatile long replicationLagMillis;
+    private volatile String lastError;
+
+    private final LongAdder reads = new LongAdder();
+    private final LongAdder fallbacks = new LongAdder();
+
+    private DatabaseNode(String name, boolean replica, String url, ConnectionPool pool) {
+        this.name = name;
+        this.replica = replica;
+        this.url = url;
+        this.pool = pool;
+        this.healthy = !replica;
+    }
+
+    static DatabaseNode primary(String url, ConnectionPool pool) {
+        return new DatabaseNode(PRIMARY, false, url, pool);
+    }
+
+    static DatabaseNode replica(String name, String url, ConnectionPool pool) {
+        return new DatabaseNode(name, true, url, pool);
+    }
+
+    ConnectionPool getConnectionPool() {
+        return pool;
+    }
+
+    void recordCheck(long lagMillis) {
+        replicationLagMillis = lagMillis;
+        healthy = true;
+    }
+
+    void recordFailure(Exception e) {
+        healthy = false;
+        lastError = e.toString();
+    }
+
+    void recordRead() {
+        reads.increment();
+    }
+
+    void recordFallback() {
+        fallbacks.increment();
+    }
+
+    @Override
+    public String getName() { return name; }
+
+    @Override
+    public String getRole() { return replica ? "replica" : PRIMARY; }
+
+    @Override
+    public String getUrl() { return url; }
+
+    @Override
+    public boolean isHealthy() { return healthy; }
+
+    @Override
+    public long getReplicationLagMillis() { return replicationLagMillis; }
+
+    @Override
+    public long getReadCount() { return reads.sum(); }
+
+    @Override
+    public long getFallbackCount() { return fallbacks.sum(); }
+
+    @Override
+    public long getStatementCount() { return statements().getCount(); }
+
+    @Override
+    public double getStatementMeanMillis() { return statements().getMeanNanos() / 1e6; }
+
+    @Override
+    public double getStatementP99Millis() { return statements().percentileMillis(0.99); }
+
+    @Override
+    public String getLastError() { return lastError; }
+
+    @Override
+    public PoolStats getPool() { return pool.getStats(); }
+
+    private LatencyHistogram.Snapshot statements() {
+        return QueryTimer.getStatementLatency(name);
+    }
+}
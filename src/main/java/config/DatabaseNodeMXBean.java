@@ -0,0 +1,43 @@
+package config;
+
+/**
+ * Vista JMX de un nodo de la base de datos cuando hay réplicas de lectura configuradas, registrada
+ * como crudpark:type=DatabaseNode,name=&lt;nodo&gt; (name=primary para la primaria).
+ */
+public interface DatabaseNodeMXBean {
+
+    /** "primary" o el nombre de la réplica en db.replicas. */
+    String getName();
+
+    /** "primary" o "replica". */
+    String getRole();
+
+    /** URL JDBC del nodo. */
+    String getUrl();
+
+    /** Si la última verificación respondió (la primaria siempre se considera disponible). */
+    boolean isHealthy();
+
+    /** Retraso de replicación medido en la última verificación (0 en la primaria). */
+    long getReplicationLagMillis();
+
+    /** Lecturas tolerantes (getReadConnection) que atendió este nodo, incluidas las de respaldo en la primaria. */
+    long getReadCount();
+
+    /**
+     * En una réplica: lecturas que no pudo atender (caída, retraso o error al conectar).
+     * En la primaria: lecturas tolerantes que atendió porque ninguna réplica estaba disponible.
+     */
+    long getFallbackCount();
+
+    /** Sentencias ejecutadas en este nodo (con las métricas activas). */
+    long getStatementCount();
+    double getStatementMeanMillis();
+    double getStatementP99Millis();
+
+    /** El último error de conexión o de verificación, o null. */
+    String getLastError();
+
+    /** Estadísticas del pool de conexiones del nodo. */
+    PoolStats getPool();
+}
@@ -0,0 +1,101 @@
+package config;
+
+import dao.implementation.GateJournal;
+import dao.implementation.JournalReplayer;
+import dao.repository.IGateJournal;
+
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Properties;
+
+/**
+ * Configuración del journal local de eventos de la portería, leída de journal.properties (opcional).
+ *
+ * Si la base de datos no responde, los ingresos y salidas se guardan en el journal y
+ * {@link JournalReplayer} los envía a la base de datos cuando vuelve. El journal está
+ * activo por defecto; journal.enabled=false lo desactiva.
+ */
+public class JournalConfig {
+
+    private static final Properties properties = new Properties();
+
+    static {
+        try (InputStream input = JournalConfig.class.getClassLoader().getResourceAsStream("journal.properties")) {
+            if (input != null) {
+                properties.load(input);
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Se crea solo la primera vez que se usa, como el pool de conexiones.
+     */
+    private static final class JournalHolder {
+        private static final GateJournal JOURNAL = openJournal();
+        private static final JournalReplayer REPLAYER = JOURNAL == null ? null : startReplayer(JOURNAL);
+
+        private static GateJournal openJournal() {
+            try {
+                return new GateJournal(getDirectory(), getInt("journal.segmentSizeKb", 8192) * 1024,
+                        Boolean.parseBoolean(get("journal.sync", "false")));
+            } catch (UncheckedIOException e) {
+                // Sin journal la aplicación funciona como antes: depende de la base de datos.
+                e.printStackTrace();
+                return null;
+            }
+        }
+
+        private static JournalReplayer startReplayer(GateJournal journal) {
+            JournalReplayer replayer = new JournalReplayer(journal, getInt("journal.batchSize", 200),
+                    getInt("journal.replayIntervalMs", 1_000), getInt("journal.maxBackoffMs", 30_000));
+            replayer.start();
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                replayer.stop();
+                journal.close();
+            }, "crudpark-journal-shutdown"));
+            return replayer;
+        }
+    }
+
+    private JournalConfig() {}
+
+    /**
+     * Indica si el journal está habilitado (journal.enabled, true por defecto).
+     */
+    public static boolean isEnabled() {
+        return Boolean.parseBoolean(get("journal.enabled", "true"));
+    }
+
+    /**
+     * Devuelve el journal de la aplicación, abriéndolo (y arrancando su reproductor) la primera vez.
+     * @return El journal, o null si está deshabilitado o no se pudo abrir.
+     */
+    public static IGateJournal getJournal() {
+        return isEnabled() ? JournalHolder.JOURNAL : null;
+    }
+
+    /**
+     * Devuelve el reproductor del journal (para consultar sus estadísticas).
+     * @return El reproductor, o null si el journal está deshabilitado o no se pudo abrir.
+     */
+    public static JournalReplayer getReplayer() {
+        return isEnabled() ? JournalHolder.REPLAYER : null;
+    }
+
+    /** Directorio de los segmentos del journal. */
+    public static Path getDirectory() {
+        return Paths.get(get("journal.dir", Paths.get(System.getProperty("user.home"), ".crudpark", "journal").toString()));
+    }
+
+    static String get(String key, String defaultValue) {
+        return properties.getProperty(key, defaultValue).trim();
+    }
+
+    static int getInt(String key, int defaultValue) {
+        return Integer.parseInt(get(key, String.valueOf(defaultValue)));
+    }
+}
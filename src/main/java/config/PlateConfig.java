@@ -0,0 +1,81 @@
+package config;
+
+import plate.PlateCodec;
+import plate.PlateFormat;
+import plate.PlateValidator;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * Formatos de placa aceptados en la portería, leídos de plate.properties (opcional).
+ *
+ * plate.formats lista los formatos separados por coma, el principal primero (sus mensajes son los
+ * que ve el operador): legacy (por defecto: 6 a 10 letras y dígitos, máximo 4 letras), colombia,
+ * o uno definido en el mismo archivo con (minLength es obligatorio; maxLength es 10 por defecto):
+ * <pre>
+ * plate.format.&lt;nombre&gt;.minLength=6
+ * plate.format.&lt;nombre&gt;.maxLength=7
+ * plate.format.&lt;nombre&gt;.maxLetters=3
+ * plate.format.&lt;nombre&gt;.patterns=LLLDDDD,LLDDDDD   # L = letra, D = dígito, A = cualquiera
+ * </pre>
+ */
+public class PlateConfig {
+
+    private static final Properties properties = new Properties();
+
+    static {
+        try (InputStream input = PlateConfig.class.getClassLoader().getResourceAsStream("plate.properties")) {
+            if (input != null) {
+                properties.load(input);
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Lazily-initialized holder: los formatos se leen una sola vez.
+     */
+    private static final class Holder {
+        private static final PlateValidator VALIDATOR = new PlateValidator(readFormats());
+    }
+
+    private PlateConfig() {}
+
+    /**
+     * @return El validador con los formatos configurados.
+     */
+    public static PlateValidator getValidator() {
+        return Holder.VALIDATOR;
+    }
+
+    private static List<PlateFormat> readFormats() {
+        List<PlateFormat> formats = new ArrayList<>();
+        for (String name : properties.getProperty("plate.formats", "legacy").split(",")) {
+            formats.add(formatNamed(name.trim()));
+        }
+        return formats;
+    }
+
+    private static PlateFormat formatNamed(String name) {
+        String prefix = "plate.format." + name + ".";
+        if (properties.getProperty(prefix + "minLength") == null) {
+            if (PlateFormat.LEGACY.getName().equals(name)) {
+                return PlateFormat.LEGACY;
+            }
+            if (PlateFormat.COLOMBIA.getName().equals(name)) {
+                return PlateFormat.COLOMBIA;
+            }
+            throw new IllegalArgumentException("Formato de placa desconocido: " + name);
+        }
+        String patterns = properties.getProperty(prefix + "patterns", "").trim();
+        return new PlateFormat(name,
+                Integer.parseInt(properties.getProperty(prefix + "minLength").trim()),
+                Integer.parseInt(properties.getProperty(prefix + "maxLength", String.valueOf(PlateCodec.MAX_LENGTH)).trim()),
+                Integer.parseInt(properties.getProperty(prefix + "maxLetters", "10").trim()),
+                patterns.isEmpty() ? new String[0] : patterns.split("\\s*,\\s*"));
+    }
+}
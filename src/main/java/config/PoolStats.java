@@ -0,0 +1,77 @@
+package config;
+
+import java.beans.ConstructorProperties;
+
+/**
+ * Instantánea inmutable de las estadísticas del {@link ConnectionPool}.
+ */
+public class PoolStats {
+
+    private final int active;
+    private final int idle;
+    private final int maxSize;
+    private final int waitingThreads;
+    private final long acquireCount;
+    private final long timeoutCount;
+    private final double averageWaitMillis;
+    private final long maxWaitMillis;
+    private final long createdCount;
+    private final long destroyedCount;
+    private final double creationRatePerMinute;
+    private final long leakCount;
+
+    @ConstructorProperties({"active", "idle", "maxSize", "waitingThreads", "acquireCount", "timeoutCount",
+            "averageWaitMillis", "maxWaitMillis", "createdCount", "destroyedCount", "creationRatePerMinute", "leakCount"})
+    public PoolStats(int active, int idle, int maxSize, int waitingThreads,
+                     long acquireCount, long timeoutCount, double averageWaitMillis, long maxWaitMillis,
+                     long createdCount, long destroyedCount, double creationRatePerMinute, long leakCount) {
+        this.active = active;
+        this.idle = idle;
+        this.maxSize = maxSize;
+        this.waitingThreads = waitingThreads;
+        this.acquireCount = acquireCount;
+        this.timeoutCount = timeoutCount;
+        this.averageWaitMillis = averageWaitMillis;
+        this.maxWaitMillis = maxWaitMillis;
+        this.createdCount = createdCount;
+        this.destroyedCount = destroyedCount;
+        this.creationRatePerMinute = creationRatePerMinute;
+        this.leakCount = leakCount;
+    }
+
+    /** Conexiones prestadas en este momento. */
+    public int getActive() { return active; }
+    /** Conexiones abiertas esperando ser prestadas. */
+    public int getIdle() { return idle; }
+    public int getMaxSize() { return maxSize; }
+    /** Hilos bloqueados esperando una conexión. */
+    public int getWaitingThreads() { return waitingThreads; }
+    public long getAcquireCount() { return acquireCount; }
+    public long getTimeoutCount() { return timeoutCount; }
+    public double getAverageWaitMillis() { return averageWaitMillis; }
+    public long getMaxWaitMillis() { return maxWaitMillis; }
+    /** Conexiones físicas abiertas desde el arranque. */
+    public long getCreatedCount() { return createdCount; }
+    public long getDestroyedCount() { return destroyedCount; }
+    /** Conexiones físicas creadas por minuto, en promedio desde el arranque. */
+    public double getCreationRatePerMinute() { return creationRatePerMinute; }
+    public long getLeakCount() { return leakCount; }
+
+    @Override
+    public String toString() {
+        return "PoolStats{" +
+                "active=" + active +
+                ", idle=" + idle +
+                ", maxSize=" + maxSize +
+                ", waitingThreads=" + waitingThreads +
+                ", acquireCount=" + acquireCount +
+                ", timeoutCount=" + timeoutCount +
+                ", averageWaitMillis=" + String.format("%.3f", averageWaitMillis) +
+                ", maxWaitMillis=" + maxWaitMillis +
+                ", createdCount=" + createdCount +
+                ", destroyedCount=" + destroyedCount +
+                ", creationRatePerMinute=" + String.format("%.2f", creationRatePerMinute) +
+                ", leakCount=" + leakCount +
+                '}';
+    }
+}
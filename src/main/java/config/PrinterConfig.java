@@ -0,0 +1,131 @@
+package config;
+
+import dao.repository.IPrinterSink;
+import service.EscPosTicketPrinterServiceImpl;
+import service.FilePrinterSink;
+import service.PrintServiceSink;
+import service.PrintSpooler;
+import service.SocketPrinterSink;
+import service.TicketRenderer;
+
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Properties;
+
+/**
+ * Configuración de la impresora térmica, leída de printer.properties (opcional).
+ *
+ * printer.sink elige el destino de los comandos ESC/POS:
+ * - printservice: una impresora instalada en el sistema (printer.name, o la predeterminada).
+ * - socket: una impresora de red (printer.host, printer.port = 9100).
+ * - file: un archivo o dispositivo (printer.file).
+ * Sin printer.sink, la aplicación imprime con el diálogo de impresión del sistema.
+ *
+ * Con una impresora configurada, los tickets pasan por una única {@link PrintSpooler}
+ * compartida por toda la aplicación (ver {@link #getSpooler()}).
+ */
+public class PrinterConfig {
+
+    private static final Properties properties = new Properties();
+
+    static {
+        try (InputStream input = PrinterConfig.class.getClassLoader().getResourceAsStream("printer.properties")) {
+            if (input != null) {
+                properties.load(input);
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Se crea solo la primera vez que se usa, como el pool de conexiones.
+     */
+    private static final class SpoolerHolder {
+        private static final PrintSpooler SPOOLER = createSpooler();
+
+        private static PrintSpooler createSpooler() {
+            PrintSpooler spooler = new PrintSpooler(getSpoolFile(), getInt("printer.queueCapacity", 50),
+                    getInt("printer.maxAttempts", 5), getInt("printer.attemptTimeoutMs", 10_000),
+                    getInt("printer.retryBackoffMs", 1_000), getInt("printer.maxBackoffMs", 30_000),
+                    AppExecutors.virtualThreads(), AppExecutors.edt());
+            spooler.registerPrinter(getPrinterId(),
+                    new EscPosTicketPrinterServiceImpl(new TicketRenderer(), createSink(), getFeedLines(), isCutEnabled()));
+            Runtime.getRuntime().addShutdownHook(new Thread(spooler::shutdown, "crudpark-spooler-shutdown"));
+            return spooler;
+        }
+    }
+
+    private PrinterConfig() {}
+
+    /**
+     * Devuelve la cola de impresión de la impresora configurada, creándola (y volviendo a encolar
+     * los trabajos pendientes de la ejecución anterior) la primera vez.
+     * @throws IllegalStateException si no hay una impresora configurada.
+     */
+    public static PrintSpooler getSpooler() {
+        if (!isDirectPrintingConfigured()) {
+            throw new IllegalStateException("No hay una impresora configurada en printer.properties.");
+        }
+        return SpoolerHolder.SPOOLER;
+    }
+
+    /** Identificador de la impresora en la cola (se conserva entre ejecuciones). */
+    public static String getPrinterId() {
+        return get("printer.id", "termica");
+    }
+
+    /** Archivo donde la cola guarda los trabajos pendientes. */
+    public static Path getSpoolFile() {
+        return Paths.get(get("printer.spoolFile", Paths.get(System.getProperty("user.home"), ".crudpark", "print-spool.tsv").toString()));
+    }
+
+    /**
+     * Indica si hay una impresora ESC/POS configurada.
+     */
+    public static boolean isDirectPrintingConfigured() {
+        return !get("printer.sink", "").isEmpty();
+    }
+
+    /**
+     * Crea el destino configurado en printer.sink.
+     * @throws IllegalStateException si printer.sink no es un valor válido.
+     */
+    public static IPrinterSink createSink() {
+        String sink = get("printer.sink", "");
+        switch (sink) {
+            case "printservice":
+                return new PrintServiceSink(get("printer.name", ""));
+            case "socket":
+                return new SocketPrinterSink(get("printer.host", "localhost"), getInt("printer.port", 9100), getTimeoutMillis());
+            case "file":
+                return new FilePrinterSink(Paths.get(get("printer.file", "ticket.bin")));
+            default:
+                throw new IllegalStateException("printer.sink no válido: '" + sink + "' (use printservice, socket o file).");
+        }
+    }
+
+    /** Líneas de avance de papel después del ticket. */
+    public static int getFeedLines() {
+        return getInt("printer.feedLines", 4);
+    }
+
+    /** Si se corta el papel después de cada ticket. */
+    public static boolean isCutEnabled() {
+        return Boolean.parseBoolean(get("printer.cut", "true"));
+    }
+
+    /** Tiempo máximo de conexión y escritura con la impresora. */
+    public static int getTimeoutMillis() {
+        return getInt("printer.timeoutMs", 3000);
+    }
+
+    static String get(String key, String defaultValue) {
+        return properties.getProperty(key, defaultValue).trim();
+    }
+
+    static int getInt(String key, int defaultValue) {
+        return Integer.parseInt(get(key, String.valueOf(defaultValue)));
+    }
+}
@@ -0,0 +1,131 @@
+package config;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Decide qué nodo atiende cada lectura tolerante ({@link DatabaseConnection#getReadConnection()}).
+ *
+ * - Un hilo de fondo mide cada db.replicas.checkIntervalMs el retraso de replicación de cada réplica;
+ *   una réplica que no responde o va más de db.replicas.maxLagMs atrás queda fuera hasta la siguiente
+ *   verificación.
+ * - Las escrituras no cambian el destino de estas lecturas: las consultas que tienen que ver lo
+ *   que la aplicación acaba de escribir (la estancia activa de una placa, la reconciliación del
+ *   índice de ocupación) usan {@link DatabaseConnection#getConnection()} y leen la primaria.
+ *   Así los tableros y reportes siguen en las réplicas aunque las porterías escriban sin parar.
+ * - Las réplicas disponibles se turnan (round-robin); si ninguna lo está, lee la primaria.
+ */
+final class ReadRouter {
+
+    // Retraso de la réplica. Si ya aplicó todo lo recibido, está al día aunque la primaria no haya
+    // escrito en un rato (pg_last_xact_replay_timestamp solo avanza con transacciones nuevas).
+    private static final String LAG_SQL =
+            "SELECT CASE WHEN NOT pg_is_in_recovery() OR pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0 " +
+            "ELSE COALESCE(CAST(EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()) * 1000 AS BIGINT), -1) END";
+    private static final int CHECK_TIMEOUT_SECONDS = 2;
+
+    private final DatabaseNode primary;
+    private final List<DatabaseNode> replicas;
+    private final long maxLagMillis;
+    private final AtomicInteger next = new AtomicInteger();
+
+    private ScheduledExecutorService monitor;
+
+    ReadRouter(DatabaseNode primary, List<DatabaseNode> replicas, long maxLagMillis) {
+        this.primary = primary;
+        this.replicas = replicas;
+        this.maxLagMillis = maxLagMillis;
+    }
+
+    DatabaseNode getPrimary() {
+        return primary;
+    }
+
+    List<DatabaseNode> getReplicas() {
+        return replicas;
+    }
+
+    /**
+     * @return Las réplicas que pueden atender una lectura ahora, empezando por la que sigue en el
+     *         turno. Vacía si ninguna puede.
+     */
+    List<DatabaseNode> candidates() {
+        int count = replicas.size();
+        int first = Math.floorMod(next.getAndIncrement(), count);
+        List<DatabaseNode> candidates = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            DatabaseNode replica = replicas.get((first + i) % count);
+            long lag = replica.getReplicationLagMillis();
+            if (replica.isHealthy() && lag <= maxLagMillis) {
+                candidates.add(replica);
+            } else {
+                replica.recordFallback();
+            }
+        }
+        return candidates;
+    }
+
+    /**
+     * Saca de servicio una réplica a la que no se pudo conectar, hasta la próxima verificación.
+     */
+    void markFailed(DatabaseNode replica, SQLException e) {
+        replica.recordFailure(e);
+        replica.recordFallback();
+    }
+
+    /**
+     * Inicia la verificación periódica en un hilo daemon. La primera se hace de inmediato.
+     * @param checkIntervalMillis Tiempo entre dos verificaciones.
+     */
+    synchronized void start(long checkIntervalMillis) {
+        if (monitor != null) {
+            return;
+        }
+        monitor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "crudpark-replica-monitor");
+            t.setDaemon(true);
+            return t;
+        });
+        monitor.scheduleWithFixedDelay(this::checkAll, 0, checkIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    synchronized void stop() {
+        if (monitor != null) {
+            monitor.shutdownNow();
+            monitor = null;
+        }
+    }
+
+    private void checkAll() {
+        for (DatabaseNode replica : replicas) {
+            check(replica);
+        }
+    }
+
+    private void check(DatabaseNode replica) {
+        // Directo al pool: las verificaciones no cuentan en las métricas de las consultas.
+        try (Connection conn = replica.getConnectionPool().borrow();
+             Statement stmt = conn.createStatement()) {
+            stmt.setQueryTimeout(CHECK_TIMEOUT_SECONDS);
+            try (ResultSet rs = stmt.executeQuery(LAG_SQL)) {
+                rs.next();
+                long lag = rs.getLong(1);
+                if (lag < 0) {
+                    replica.recordFailure(new SQLException("La réplica aún no ha aplicado ninguna transacción."));
+                } else {
+                    replica.recordCheck(lag);
+                }
+            }
+        } catch (SQLException | RuntimeException e) {
+            replica.recordFailure(e);
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package config;
+
+import dao.repository.IEstanciaService;
+import server.GateHttpServer;
+
+import java.io.InputStream;
+import java.util.Properties;
+
+/**
+ * Configuración del modo sin interfaz gráfica (--headless), leída de server.properties (opcional).
+ *
+ * La API HTTP de {@link GateHttpServer} atiende a las cámaras de reconocimiento de placas y a los
+ * cajeros de pago; cada solicitud se ejecuta en un hilo virtual. Por defecto solo escucha en la
+ * interfaz local; para escuchar en la red (server.bindAddress) hace falta server.apiKey.
+ */
+public class ServerConfig {
+
+    private static final Properties properties = new Properties();
+
+    static {
+        try (InputStream input = ServerConfig.class.getClassLoader().getResourceAsStream("server.properties")) {
+            if (input != null) {
+                properties.load(input);
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+
+    private ServerConfig() {}
+
+    /**
+     * Crea el servidor (sin iniciarlo) con los parámetros configurados.
+     * @param estanciaService El servicio de la portería.
+     */
+    public static GateHttpServer createServer(IEstanciaService estanciaService) {
+        return new GateHttpServer(estanciaService, PlateConfig.getValidator(), get("server.bindAddress", "127.0.0.1"),
+                getInt("server.port", 8080), getInt("server.requestTimeoutMs", 5_000),
+                getInt("server.maxConcurrentPerEndpoint", 256), getInt("server.queueTimeoutMs", 200),
+                getInt("server.operatorId", 0), get("server.apiKey", ""), AppExecutors.virtualThreads());
+    }
+
+    static String get(String key, String defaultValue) {
+        return properties.getProperty(key, defaultValue).trim();
+    }
+
+    static int getInt(String key, int defaultValue) {
+        return Integer.parseInt(get(key, String.valueOf(defaultValue)));
+    }
+}
@@ -0,0 +1,67 @@
+package config;
+
+import dao.implementation.InMemoryDatabase;
+import dao.repository.IAuthService;
+import dao.repository.IEstanciaService;
+import service.AuthServiceImpl;
+import service.EstanciaServiceImpl;
+
+/**
+ * Almacenamiento de los datos: PostgreSQL (db.properties, por defecto) o una base de datos en
+ * memoria, sin conexión, para demostraciones, benchmarks y porterías aisladas.
+ *
+ * Se elige con la propiedad de sistema crudpark.storage=memory o con la opción --in-memory de Main.
+ * En memoria, todos los servicios comparten la misma {@link InMemoryDatabase}, creada con los datos
+ * de demostración, y los datos se pierden al cerrar la aplicación.
+ */
+public class StorageConfig {
+
+    public static final String STORAGE_PROPERTY = "crudpark.storage";
+
+    /**
+     * Lazily-initialized holder: la base de datos en memoria solo se crea si se usa.
+     */
+    private static final class Holder {
+        private static final InMemoryDatabase DATABASE = InMemoryDatabase.withDemoData();
+    }
+
+    private StorageConfig() {}
+
+    /**
+     * @return true si los datos se guardan en memoria en lugar de PostgreSQL.
+     */
+    public static boolean isInMemory() {
+        return "memory".equalsIgnoreCase(System.getProperty(STORAGE_PROPERTY, "jdbc").trim());
+    }
+
+    /**
+     * Usa la base de datos en memoria. Debe llamarse antes de crear los servicios.
+     */
+    public static void useInMemory() {
+        System.setProperty(STORAGE_PROPERTY, "memory");
+    }
+
+    public static InMemoryDatabase getInMemoryDatabase() {
+        return Holder.DATABASE;
+    }
+
+    /**
+     * Crea el servicio de la portería sobre el almacenamiento configurado.
+     */
+    public static IEstanciaService createEstanciaService() {
+        if (!isInMemory()) {
+            return new EstanciaServiceImpl();
+        }
+        InMemoryDatabase database = getInMemoryDatabase();
+        // Sin base de datos remota no hay nada que cachear, agrupar ni registrar en el journal.
+        return new EstanciaServiceImpl(database.getStays(), database.getMemberships(), database.getRates(),
+                database.getPayments(), database.getUnitOfWork());
+    }
+
+    /**
+     * Crea el servicio de autenticación sobre el almacenamiento configurado.
+     */
+    public static IAuthService createAuthService() {
+        return isInMemory() ? new AuthServiceImpl(getInMemoryDatabase().getOperators()) : new AuthServiceImpl();
+    }
+}
@@ -1,13 +1,17 @@
 package controller;
 
-import dao.repository.IAuthService;
+import config.StorageConfig;
+import dao.repository.IAsyncAuthService;
 import model.Operator;
-import service.AuthServiceImpl;
+import service.AsyncAuthServiceImpl;
 import view.LoginView;
 import view.MainView;
 
 import javax.swing.*;
 import java.util.Optional;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 /**
  * Controller for the login functionality.
@@ -17,7 +21,8 @@ import java.util.Optional;
 public class LoginController {
 
     private final LoginView view;
-    private final IAuthService authService;
+    private final IAsyncAuthService authService;
+    private CompletableFuture<Optional<Operator>> pendingLogin;
 
     /**
      * Constructor for the LoginController.
@@ -28,10 +33,12 @@ public class LoginController {
     public LoginController(LoginView view) {
         this.view = view;
         // In a real application with dependency injection, the service would be injected.
-        this.authService = new AuthServiceImpl();
+        // The login (database lookup + BCrypt) runs on a virtual thread, off the EDT.
+        this.authService = new AsyncAuthServiceImpl(StorageConfig.createAuthService());
 
-        // Attach the event listener from the controller to the view's button.
+        // Attach the event listeners from the controller to the view's buttons.
         this.view.addLoginListener(e -> performLogin());
+        this.view.addCancelListener(e -> cancelLogin());
     }
 
     /**
@@ -51,10 +58,33 @@ public class LoginController {
             return;
         }
 
-        // Call the service layer to perform authentication.
-        Optional<Operator> operatorOptional = authService.login(email, password);
+        // Call the service layer to perform authentication without blocking the EDT.
+        // The future completes on the EDT, so the callback can update the UI directly.
+        view.showBusy();
+        pendingLogin = authService.loginAsync(email, password);
+        pendingLogin.whenComplete((operatorOptional, error) -> {
+            view.hideBusy();
+            pendingLogin = null;
+            if (error != null) {
+                Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+                if (!(cause instanceof CancellationException)) {
+                    view.displayMessage("No fue posible verificar las credenciales: " + cause.getMessage(), "Error de Autenticación", JOptionPane.ERROR_MESSAGE);
+                }
+                return;
+            }
+            handleLoginResult(operatorOptional);
+        });
 
-        // Handle the result from the service.
+        // Clear the password field for security after the attempt.
+        // (This is a good practice)
+        // view.clearPasswordField();
+    }
+
+    /**
+     * Handles the result returned by the auth service. Runs on the EDT.
+     * @param operatorOptional The authenticated operator, or empty if the login failed.
+     */
+    private void handleLoginResult(Optional<Operator> operatorOptional) {
         if (operatorOptional.isPresent()) {
             // If login is successful
             Operator loggedInOperator = operatorOptional.get();
@@ -72,9 +102,14 @@ public class LoginController {
             // If login fails
             view.displayMessage("Usuario o contraseña incorrectos, o el usuario está inactivo.", "Error de Autenticación", JOptionPane.ERROR_MESSAGE);
         }
+    }
 
-        // Clear the password field for security after the attempt.
-        // (This is a good practice)
-        // view.clearPasswordField();
+    /**
+     * Cancels the login in progress, if any.
+     */
+    private void cancelLogin() {
+        if (pendingLogin != null) {
+            pendingLogin.cancel(true);
+        }
     }
 }
\ No newline at end of file
@@ -1,30 +1,53 @@
 package controller;
 
 
-import dao.repository.IEstanciaService;
+import config.PlateConfig;
+import config.PrinterConfig;
+import config.StorageConfig;
+import dao.repository.IAsyncEstanciaService;
 import dao.repository.ITicketService;
 import model.Operator;
 import model.Estancia;
-import service.EstanciaServiceImpl;
+import plate.PlateStatus;
+import plate.PlateValidator;
+import service.AsyncEstanciaServiceImpl;
+import service.CancellableFuture;
+import service.PrintJob;
+import service.PrintSpooler;
 import service.RealTicketPrinterServiceImpl;
 import service.TicketServiceImpl;
 import view.MainView;
 import javax.swing.JOptionPane;
-import java.text.SimpleDateFormat;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 /**
  * Controller for the MainView.
  * It handles the primary operations of the application after login,
  * such as vehicle entry and exit.
+ * Service calls run off the Event Dispatch Thread; their futures complete on the EDT,
+ * so the callbacks below can update the view directly.
  */
 public class MainController {
 
+    // DateTimeFormatter is immutable and thread-safe, so a single instance formats every row.
+    private static final DateTimeFormatter ENTRY_DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
     private final MainView view;
     private final Operator currentOperator;
-    private final IEstanciaService estanciaService;
+    private final IAsyncEstanciaService estanciaService;
     private final ITicketService simulationTicketService;
     private final ITicketService realTicketPrinterService;
+    private final PrintSpooler printSpooler;
+    private final PlateValidator plateValidator;
+    private final PrintSpooler.JobListener printJobListener = this::onPrintJobStatusChanged;
+    private CompletableFuture<?> pendingOperation;
+    // Whether the pending operation writes to the database (an entry or an exit).
+    private boolean pendingWrite;
 
     /**
      * Constructor for the MainController.
@@ -34,9 +57,16 @@ public class MainController {
     public MainController(MainView view, Operator operator) {
         this.view = view;
         this.currentOperator = operator;
-        this.estanciaService = new EstanciaServiceImpl();
+        this.estanciaService = new AsyncEstanciaServiceImpl(StorageConfig.createEstanciaService());
         this.simulationTicketService = new TicketServiceImpl();
         this.realTicketPrinterService = new RealTicketPrinterServiceImpl();
+        this.plateValidator = PlateConfig.getValidator();
+        // With a thermal printer configured in printer.properties, tickets are queued and printed
+        // in the background (ESC/POS, no print dialog); otherwise through the system's print dialog.
+        this.printSpooler = PrinterConfig.isDirectPrintingConfigured() ? PrinterConfig.getSpooler() : null;
+        if (printSpooler != null) {
+            printSpooler.addListener(printJobListener);
+        }
 
 
         // Initialize the view with operator's data
@@ -46,6 +76,7 @@ public class MainController {
         this.view.addRegisterEntryListener(e -> handleVehicleEntry());
         this.view.addRegisterExitListener(e -> handleVehicleExit());
         this.view.addLogoutListener(e -> handleLogout());
+        this.view.addCancelListener(e -> cancelPendingOperation());
 
         // When the controller starts, it should load the vehicles currently inside.
         // We will implement this logic later.
@@ -57,25 +88,25 @@ public class MainController {
      * This method is called from the constructor.
      */
     private void loadInitialVehicles() {
-        try {
-            List<Estancia> activeStays = estanciaService.getActiveStays();
-            SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
+        track(estanciaService.getActiveStaysAsync(), "Cargando vehículos activos...").whenComplete((activeStays, error) -> {
+            if (error != null) {
+                if (!isCancellation(error)) {
+                    unwrap(error).printStackTrace();
+                    JOptionPane.showMessageDialog(view,
+                            "Error al cargar los vehículos activos. Verifique la conexión a la base de datos.",
+                            "Error de Carga",
+                            JOptionPane.ERROR_MESSAGE);
+                }
+                return;
+            }
 
+            // Build every row first and hand them to the table in a single refresh.
+            List<Object[]> rows = new ArrayList<>(activeStays.size());
             for (Estancia estancia : activeStays) {
-                String formattedDate = sdf.format(estancia.getEntryDate());
-                view.addVehicleToTable(new Object[]{
-                        estancia.getLicense_plate(),
-                        estancia.getStayType(),
-                        formattedDate
-                });
+                rows.add(toTableRow(estancia));
             }
-        } catch (Exception e) {
-            e.printStackTrace();
-            JOptionPane.showMessageDialog(view,
-                    "Error al cargar los vehículos activos. Verifique la conexión a la base de datos.",
-                    "Error de Carga",
-                    JOptionPane.ERROR_MESSAGE);
-        }
+            view.loadVehiclesIntoTable(rows);
+        });
     }
 
     /**
@@ -86,39 +117,14 @@ public class MainController {
         // Convert to uppercase for consistency and easier validation.
         String plate = view.getEntryPlate().toUpperCase();
 
-        // 1. Initial validations for the license plate.
-        if (plate.isEmpty()) {
-            JOptionPane.showMessageDialog(view, "Por favor, ingrese una placa.", "Error de Validación", JOptionPane.ERROR_MESSAGE);
-            return;
-        }
-
-        // --- LICENSE PLATE FORMAT VALIDATION ---
-        // Rule 1: Minimum length of 6 characters.
-        if (plate.length() < 6) {
-            JOptionPane.showMessageDialog(view, "La placa debe tener al menos 6 caracteres.", "Error de Formato", JOptionPane.ERROR_MESSAGE);
+        // 1. Validate the license plate against the configured formats (plate.properties).
+        PlateStatus plateStatus = plateValidator.check(plate);
+        if (!plateStatus.isValid()) {
+            String title = plateStatus == PlateStatus.EMPTY ? "Error de Validación" : "Error de Formato";
+            JOptionPane.showMessageDialog(view, plateValidator.messageFor(plateStatus), title, JOptionPane.ERROR_MESSAGE);
             return;
         }
 
-        // Rule 2: Count letters and check for invalid characters.
-        int letterCount = 0;
-        for (char c : plate.toCharArray()) {
-            // Ensure the plate contains only letters and digits.
-            if (!Character.isLetterOrDigit(c)) {
-                JOptionPane.showMessageDialog(view, "La placa solo puede contener letras y números (sin espacios ni guiones).", "Error de Formato", JOptionPane.ERROR_MESSAGE);
-                return;
-            }
-            if (Character.isLetter(c)) {
-                letterCount++;
-            }
-        }
-
-        // Rule 3: Maximum of four letters.
-        if (letterCount > 4) {
-            JOptionPane.showMessageDialog(view, "La placa no puede contener más de 4 letras.", "Error de Formato", JOptionPane.ERROR_MESSAGE);
-            return;
-        }
-        // --- END OF VALIDATION ---
-
         // 2. Prompt the operator to select the vehicle type.
         String[] vehicleOptions = {"Carro", "Moto"};
         int choice = JOptionPane.showOptionDialog(
@@ -139,24 +145,22 @@ public class MainController {
 
         String selectedVehicleType = vehicleOptions[choice];
 
-        // 3. Register the entry in the database via the service layer.
-        try {
-            // The service layer contains the business logic for creating a new Estancia.
-            Estancia newStay = estanciaService.registerVehicleEntry(plate, selectedVehicleType, currentOperator.getId());
+        // 3. Register the entry in the database via the service layer, off the EDT.
+        // The service layer contains the business logic for creating a new Estancia.
+        CompletableFuture<Estancia> future = estanciaService.registerVehicleEntryAsync(plate, selectedVehicleType, currentOperator.getId());
+        trackWrite(future, "Registrando ingreso de " + plate + "...").whenComplete((newStay, error) -> {
+            if (error != null) {
+                if (!isCancellation(error)) {
+                    // In case of an unexpected error (e.g., DB connection failure), display the message.
+                    JOptionPane.showMessageDialog(view, unwrap(error).getMessage(), "Error al Registrar Ingreso", JOptionPane.ERROR_MESSAGE);
+                }
+                return;
+            }
 
             if (newStay != null) {
                 // 4. Update the UI if the registration was successful.
-                SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
-                String formattedDate = sdf.format(newStay.getEntryDate());
-
                 // Add the new row to the table of vehicles currently in the parking lot.
-                // NOTE: Ensure your view's table has the corresponding columns.
-                view.addVehicleToTable(new Object[]{
-                        newStay.getLicense_plate(),
-                        // newStay.getVehicleType(), // <- Uncomment if your table displays the type.
-                        newStay.getStayType(),
-                        formattedDate
-                });
+                view.addVehicleToTable(toTableRow(newStay));
 
                 JOptionPane.showMessageDialog(view, "Ingreso registrado exitosamente para la placa: " + plate, "Ingreso Exitoso", JOptionPane.INFORMATION_MESSAGE);
                 view.clearEntryPlateField();
@@ -164,11 +168,7 @@ public class MainController {
                 // 5. Ask the operator if they wish to print the entry ticket.
                 askForPrintingChoice(newStay);
             }
-
-        } catch (Exception e) {
-            // In case of an unexpected error (e.g., DB connection failure), display the message.
-            JOptionPane.showMessageDialog(view, e.getMessage(), "Error al Registrar Ingreso", JOptionPane.ERROR_MESSAGE);
-        }
+        });
     }
 
     /**
@@ -189,7 +189,16 @@ public class MainController {
 
         switch (choice) {
             case 0: // "Imprimir Ticket"
-                realTicketPrinterService.printTicket(estancia, currentOperator);
+                if (printSpooler != null) {
+                    // Queued: the operator can register the next vehicle while the ticket prints.
+                    PrintJob job = printSpooler.submit(PrinterConfig.getPrinterId(), estancia, currentOperator);
+                    if (job.getStatus() == PrintJob.Status.REJECTED) {
+                        JOptionPane.showMessageDialog(view, "La cola de impresión está llena. Revise la impresora e intente de nuevo.", "Error de Impresión", JOptionPane.ERROR_MESSAGE);
+                    }
+                } else {
+                    // Shows the print dialog here (EDT); the job itself is sent on a virtual thread.
+                    realTicketPrinterService.printTicket(estancia, currentOperator);
+                }
                 break;
             case 1: // "Ver Simulación"
                 simulationTicketService.printTicket(estancia, currentOperator);
@@ -207,41 +216,190 @@ public class MainController {
             return;
         }
 
-        try {
-            // 1. Calculate exit details
-            Estancia estancia = estanciaService.calculateExitDetails(plate);
-            double amountToPay = estancia.getAmountToPay();
-
-            // 2. Handle payment confirmation
-            boolean proceedWithExit = false;
-            if (amountToPay > 0) {
-                String message = String.format("Monto a cobrar: $%.2f\n¿Desea registrar el pago y la salida?", amountToPay);
-                int response = JOptionPane.showConfirmDialog(view, message, "Confirmar Cobro y Salida", JOptionPane.YES_NO_OPTION);
-                if (response == JOptionPane.YES_OPTION) {
-                    proceedWithExit = true;
-                }
-            } else {
-                // No payment needed (monthly or grace period)
-                String message = "Salida sin costo para la placa " + plate + ". ¿Confirmar salida?";
-                int response = JOptionPane.showConfirmDialog(view, message, "Confirmar Salida", JOptionPane.YES_NO_OPTION);
-                if (response == JOptionPane.YES_OPTION) {
-                    proceedWithExit = true;
+        // 1. Calculate exit details, off the EDT
+        CompletableFuture<Estancia> quote = estanciaService.calculateExitDetailsAsync(plate);
+        track(quote, "Calculando salida de " + plate + "...").whenComplete((estancia, error) -> {
+            if (error != null) {
+                if (!isCancellation(error)) {
+                    JOptionPane.showMessageDialog(view, unwrap(error).getMessage(), "Error al Registrar Salida", JOptionPane.ERROR_MESSAGE);
                 }
+                return;
             }
+            confirmAndFinalizeExit(plate, estancia);
+        });
+    }
 
-            // 3. Finalize the exit if confirmed
-            if (proceedWithExit) {
-                // For now, we assume payment is in "Efectivo"
-                estanciaService.finalizeExit(estancia, currentOperator.getId(), amountToPay, "Efectivo");
+    /**
+     * Asks the operator to confirm the payment and the exit, then finalizes it off the EDT.
+     * @param plate The plate typed by the operator.
+     * @param estancia The stay with the calculated amount to pay.
+     */
+    private void confirmAndFinalizeExit(String plate, Estancia estancia) {
+        double amountToPay = estancia.getAmountToPay();
+
+        // 2. Handle payment confirmation
+        boolean proceedWithExit = false;
+        if (amountToPay > 0) {
+            String message = String.format("Monto a cobrar: $%.2f\n¿Desea registrar el pago y la salida?", amountToPay);
+            int response = JOptionPane.showConfirmDialog(view, message, "Confirmar Cobro y Salida", JOptionPane.YES_NO_OPTION);
+            if (response == JOptionPane.YES_OPTION) {
+                proceedWithExit = true;
+            }
+        } else {
+            // No payment needed (monthly or grace period)
+            String message = "Salida sin costo para la placa " + plate + ". ¿Confirmar salida?";
+            int response = JOptionPane.showConfirmDialog(view, message, "Confirmar Salida", JOptionPane.YES_NO_OPTION);
+            if (response == JOptionPane.YES_OPTION) {
+                proceedWithExit = true;
+            }
+        }
+
+        // 3. Finalize the exit if confirmed
+        if (proceedWithExit) {
+            // For now, we assume payment is in "Efectivo"
+            CompletableFuture<Void> exit = estanciaService.finalizeExitAsync(estancia, currentOperator.getId(), amountToPay, "Efectivo");
+            trackWrite(exit, "Registrando salida de " + plate + "...").whenComplete((ignored, error) -> {
+                if (error != null) {
+                    if (!isCancellation(error)) {
+                        JOptionPane.showMessageDialog(view, unwrap(error).getMessage(), "Error al Registrar Salida", JOptionPane.ERROR_MESSAGE);
+                    }
+                    return;
+                }
 
                 // Update the UI
                 view.removeVehicleFromTable(plate);
                 view.clearExitPlateField();
                 JOptionPane.showMessageDialog(view, "Salida registrada exitosamente.", "Salida Exitosa", JOptionPane.INFORMATION_MESSAGE);
+            });
+        }
+    }
+
+    /**
+     * Shows the operation as in progress until the future completes, and remembers it
+     * so the operator can cancel it.
+     * @param future The running operation.
+     * @param message The description shown in the status bar.
+     * @return A stage that completes like the operation, once the progress indicators are hidden.
+     */
+    private <T> CompletableFuture<T> track(CompletableFuture<T> future, String message) {
+        return track(future, message, false);
+    }
+
+    /**
+     * Like {@link #track(CompletableFuture, String)}, for an operation that writes to the database:
+     * if it is cancelled after it started, the table is refreshed once it has really ended.
+     */
+    private <T> CompletableFuture<T> trackWrite(CompletableFuture<T> future, String message) {
+        return track(future, message, true);
+    }
+
+    private <T> CompletableFuture<T> track(CompletableFuture<T> future, String message, boolean writes) {
+        pendingOperation = future;
+        pendingWrite = writes;
+        view.showBusy(message);
+        return future.whenComplete((result, error) -> {
+            if (pendingOperation == future) {
+                pendingOperation = null;
+                view.hideBusy();
+                if (isCancellation(error)) {
+                    view.setStatusMessage("Operación cancelada.");
+                }
             }
+        });
+    }
 
-        } catch (Exception e) {
-            JOptionPane.showMessageDialog(view, e.getMessage(), "Error al Registrar Salida", JOptionPane.ERROR_MESSAGE);
+    /**
+     * Cancels the operation in progress, if any. The service call is never interrupted: an
+     * operation that had not started is skipped, one that had started runs to the end and only
+     * its result is discarded. If that was an entry or an exit, it may have been recorded, so the
+     * table is reloaded once it ends.
+     */
+    private void cancelPendingOperation() {
+        CompletableFuture<?> operation = pendingOperation;
+        if (operation == null) {
+            return;
+        }
+        boolean writes = pendingWrite;
+        operation.cancel(false);
+        if (writes && operation instanceof CancellableFuture && ((CancellableFuture<?>) operation).hasStarted()) {
+            ((CancellableFuture<?>) operation).whenSettled().thenRun(this::refreshVehicles);
+        }
+    }
+
+    /**
+     * Reloads the table of active vehicles, without taking over the cancel button (it is not
+     * tracked), e.g. after a cancelled entry or exit that may have reached the database.
+     */
+    private void refreshVehicles() {
+        estanciaService.getActiveStaysAsync().whenComplete((activeStays, error) -> {
+            if (error != null) {
+                unwrap(error).printStackTrace();
+                view.setStatusMessage("Operación cancelada; no se pudo actualizar la lista de vehículos.");
+                return;
+            }
+            List<Object[]> rows = new ArrayList<>(activeStays.size());
+            for (Estancia estancia : activeStays) {
+                rows.add(toTableRow(estancia));
+            }
+            view.loadVehiclesIntoTable(rows);
+            view.setStatusMessage("Operación cancelada; la lista de vehículos se actualizó con lo registrado.");
+        });
+    }
+
+    /**
+     * Builds the table row of a stay.
+     * NOTE: Ensure your view's table has the corresponding columns.
+     */
+    private static Object[] toTableRow(Estancia estancia) {
+        return new Object[]{
+                estancia.getLicense_plate(),
+                // estancia.getVehicleType(), // <- Uncomment if your table displays the type.
+                estancia.getStayType(),
+                ENTRY_DATE_FORMAT.format(estancia.getEntryDate().toLocalDateTime())
+        };
+    }
+
+    private static boolean isCancellation(Throwable error) {
+        return unwrap(error) instanceof CancellationException;
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    }
+
+    /**
+     * Shows the progress of the background ticket printing. Runs on the EDT.
+     */
+    private void onPrintJobStatusChanged(PrintJob job, PrintJob.Status status) {
+        String ticket = "Ticket #" + String.format("%06d", job.getEstancia().getStay_id());
+        switch (status) {
+            case QUEUED:
+                view.setPrinterStatus(ticket + " en cola (" + printSpooler.getQueueDepth() + " pendientes)");
+                break;
+            case PRINTING:
+                view.setPrinterStatus("Imprimiendo " + ticket + "...");
+                break;
+            case RETRYING:
+                if (printSpooler.isPrinterWedged(job.getPrinterId())) {
+                    view.setPrinterStatus("Impresora bloqueada: " + ticket + " en espera (revise la impresora)");
+                } else {
+                    view.setPrinterStatus(ticket + ": reintentando (intento " + job.getAttempts() + " falló)");
+                }
+                break;
+            case PRINTED:
+                view.setPrinterStatus(ticket + " impreso");
+                break;
+            case FAILED:
+                if (printSpooler.isPrinterWedged(job.getPrinterId())) {
+                    view.setPrinterStatus("Impresora bloqueada: " + ticket + " no se pudo imprimir (revise la impresora)");
+                } else {
+                    view.setPrinterStatus(ticket + " no se pudo imprimir");
+                }
+                JOptionPane.showMessageDialog(view, "No se pudo imprimir el " + ticket + " (placa " + job.getEstancia().getLicense_plate() + "):\n" + job.getLastError(), "Error de Impresión", JOptionPane.ERROR_MESSAGE);
+                break;
+            case REJECTED:
+                view.setPrinterStatus(ticket + " rechazado: cola llena");
+                break;
         }
     }
 
@@ -252,6 +410,9 @@ public class MainController {
     private void handleLogout() {
         int response = JOptionPane.showConfirmDialog(view, "¿Está seguro de que desea cerrar sesión?", "Confirmar Cierre de Sesión", JOptionPane.YES_NO_OPTION);
         if (response == JOptionPane.YES_OPTION) {
+            if (printSpooler != null) {
+                printSpooler.removeListener(printJobListener);
+            }
             view.dispose(); // Close main window
             // Optionally, re-launch the login screen. This would be handled in the Main class.
             System.exit(0); // For now, we just exit the application.
@@ -0,0 +1,291 @@
+package dao.implementation;
+
+import dao.repository.IMensualidadRepository;
+import model.Mensualidad;
+import plate.IndexStats;
+import plate.PlateIntMap;
+
+import java.sql.Timestamp;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Decorador de IMensualidadRepository que mantiene en memoria las ventanas de vigencia
+ * (start_date, end_date) de cada placa y responde "¿activa en el instante T?" sin I/O.
+ * Las placas se indexan por su valor empaquetado (plate.PlateCodec) en un índice fuera del heap
+ * (plate.PlateIntMap) que da la posición de sus ventanas, así la caché de varias sedes no llena el heap de llaves.
+ *
+ * - Se refresca en segundo plano de forma incremental, leyendo solo las filas de 'memberships'
+ *   con 'updated_at' posterior a la última marca vista. Periódicamente hace una carga completa
+ *   para descartar filas borradas y ventanas vencidas.
+ * - La memoria está acotada por maxEntries: si se supera, la caché queda "incompleta" y solo
+ *   confía en sus aciertos positivos; las consultas negativas se delegan a la base de datos.
+ * - Si el último refresco exitoso es más antiguo que maxStaleness, las consultas se delegan.
+ * - Lleva contadores de aciertos y fallos.
+ */
+public class CachingMensualidadRepository implements IMensualidadRepository {
+
+    // Margen para no perder filas cuyo 'updated_at' es anterior al commit que las hizo visibles.
+    private static final long WATERMARK_OVERLAP_MILLIS = 5_000;
+
+    private final IMensualidadRepository delegate;
+    private final long refreshIntervalMillis;
+    private final long maxStalenessMillis;
+    private final long fullReloadIntervalMillis;
+    private final int maxEntries;
+
+    private volatile State state = new State(16);
+    private volatile long lastRefreshMillis;
+
+    // Solo los modifica el hilo de refresco.
+    private long lastFullReloadMillis;
+    private Timestamp watermark;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder staleFallbacks = new LongAdder();
+    private final LongAdder refreshFailures = new LongAdder();
+
+    private ScheduledExecutorService refresher;
+
+    /**
+     * Crea la caché con los valores por defecto: refresco cada 30 s, obsolescencia máxima de 5 min,
+     * carga completa cada hora y hasta 100.000 membresías en memoria.
+     * @param delegate El repositorio que consulta la base de datos.
+     */
+    public CachingMensualidadRepository(IMensualidadRepository delegate) {
+        this(delegate, 30_000, 300_000, 3_600_000, 100_000);
+    }
+
+    public CachingMensualidadRepository(IMensualidadRepository delegate, long refreshIntervalMillis,
+                                        long maxStalenessMillis, long fullReloadIntervalMillis, int maxEntries) {
+        this.delegate = delegate;
+        this.refreshIntervalMillis = refreshIntervalMillis;
+        this.maxStalenessMillis = maxStalenessMillis;
+        this.fullReloadIntervalMillis = fullReloadIntervalMillis;
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * Inicia el refresco periódico en un hilo daemon. La primera carga se hace de inmediato;
+     * hasta que termine, las consultas se delegan a la base de datos.
+     */
+    public synchronized void start() {
+        if (refresher != null) {
+            return;
+        }
+        refresher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "crudpark-membership-cache");
+            t.setDaemon(true);
+            return t;
+        });
+        refresher.scheduleWithFixedDelay(this::refreshQuietly, 0, refreshIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Detiene el refresco periódico.
+     */
+    public synchronized void stop() {
+        if (refresher != null) {
+            refresher.shutdownNow();
+            refresher = null;
+        }
+    }
+
+    @Override
+    public Optional<Boolean> isCurrentlyActive(String plate) {
+        return isActiveAt(plate, new Timestamp(System.currentTimeMillis()));
+    }
+
+    @Override
+    public Optional<Boolean> isActiveAt(String plate, Timestamp instant) {
+        long refreshedAt = lastRefreshMillis;
+        if (refreshedAt == 0 || System.currentTimeMillis() - refreshedAt > maxStalenessMillis) {
+            staleFallbacks.increment();
+            misses.increment();
+            return delegate.isActiveAt(plate, instant);
+        }
+
+        State current = state;
+        Window[] windows = current.windowsOf(plate);
+        if (windows != null && covers(windows, instant.getTime())) {
+            hits.increment();
+            return Optional.of(true);
+        }
+        if (!current.complete) {
+            // La caché no contiene todas las membresías: un "no" en memoria no es concluyente.
+            misses.increment();
+            return delegate.isActiveAt(plate, instant);
+        }
+        hits.increment();
+        return Optional.of(false);
+    }
+
+    @Override
+    public List<Mensualidad> findModifiedSince(Timestamp since) {
+        return delegate.findModifiedSince(since);
+    }
+
+    /**
+     * Refresca la caché de inmediato en el hilo actual.
+     * Hace una carga completa si nunca se ha cargado o si venció el intervalo de carga completa;
+     * en otro caso, aplica solo las filas modificadas desde la última marca.
+     */
+    public synchronized void refresh() {
+        long now = System.currentTimeMillis();
+        if (watermark == null || now - lastFullReloadMillis >= fullReloadIntervalMillis) {
+            List<Mensualidad> rows = delegate.findModifiedSince(null);
+            State fresh = new State(Math.min(rows.size(), maxEntries));
+            Timestamp newWatermark = new Timestamp(0);
+            for (Mensualidad row : rows) {
+                apply(fresh, row);
+                newWatermark = later(newWatermark, row.getUpdatedAt());
+            }
+            state = fresh;
+            watermark = newWatermark;
+            lastFullReloadMillis = now;
+        } else {
+            List<Mensualidad> rows = delegate.findModifiedSince(new Timestamp(watermark.getTime() - WATERMARK_OVERLAP_MILLIS));
+            State current = state;
+            for (Mensualidad row : rows) {
+                apply(current, row);
+                watermark = later(watermark, row.getUpdatedAt());
+            }
+        }
+        lastRefreshMillis = now;
+    }
+
+    private void refreshQuietly() {
+        try {
+            refresh();
+        } catch (RuntimeException e) {
+            // Se conserva el último estado; si se vuelve demasiado antiguo, las consultas se delegan.
+            refreshFailures.increment();
+            e.printStackTrace();
+        }
+    }
+
+    private void apply(State target, Mensualidad row) {
+        String previousPlate = target.plateById.remove(row.getId());
+        if (previousPlate != null) {
+            removeWindow(target, previousPlate, row.getId());
+        }
+
+        if (!row.isActive() || row.getStartDate() == null || row.getEndDate() == null) {
+            return;
+        }
+        if (target.size >= maxEntries) {
+            target.complete = false;
+            return;
+        }
+
+        Window window = new Window(row.getId(), row.getStartDate().getTime(), row.getEndDate().getTime());
+        int slot = target.slotByPlate.get(row.getLicensePlate());
+        if (slot == PlateIntMap.MISSING) {
+            // Las ventanas se guardan antes de publicar la placa: quien la encuentre, las encuentra.
+            slot = target.windowsBySlot.nextId();
+            target.windowsBySlot.set(slot, new Window[]{window});
+            target.slotByPlate.put(row.getLicensePlate(), slot);
+        } else {
+            Window[] existing = target.windowsBySlot.get(slot);
+            target.windowsBySlot.set(slot, existing == null ? new Window[]{window} : concat(existing, new Window[]{window}));
+        }
+        target.plateById.put(row.getId(), row.getLicensePlate());
+        target.size++;
+    }
+
+    private void removeWindow(State target, String plate, int membershipId) {
+        int slot = target.slotByPlate.get(plate);
+        Window[] windows = slot == PlateIntMap.MISSING ? null : target.windowsBySlot.get(slot);
+        if (windows == null) {
+            return;
+        }
+        int kept = 0;
+        Window[] remaining = new Window[windows.length];
+        for (Window window : windows) {
+            if (window.membershipId != membershipId) {
+                remaining[kept++] = window;
+            }
+        }
+        target.size -= windows.length - kept;
+        // La placa conserva su posición (vacía) hasta la próxima carga completa.
+        target.windowsBySlot.set(slot, kept == 0 ? null : Arrays.copyOf(remaining, kept));
+    }
+
+    private static boolean covers(Window[] windows, long instant) {
+        for (Window window : windows) {
+            if (instant >= window.startMillis && instant <= window.endMillis) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Window[] concat(Window[] existing, Window[] added) {
+        Window[] result = Arrays.copyOf(existing, existing.length + added.length);
+        System.arraycopy(added, 0, result, existing.length, added.length);
+        return result;
+    }
+
+    private static Timestamp later(Timestamp current, Timestamp candidate) {
+        return candidate != null && candidate.after(current) ? candidate : current;
+    }
+
+    // --- Estadísticas ---
+
+    public long getHitCount() { return hits.sum(); }
+    public long getMissCount() { return misses.sum(); }
+    public long getStaleFallbackCount() { return staleFallbacks.sum(); }
+    public long getRefreshFailureCount() { return refreshFailures.sum(); }
+    public int getCachedMembershipCount() { return state.size; }
+    public boolean isComplete() { return state.complete; }
+    public long getLastRefreshMillis() { return lastRefreshMillis; }
+
+    /**
+     * Mide el índice de placas fuera del heap (recorre toda la tabla).
+     * @return Su tamaño, memoria y longitudes de sondeo.
+     */
+    public IndexStats getIndexStats() { return state.slotByPlate.getStats(); }
+
+    /**
+     * Ventanas de vigencia indexadas por placa: la placa da una posición y la posición, las ventanas.
+     * Los arreglos de ventanas son inmutables: el hilo de refresco los reemplaza completos, así los
+     * lectores nunca ven uno a medio escribir. Una posición nunca pasa a otra placa dentro del mismo
+     * estado, así un lector que resolvió la placa antes de un cambio no lee ventanas ajenas.
+     */
+    private static final class State {
+        private final PlateIntMap slotByPlate;
+        private final DenseIdTable<Window[]> windowsBySlot = new DenseIdTable<>();
+        private final Map<Integer, String> plateById = new ConcurrentHashMap<>();
+        private volatile boolean complete = true;
+        private volatile int size;
+
+        private State(int expectedPlates) {
+            this.slotByPlate = new PlateIntMap(expectedPlates);
+        }
+
+        private Window[] windowsOf(String plate) {
+            int slot = slotByPlate.get(plate);
+            return slot == PlateIntMap.MISSING ? null : windowsBySlot.get(slot);
+        }
+    }
+
+    private static final class Window {
+        private final int membershipId;
+        private final long startMillis;
+        private final long endMillis;
+
+        private Window(int membershipId, long startMillis, long endMillis) {
+            this.membershipId = membershipId;
+            this.startMillis = startMillis;
+            this.endMillis = endMillis;
+        }
+    }
+}
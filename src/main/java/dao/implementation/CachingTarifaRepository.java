@@ -0,0 +1,197 @@
+package dao.implementation;
+
+import dao.repository.ITarifaRepository;
+import model.FranjaTarifa;
+import model.Tarifa;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Decorador de ITarifaRepository que sirve las tarifas activas desde una instantánea
+ * inmutable en memoria, indexada por tipo de vehículo, junto con sus franjas horarias.
+ *
+ * Un hilo en segundo plano consulta periódicamente la versión (checksum) de las tarifas activas;
+ * solo cuando cambia, recarga todas las filas y reemplaza la instantánea de forma atómica.
+ * Así, las cotizaciones de salida nunca esperan a la base de datos para obtener la tarifa.
+ *
+ * Las Tarifa y FranjaTarifa devueltas son compartidas entre hilos y deben tratarse como de solo lectura.
+ */
+public class CachingTarifaRepository implements ITarifaRepository {
+
+    private final ITarifaRepository delegate;
+    private final long pollIntervalMillis;
+
+    private volatile Snapshot snapshot;
+
+    private final LongAdder versionChecks = new LongAdder();
+    private final LongAdder reloads = new LongAdder();
+    private final LongAdder pollFailures = new LongAdder();
+
+    private ScheduledExecutorService poller;
+
+    /**
+     * Crea la caché consultando la versión de las tarifas cada 15 segundos.
+     * @param delegate El repositorio que consulta la base de datos.
+     */
+    public CachingTarifaRepository(ITarifaRepository delegate) {
+        this(delegate, 15_000);
+    }
+
+    public CachingTarifaRepository(ITarifaRepository delegate, long pollIntervalMillis) {
+        this.delegate = delegate;
+        this.pollIntervalMillis = pollIntervalMillis;
+    }
+
+    /**
+     * Inicia la consulta periódica de la versión en un hilo daemon. La primera carga se hace
+     * de inmediato; hasta que termine, las consultas se delegan a la base de datos.
+     */
+    public synchronized void start() {
+        if (poller != null) {
+            return;
+        }
+        poller = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "crudpark-rate-cache");
+            t.setDaemon(true);
+            return t;
+        });
+        poller.scheduleWithFixedDelay(this::pollQuietly, 0, pollIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Detiene la consulta periódica.
+     */
+    public synchronized void stop() {
+        if (poller != null) {
+            poller.shutdownNow();
+            poller = null;
+        }
+    }
+
+    @Override
+    public Optional<Tarifa> findActiveByVehicleType(String vehicleType) {
+        Snapshot current = snapshot;
+        if (current == null) {
+            // Aún no se ha cargado la primera instantánea.
+            return delegate.findActiveByVehicleType(vehicleType);
+        }
+        return Optional.ofNullable(current.byVehicleType.get(vehicleType));
+    }
+
+    @Override
+    public Optional<Tarifa> findActiveTariff() {
+        return delegate.findActiveTariff();
+    }
+
+    @Override
+    public List<Tarifa> findAllActive() {
+        Snapshot current = snapshot;
+        return current == null ? delegate.findAllActive() : current.rates;
+    }
+
+    @Override
+    public String findActiveRatesVersion() {
+        Snapshot current = snapshot;
+        return current == null ? delegate.findActiveRatesVersion() : current.version;
+    }
+
+    @Override
+    public List<FranjaTarifa> findActiveSchedules() {
+        Snapshot current = snapshot;
+        return current == null ? delegate.findActiveSchedules() : current.schedules;
+    }
+
+    @Override
+    public List<FranjaTarifa> findSchedulesByRate(int rateId) {
+        Snapshot current = snapshot;
+        if (current == null) {
+            return delegate.findSchedulesByRate(rateId);
+        }
+        // Las tarifas inactivas no están en la instantánea; solo las activas se cotizan.
+        return current.schedulesByRate.getOrDefault(rateId, List.of());
+    }
+
+    /**
+     * Comprueba la versión de las tarifas y, si cambió, recarga la instantánea en el hilo actual.
+     * @return true si se cargó una nueva instantánea.
+     */
+    public synchronized boolean poll() {
+        versionChecks.increment();
+        String version = delegate.findActiveRatesVersion();
+        Snapshot current = snapshot;
+        if (current != null && current.version.equals(version)) {
+            return false;
+        }
+
+        // La versión se lee antes que las filas: si cambian entre ambas consultas,
+        // la siguiente comprobación detectará la diferencia y volverá a cargar.
+        List<Tarifa> rates = delegate.findAllActive();
+        List<FranjaTarifa> schedules = delegate.findActiveSchedules();
+        snapshot = new Snapshot(version, rates, schedules);
+        reloads.increment();
+        return true;
+    }
+
+    private void pollQuietly() {
+        try {
+            poll();
+        } catch (RuntimeException e) {
+            // Se conserva la última instantánea válida.
+            pollFailures.increment();
+            e.printStackTrace();
+        }
+    }
+
+    // --- Estadísticas ---
+
+    public long getVersionCheckCount() { return versionChecks.sum(); }
+    public long getReloadCount() { return reloads.sum(); }
+    public long getPollFailureCount() { return pollFailures.sum(); }
+
+    /**
+     * Devuelve la versión de la instantánea cargada, o null si aún no hay ninguna.
+     */
+    public String getLoadedVersion() {
+        Snapshot current = snapshot;
+        return current == null ? null : current.version;
+    }
+
+    /**
+     * Instantánea inmutable de las tarifas activas.
+     */
+    private static final class Snapshot {
+        private final String version;
+        private final List<Tarifa> rates;
+        private final Map<String, Tarifa> byVehicleType;
+        private final List<FranjaTarifa> schedules;
+        private final Map<Integer, List<FranjaTarifa>> schedulesByRate;
+
+        private Snapshot(String version, List<Tarifa> rates, List<FranjaTarifa> schedules) {
+            this.version = version;
+            this.rates = List.copyOf(rates);
+            Map<String, Tarifa> index = new LinkedHashMap<>();
+            for (Tarifa tarifa : rates) {
+                // Igual que la consulta con ORDER BY rate_id LIMIT 1: gana la tarifa de menor ID.
+                index.putIfAbsent(tarifa.getVehicle_type(), tarifa);
+            }
+            this.byVehicleType = Collections.unmodifiableMap(index);
+
+            this.schedules = List.copyOf(schedules);
+            Map<Integer, List<FranjaTarifa>> byRate = new LinkedHashMap<>();
+            for (FranjaTarifa franja : schedules) {
+                byRate.computeIfAbsent(franja.getRateId(), id -> new ArrayList<>()).add(franja);
+            }
+            byRate.replaceAll((id, list) -> List.copyOf(list));
+            this.schedulesByRate = Collections.unmodifiableMap(byRate);
+        }
+    }
+}
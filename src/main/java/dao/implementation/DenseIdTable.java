@@ -0,0 +1,114 @@
+package dao.implementation;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+/**
+ * Tabla concurrente indexada por un ID entero positivo, para los repositorios en memoria.
+ * Los IDs de las tablas (columnas IDENTITY) son densos, así que en lugar de un mapa con llaves
+ * Integer (una caja por fila) se usa un arreglo por bloques: la posición de la fila es su ID.
+ *
+ * Los bloques se crean al primer uso y nunca se mueven; al crecer solo se copia el directorio.
+ * Las lecturas no bloquean; las escrituras de una misma fila se coordinan con compareAndSet.
+ */
+final class DenseIdTable<T> {
+
+    private static final int CHUNK_BITS = 10;
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    private volatile AtomicReferenceArray<AtomicReferenceArray<T>> directory = new AtomicReferenceArray<>(16);
+    private final AtomicInteger sequence = new AtomicInteger();
+
+    /**
+     * Siguiente valor de la secuencia (como GENERATED BY DEFAULT AS IDENTITY: empieza en 1 y un
+     * valor usado no se reutiliza, aunque la fila no llegue a insertarse).
+     */
+    int nextId() {
+        return sequence.incrementAndGet();
+    }
+
+    /**
+     * Avanza la secuencia para que no genere un ID ya insertado explícitamente.
+     */
+    void advanceTo(int id) {
+        sequence.accumulateAndGet(id, Math::max);
+    }
+
+    /**
+     * @return La fila con ese ID, o null si no existe.
+     */
+    T get(int id) {
+        if (id <= 0) {
+            return null;
+        }
+        AtomicReferenceArray<AtomicReferenceArray<T>> chunks = directory;
+        int chunkIndex = id >>> CHUNK_BITS;
+        if (chunkIndex >= chunks.length()) {
+            return null;
+        }
+        AtomicReferenceArray<T> chunk = chunks.get(chunkIndex);
+        return chunk == null ? null : chunk.get(id & CHUNK_MASK);
+    }
+
+    void set(int id, T row) {
+        chunkFor(id).set(id & CHUNK_MASK, row);
+    }
+
+    /**
+     * Reemplaza la fila solo si sigue siendo 'expected' (null = la fila no existía).
+     */
+    boolean compareAndSet(int id, T expected, T row) {
+        return chunkFor(id).compareAndSet(id & CHUNK_MASK, expected, row);
+    }
+
+    /**
+     * Recorre las filas en orden de ID, hasta el último ID generado o reservado.
+     */
+    void forEach(Consumer<? super T> action) {
+        int last = sequence.get();
+        AtomicReferenceArray<AtomicReferenceArray<T>> chunks = directory;
+        for (int chunkIndex = 0; chunkIndex < chunks.length() && chunkIndex <= last >>> CHUNK_BITS; chunkIndex++) {
+            AtomicReferenceArray<T> chunk = chunks.get(chunkIndex);
+            if (chunk == null) {
+                continue;
+            }
+            for (int slot = 0; slot < CHUNK_SIZE; slot++) {
+                T row = chunk.get(slot);
+                if (row != null) {
+                    action.accept(row);
+                }
+            }
+        }
+    }
+
+    private AtomicReferenceArray<T> chunkFor(int id) {
+        if (id <= 0) {
+            throw new IllegalArgumentException("El ID debe ser positivo: " + id);
+        }
+        int chunkIndex = id >>> CHUNK_BITS;
+        AtomicReferenceArray<AtomicReferenceArray<T>> chunks = directory;
+        AtomicReferenceArray<T> chunk = chunkIndex < chunks.length() ? chunks.get(chunkIndex) : null;
+        return chunk != null ? chunk : allocate(chunkIndex);
+    }
+
+    private synchronized AtomicReferenceArray<T> allocate(int chunkIndex) {
+        AtomicReferenceArray<AtomicReferenceArray<T>> chunks = directory;
+        if (chunkIndex >= chunks.length()) {
+            AtomicReferenceArray<AtomicReferenceArray<T>> grown =
+                    new AtomicReferenceArray<>(Math.max(chunkIndex + 1, chunks.length() * 2));
+            for (int i = 0; i < chunks.length(); i++) {
+                grown.set(i, chunks.get(i));
+            }
+            directory = grown;
+            chunks = grown;
+        }
+        AtomicReferenceArray<T> chunk = chunks.get(chunkIndex);
+        if (chunk == null) {
+            chunk = new AtomicReferenceArray<>(CHUNK_SIZE);
+            chunks.set(chunkIndex, chunk);
+        }
+        return chunk;
+    }
+}
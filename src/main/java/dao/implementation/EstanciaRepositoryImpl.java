@@ -1,12 +1,22 @@
 package dao.implementation;
 
 import config.DatabaseConnection;
+import dao.repository.DataAccessException;
 import dao.repository.IEstanciaRepository;
 import model.Estancia;
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Implementación JDBC de la interfaz IEstanciaRepository.
@@ -44,76 +54,311 @@ public class EstanciaRepositoryImpl implements IEstanciaRepository {
         }
     }
 
+    /**
+     * Registra el ingreso en una sola sentencia SQL (un solo viaje a la base de datos).
+     * Si la estancia no trae un tipo (stayType == null), la membresía se resuelve dentro de la
+     * misma sentencia (COALESCE solo evalúa el EXISTS cuando hace falta). El índice único parcial
+     * 'ux_stays_plate_inside' garantiza que dos carriles no puedan registrar la misma placa a la vez:
+     * si ya existe una estancia 'INSIDE', ON CONFLICT no inserta nada y no se devuelve ninguna fila.
+     */
+    @Override
+    public Optional<Estancia> registerEntry(Estancia estancia) {
+        String sql = "INSERT INTO stays (license_plate, entry_timestamp, stay_type, status, entry_operator_id, vehicle_type) " +
+                "SELECT ?, ?, COALESCE(?::stay_type_enum, " +
+                "CASE WHEN EXISTS (SELECT 1 FROM memberships m WHERE m.license_plate = ? AND m.is_active = TRUE " +
+                "AND CURRENT_TIMESTAMP BETWEEN m.start_date AND m.end_date) " +
+                "THEN 'Membership'::stay_type_enum ELSE 'Guest'::stay_type_enum END), " +
+                "'INSIDE'::stay_status_enum, ?, ? " +
+                "ON CONFLICT (license_plate) WHERE status = 'INSIDE' DO NOTHING " +
+                "RETURNING stay_id, stay_type";
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            pstmt.setString(1, estancia.getLicense_plate());
+            pstmt.setTimestamp(2, estancia.getEntryDate());
+            pstmt.setString(3, estancia.getStayType());
+            pstmt.setString(4, estancia.getLicense_plate());
+            pstmt.setInt(5, estancia.getEntryOperatorId());
+            pstmt.setString(6, estancia.getVehicleType());
+
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (!rs.next()) {
+                    // ON CONFLICT DO NOTHING: la placa ya tiene una estancia activa.
+                    return Optional.empty();
+                }
+                estancia.setStay_id(rs.getInt("stay_id"));
+                estancia.setStayType(rs.getString("stay_type"));
+                estancia.setStatus("INSIDE");
+                return Optional.of(estancia);
+            }
+        } catch (SQLException e) {
+            // 23505 = unique_violation: otra transacción ganó la carrera por la misma placa.
+            if ("23505".equals(e.getSQLState())) {
+                return Optional.empty();
+            }
+            throw new DataAccessException("No se pudo registrar el ingreso de la placa " + estancia.getLicense_plate() + ".", e);
+        }
+    }
+
+    /**
+     * Registra varios ingresos con una sola sentencia (un solo viaje a la base de datos): las filas
+     * viajan como arreglos que unnest() convierte en tabla. Las reglas son las de registerEntry:
+     * la membresía se resuelve en la misma sentencia y ON CONFLICT descarta las placas que ya
+     * tienen una estancia 'INSIDE'. Como RETURNING no garantiza el orden, las filas devueltas se
+     * asocian a cada estancia por placa; por eso, si una placa se repite, solo se envía la primera.
+     */
+    @Override
+    public List<Optional<Estancia>> registerEntries(List<Estancia> estancias) {
+        String sql = "INSERT INTO stays (license_plate, entry_timestamp, stay_type, status, entry_operator_id, vehicle_type) " +
+                "SELECT v.plate, v.entry_ts, COALESCE(v.stay_type::stay_type_enum, " +
+                "CASE WHEN EXISTS (SELECT 1 FROM memberships m WHERE m.license_plate = v.plate AND m.is_active = TRUE " +
+                "AND CURRENT_TIMESTAMP BETWEEN m.start_date AND m.end_date) " +
+                "THEN 'Membership'::stay_type_enum ELSE 'Guest'::stay_type_enum END), " +
+                "'INSIDE'::stay_status_enum, v.operator_id, v.vehicle_type " +
+                "FROM unnest(?::varchar[], ?::timestamptz[], ?::text[], ?::int[], ?::varchar[]) " +
+                "AS v(plate, entry_ts, stay_type, operator_id, vehicle_type) " +
+                "ON CONFLICT (license_plate) WHERE status = 'INSIDE' DO NOTHING " +
+                "RETURNING stay_id, license_plate, stay_type";
+
+        Map<String, Estancia> byPlate = new LinkedHashMap<>();
+        for (Estancia estancia : estancias) {
+            byPlate.putIfAbsent(estancia.getLicense_plate(), estancia);
+        }
+        if (byPlate.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        int size = byPlate.size();
+        String[] plates = new String[size];
+        Timestamp[] entryDates = new Timestamp[size];
+        String[] stayTypes = new String[size];
+        Integer[] operatorIds = new Integer[size];
+        String[] vehicleTypes = new String[size];
+        int i = 0;
+        for (Estancia estancia : byPlate.values()) {
+            plates[i] = estancia.getLicense_plate();
+            entryDates[i] = estancia.getEntryDate();
+            stayTypes[i] = estancia.getStayType();
+            operatorIds[i] = estancia.getEntryOperatorId();
+            vehicleTypes[i] = estancia.getVehicleType();
+            i++;
+        }
+
+        Set<Estancia> saved = new HashSet<>();
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            pstmt.setArray(1, conn.createArrayOf("varchar", plates));
+            pstmt.setArray(2, conn.createArrayOf("timestamptz", entryDates));
+            pstmt.setArray(3, conn.createArrayOf("text", stayTypes));
+            pstmt.setArray(4, conn.createArrayOf("int4", operatorIds));
+            pstmt.setArray(5, conn.createArrayOf("varchar", vehicleTypes));
+
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    Estancia estancia = byPlate.get(rs.getString("license_plate"));
+                    estancia.setStay_id(rs.getInt("stay_id"));
+                    estancia.setStayType(rs.getString("stay_type"));
+                    estancia.setStatus("INSIDE");
+                    saved.add(estancia);
+                }
+            }
+        } catch (SQLException e) {
+            throw new DataAccessException("No se pudieron registrar " + size + " ingresos.", e);
+        }
+
+        // Las placas sin fila devuelta (ya estaban adentro) y las repetidas quedan vacías.
+        List<Optional<Estancia>> results = new ArrayList<>(estancias.size());
+        for (Estancia estancia : estancias) {
+            results.add(saved.remove(estancia) ? Optional.of(estancia) : Optional.empty());
+        }
+        return results;
+    }
+
     /**
      * Busca una estancia activa por la placa del vehículo.
      * @param plate La placa a buscar.
      * @return Un Optional<Estancia> si se encuentra una estancia activa, de lo contrario, vacío.
+     * @throws DataAccessException si la consulta falla (vacío significa que la placa no está adentro).
      */
     @Override
     public Optional<Estancia> findActiveByPlate(String plate) {
         // Consulta actualizada para la tabla 'stays' y el nuevo estado 'INSIDE'
-        String sql = "SELECT * FROM stays WHERE license_plate = ? AND status = 'INSIDE'";
+        String sql = "SELECT " + EstanciaRowMapper.ACTIVE_COLUMNS + " FROM stays WHERE license_plate = ? AND status = 'INSIDE'";
         try (Connection conn = DatabaseConnection.getConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
             pstmt.setString(1, plate);
             try (ResultSet rs = pstmt.executeQuery()) {
                 if (rs.next()) {
-                    Estancia estancia = new Estancia();
-                    estancia.setStay_id(rs.getInt("stay_id"));
-                    estancia.setLicense_plate(rs.getString("license_plate"));
-                    estancia.setEntryDate(rs.getTimestamp("entry_timestamp"));
-
-                    // --- LÍNEA A AÑADIR/MODIFICAR ---
-                    // Asumiendo que tu tabla 'stays' ahora tiene una columna 'vehicle_type'
-                    estancia.setVehicleType(rs.getString("vehicle_type"));
-
-                    estancia.setStayType(rs.getString("stay_type"));
-                    estancia.setStatus(rs.getString("status"));
-                    estancia.setEntryOperatorId(rs.getInt("entry_operator_id"));
-                    return Optional.of(estancia);
+                    return Optional.of(EstanciaRowMapper.mapActive(rs));
                 }
             }
         } catch (SQLException e) {
-            e.printStackTrace();
+            throw new DataAccessException("No se pudo consultar la estancia activa de la placa " + plate + ".", e);
         }
         return Optional.empty();
     }
 
     /**
      * Devuelve una lista de todas las estancias actualmente activas.
+     * Para lotes grandes es preferible {@link #forEachActive(Consumer)}, que no acumula las filas.
+     * Es una lectura para tableros y reportes: la puede atender una réplica (DatabaseConnection.getReadConnection).
      * @return Una lista de objetos Estancia.
+     * @throws DataAccessException si la consulta falla.
      */
     @Override
     public List<Estancia> findAllActive() {
         List<Estancia> activeStays = new ArrayList<>();
-        // Consulta actualizada para ordenar por 'entry_timestamp' y filtrar por estado 'INSIDE'
-        String sql = "SELECT * FROM stays WHERE status = 'INSIDE' ORDER BY entry_timestamp ASC";
+        try (Connection conn = DatabaseConnection.getReadConnection();
+             PreparedStatement pstmt = prepareActiveCursor(conn);
+             ResultSet rs = pstmt.executeQuery()) {
 
+            while (rs.next()) {
+                activeStays.add(EstanciaRowMapper.mapActive(rs));
+            }
+        } catch (SQLException e) {
+            throw new DataAccessException("No se pudieron consultar las estancias activas.", e);
+        }
+        return activeStays;
+    }
+
+    /**
+     * Recorre las estancias activas, ordenadas por (entry_timestamp, stay_id), con un cursor del
+     * lado del servidor: el driver trae las filas en bloques de db.fetchSize en lugar de cargar
+     * todo el resultado en memoria.
+     * Lee siempre la primaria: la reconciliación del índice de ocupación necesita las estancias al día.
+     * @throws DataAccessException si la consulta falla.
+     */
+    @Override
+    public void forEachActive(Consumer<Estancia> consumer) {
         try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql);
+             PreparedStatement pstmt = prepareActiveCursor(conn);
              ResultSet rs = pstmt.executeQuery()) {
 
             while (rs.next()) {
-                Estancia estancia = new Estancia();
-                estancia.setStay_id(rs.getInt("stay_id"));
-                estancia.setLicense_plate(rs.getString("license_plate"));
-                estancia.setEntryDate(rs.getTimestamp("entry_timestamp"));
-                estancia.setStayType(rs.getString("stay_type"));
-                estancia.setStatus(rs.getString("status"));
-                estancia.setEntryOperatorId(rs.getInt("entry_operator_id"));
-                // No es necesario mapear los campos de salida ya que el estado es 'INSIDE'
-                activeStays.add(estancia);
+                consumer.accept(EstanciaRowMapper.mapActive(rs));
             }
         } catch (SQLException e) {
-            e.printStackTrace();
+            // Una lista vacía se confundiría con un parqueadero vacío (y vaciaría el índice de ocupación).
+            throw new DataAccessException("No se pudieron consultar las estancias activas.", e);
         }
-        return activeStays;
     }
 
+    /**
+     * Igual que {@link #forEachActive(Consumer)}, pero como Stream perezoso.
+     * La conexión queda abierta hasta cerrar el Stream, por lo que debe usarse con try-with-resources.
+     * La puede atender una réplica de lectura.
+     * @throws DataAccessException si la consulta falla.
+     */
+    @Override
+    public Stream<Estancia> streamAllActive() {
+        Connection conn = null;
+        PreparedStatement pstmt = null;
+        try {
+            conn = DatabaseConnection.getReadConnection();
+            pstmt = prepareActiveCursor(conn);
+            ResultSet rs = pstmt.executeQuery();
+
+            Connection connection = conn;
+            PreparedStatement statement = pstmt;
+            Spliterator<Estancia> rows = new Spliterators.AbstractSpliterator<>(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL) {
+                @Override
+                public boolean tryAdvance(Consumer<? super Estancia> action) {
+                    try {
+                        if (!rs.next()) {
+                            return false;
+                        }
+                        action.accept(EstanciaRowMapper.mapActive(rs));
+                        return true;
+                    } catch (SQLException e) {
+                        throw new DataAccessException("No se pudieron leer las estancias activas.", e);
+                    }
+                }
+            };
+            return StreamSupport.stream(rows, false).onClose(() -> closeQuietly(rs, statement, connection));
+        } catch (SQLException e) {
+            closeQuietly(null, pstmt, conn);
+            throw new DataAccessException("No se pudieron consultar las estancias activas.", e);
+        }
+    }
+
+    /**
+     * Devuelve una página de estancias activas usando paginación por clave (keyset) sobre
+     * (entry_timestamp, stay_id): el costo de cada página no depende de cuántas se hayan leído antes.
+     * La puede atender una réplica de lectura.
+     * @throws DataAccessException si la consulta falla.
+     */
+    @Override
+    public List<Estancia> findActivePage(Timestamp afterEntryDate, int afterStayId, int limit) {
+        String sql = afterEntryDate == null
+                ? "SELECT " + EstanciaRowMapper.ACTIVE_COLUMNS + " FROM stays WHERE status = 'INSIDE' " +
+                  "ORDER BY entry_timestamp, stay_id LIMIT ?"
+                : "SELECT " + EstanciaRowMapper.ACTIVE_COLUMNS + " FROM stays WHERE status = 'INSIDE' " +
+                  "AND (entry_timestamp, stay_id) > (?, ?) ORDER BY entry_timestamp, stay_id LIMIT ?";
+
+        List<Estancia> page = new ArrayList<>(limit);
+        try (Connection conn = DatabaseConnection.getReadConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            int index = 1;
+            if (afterEntryDate != null) {
+                pstmt.setTimestamp(index++, afterEntryDate);
+                pstmt.setInt(index++, afterStayId);
+            }
+            pstmt.setInt(index, limit);
+
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    page.add(EstanciaRowMapper.mapActive(rs));
+                }
+            }
+        } catch (SQLException e) {
+            throw new DataAccessException("No se pudo consultar la página de estancias activas.", e);
+        }
+        return page;
+    }
+
+    /**
+     * Prepara la consulta de estancias activas para leerse con un cursor del lado del servidor.
+     * PostgreSQL solo usa el cursor (y respeta el fetch size) con auto-commit desactivado;
+     * el pool restablece el auto-commit al devolver la conexión.
+     */
+    private PreparedStatement prepareActiveCursor(Connection conn) throws SQLException {
+        String sql = "SELECT " + EstanciaRowMapper.ACTIVE_COLUMNS + " FROM stays WHERE status = 'INSIDE' " +
+                "ORDER BY entry_timestamp, stay_id";
+        if (!DatabaseConnection.isTransactionActive()) {
+            conn.setAutoCommit(false);
+        }
+        PreparedStatement pstmt = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+        pstmt.setFetchSize(DatabaseConnection.getFetchSize());
+        return pstmt;
+    }
+
+    private static void closeQuietly(AutoCloseable... resources) {
+        for (AutoCloseable resource : resources) {
+            if (resource == null) {
+                continue;
+            }
+            try {
+                resource.close();
+            } catch (Exception ignored) {
+                // Ya no hay nada útil que hacer con el recurso.
+            }
+        }
+    }
+
+    /**
+     * Actualiza los datos de salida de una estancia que sigue adentro. La condición va en el mismo
+     * UPDATE (como en el journal), así dos carriles no pueden cerrar la misma estancia.
+     * @return false si la estancia no existe o ya había salido.
+     * @throws DataAccessException si la actualización falla.
+     */
     @Override
-    public void update(Estancia estancia) {
+    public boolean update(Estancia estancia) {
         // --- LA SOLUCIÓN: Añadir el cast '::stay_status_enum' al parámetro del estado ---
-        String sql = "UPDATE stays SET exit_timestamp = ?, status = ?::stay_status_enum, exit_operator_id = ? WHERE stay_id = ?";
+        String sql = "UPDATE stays SET exit_timestamp = ?, status = ?::stay_status_enum, exit_operator_id = ? "
+                + "WHERE stay_id = ? AND status = 'INSIDE'";
 
         try (Connection conn = DatabaseConnection.getConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
@@ -133,11 +378,11 @@ public class EstanciaRepositoryImpl implements IEstanciaRepository {
 
             pstmt.setInt(4, estancia.getStay_id());
 
-            pstmt.executeUpdate();
+            return pstmt.executeUpdate() > 0;
 
         } catch (SQLException e) {
-            e.printStackTrace();
-            // En una aplicación real, sería bueno lanzar una excepción aquí para que la capa de servicio sepa que algo falló.
+            // Se propaga el error para que la capa de servicio (y la transacción) sepan que algo falló.
+            throw new DataAccessException("No se pudo actualizar la estancia " + estancia.getStay_id() + ".", e);
         }
     }
 }
\ No newline at end of file
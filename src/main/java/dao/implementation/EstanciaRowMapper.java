@@ -0,0 +1,37 @@
+package dao.implementation;
+
+import model.Estancia;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Mapea filas de la tabla 'stays' a objetos Estancia.
+ * Compartido por todas las consultas de estancias activas de EstanciaRepositoryImpl.
+ */
+final class EstanciaRowMapper {
+
+    /**
+     * Columnas que necesita {@link #mapActive(ResultSet)}. Las consultas de estancias activas
+     * seleccionan solo estas en lugar de 'SELECT *'.
+     */
+    static final String ACTIVE_COLUMNS = "stay_id, license_plate, entry_timestamp, vehicle_type, stay_type, status, entry_operator_id";
+
+    private EstanciaRowMapper() {}
+
+    /**
+     * Mapea la fila actual del ResultSet a una Estancia activa.
+     * No es necesario mapear los campos de salida ya que el estado es 'INSIDE'.
+     */
+    static Estancia mapActive(ResultSet rs) throws SQLException {
+        Estancia estancia = new Estancia();
+        estancia.setStay_id(rs.getInt("stay_id"));
+        estancia.setLicense_plate(rs.getString("license_plate"));
+        estancia.setEntryDate(rs.getTimestamp("entry_timestamp"));
+        estancia.setVehicleType(rs.getString("vehicle_type"));
+        estancia.setStayType(rs.getString("stay_type"));
+        estancia.setStatus(rs.getString("status"));
+        estancia.setEntryOperatorId(rs.getInt("entry_operator_id"));
+        return estancia;
+    }
+}
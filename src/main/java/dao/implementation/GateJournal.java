@@ -0,0 +1,510 @@
+package dao.implementation;
+
+import dao.repository.IGateJournal;
+import model.Estancia;
+import model.Pago;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.Timestamp;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Journal local de solo-anexado (append-only) sobre archivos mapeados en memoria.
+ *
+ * - El journal es una secuencia de segmentos de tamaño fijo (journal-0000000000000001.log, ...).
+ *   Cada segmento empieza con una cabecera de 64 bytes que guarda hasta dónde se reprodujo.
+ * - Cada registro es [longitud][CRC32C][evento]. La longitud se escribe al final, así que un
+ *   registro a medio escribir (la aplicación se cerró en ese instante) se descarta al abrir.
+ * - Anexar es copiar unos cien bytes al mapa: no hay llamadas al sistema, salvo con syncOnAppend,
+ *   que fuerza cada registro al disco. Sin él, los registros sobreviven a un cierre abrupto de la
+ *   aplicación (están en la caché de páginas del sistema operativo), pero no a un corte de energía.
+ * - Cada evento lleva un UUID (client_event_id) para que reproducirlo dos veces no tenga efecto.
+ * - {@link JournalReplayer} lee los eventos pendientes en orden y avanza la marca de reproducción;
+ *   los segmentos reproducidos por completo se borran.
+ *
+ * Thread-safe: todas las operaciones se serializan en el monitor del journal.
+ */
+public class GateJournal implements IGateJournal, AutoCloseable {
+
+    static final byte ENTRY = 1;
+    static final byte EXIT = 2;
+
+    private static final int MAGIC = 0x43504A31; // "CPJ1"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 64;
+    private static final int REPLAYED_OFFSET_POSITION = 8;
+    private static final int RECORD_HEADER_BYTES = 8; // longitud + CRC
+    private static final int MAX_RECORD_BYTES = 4096;
+    private static final int MIN_SEGMENT_BYTES = 64 * 1024;
+    private static final String SEGMENT_PREFIX = "journal-";
+    private static final String SEGMENT_SUFFIX = ".log";
+
+    private final Path directory;
+    private final int segmentBytes;
+    private final boolean syncOnAppend;
+
+    private final ArrayDeque<Segment> segments = new ArrayDeque<>();
+    private final ByteBuffer scratch = ByteBuffer.allocate(MAX_RECORD_BYTES);
+    private final CRC32C crc = new CRC32C();
+    // Ingresos provisionales -> UUID de su evento, para que la salida pueda referirse a ellos.
+    private final Map<Integer, UUID> entryEventByProvisionalId = new HashMap<>();
+    private final Map<Integer, Estancia> pendingEntries = new LinkedHashMap<>();
+    private final Set<Integer> pendingExits = new HashSet<>();
+    private int nextProvisionalId = -1;
+    private long nextSequence = 1;
+    private volatile int pendingCount;
+
+    private final LongAdder appended = new LongAdder();
+    private final LongAdder replayed = new LongAdder();
+
+    /**
+     * Abre el journal del directorio (creándolo si no existe) y recupera los eventos pendientes.
+     * @param directory Directorio de los segmentos.
+     * @param segmentBytes Tamaño de cada segmento (mínimo 64 KB).
+     * @param syncOnAppend Si cada registro se fuerza al disco antes de confirmarlo.
+     * @throws UncheckedIOException si el journal no se puede abrir.
+     */
+    public GateJournal(Path directory, int segmentBytes, boolean syncOnAppend) {
+        if (segmentBytes < MIN_SEGMENT_BYTES) {
+            throw new IllegalArgumentException("segmentBytes debe ser al menos " + MIN_SEGMENT_BYTES + ": " + segmentBytes);
+        }
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        this.syncOnAppend = syncOnAppend;
+        try {
+            Files.createDirectories(directory);
+            for (Path path : listSegments()) {
+                Segment segment = openSegment(path, sequenceOf(path));
+                recover(segment);
+                segments.addLast(segment);
+                nextSequence = segment.sequence + 1;
+            }
+            dropReplayedSegments();
+            if (segments.isEmpty()) {
+                segments.addLast(openSegment(segmentPath(nextSequence), nextSequence++));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo abrir el journal en " + directory + ".", e);
+        }
+    }
+
+    @Override
+    public boolean hasPending() {
+        return pendingCount > 0;
+    }
+
+    @Override
+    public int getPendingCount() {
+        return pendingCount;
+    }
+
+    @Override
+    public Estancia appendEntry(Estancia estancia) {
+        UUID eventId = UUID.randomUUID();
+        synchronized (this) {
+            int provisionalId = nextProvisionalId;
+            append(() -> {
+                writeCommon(ENTRY, eventId, estancia.getEntryDate().getTime(), provisionalId,
+                        estancia.getEntryOperatorId(), estancia.getLicense_plate());
+                putString(estancia.getVehicleType());
+                putString(estancia.getStayType());
+            });
+            nextProvisionalId--;
+
+            estancia.setStay_id(provisionalId);
+            estancia.setStatus("INSIDE");
+            entryEventByProvisionalId.put(provisionalId, eventId);
+            pendingEntries.put(provisionalId, copyOf(estancia));
+            pendingCount++;
+            return estancia;
+        }
+    }
+
+    @Override
+    public void appendExit(Estancia estancia, Pago pago) {
+        UUID eventId = UUID.randomUUID();
+        synchronized (this) {
+            int stayId = estancia.getStay_id();
+            UUID entryEventId = stayId < 0 ? entryEventByProvisionalId.get(stayId) : null;
+            if (stayId < 0 && entryEventId == null) {
+                throw new IllegalArgumentException("La estancia provisional " + stayId + " no está en el journal.");
+            }
+            int operatorId = estancia.getExitOperatorId() != null ? estancia.getExitOperatorId() : 0;
+            append(() -> {
+                writeCommon(EXIT, eventId, estancia.getExitDate().getTime(), stayId, operatorId, estancia.getLicense_plate());
+                scratch.putLong(entryEventId == null ? 0 : entryEventId.getMostSignificantBits());
+                scratch.putLong(entryEventId == null ? 0 : entryEventId.getLeastSignificantBits());
+                scratch.putLong(pago == null ? 0 : Math.round(pago.getAmount() * 100));
+                putString(pago == null ? null : pago.getPaymentMethod());
+            });
+
+            pendingEntries.remove(stayId);
+            if (stayId > 0) {
+                pendingExits.add(stayId);
+            }
+            pendingCount++;
+        }
+    }
+
+    @Override
+    public synchronized List<Estancia> findPendingEntries() {
+        List<Estancia> stays = new ArrayList<>(pendingEntries.size());
+        for (Estancia estancia : pendingEntries.values()) {
+            stays.add(copyOf(estancia));
+        }
+        return stays;
+    }
+
+    @Override
+    public synchronized boolean isExitPending(int stayId) {
+        return pendingExits.contains(stayId);
+    }
+
+    /** Eventos anexados desde que se abrió el journal. */
+    public long getAppendedCount() {
+        return appended.sum();
+    }
+
+    /** Eventos reproducidos (o descartados) desde que se abrió el journal. */
+    public long getReplayedCount() {
+        return replayed.sum();
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Lee los siguientes eventos pendientes, en el orden en que se anexaron, sin marcarlos.
+     * @param max Número máximo de eventos.
+     * @return Los eventos; vacío si no hay pendientes.
+     */
+    synchronized List<Event> readBatch(int max) {
+        List<Event> batch = new ArrayList<>(Math.min(max, Math.max(pendingCount, 1)));
+        for (Segment segment : segments) {
+            int position = segment.replayedOffset;
+            while (position < segment.writeOffset && batch.size() < max) {
+                Event event = decode(segment, position);
+                batch.add(event);
+                position = event.endOffset;
+            }
+            if (batch.size() >= max) {
+                break;
+            }
+        }
+        return batch;
+    }
+
+    /**
+     * Marca como reproducidos los eventos de un lote devuelto por {@link #readBatch(int)}
+     * (en el mismo orden) y borra los segmentos que ya no tienen eventos pendientes.
+     * @param events Los eventos aplicados en la base de datos, o descartados.
+     */
+    synchronized void markReplayed(List<Event> events) {
+        for (Event event : events) {
+            Segment segment = event.segment;
+            segment.replayedOffset = event.endOffset;
+            segment.buffer.putLong(REPLAYED_OFFSET_POSITION, event.endOffset);
+            if (event.type == ENTRY) {
+                pendingEntries.remove(event.stayId);
+            } else {
+                pendingExits.remove(event.stayId);
+            }
+            pendingCount--;
+        }
+        replayed.add(events.size());
+        if (syncOnAppend && !events.isEmpty()) {
+            events.get(events.size() - 1).segment.buffer.force(0, HEADER_BYTES);
+        }
+        dropReplayedSegments();
+    }
+
+    @Override
+    public synchronized void close() {
+        for (Segment segment : segments) {
+            segment.buffer.force();
+            try {
+                segment.channel.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+        segments.clear();
+    }
+
+    // --- Escritura ---
+
+    private void append(Runnable encoder) {
+        scratch.clear();
+        try {
+            encoder.run();
+        } catch (BufferOverflowException e) {
+            throw new IllegalArgumentException("El evento supera el tamaño máximo de un registro (" + MAX_RECORD_BYTES + " bytes).");
+        }
+        int length = scratch.position();
+
+        Segment segment = segments.getLast();
+        if (segment.writeOffset + RECORD_HEADER_BYTES + length > segment.buffer.capacity()) {
+            segment = roll();
+        }
+        int position = segment.writeOffset;
+        crc.reset();
+        crc.update(scratch.array(), 0, length);
+
+        MappedByteBuffer buffer = segment.buffer;
+        buffer.put(position + RECORD_HEADER_BYTES, scratch.array(), 0, length);
+        buffer.putInt(position + 4, (int) crc.getValue());
+        buffer.putInt(position, length); // Al final: a partir de aquí el registro es válido.
+        if (syncOnAppend) {
+            buffer.force(position, RECORD_HEADER_BYTES + length);
+        }
+        segment.writeOffset = position + RECORD_HEADER_BYTES + length;
+        appended.increment();
+    }
+
+    private void writeCommon(byte type, UUID eventId, long timestampMillis, int stayId, int operatorId, String plate) {
+        scratch.put(type);
+        scratch.putLong(eventId.getMostSignificantBits());
+        scratch.putLong(eventId.getLeastSignificantBits());
+        scratch.putLong(timestampMillis);
+        scratch.putInt(stayId);
+        scratch.putInt(operatorId);
+        putString(plate);
+    }
+
+    private void putString(String value) {
+        if (value == null) {
+            scratch.putShort((short) -1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        scratch.putShort((short) bytes.length);
+        scratch.put(bytes);
+    }
+
+    private Segment roll() {
+        try {
+            Segment segment = openSegment(segmentPath(nextSequence), nextSequence++);
+            segments.addLast(segment);
+            dropReplayedSegments();
+            return segment;
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo crear un nuevo segmento del journal.", e);
+        }
+    }
+
+    // --- Lectura y recuperación ---
+
+    private void recover(Segment segment) {
+        int capacity = segment.buffer.capacity();
+        int position = HEADER_BYTES;
+        while (position + RECORD_HEADER_BYTES <= capacity) {
+            int length = segment.buffer.getInt(position);
+            if (length <= 0 || length > MAX_RECORD_BYTES || position + RECORD_HEADER_BYTES + length > capacity) {
+                break;
+            }
+            crc.reset();
+            crc.update(segment.buffer.slice(position + RECORD_HEADER_BYTES, length));
+            if ((int) crc.getValue() != segment.buffer.getInt(position + 4)) {
+                System.err.println("Journal: registro incompleto en " + segment.path.getFileName() + " (posición " + position + "); se descarta el resto del segmento.");
+                break;
+            }
+            Event event = decode(segment, position);
+            track(event, position >= segment.replayedOffset);
+            position = event.endOffset;
+        }
+        segment.writeOffset = position;
+        segment.replayedOffset = Math.min(segment.replayedOffset, position);
+    }
+
+    private void track(Event event, boolean pending) {
+        if (event.type == ENTRY) {
+            if (event.stayId < 0) {
+                entryEventByProvisionalId.put(event.stayId, event.eventId);
+                nextProvisionalId = Math.min(nextProvisionalId, event.stayId - 1);
+            }
+            if (pending) {
+                pendingEntries.put(event.stayId, event.toEstancia());
+            }
+        } else if (pending) {
+            pendingEntries.remove(event.stayId);
+            if (event.stayId > 0) {
+                pendingExits.add(event.stayId);
+            }
+        }
+        if (pending) {
+            pendingCount++;
+        }
+    }
+
+    private static Event decode(Segment segment, int position) {
+        int length = segment.buffer.getInt(position);
+        ByteBuffer in = segment.buffer.slice(position + RECORD_HEADER_BYTES, length);
+        Event event = new Event();
+        event.segment = segment;
+        event.endOffset = position + RECORD_HEADER_BYTES + length;
+        event.type = in.get();
+        event.eventId = new UUID(in.getLong(), in.getLong());
+        event.timestampMillis = in.getLong();
+        event.stayId = in.getInt();
+        event.operatorId = in.getInt();
+        event.plate = getString(in);
+        if (event.type == ENTRY) {
+            event.vehicleType = getString(in);
+            event.stayType = getString(in);
+        } else {
+            long msb = in.getLong();
+            long lsb = in.getLong();
+            event.entryEventId = msb == 0 && lsb == 0 ? null : new UUID(msb, lsb);
+            event.amountCents = in.getLong();
+            event.paymentMethod = getString(in);
+        }
+        return event;
+    }
+
+    private static String getString(ByteBuffer in) {
+        short length = in.getShort();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // --- Segmentos ---
+
+    private List<Path> listSegments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            // Las secuencias tienen ancho fijo: el orden alfabético es el de creación.
+            return files.filter(path -> {
+                String name = path.getFileName().toString();
+                return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+            }).sorted().collect(Collectors.toList());
+        }
+    }
+
+    private Segment openSegment(Path path, long sequence) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long size = channel.size() >= HEADER_BYTES ? channel.size() : segmentBytes;
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        if (buffer.getInt(0) != MAGIC) {
+            buffer.putInt(4, VERSION);
+            buffer.putLong(REPLAYED_OFFSET_POSITION, HEADER_BYTES);
+            buffer.putInt(0, MAGIC);
+        }
+        Segment segment = new Segment(sequence, path, channel, buffer);
+        segment.replayedOffset = (int) buffer.getLong(REPLAYED_OFFSET_POSITION);
+        segment.writeOffset = HEADER_BYTES;
+        return segment;
+    }
+
+    private void dropReplayedSegments() {
+        while (segments.size() > 1 && segments.getFirst().replayedOffset >= segments.getFirst().writeOffset) {
+            Segment segment = segments.removeFirst();
+            try {
+                segment.channel.close();
+                Files.deleteIfExists(segment.path);
+            } catch (IOException e) {
+                // Se vuelve a intentar al abrir el journal la próxima vez.
+                System.err.println("Journal: no se pudo borrar " + segment.path + ": " + e.getMessage());
+            }
+        }
+    }
+
+    private Path segmentPath(long sequence) {
+        return directory.resolve(String.format("%s%016d%s", SEGMENT_PREFIX, sequence, SEGMENT_SUFFIX));
+    }
+
+    private static long sequenceOf(Path path) {
+        String name = path.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    private static Estancia copyOf(Estancia source) {
+        Estancia copy = new Estancia();
+        copy.setStay_id(source.getStay_id());
+        copy.setLicense_plate(source.getLicense_plate());
+        copy.setEntryDate(source.getEntryDate());
+        copy.setStayType(source.getStayType());
+        copy.setStatus(source.getStatus());
+        copy.setEntryOperatorId(source.getEntryOperatorId());
+        copy.setVehicleType(source.getVehicleType());
+        return copy;
+    }
+
+    private static final class Segment {
+        private final long sequence;
+        private final Path path;
+        private final FileChannel channel;
+        private final MappedByteBuffer buffer;
+        private int writeOffset;
+        private int replayedOffset;
+
+        private Segment(long sequence, Path path, FileChannel channel, MappedByteBuffer buffer) {
+            this.sequence = sequence;
+            this.path = path;
+            this.channel = channel;
+            this.buffer = buffer;
+        }
+    }
+
+    /**
+     * Un evento leído del journal. Los campos de la salida (entryEventId, amountCents,
+     * paymentMethod) solo tienen valor en los eventos EXIT; los del ingreso, en los ENTRY.
+     */
+    static final class Event {
+        private Segment segment;
+        private int endOffset;
+
+        byte type;
+        UUID eventId;
+        long timestampMillis;
+        int stayId;
+        int operatorId;
+        String plate;
+        String vehicleType;
+        String stayType;
+        UUID entryEventId;
+        long amountCents;
+        String paymentMethod;
+
+        Estancia toEstancia() {
+            Estancia estancia = new Estancia();
+            estancia.setStay_id(stayId);
+            estancia.setLicense_plate(plate);
+            estancia.setEntryDate(new Timestamp(timestampMillis));
+            estancia.setStayType(stayType);
+            estancia.setStatus("INSIDE");
+            estancia.setEntryOperatorId(operatorId);
+            estancia.setVehicleType(vehicleType);
+            return estancia;
+        }
+
+        @Override
+        public String toString() {
+            return (type == ENTRY ? "ENTRY" : "EXIT") + " " + eventId + " placa=" + plate + " estancia=" + stayId;
+        }
+    }
+}
@@ -0,0 +1,255 @@
+package dao.implementation;
+
+import config.DatabaseConnection;
+import dao.repository.DataAccessException;
+import dao.repository.IEstanciaRepository;
+import model.Estancia;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Decorador de IEstanciaRepository que agrupa los registros de ingreso concurrentes (group commit).
+ *
+ * Los llamadores de {@link #registerEntry(Estancia)} dejan su estancia en una cola y esperan.
+ * Un hilo de escritura toma la primera, espera como máximo windowMillis a que lleguen más (hasta
+ * maxBatchSize) y las registra todas con {@link IEstanciaRepository#registerEntries(List)}:
+ * una sentencia y un viaje a la base de datos por lote. Cada llamador recibe su propio resultado
+ * (su stay_id, o vacío si la placa ya estaba adentro). Con muchos carriles a la vez, los lotes
+ * crecen y el número de viajes no.
+ *
+ * - Si el lote falla por una causa que no es de conexión (p. ej. un operador inexistente), sus
+ *   estancias se registran una por una, para que el error solo le llegue a quien lo causó.
+ * - Dentro de una unidad de trabajo, o si el hilo no está iniciado, el registro es directo.
+ * - El resto de operaciones se delegan sin cambios.
+ */
+public class GroupCommitEstanciaRepository implements IEstanciaRepository {
+
+    private final IEstanciaRepository delegate;
+    private final long windowNanos;
+    private final int maxBatchSize;
+
+    private final LinkedBlockingQueue<PendingEntry> queue = new LinkedBlockingQueue<>();
+
+    private final LongAdder entries = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder batchFallbacks = new LongAdder();
+
+    private volatile Thread writer;
+
+    /**
+     * Crea el decorador con una ventana de 2 ms y lotes de hasta 64 ingresos.
+     * @param delegate El repositorio que escribe en la base de datos.
+     */
+    public GroupCommitEstanciaRepository(IEstanciaRepository delegate) {
+        this(delegate, 2, 64);
+    }
+
+    /**
+     * @param delegate El repositorio que escribe en la base de datos.
+     * @param windowMillis Tiempo máximo que un ingreso espera a otros para compartir el lote (0 = solo
+     *                     se agrupan los que ya estaban en la cola).
+     * @param maxBatchSize Número máximo de ingresos por sentencia.
+     */
+    public GroupCommitEstanciaRepository(IEstanciaRepository delegate, long windowMillis, int maxBatchSize) {
+        this.delegate = delegate;
+        this.windowNanos = TimeUnit.MILLISECONDS.toNanos(windowMillis);
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    /**
+     * Inicia el hilo de escritura (daemon).
+     */
+    public synchronized void start() {
+        if (writer != null) {
+            return;
+        }
+        Thread t = new Thread(this::writeLoop, "crudpark-entry-group-commit");
+        t.setDaemon(true);
+        writer = t;
+        t.start();
+    }
+
+    /**
+     * Detiene el hilo de escritura. Los ingresos que quedaban en la cola se registran antes de terminar.
+     */
+    public synchronized void stop() {
+        Thread t = writer;
+        if (t == null) {
+            return;
+        }
+        writer = null;
+        t.interrupt();
+        try {
+            t.join(5_000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush(drainAll());
+    }
+
+    @Override
+    public Optional<Estancia> registerEntry(Estancia estancia) {
+        if (writer == null || DatabaseConnection.isTransactionActive()) {
+            return delegate.registerEntry(estancia);
+        }
+        PendingEntry pending = new PendingEntry(estancia);
+        queue.add(pending);
+        if (writer == null) {
+            flush(drainAll()); // stop() terminó mientras se encolaba.
+        }
+        try {
+            return pending.result.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DataAccessException("Interrumpido esperando el registro del ingreso de la placa " + estancia.getLicense_plate() + ".");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw (Error) cause;
+        }
+    }
+
+    @Override
+    public List<Optional<Estancia>> registerEntries(List<Estancia> estancias) {
+        return delegate.registerEntries(estancias);
+    }
+
+    /** Ingresos registrados a través de la cola. */
+    public long getEntryCount() { return entries.sum(); }
+    /** Sentencias enviadas (lotes). */
+    public long getBatchCount() { return batches.sum(); }
+    /** Lotes que fallaron y se registraron uno por uno. */
+    public long getBatchFallbackCount() { return batchFallbacks.sum(); }
+
+    /** Tamaño promedio de los lotes. */
+    public double getAverageBatchSize() {
+        long count = batches.sum();
+        return count == 0 ? 0 : (double) entries.sum() / count;
+    }
+
+    private void writeLoop() {
+        while (writer == Thread.currentThread()) {
+            List<PendingEntry> batch = new ArrayList<>(maxBatchSize);
+            boolean interrupted = false;
+            try {
+                batch.add(queue.take());
+                long deadline = System.nanoTime() + windowNanos;
+                while (batch.size() < maxBatchSize) {
+                    long remaining = deadline - System.nanoTime();
+                    PendingEntry next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                interrupted = true; // stop() registra lo que quede en la cola.
+            }
+            try {
+                flush(batch);
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+            }
+            if (interrupted) {
+                return;
+            }
+        }
+    }
+
+    private List<PendingEntry> drainAll() {
+        List<PendingEntry> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        return remaining;
+    }
+
+    private void flush(List<PendingEntry> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        List<Estancia> estancias = new ArrayList<>(batch.size());
+        for (PendingEntry pending : batch) {
+            estancias.add(pending.estancia);
+        }
+        try {
+            List<Optional<Estancia>> results = delegate.registerEntries(estancias);
+            batches.increment();
+            entries.add(batch.size());
+            for (int i = 0; i < batch.size(); i++) {
+                batch.get(i).result.complete(results.get(i));
+            }
+        } catch (DataAccessException e) {
+            if (e.isConnectionFailure() || batch.size() == 1) {
+                batch.forEach(pending -> pending.result.completeExceptionally(e));
+                return;
+            }
+            batchFallbacks.increment();
+            for (PendingEntry pending : batch) {
+                try {
+                    pending.result.complete(delegate.registerEntry(pending.estancia));
+                } catch (RuntimeException single) {
+                    pending.result.completeExceptionally(single);
+                }
+            }
+        } catch (RuntimeException | Error e) {
+            batch.forEach(pending -> pending.result.completeExceptionally(e));
+        }
+    }
+
+    // --- Delegación ---
+
+    @Override
+    public Estancia save(Estancia estancia) {
+        return delegate.save(estancia);
+    }
+
+    @Override
+    public Optional<Estancia> findActiveByPlate(String plate) {
+        return delegate.findActiveByPlate(plate);
+    }
+
+    @Override
+    public List<Estancia> findAllActive() {
+        return delegate.findAllActive();
+    }
+
+    @Override
+    public void forEachActive(Consumer<Estancia> consumer) {
+        delegate.forEachActive(consumer);
+    }
+
+    @Override
+    public Stream<Estancia> streamAllActive() {
+        return delegate.streamAllActive();
+    }
+
+    @Override
+    public List<Estancia> findActivePage(Timestamp afterEntryDate, int afterStayId, int limit) {
+        return delegate.findActivePage(afterEntryDate, afterStayId, limit);
+    }
+
+    @Override
+    public boolean update(Estancia estancia) {
+        return delegate.update(estancia);
+    }
+
+    private static final class PendingEntry {
+        private final Estancia estancia;
+        private final CompletableFuture<Optional<Estancia>> result = new CompletableFuture<>();
+
+        private PendingEntry(Estancia estancia) {
+            this.estancia = estancia;
+        }
+    }
+}
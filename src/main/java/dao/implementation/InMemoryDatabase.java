@@ -0,0 +1,90 @@
+package dao.implementation;
+
+import dao.repository.DataAccessException;
+import model.Operator;
+import model.Tarifa;
+import org.mindrot.jbcrypt.BCrypt;
+
+import java.sql.SQLException;
+import java.time.Clock;
+
+/**
+ * Base de datos en memoria: agrupa los repositorios en memoria y los conecta entre sí como lo
+ * están las tablas (el ingreso consulta las membresías, el pago exige una estancia existente y
+ * ambos participan en la misma unidad de trabajo).
+ *
+ * Sirve para pruebas de integración sin PostgreSQL, para la demostración y los benchmarks sin
+ * base de datos (ver config.StorageConfig) y como almacenamiento local de una portería aislada.
+ * Los datos se pierden al cerrar la aplicación.
+ */
+public final class InMemoryDatabase {
+
+    // SQLState de PostgreSQL para las restricciones que aplican los repositorios en memoria.
+    static final String UNIQUE_VIOLATION = "23505";
+    static final String FOREIGN_KEY_VIOLATION = "23503";
+    static final String CHECK_VIOLATION = "23514";
+
+    private final InMemoryUnitOfWork unitOfWork = new InMemoryUnitOfWork();
+    private final InMemoryMensualidadRepository memberships;
+    private final InMemoryEstanciaRepository stays;
+    private final InMemoryPagoRepository payments;
+    private final InMemoryTarifaRepository rates = new InMemoryTarifaRepository();
+    private final InMemoryOperatorRepository operators = new InMemoryOperatorRepository();
+
+    public InMemoryDatabase() {
+        this(Clock.systemDefaultZone());
+    }
+
+    /**
+     * @param clock Reloj que reemplaza a CURRENT_TIMESTAMP (p. ej. uno acelerado para simulaciones).
+     */
+    public InMemoryDatabase(Clock clock) {
+        this.memberships = new InMemoryMensualidadRepository(clock);
+        this.stays = new InMemoryEstanciaRepository(clock, memberships, unitOfWork);
+        this.payments = new InMemoryPagoRepository(clock, stays, unitOfWork);
+    }
+
+    /**
+     * Crea una base de datos con los datos mínimos para usar la aplicación: un operador
+     * (operador@crudpark.com / crudpark) y una tarifa para carros y otra para motos.
+     */
+    public static InMemoryDatabase withDemoData() {
+        InMemoryDatabase database = new InMemoryDatabase();
+        database.operators.save(new Operator(0, "operador", BCrypt.hashpw("crudpark", BCrypt.gensalt()),
+                "Operador de Demostración", "operador@crudpark.com", true));
+        database.rates.saveRate(rate("Tarifa Carro", "Carro", 3000, 800, 25000));
+        database.rates.saveRate(rate("Tarifa Moto", "Moto", 1500, 400, 12000));
+        return database;
+    }
+
+    private static Tarifa rate(String description, String vehicleType, double hour, double fraction, double dailyTop) {
+        Tarifa tarifa = new Tarifa();
+        tarifa.setDescription(description);
+        tarifa.setVehicle_type(vehicleType);
+        tarifa.setValuePerHour(hour);
+        tarifa.setValuePerFraction(fraction);
+        tarifa.setDailyTop(dailyTop);
+        tarifa.setGracePeriodMinutes(15);
+        tarifa.setActive(true);
+        return tarifa;
+    }
+
+    public InMemoryUnitOfWork getUnitOfWork() { return unitOfWork; }
+
+    public InMemoryEstanciaRepository getStays() { return stays; }
+
+    public InMemoryMensualidadRepository getMemberships() { return memberships; }
+
+    public InMemoryTarifaRepository getRates() { return rates; }
+
+    public InMemoryPagoRepository getPayments() { return payments; }
+
+    public InMemoryOperatorRepository getOperators() { return operators; }
+
+    /**
+     * Error de una restricción, con el mismo SQLState que reportaría PostgreSQL.
+     */
+    static DataAccessException violation(String message, String sqlState) {
+        return new DataAccessException(message, new SQLException(message, sqlState));
+    }
+}
@@ -0,0 +1,257 @@
+package dao.implementation;
+
+import dao.repository.DataAccessException;
+import dao.repository.IEstanciaRepository;
+import dao.repository.IMensualidadRepository;
+import model.Estancia;
+
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Implementación en memoria de IEstanciaRepository (tabla 'stays').
+ * Mantiene los mismos índices que el esquema de PostgreSQL:
+ * - las filas por stay_id (la llave primaria), en un {@link DenseIdTable};
+ * - ux_stays_plate_inside: placa -> estancia 'INSIDE', que hace atómica la regla de no duplicar ingresos;
+ * - ix_stays_inside_entry: estancias 'INSIDE' ordenadas por (entry_timestamp, stay_id), para el
+ *   listado, la reconciliación y la paginación por clave.
+ *
+ * Las filas guardadas no se entregan: cada lectura devuelve copias, como lo haría un ResultSet.
+ */
+public class InMemoryEstanciaRepository implements IEstanciaRepository {
+
+    private static final String INSIDE = "INSIDE";
+    private static final Comparator<Estancia> BY_ENTRY =
+            Comparator.comparing(Estancia::getEntryDate).thenComparingInt(Estancia::getStay_id);
+
+    private final Clock clock;
+    private final IMensualidadRepository memberships;
+    private final InMemoryUnitOfWork unitOfWork;
+    private final DenseIdTable<Estancia> rows = new DenseIdTable<>();
+    private final Map<String, Estancia> insideByPlate = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListSet<Estancia> insideByEntry = new ConcurrentSkipListSet<>(BY_ENTRY);
+
+    /**
+     * @param clock Reloj que reemplaza a CURRENT_TIMESTAMP.
+     * @param memberships Membresías con las que se resuelve el tipo de estancia cuando el ingreso no lo trae.
+     * @param unitOfWork Unidad de trabajo en la que se registran las escrituras para poder deshacerlas.
+     */
+    public InMemoryEstanciaRepository(Clock clock, IMensualidadRepository memberships, InMemoryUnitOfWork unitOfWork) {
+        this.clock = clock;
+        this.memberships = memberships;
+        this.unitOfWork = unitOfWork;
+    }
+
+    /**
+     * Inserta la estancia tal como viene. Si es 'INSIDE' y la placa ya tiene una estancia activa,
+     * no se inserta y devuelve null (como EstanciaRepositoryImpl ante la violación del índice único).
+     */
+    @Override
+    public Estancia save(Estancia estancia) {
+        Estancia row = copy(estancia);
+        if (row.getEntryDate() == null) {
+            row.setEntryDate(now());
+        }
+        if (row.getStatus() == null) {
+            row.setStatus(INSIDE);
+        }
+        row.setStay_id(rows.nextId());
+        if (!insert(row)) {
+            return null;
+        }
+        estancia.setStay_id(row.getStay_id());
+        return estancia;
+    }
+
+    /**
+     * Registra el ingreso si la placa no tiene una estancia activa. Si la estancia no trae un tipo,
+     * se resuelve con la membresía vigente en el instante de ingreso.
+     */
+    @Override
+    public Optional<Estancia> registerEntry(Estancia estancia) {
+        Estancia row = copy(estancia);
+        if (row.getEntryDate() == null) {
+            row.setEntryDate(now());
+        }
+        if (row.getStayType() == null) {
+            boolean member = memberships.isActiveAt(row.getLicense_plate(), row.getEntryDate()).orElse(false);
+            row.setStayType(member ? "Membership" : "Guest");
+        }
+        row.setStatus(INSIDE);
+        row.setStay_id(rows.nextId());
+        if (!insert(row)) {
+            // La placa ya tiene una estancia activa.
+            return Optional.empty();
+        }
+        estancia.setStay_id(row.getStay_id());
+        estancia.setStayType(row.getStayType());
+        estancia.setStatus(INSIDE);
+        return Optional.of(estancia);
+    }
+
+    /**
+     * Inserta la fila y la agrega a los índices. La reserva de la placa va primero: es la que
+     * decide, de forma atómica, qué carril gana cuando dos registran la misma placa.
+     * @return false si la placa ya tenía una estancia activa.
+     */
+    private boolean insert(Estancia row) {
+        boolean inside = INSIDE.equals(row.getStatus());
+        if (inside && insideByPlate.putIfAbsent(row.getLicense_plate(), row) != null) {
+            return false;
+        }
+        rows.set(row.getStay_id(), row);
+        if (inside) {
+            insideByEntry.add(row);
+        }
+        unitOfWork.onRollback(() -> {
+            rows.set(row.getStay_id(), null);
+            insideByEntry.remove(row);
+            insideByPlate.remove(row.getLicense_plate(), row);
+        });
+        return true;
+    }
+
+    /**
+     * Busca una estancia por su ID, activa o no.
+     */
+    public Optional<Estancia> findById(int stayId) {
+        Estancia row = rows.get(stayId);
+        return row == null ? Optional.empty() : Optional.of(copy(row));
+    }
+
+    @Override
+    public Optional<Estancia> findActiveByPlate(String plate) {
+        Estancia row = insideByPlate.get(plate);
+        return row == null ? Optional.empty() : Optional.of(copy(row));
+    }
+
+    @Override
+    public List<Estancia> findAllActive() {
+        List<Estancia> activeStays = new ArrayList<>(insideByPlate.size());
+        forEachActive(activeStays::add);
+        return activeStays;
+    }
+
+    /**
+     * Recorre las estancias activas ordenadas por (entry_timestamp, stay_id). El recorrido no
+     * bloquea las escrituras: las que ocurran durante él pueden verse o no.
+     */
+    @Override
+    public void forEachActive(Consumer<Estancia> consumer) {
+        for (Estancia row : insideByEntry) {
+            consumer.accept(copy(row));
+        }
+    }
+
+    @Override
+    public Stream<Estancia> streamAllActive() {
+        return insideByEntry.stream().map(InMemoryEstanciaRepository::copy);
+    }
+
+    @Override
+    public List<Estancia> findActivePage(Timestamp afterEntryDate, int afterStayId, int limit) {
+        NavigableSet<Estancia> remaining = insideByEntry;
+        if (afterEntryDate != null) {
+            Estancia probe = new Estancia();
+            probe.setEntryDate(afterEntryDate);
+            probe.setStay_id(afterStayId);
+            remaining = insideByEntry.tailSet(probe, false);
+        }
+        List<Estancia> page = new ArrayList<>(Math.min(limit, 256));
+        for (Estancia row : remaining) {
+            if (page.size() >= limit) {
+                break;
+            }
+            page.add(copy(row));
+        }
+        return page;
+    }
+
+    /**
+     * Actualiza los datos de salida de una estancia que sigue adentro (exit_timestamp, status, exit_operator_id).
+     * @return false si la estancia no existe o ya había salido.
+     * @throws DataAccessException si la salida es anterior al ingreso.
+     */
+    @Override
+    public boolean update(Estancia estancia) {
+        int stayId = estancia.getStay_id();
+        while (true) {
+            Estancia current = rows.get(stayId);
+            if (current == null || !"INSIDE".equals(current.getStatus())) {
+                return false;
+            }
+            if (estancia.getExitDate() != null && estancia.getExitDate().before(current.getEntryDate())) {
+                throw InMemoryDatabase.violation("La salida de la estancia " + stayId + " es anterior a su ingreso.",
+                        InMemoryDatabase.CHECK_VIOLATION);
+            }
+            Estancia updated = copy(current);
+            updated.setExitDate(estancia.getExitDate());
+            updated.setStatus(estancia.getStatus());
+            Integer exitOperatorId = estancia.getExitOperatorId();
+            updated.setExitOperatorId(exitOperatorId != null && exitOperatorId > 0 ? exitOperatorId : null);
+
+            // Otra escritura pudo cambiar la fila desde que se leyó: en ese caso se vuelve a intentar.
+            if (rows.compareAndSet(stayId, current, updated)) {
+                reindex(current, updated);
+                unitOfWork.onRollback(() -> {
+                    rows.set(stayId, current);
+                    reindex(updated, current);
+                });
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Mueve la fila en los índices de estancias activas según su estado anterior y el nuevo.
+     */
+    private void reindex(Estancia before, Estancia after) {
+        boolean wasInside = INSIDE.equals(before.getStatus());
+        boolean isInside = INSIDE.equals(after.getStatus());
+        if (wasInside) {
+            insideByEntry.remove(before);
+            if (isInside) {
+                insideByPlate.replace(after.getLicense_plate(), before, after);
+            } else {
+                insideByPlate.remove(before.getLicense_plate(), before);
+            }
+        } else if (isInside) {
+            if (insideByPlate.putIfAbsent(after.getLicense_plate(), after) != null) {
+                rows.set(after.getStay_id(), before);
+                throw InMemoryDatabase.violation("La placa " + after.getLicense_plate() + " ya tiene una estancia activa.",
+                        InMemoryDatabase.UNIQUE_VIOLATION);
+            }
+        }
+        if (isInside) {
+            insideByEntry.add(after);
+        }
+    }
+
+    private Timestamp now() {
+        return new Timestamp(clock.millis());
+    }
+
+    private static Estancia copy(Estancia source) {
+        Estancia estancia = new Estancia();
+        estancia.setStay_id(source.getStay_id());
+        estancia.setLicense_plate(source.getLicense_plate());
+        estancia.setEntryDate(source.getEntryDate());
+        estancia.setExitDate(source.getExitDate());
+        estancia.setStayType(source.getStayType());
+        estancia.setStatus(source.getStatus());
+        estancia.setEntryOperatorId(source.getEntryOperatorId());
+        estancia.setExitOperatorId(source.getExitOperatorId());
+        estancia.setVehicleType(source.getVehicleType());
+        return estancia;
+    }
+}
@@ -0,0 +1,130 @@
+package dao.implementation;
+
+import dao.repository.IMensualidadRepository;
+import model.Mensualidad;
+
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Implementación en memoria de IMensualidadRepository (tabla 'memberships').
+ * Índices: por ID, por placa (la consulta de cada ingreso) y por (updated_at, ID), que sirve
+ * la recarga incremental de CachingMensualidadRepository igual que ix_memberships_updated_at.
+ * Las lecturas no bloquean; las escrituras (poco frecuentes) se serializan.
+ */
+public class InMemoryMensualidadRepository implements IMensualidadRepository {
+
+    private static final Comparator<Mensualidad> BY_UPDATED_AT =
+            Comparator.comparing(Mensualidad::getUpdatedAt).thenComparingInt(Mensualidad::getId);
+
+    private final Clock clock;
+    private final DenseIdTable<Mensualidad> rows = new DenseIdTable<>();
+    private final Map<String, Mensualidad[]> byPlate = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListSet<Mensualidad> byUpdatedAt = new ConcurrentSkipListSet<>(BY_UPDATED_AT);
+
+    /**
+     * @param clock Reloj que reemplaza a CURRENT_TIMESTAMP.
+     */
+    public InMemoryMensualidadRepository(Clock clock) {
+        this.clock = clock;
+    }
+
+    /**
+     * Inserta (ID 0) o actualiza una membresía. Como el trigger de la tabla, fija 'updated_at'.
+     * @return La membresía guardada, con su ID.
+     */
+    public synchronized Mensualidad save(Mensualidad mensualidad) {
+        if (mensualidad.getId() <= 0) {
+            mensualidad.setId(rows.nextId());
+        } else {
+            rows.advanceTo(mensualidad.getId());
+        }
+        mensualidad.setUpdatedAt(now());
+        Mensualidad row = copy(mensualidad);
+
+        Mensualidad previous = rows.get(row.getId());
+        if (previous != null) {
+            byUpdatedAt.remove(previous);
+            removeFromPlate(previous);
+        }
+        rows.set(row.getId(), row);
+        byPlate.merge(row.getLicensePlate(), new Mensualidad[] {row}, (current, added) -> {
+            Mensualidad[] grown = Arrays.copyOf(current, current.length + 1);
+            grown[current.length] = added[0];
+            return grown;
+        });
+        byUpdatedAt.add(row);
+        return mensualidad;
+    }
+
+    private void removeFromPlate(Mensualidad row) {
+        byPlate.computeIfPresent(row.getLicensePlate(), (plate, current) -> {
+            Mensualidad[] remaining = Arrays.stream(current).filter(m -> m.getId() != row.getId()).toArray(Mensualidad[]::new);
+            return remaining.length == 0 ? null : remaining;
+        });
+    }
+
+    @Override
+    public Optional<Boolean> isCurrentlyActive(String plate) {
+        return isActiveAt(plate, now());
+    }
+
+    @Override
+    public Optional<Boolean> isActiveAt(String plate, Timestamp instant) {
+        Mensualidad[] memberships = byPlate.get(plate);
+        if (memberships != null) {
+            for (Mensualidad mensualidad : memberships) {
+                if (mensualidad.isActive() && !instant.before(mensualidad.getStartDate()) && !instant.after(mensualidad.getEndDate())) {
+                    return Optional.of(true);
+                }
+            }
+        }
+        return Optional.of(false);
+    }
+
+    @Override
+    public List<Mensualidad> findModifiedSince(Timestamp since) {
+        List<Mensualidad> memberships = new ArrayList<>();
+        if (since == null) {
+            // Carga completa: las activas que aún no han vencido.
+            Timestamp now = now();
+            for (Mensualidad mensualidad : byUpdatedAt) {
+                if (mensualidad.isActive() && !mensualidad.getEndDate().before(now)) {
+                    memberships.add(copy(mensualidad));
+                }
+            }
+        } else {
+            Mensualidad probe = new Mensualidad();
+            probe.setUpdatedAt(since);
+            probe.setId(Integer.MAX_VALUE);
+            for (Mensualidad mensualidad : byUpdatedAt.tailSet(probe, false)) {
+                memberships.add(copy(mensualidad));
+            }
+        }
+        return memberships;
+    }
+
+    private Timestamp now() {
+        return new Timestamp(clock.millis());
+    }
+
+    private static Mensualidad copy(Mensualidad source) {
+        Mensualidad mensualidad = new Mensualidad();
+        mensualidad.setId(source.getId());
+        mensualidad.setLicensePlate(source.getLicensePlate());
+        mensualidad.setVehicleType(source.getVehicleType());
+        mensualidad.setStartDate(source.getStartDate());
+        mensualidad.setEndDate(source.getEndDate());
+        mensualidad.setActive(source.isActive());
+        mensualidad.setUpdatedAt(source.getUpdatedAt());
+        return mensualidad;
+    }
+}
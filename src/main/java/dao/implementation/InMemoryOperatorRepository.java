@@ -0,0 +1,73 @@
+package dao.implementation;
+
+import dao.repository.OperatorRepository;
+import model.Operator;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Implementación en memoria de OperatorRepository (tabla 'operators'), con índices por email
+ * (UNIQUE, usado por el login) y por nombre de usuario.
+ */
+public class InMemoryOperatorRepository implements OperatorRepository {
+
+    private final DenseIdTable<Operator> rows = new DenseIdTable<>();
+    private final Map<String, Operator> byEmail = new ConcurrentHashMap<>();
+    private final Map<String, Operator> byUsername = new ConcurrentHashMap<>();
+
+    /**
+     * Inserta (ID 0) o actualiza un operador. La contraseña debe venir como hash BCrypt.
+     * @return El operador guardado, con su ID.
+     * @throws dao.repository.DataAccessException si otro operador ya tiene ese email.
+     */
+    public synchronized Operator save(Operator operator) {
+        Operator sameEmail = operator.getEmail() == null ? null : byEmail.get(operator.getEmail());
+        if (sameEmail != null && sameEmail.getId() != operator.getId()) {
+            throw InMemoryDatabase.violation("Ya existe un operador con el email " + operator.getEmail() + ".",
+                    InMemoryDatabase.UNIQUE_VIOLATION);
+        }
+        if (operator.getId() <= 0) {
+            operator.setId(rows.nextId());
+        } else {
+            rows.advanceTo(operator.getId());
+        }
+        Operator row = copy(operator);
+
+        Operator previous = rows.get(row.getId());
+        if (previous != null) {
+            if (previous.getEmail() != null) {
+                byEmail.remove(previous.getEmail(), previous);
+            }
+            if (previous.getUsername() != null) {
+                byUsername.remove(previous.getUsername(), previous);
+            }
+        }
+        rows.set(row.getId(), row);
+        if (row.getEmail() != null) {
+            byEmail.put(row.getEmail(), row);
+        }
+        if (row.getUsername() != null) {
+            byUsername.put(row.getUsername(), row);
+        }
+        return operator;
+    }
+
+    @Override
+    public Optional<Operator> findByUsername(String username) {
+        Operator row = byUsername.get(username);
+        return row == null ? Optional.empty() : Optional.of(copy(row));
+    }
+
+    @Override
+    public Optional<Operator> findByEmail(String email) {
+        Operator row = byEmail.get(email);
+        return row == null ? Optional.empty() : Optional.of(copy(row));
+    }
+
+    private static Operator copy(Operator source) {
+        return new Operator(source.getId(), source.getUsername(), source.getPassword(), source.getFullName(),
+                source.getEmail(), source.isActive());
+    }
+}
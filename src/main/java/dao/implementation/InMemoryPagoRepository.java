@@ -0,0 +1,104 @@
+package dao.implementation;
+
+import dao.repository.IPagoRepository;
+import model.Pago;
+
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Implementación en memoria de IPagoRepository (tabla 'payments').
+ * Aplica las restricciones del esquema: el monto debe ser positivo (CHECK), la estancia debe
+ * existir (llave foránea) y tener un solo pago (UNIQUE stay_id). El índice único también es un
+ * {@link DenseIdTable}, indexado por stay_id.
+ */
+public class InMemoryPagoRepository implements IPagoRepository {
+
+    private final Clock clock;
+    private final InMemoryEstanciaRepository stays;
+    private final InMemoryUnitOfWork unitOfWork;
+    private final DenseIdTable<Pago> rows = new DenseIdTable<>();
+    private final DenseIdTable<Pago> byStay = new DenseIdTable<>();
+    private final LongAdder count = new LongAdder();
+
+    /**
+     * @param clock Reloj que reemplaza a CURRENT_TIMESTAMP.
+     * @param stays Estancias a las que se refieren los pagos.
+     * @param unitOfWork Unidad de trabajo en la que se registran las escrituras para poder deshacerlas.
+     */
+    public InMemoryPagoRepository(Clock clock, InMemoryEstanciaRepository stays, InMemoryUnitOfWork unitOfWork) {
+        this.clock = clock;
+        this.stays = stays;
+        this.unitOfWork = unitOfWork;
+    }
+
+    /**
+     * Guarda un pago.
+     * @throws dao.repository.DataAccessException si viola alguna restricción de la tabla.
+     */
+    @Override
+    public void save(Pago pago) {
+        if (!(pago.getAmount() > 0)) {
+            throw InMemoryDatabase.violation("El monto del pago de la estancia " + pago.getEstanciaId() + " debe ser positivo.",
+                    InMemoryDatabase.CHECK_VIOLATION);
+        }
+        if (stays.findById(pago.getEstanciaId()).isEmpty()) {
+            throw InMemoryDatabase.violation("No existe la estancia " + pago.getEstanciaId() + ".",
+                    InMemoryDatabase.FOREIGN_KEY_VIOLATION);
+        }
+        Pago row = copy(pago);
+        if (row.getPaymentDate() == null) {
+            row.setPaymentDate(new Timestamp(clock.millis()));
+        }
+        row.setId(rows.nextId());
+        if (!byStay.compareAndSet(row.getEstanciaId(), null, row)) {
+            throw InMemoryDatabase.violation("La estancia " + pago.getEstanciaId() + " ya tiene un pago.",
+                    InMemoryDatabase.UNIQUE_VIOLATION);
+        }
+        rows.set(row.getId(), row);
+        count.increment();
+        pago.setId(row.getId());
+        unitOfWork.onRollback(() -> {
+            rows.set(row.getId(), null);
+            byStay.set(row.getEstanciaId(), null);
+            count.decrement();
+        });
+    }
+
+    /**
+     * Guarda varios pagos: se guardan todos o ninguno.
+     */
+    @Override
+    public void saveAll(List<Pago> pagos) {
+        unitOfWork.run(() -> pagos.forEach(this::save));
+    }
+
+    /**
+     * Busca el pago de una estancia.
+     */
+    public Optional<Pago> findByStayId(int stayId) {
+        Pago row = byStay.get(stayId);
+        return row == null ? Optional.empty() : Optional.of(copy(row));
+    }
+
+    /**
+     * @return Número de pagos guardados.
+     */
+    public long count() {
+        return count.sum();
+    }
+
+    private static Pago copy(Pago source) {
+        Pago pago = new Pago();
+        pago.setId(source.getId());
+        pago.setEstanciaId(source.getEstanciaId());
+        pago.setAmount(source.getAmount());
+        pago.setPaymentDate(source.getPaymentDate());
+        pago.setPaymentMethod(source.getPaymentMethod());
+        pago.setOperatorId(source.getOperatorId());
+        return pago;
+    }
+}
@@ -0,0 +1,175 @@
+package dao.implementation;
+
+import dao.repository.ITarifaRepository;
+import model.FranjaTarifa;
+import model.Tarifa;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Implementación en memoria de ITarifaRepository (tablas 'rates' y 'rate_schedules').
+ * Las tarifas son pocas y casi nunca cambian: cada escritura reconstruye una instantánea
+ * inmutable (tarifas activas, tarifa por tipo de vehículo, franjas por tarifa) y las lecturas
+ * solo leen la instantánea vigente, sin bloquear. La versión cambia con cada escritura.
+ */
+public class InMemoryTarifaRepository implements ITarifaRepository {
+
+    private final DenseIdTable<Tarifa> rates = new DenseIdTable<>();
+    private final DenseIdTable<FranjaTarifa> schedules = new DenseIdTable<>();
+    private long modifications;
+    private volatile Snapshot snapshot = new Snapshot(List.of(), Map.of(), List.of(), Map.of(), "0");
+
+    /**
+     * Inserta (ID 0) o actualiza una tarifa.
+     * @return La tarifa guardada, con su ID.
+     */
+    public synchronized Tarifa saveRate(Tarifa tarifa) {
+        if (tarifa.getId() <= 0) {
+            tarifa.setId(rates.nextId());
+        } else {
+            rates.advanceTo(tarifa.getId());
+        }
+        rates.set(tarifa.getId(), copy(tarifa));
+        rebuild();
+        return tarifa;
+    }
+
+    /**
+     * Inserta (ID 0) o actualiza una franja horaria.
+     * @return La franja guardada, con su ID.
+     * @throws dao.repository.DataAccessException si la tarifa de la franja no existe.
+     */
+    public synchronized FranjaTarifa saveSchedule(FranjaTarifa franja) {
+        if (rates.get(franja.getRateId()) == null) {
+            throw InMemoryDatabase.violation("No existe la tarifa " + franja.getRateId() + ".",
+                    InMemoryDatabase.FOREIGN_KEY_VIOLATION);
+        }
+        if (franja.getId() <= 0) {
+            franja.setId(schedules.nextId());
+        } else {
+            schedules.advanceTo(franja.getId());
+        }
+        schedules.set(franja.getId(), copy(franja));
+        rebuild();
+        return franja;
+    }
+
+    /**
+     * Elimina una franja horaria.
+     */
+    public synchronized void deleteSchedule(int scheduleId) {
+        if (schedules.get(scheduleId) != null) {
+            schedules.set(scheduleId, null);
+            rebuild();
+        }
+    }
+
+    private void rebuild() {
+        List<Tarifa> active = new ArrayList<>();
+        Map<String, Tarifa> byVehicleType = new HashMap<>();
+        rates.forEach(tarifa -> {
+            if (tarifa.isActive()) {
+                active.add(tarifa);
+                // Como ORDER BY rate_id LIMIT 1: gana la tarifa activa de menor ID.
+                byVehicleType.putIfAbsent(tarifa.getVehicle_type(), tarifa);
+            }
+        });
+
+        // Las franjas se recorren en orden de ID, así que cada lista queda ordenada por schedule_id.
+        Map<Integer, List<FranjaTarifa>> byRate = new HashMap<>();
+        schedules.forEach(franja -> byRate.computeIfAbsent(franja.getRateId(), id -> new ArrayList<>()).add(franja));
+        List<FranjaTarifa> activeSchedules = new ArrayList<>();
+        for (Tarifa tarifa : active) {
+            activeSchedules.addAll(byRate.getOrDefault(tarifa.getId(), List.of()));
+        }
+        byRate.replaceAll((id, list) -> Collections.unmodifiableList(list));
+
+        snapshot = new Snapshot(Collections.unmodifiableList(active), byVehicleType,
+                Collections.unmodifiableList(activeSchedules), byRate, String.valueOf(++modifications));
+    }
+
+    @Override
+    public Optional<Tarifa> findActiveByVehicleType(String vehicleType) {
+        return Optional.ofNullable(snapshot.byVehicleType.get(vehicleType));
+    }
+
+    /**
+     * Igual que TarifaRepositoryImpl: sin tipo de vehículo no hay una tarifa activa única.
+     */
+    @Override
+    public Optional<Tarifa> findActiveTariff() {
+        return Optional.empty();
+    }
+
+    @Override
+    public List<Tarifa> findAllActive() {
+        return snapshot.rates;
+    }
+
+    @Override
+    public String findActiveRatesVersion() {
+        return snapshot.version;
+    }
+
+    @Override
+    public List<FranjaTarifa> findActiveSchedules() {
+        return snapshot.schedules;
+    }
+
+    @Override
+    public List<FranjaTarifa> findSchedulesByRate(int rateId) {
+        return snapshot.schedulesByRate.getOrDefault(rateId, List.of());
+    }
+
+    private static Tarifa copy(Tarifa source) {
+        Tarifa tarifa = new Tarifa();
+        tarifa.setId(source.getId());
+        tarifa.setDescription(source.getDescription());
+        tarifa.setVehicle_type(source.getVehicle_type());
+        tarifa.setValuePerHour(source.getValuePerHour());
+        tarifa.setValuePerFraction(source.getValuePerFraction());
+        tarifa.setDailyTop(source.getDailyTop());
+        tarifa.setGracePeriodMinutes(source.getGracePeriodMinutes());
+        tarifa.setActive(source.isActive());
+        return tarifa;
+    }
+
+    private static FranjaTarifa copy(FranjaTarifa source) {
+        FranjaTarifa franja = new FranjaTarifa();
+        franja.setId(source.getId());
+        franja.setRateId(source.getRateId());
+        franja.setDescription(source.getDescription());
+        franja.setDayOfWeek(source.getDayOfWeek());
+        franja.setStartMinute(source.getStartMinute());
+        franja.setEndMinute(source.getEndMinute());
+        franja.setValuePerHour(source.getValuePerHour());
+        franja.setValuePerFraction(source.getValuePerFraction());
+        return franja;
+    }
+
+    /**
+     * Estado inmutable de las tarifas. Como en CachingTarifaRepository, las tarifas y franjas
+     * se comparten entre lecturas: no deben modificarse.
+     */
+    private static final class Snapshot {
+        final List<Tarifa> rates;
+        final Map<String, Tarifa> byVehicleType;
+        final List<FranjaTarifa> schedules;
+        final Map<Integer, List<FranjaTarifa>> schedulesByRate;
+        final String version;
+
+        Snapshot(List<Tarifa> rates, Map<String, Tarifa> byVehicleType, List<FranjaTarifa> schedules,
+                 Map<Integer, List<FranjaTarifa>> schedulesByRate, String version) {
+            this.rates = rates;
+            this.byVehicleType = byVehicleType;
+            this.schedules = schedules;
+            this.schedulesByRate = schedulesByRate;
+            this.version = version;
+        }
+    }
+}
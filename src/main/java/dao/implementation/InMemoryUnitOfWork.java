@@ -0,0 +1,58 @@
+package dao.implementation;
+
+import dao.repository.IUnitOfWork;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.function.Supplier;
+
+/**
+ * Implementación en memoria de IUnitOfWork, para los repositorios de {@link InMemoryDatabase}.
+ * Cada escritura hecha dentro del trabajo registra cómo deshacerse; si el trabajo lanza una
+ * excepción, las escrituras se deshacen en orden inverso (atomicidad, como el rollback de JDBC).
+ * No aísla: otros hilos pueden ver las escrituras antes de que el trabajo termine.
+ */
+public class InMemoryUnitOfWork implements IUnitOfWork {
+
+    // Registro de deshacer de la transacción activa en el hilo actual, si hay una.
+    private final ThreadLocal<Deque<Runnable>> undoLog = new ThreadLocal<>();
+
+    @Override
+    public <T> T execute(Supplier<T> work) {
+        // Si ya hay una transacción activa en este hilo, el trabajo se une a ella.
+        if (undoLog.get() != null) {
+            return work.get();
+        }
+
+        Deque<Runnable> log = new ArrayDeque<>();
+        undoLog.set(log);
+        try {
+            return work.get();
+        } catch (RuntimeException | Error e) {
+            rollback(log, e);
+            throw e;
+        } finally {
+            undoLog.remove();
+        }
+    }
+
+    /**
+     * Registra cómo deshacer una escritura. Fuera de una transacción no hace nada (auto-commit).
+     */
+    void onRollback(Runnable undo) {
+        Deque<Runnable> log = undoLog.get();
+        if (log != null) {
+            log.push(undo);
+        }
+    }
+
+    private void rollback(Deque<Runnable> log, Throwable cause) {
+        while (!log.isEmpty()) {
+            try {
+                log.pop().run();
+            } catch (RuntimeException undoError) {
+                cause.addSuppressed(undoError);
+            }
+        }
+    }
+}
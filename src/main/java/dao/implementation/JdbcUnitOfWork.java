@@ -0,0 +1,51 @@
+package dao.implementation;
+
+import config.DatabaseConnection;
+import dao.repository.DataAccessException;
+import dao.repository.IUnitOfWork;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.function.Supplier;
+
+/**
+ * Implementación JDBC de IUnitOfWork.
+ * Abre una conexión con auto-commit desactivado y la asocia al hilo actual mediante
+ * DatabaseConnection, de modo que los repositorios (que siguen llamando a
+ * DatabaseConnection.getConnection()) participan en la misma transacción sin cambios.
+ */
+public class JdbcUnitOfWork implements IUnitOfWork {
+
+    @Override
+    public <T> T execute(Supplier<T> work) {
+        // Si ya hay una transacción activa en este hilo, el trabajo se une a ella.
+        if (DatabaseConnection.isTransactionActive()) {
+            return work.get();
+        }
+
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            conn.setAutoCommit(false);
+            DatabaseConnection.bindTransaction(conn);
+            try {
+                T result = work.get();
+                conn.commit();
+                return result;
+            } catch (RuntimeException | Error e) {
+                rollbackQuietly(conn, e);
+                throw e;
+            } finally {
+                DatabaseConnection.unbindTransaction();
+            }
+        } catch (SQLException e) {
+            throw new DataAccessException("No se pudo completar la transacción.", e);
+        }
+    }
+
+    private void rollbackQuietly(Connection conn, Throwable cause) {
+        try {
+            conn.rollback();
+        } catch (SQLException rollbackError) {
+            cause.addSuppressed(rollbackError);
+        }
+    }
+}
@@ -0,0 +1,330 @@
+package dao.implementation;
+
+import config.DatabaseConnection;
+import dao.repository.DataAccessException;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Reproduce en 'stays' y 'payments' los eventos pendientes de un {@link GateJournal}.
+ *
+ * - Los eventos se aplican por lotes, en orden, cada lote en una sola transacción.
+ * - Cada fila lleva el client_event_id del evento (columna UNIQUE), así que reproducir un evento
+ *   que ya se había aplicado (p. ej. si la conexión se cayó justo después del commit) no lo duplica.
+ * - Si la base de datos no responde, el lote se reintenta más tarde con una espera creciente.
+ * - Si un evento no se puede aplicar por otra causa (p. ej. viola una restricción), el lote se
+ *   aplica evento por evento y el que falla se descarta y se anota en rejected.log, para que no
+ *   bloquee a los siguientes.
+ * - Un ingreso cuya placa ya tiene una estancia 'INSIDE' en la base de datos (registrada por otro
+ *   carril mientras este estaba sin conexión) se fusiona con ella: su salida cerrará esa estancia.
+ */
+public class JournalReplayer {
+
+    private static final String INSERT_ENTRY_SQL =
+            "INSERT INTO stays (license_plate, entry_timestamp, stay_type, status, entry_operator_id, vehicle_type, client_event_id) " +
+            "SELECT ?, ?, COALESCE(?::stay_type_enum, " +
+            "CASE WHEN EXISTS (SELECT 1 FROM memberships m WHERE m.license_plate = ? AND m.is_active = TRUE " +
+            "AND ? BETWEEN m.start_date AND m.end_date) " +
+            "THEN 'Membership'::stay_type_enum ELSE 'Guest'::stay_type_enum END), " +
+            "'INSIDE'::stay_status_enum, ?, ?, ? " +
+            "ON CONFLICT DO NOTHING RETURNING stay_id";
+    private static final String FIND_BY_EVENT_SQL = "SELECT stay_id FROM stays WHERE client_event_id = ?";
+    private static final String FIND_INSIDE_SQL = "SELECT stay_id FROM stays WHERE license_plate = ? AND status = 'INSIDE'";
+    private static final String CLOSE_STAY_SQL =
+            "UPDATE stays SET exit_timestamp = ?, status = 'OUTSIDE'::stay_status_enum, exit_operator_id = ? " +
+            "WHERE stay_id = ? AND status = 'INSIDE'";
+    private static final String INSERT_PAYMENT_SQL =
+            "INSERT INTO payments (stay_id, amount, payment_timestamp, payment_method, operator_id, client_event_id) " +
+            "VALUES (?, ?, ?, ?, ?, ?) ON CONFLICT DO NOTHING";
+
+    private final GateJournal journal;
+    private final int batchSize;
+    private final long intervalMillis;
+    private final long maxBackoffMillis;
+    private final Path rejectedFile;
+
+    private final LongAdder replayedEvents = new LongAdder();
+    private final LongAdder rejectedEvents = new LongAdder();
+    private final LongAdder failedAttempts = new LongAdder();
+    private volatile long lastReplayMillis;
+    private volatile String lastError;
+
+    // Solo los modifica el hilo de reproducción.
+    private long backoffMillis;
+    private long nextAttemptMillis;
+
+    private ScheduledExecutorService executor;
+
+    /**
+     * Crea el reproductor con lotes de 200 eventos, revisión cada segundo y una espera máxima
+     * de 30 s entre intentos fallidos.
+     * @param journal El journal a reproducir.
+     */
+    public JournalReplayer(GateJournal journal) {
+        this(journal, 200, 1_000, 30_000);
+    }
+
+    public JournalReplayer(GateJournal journal, int batchSize, long intervalMillis, long maxBackoffMillis) {
+        this.journal = journal;
+        this.batchSize = batchSize;
+        this.intervalMillis = intervalMillis;
+        this.maxBackoffMillis = maxBackoffMillis;
+        this.rejectedFile = journal.getDirectory().resolve("rejected.log");
+    }
+
+    /**
+     * Inicia la reproducción periódica en un hilo daemon.
+     */
+    public synchronized void start() {
+        if (executor != null) {
+            return;
+        }
+        executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "crudpark-journal-replayer");
+            t.setDaemon(true);
+            return t;
+        });
+        executor.scheduleWithFixedDelay(this::drain, 0, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Detiene la reproducción periódica. Los eventos pendientes se reproducen en la próxima ejecución.
+     */
+    public synchronized void stop() {
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+    }
+
+    /**
+     * Reproduce todos los eventos pendientes en el hilo actual.
+     * @return El número de eventos aplicados o descartados.
+     * @throws DataAccessException si la base de datos no responde; los lotes ya aplicados quedan marcados.
+     */
+    public int replayPending() {
+        int total = 0;
+        try {
+            int count;
+            while ((count = replayBatch()) > 0) {
+                total += count;
+            }
+            return total;
+        } catch (SQLException e) {
+            throw new DataAccessException("No se pudo reproducir el journal (" + total + " eventos aplicados).", e);
+        }
+    }
+
+    public long getReplayedCount() { return replayedEvents.sum(); }
+    public long getRejectedCount() { return rejectedEvents.sum(); }
+    public long getFailedAttemptCount() { return failedAttempts.sum(); }
+    /** Instante (epoch ms) en que el journal quedó vacío por última vez, o 0. */
+    public long getLastReplayMillis() { return lastReplayMillis; }
+    /** Mensaje del último intento fallido, o null si el último tuvo éxito. */
+    public String getLastError() { return lastError; }
+
+    private void drain() {
+        if (!journal.hasPending() || System.currentTimeMillis() < nextAttemptMillis) {
+            return;
+        }
+        try {
+            replayPending();
+            backoffMillis = 0;
+            lastError = null;
+            lastReplayMillis = System.currentTimeMillis();
+        } catch (RuntimeException e) {
+            failedAttempts.increment();
+            lastError = e.getCause() != null ? e.getCause().getMessage() : e.getMessage();
+            backoffMillis = backoffMillis == 0 ? intervalMillis : Math.min(backoffMillis * 2, maxBackoffMillis);
+            nextAttemptMillis = System.currentTimeMillis() + backoffMillis;
+            if (!(e instanceof DataAccessException)) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * Aplica el siguiente lote de eventos pendientes.
+     * @return El número de eventos aplicados o descartados; 0 si no había pendientes.
+     * @throws SQLException si la base de datos no responde.
+     */
+    synchronized int replayBatch() throws SQLException {
+        List<GateJournal.Event> batch = journal.readBatch(batchSize);
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        // Al devolverse al pool, la conexión recupera el auto-commit.
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                Map<UUID, Integer> stayByEntryEvent = new HashMap<>();
+                for (GateJournal.Event event : batch) {
+                    apply(conn, event, stayByEntryEvent);
+                }
+                conn.commit();
+            } catch (SQLException e) {
+                rollbackQuietly(conn, e);
+                if (DataAccessException.isConnectionFailure(e)) {
+                    throw e;
+                }
+                return replayOneByOne(conn, batch);
+            }
+        }
+        markReplayed(batch);
+        return batch.size();
+    }
+
+    private int replayOneByOne(Connection conn, List<GateJournal.Event> batch) throws SQLException {
+        Map<UUID, Integer> stayByEntryEvent = new HashMap<>();
+        for (int i = 0; i < batch.size(); i++) {
+            GateJournal.Event event = batch.get(i);
+            try {
+                apply(conn, event, stayByEntryEvent);
+                conn.commit();
+            } catch (SQLException e) {
+                rollbackQuietly(conn, e);
+                if (DataAccessException.isConnectionFailure(e)) {
+                    markReplayed(batch.subList(0, i));
+                    throw e;
+                }
+                reject(event, e);
+            }
+        }
+        markReplayed(batch);
+        return batch.size();
+    }
+
+    private void markReplayed(List<GateJournal.Event> events) {
+        journal.markReplayed(events);
+        replayedEvents.add(events.size());
+    }
+
+    private void apply(Connection conn, GateJournal.Event event, Map<UUID, Integer> stayByEntryEvent) throws SQLException {
+        if (event.type == GateJournal.ENTRY) {
+            stayByEntryEvent.put(event.eventId, applyEntry(conn, event));
+        } else {
+            applyExit(conn, event, stayByEntryEvent);
+        }
+    }
+
+    private int applyEntry(Connection conn, GateJournal.Event event) throws SQLException {
+        Timestamp entryDate = new Timestamp(event.timestampMillis);
+        try (PreparedStatement pstmt = conn.prepareStatement(INSERT_ENTRY_SQL)) {
+            pstmt.setString(1, event.plate);
+            pstmt.setTimestamp(2, entryDate);
+            pstmt.setString(3, event.stayType);
+            pstmt.setString(4, event.plate);
+            pstmt.setTimestamp(5, entryDate);
+            pstmt.setInt(6, event.operatorId);
+            pstmt.setString(7, event.vehicleType);
+            pstmt.setObject(8, event.eventId);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (rs.next()) {
+                    return rs.getInt(1);
+                }
+            }
+        }
+        // ON CONFLICT DO NOTHING: o el evento ya se había aplicado, o la placa ya está adentro.
+        Integer stayId = findStayId(conn, FIND_BY_EVENT_SQL, event.eventId);
+        if (stayId == null) {
+            stayId = findStayId(conn, FIND_INSIDE_SQL, event.plate);
+            if (stayId == null) {
+                throw new SQLException("No se pudo registrar el ingreso de la placa " + event.plate + ".", "23505");
+            }
+            System.err.println("Journal: la placa " + event.plate + " ya tenía una estancia activa (" + stayId + "); el ingreso " + event.eventId + " se fusiona con ella.");
+        }
+        return stayId;
+    }
+
+    private void applyExit(Connection conn, GateJournal.Event event, Map<UUID, Integer> stayByEntryEvent) throws SQLException {
+        int stayId = event.stayId > 0 ? event.stayId : resolveProvisionalStay(conn, event, stayByEntryEvent);
+        Timestamp exitDate = new Timestamp(event.timestampMillis);
+
+        // Si la estancia ya está cerrada (evento ya aplicado o cerrada desde el módulo web), no cambia nada.
+        try (PreparedStatement pstmt = conn.prepareStatement(CLOSE_STAY_SQL)) {
+            pstmt.setTimestamp(1, exitDate);
+            if (event.operatorId > 0) {
+                pstmt.setInt(2, event.operatorId);
+            } else {
+                pstmt.setNull(2, Types.INTEGER);
+            }
+            pstmt.setInt(3, stayId);
+            pstmt.executeUpdate();
+        }
+
+        if (event.amountCents > 0) {
+            try (PreparedStatement pstmt = conn.prepareStatement(INSERT_PAYMENT_SQL)) {
+                pstmt.setInt(1, stayId);
+                pstmt.setBigDecimal(2, BigDecimal.valueOf(event.amountCents, 2));
+                pstmt.setTimestamp(3, exitDate);
+                pstmt.setString(4, event.paymentMethod);
+                pstmt.setInt(5, event.operatorId);
+                pstmt.setObject(6, event.eventId);
+                pstmt.executeUpdate();
+            }
+        }
+    }
+
+    private int resolveProvisionalStay(Connection conn, GateJournal.Event event, Map<UUID, Integer> stayByEntryEvent) throws SQLException {
+        Integer stayId = stayByEntryEvent.get(event.entryEventId);
+        if (stayId == null) {
+            stayId = findStayId(conn, FIND_BY_EVENT_SQL, event.entryEventId);
+        }
+        if (stayId == null) {
+            // El ingreso se fusionó con una estancia que ya estaba activa.
+            stayId = findStayId(conn, FIND_INSIDE_SQL, event.plate);
+        }
+        if (stayId == null) {
+            throw new SQLException("No se encontró la estancia del ingreso " + event.entryEventId + " (placa " + event.plate + ").", "02000");
+        }
+        return stayId;
+    }
+
+    private static Integer findStayId(Connection conn, String sql, Object key) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setObject(1, key);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next() ? rs.getInt(1) : null;
+            }
+        }
+    }
+
+    private void reject(GateJournal.Event event, SQLException cause) {
+        rejectedEvents.increment();
+        String line = Instant.now() + "\t" + event + "\t" + cause.getSQLState() + "\t" + cause.getMessage() + System.lineSeparator();
+        System.err.println("Journal: se descarta el evento " + event + ": " + cause.getMessage());
+        try {
+            Files.write(rejectedFile, line.getBytes(StandardCharsets.UTF_8), StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private static void rollbackQuietly(Connection conn, SQLException cause) {
+        try {
+            conn.rollback();
+        } catch (SQLException rollbackError) {
+            cause.addSuppressed(rollbackError);
+        }
+    }
+}
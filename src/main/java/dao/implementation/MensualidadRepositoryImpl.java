@@ -1,12 +1,17 @@
 package dao.implementation;
 
 import config.DatabaseConnection;
+import dao.repository.DataAccessException;
 import dao.repository.IMensualidadRepository;
+import model.Mensualidad;
 
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -20,6 +25,7 @@ public class MensualidadRepositoryImpl implements IMensualidadRepository {
      * Verifica si una membresía está actualmente activa para una placa específica.
      * Una membresía se considera activa si está marcada como 'is_active = true'
      * y la fecha actual se encuentra dentro del rango de start_date y end_date.
+     * La puede atender una réplica de lectura (DatabaseConnection.getReadConnection).
      *
      * @param plate La placa del vehículo a verificar.
      * @return Un Optional<Boolean> que es true si la membresía está activa, false si no,
@@ -31,7 +37,7 @@ public class MensualidadRepositoryImpl implements IMensualidadRepository {
         // Verifica que la membresía esté marcada como activa y que estemos dentro del período de validez.
         String sql = "SELECT 1 FROM memberships WHERE license_plate = ? AND is_active = TRUE AND CURRENT_TIMESTAMP BETWEEN start_date AND end_date";
 
-        try (Connection conn = DatabaseConnection.getConnection();
+        try (Connection conn = DatabaseConnection.getReadConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
 
             pstmt.setString(1, plate);
@@ -47,4 +53,74 @@ public class MensualidadRepositoryImpl implements IMensualidadRepository {
             return Optional.empty();
         }
     }
+
+    /**
+     * Verifica si una membresía está activa para una placa en un instante dado.
+     *
+     * @param plate La placa del vehículo a verificar.
+     * @param instant El instante a evaluar.
+     * @return Un Optional<Boolean> que es true si la membresía está activa, false si no,
+     *         o un Optional vacío si ocurre un error de SQL.
+     */
+    @Override
+    public Optional<Boolean> isActiveAt(String plate, Timestamp instant) {
+        String sql = "SELECT 1 FROM memberships WHERE license_plate = ? AND is_active = TRUE AND ? BETWEEN start_date AND end_date";
+
+        try (Connection conn = DatabaseConnection.getReadConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            pstmt.setString(1, plate);
+            pstmt.setTimestamp(2, instant);
+
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return Optional.of(rs.next());
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Devuelve las membresías modificadas después de 'since' (columna 'updated_at').
+     * Si 'since' es null, devuelve todas las membresías activas que aún no han vencido (carga completa).
+     *
+     * @param since Límite inferior (exclusivo) de 'updated_at', o null para una carga completa.
+     * @return Las membresías encontradas, ordenadas por 'updated_at'.
+     */
+    @Override
+    public List<Mensualidad> findModifiedSince(Timestamp since) {
+        String sql = since == null
+                ? "SELECT membership_id, license_plate, vehicle_type, start_date, end_date, is_active, updated_at FROM memberships " +
+                  "WHERE is_active = TRUE AND end_date >= CURRENT_TIMESTAMP ORDER BY updated_at"
+                : "SELECT membership_id, license_plate, vehicle_type, start_date, end_date, is_active, updated_at FROM memberships " +
+                  "WHERE updated_at > ? ORDER BY updated_at";
+
+        List<Mensualidad> memberships = new ArrayList<>();
+        // Siempre en la primaria: una réplica atrasada haría avanzar la marca de la caché sin sus filas.
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            if (since != null) {
+                pstmt.setTimestamp(1, since);
+            }
+
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    Mensualidad mensualidad = new Mensualidad();
+                    mensualidad.setId(rs.getInt("membership_id"));
+                    mensualidad.setLicensePlate(rs.getString("license_plate"));
+                    mensualidad.setVehicleType(rs.getString("vehicle_type"));
+                    mensualidad.setStartDate(rs.getTimestamp("start_date"));
+                    mensualidad.setEndDate(rs.getTimestamp("end_date"));
+                    mensualidad.setActive(rs.getBoolean("is_active"));
+                    mensualidad.setUpdatedAt(rs.getTimestamp("updated_at"));
+                    memberships.add(mensualidad);
+                }
+            }
+        } catch (SQLException e) {
+            throw new DataAccessException("No se pudieron consultar las membresías modificadas.", e);
+        }
+        return memberships;
+    }
 }
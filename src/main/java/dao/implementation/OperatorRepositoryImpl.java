@@ -21,6 +21,7 @@ public class OperatorRepositoryImpl implements OperatorRepository {
     /**
      * Encuentra un operador por su email consultando la base de datos.
      * Este método ha sido actualizado para usar la nueva tabla 'operators'.
+     * La puede atender una réplica de lectura (DatabaseConnection.getReadConnection).
      *
      * @param email El email del operador a buscar.
      * @return Un Optional<Operator> con los datos del usuario si se encuentra, de lo contrario, estará vacío.
@@ -31,7 +32,7 @@ public class OperatorRepositoryImpl implements OperatorRepository {
         String sql = "SELECT operator_id, password_hash, full_name, email, is_active FROM operators WHERE email = ?";
 
         // Usando try-with-resources para asegurar que los recursos de la base de datos se cierren automáticamente.
-        try (Connection conn = DatabaseConnection.getConnection();
+        try (Connection conn = DatabaseConnection.getReadConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
 
             // Establecer el parámetro de email en la consulta para prevenir inyección SQL.
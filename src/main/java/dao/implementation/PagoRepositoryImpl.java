@@ -1,9 +1,11 @@
 package dao.implementation;
 
 import config.DatabaseConnection;
+import dao.repository.DataAccessException;
 import dao.repository.IPagoRepository;
 import model.Pago;
 import java.sql.*;
+import java.util.List;
 
 /**
  * Implementación JDBC de la interfaz IPagoRepository.
@@ -15,6 +17,7 @@ public class PagoRepositoryImpl implements IPagoRepository {
     /**
      * Guarda un nuevo registro de pago en la base de datos.
      * @param pago El objeto Pago que contiene la información a guardar.
+     * @throws DataAccessException si el pago no se pudo guardar.
      */
     @Override
     public void save(Pago pago) {
@@ -35,8 +38,54 @@ public class PagoRepositoryImpl implements IPagoRepository {
             pstmt.executeUpdate();
 
         } catch (SQLException e) {
-            // En una aplicación real, sería ideal loggear el error o lanzar una excepción personalizada.
-            e.printStackTrace();
+            // Se propaga el error para que la transacción de salida se revierta completa.
+            throw new DataAccessException("No se pudo registrar el pago de la estancia " + pago.getEstanciaId() + ".", e);
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Guarda varios pagos con un lote JDBC (una sola ida y vuelta por lote; con
+     * reWriteBatchedInserts=true en db.url, el driver los envía como un INSERT de varias filas).
+     * Fuera de una unidad de trabajo, el lote se guarda completo o no se guarda.
+     * @param pagos Los pagos a guardar.
+     * @throws DataAccessException si algún pago no se pudo guardar.
+     */
+    @Override
+    public void saveAll(List<Pago> pagos) {
+        if (pagos.isEmpty()) {
+            return;
+        }
+        String sql = "INSERT INTO payments (stay_id, amount, payment_timestamp, payment_method, operator_id) VALUES (?, ?, ?, ?, ?)";
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            for (Pago pago : pagos) {
+                pstmt.setInt(1, pago.getEstanciaId());
+                pstmt.setDouble(2, pago.getAmount());
+                pstmt.setTimestamp(3, pago.getPaymentDate());
+                pstmt.setString(4, pago.getPaymentMethod());
+                pstmt.setInt(5, pago.getOperatorId());
+                pstmt.addBatch();
+            }
+
+            boolean autoCommit = conn.getAutoCommit();
+            if (autoCommit) {
+                conn.setAutoCommit(false);
+            }
+            try {
+                pstmt.executeBatch();
+                if (autoCommit) {
+                    conn.commit();
+                }
+            } catch (SQLException e) {
+                if (autoCommit) {
+                    conn.rollback();
+                }
+                throw e;
+            }
+        } catch (SQLException e) {
+            throw new DataAccessException("No se pudieron registrar " + pagos.size() + " pagos.", e);
+        }
+    }
+}
@@ -1,9 +1,13 @@
 package dao.implementation;
 
 import config.DatabaseConnection;
+import dao.repository.DataAccessException;
 import dao.repository.ITarifaRepository;
+import model.FranjaTarifa;
 import model.Tarifa;
 import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -16,6 +20,8 @@ public class TarifaRepositoryImpl implements ITarifaRepository {
     /**
      * Busca la tarifa activa para un tipo de vehículo específico.
      * La nueva tabla 'rates' permite diferentes tarifas por tipo de vehículo.
+     * La puede atender una réplica de lectura (DatabaseConnection.getReadConnection); la caché de
+     * tarifas, en cambio, se carga de la primaria para que la versión y las filas coincidan.
      *
      * @param vehicleType El tipo de vehículo para el cual se busca la tarifa (ej. "Coche", "Moto").
      * @return Un Optional<Tarifa> con los datos de la tarifa si se encuentra, de lo contrario, estará vacío.
@@ -23,9 +29,9 @@ public class TarifaRepositoryImpl implements ITarifaRepository {
     @Override
     public Optional<Tarifa> findActiveByVehicleType(String vehicleType) {
         // Consulta SQL actualizada para la tabla 'rates', filtrando por estado y tipo de vehículo.
-        String sql = "SELECT * FROM rates WHERE is_active = true AND vehicle_type = ? LIMIT 1";
+        String sql = "SELECT * FROM rates WHERE is_active = true AND vehicle_type = ? ORDER BY rate_id LIMIT 1";
 
-        try (Connection conn = DatabaseConnection.getConnection();
+        try (Connection conn = DatabaseConnection.getReadConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
 
             // Asignamos el parámetro del tipo de vehículo a la consulta.
@@ -33,21 +39,7 @@ public class TarifaRepositoryImpl implements ITarifaRepository {
 
             try (ResultSet rs = pstmt.executeQuery()) {
                 if (rs.next()) {
-                    Tarifa tarifa = new Tarifa();
-                    // Mapeo de las nuevas columnas al objeto Tarifa.
-                    tarifa.setId(rs.getInt("rate_id"));
-                    tarifa.setDescription(rs.getString("description"));
-
-                    // NOTA: Asegúrate de que tu modelo 'Tarifa' tenga un campo para vehicle_type.
-                    tarifa.setVehicle_type(rs.getString("vehicle_type"));
-
-                    tarifa.setValuePerHour(rs.getDouble("hourly_rate"));
-                    tarifa.setValuePerFraction(rs.getDouble("fraction_rate"));
-                    tarifa.setDailyTop(rs.getDouble("daily_cap"));
-                    tarifa.setGracePeriodMinutes(rs.getInt("grace_period_minutes"));
-                    tarifa.setActive(rs.getBoolean("is_active"));
-
-                    return Optional.of(tarifa);
+                    return Optional.of(mapRow(rs));
                 }
             }
         } catch (SQLException e) {
@@ -68,4 +60,129 @@ public class TarifaRepositoryImpl implements ITarifaRepository {
         // Podrías adaptarlo para que busque una tarifa por defecto si lo necesitas.
         return Optional.empty();
     }
-}
\ No newline at end of file
+
+    /**
+     * Devuelve todas las tarifas activas, ordenadas por ID.
+     */
+    @Override
+    public List<Tarifa> findAllActive() {
+        String sql = "SELECT * FROM rates WHERE is_active = true ORDER BY rate_id";
+        List<Tarifa> tarifas = new ArrayList<>();
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql);
+             ResultSet rs = pstmt.executeQuery()) {
+
+            while (rs.next()) {
+                tarifas.add(mapRow(rs));
+            }
+        } catch (SQLException e) {
+            throw new DataAccessException("No se pudieron consultar las tarifas activas.", e);
+        }
+        return tarifas;
+    }
+
+    /**
+     * Calcula un checksum (md5) de todas las tarifas activas y de sus franjas horarias. Es una consulta de una sola fila,
+     * mucho más barata que cargar las tarifas, y cambia con cualquier modificación que las afecte.
+     */
+    @Override
+    public String findActiveRatesVersion() {
+        String sql = "SELECT md5(" +
+                "COALESCE((SELECT string_agg(r::text, '|' ORDER BY r.rate_id) FROM rates r WHERE r.is_active = true), '') || '#' || " +
+                "COALESCE((SELECT string_agg(s::text, '|' ORDER BY s.schedule_id) FROM rate_schedules s " +
+                "JOIN rates r ON r.rate_id = s.rate_id WHERE r.is_active = true), ''))";
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql);
+             ResultSet rs = pstmt.executeQuery()) {
+
+            rs.next();
+            return rs.getString(1);
+        } catch (SQLException e) {
+            throw new DataAccessException("No se pudo consultar la versión de las tarifas.", e);
+        }
+    }
+
+    /**
+     * Devuelve las franjas horarias de todas las tarifas activas, ordenadas por tarifa e ID.
+     */
+    @Override
+    public List<FranjaTarifa> findActiveSchedules() {
+        String sql = "SELECT s.* FROM rate_schedules s JOIN rates r ON r.rate_id = s.rate_id " +
+                "WHERE r.is_active = true ORDER BY s.rate_id, s.schedule_id";
+        List<FranjaTarifa> franjas = new ArrayList<>();
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql);
+             ResultSet rs = pstmt.executeQuery()) {
+
+            while (rs.next()) {
+                franjas.add(mapSchedule(rs));
+            }
+        } catch (SQLException e) {
+            throw new DataAccessException("No se pudieron consultar las franjas de las tarifas.", e);
+        }
+        return franjas;
+    }
+
+    /**
+     * Devuelve las franjas horarias de una tarifa, ordenadas por ID.
+     */
+    @Override
+    public List<FranjaTarifa> findSchedulesByRate(int rateId) {
+        String sql = "SELECT * FROM rate_schedules WHERE rate_id = ? ORDER BY schedule_id";
+        List<FranjaTarifa> franjas = new ArrayList<>();
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            pstmt.setInt(1, rateId);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    franjas.add(mapSchedule(rs));
+                }
+            }
+        } catch (SQLException e) {
+            throw new DataAccessException("No se pudieron consultar las franjas de la tarifa " + rateId + ".", e);
+        }
+        return franjas;
+    }
+
+    /**
+     * Mapea la fila actual del ResultSet a un objeto FranjaTarifa.
+     */
+    private FranjaTarifa mapSchedule(ResultSet rs) throws SQLException {
+        FranjaTarifa franja = new FranjaTarifa();
+        franja.setId(rs.getInt("schedule_id"));
+        franja.setRateId(rs.getInt("rate_id"));
+        franja.setDescription(rs.getString("description"));
+        int dayOfWeek = rs.getInt("day_of_week");
+        franja.setDayOfWeek(rs.wasNull() ? null : dayOfWeek);
+        franja.setStartMinute(rs.getInt("start_minute"));
+        franja.setEndMinute(rs.getInt("end_minute"));
+        franja.setValuePerHour(rs.getDouble("hourly_rate"));
+        franja.setValuePerFraction(rs.getDouble("fraction_rate"));
+        return franja;
+    }
+
+    /**
+     * Mapea la fila actual del ResultSet a un objeto Tarifa.
+     */
+    private Tarifa mapRow(ResultSet rs) throws SQLException {
+        Tarifa tarifa = new Tarifa();
+        // Mapeo de las nuevas columnas al objeto Tarifa.
+        tarifa.setId(rs.getInt("rate_id"));
+        tarifa.setDescription(rs.getString("description"));
+
+        // NOTA: Asegúrate de que tu modelo 'Tarifa' tenga un campo para vehicle_type.
+        tarifa.setVehicle_type(rs.getString("vehicle_type"));
+
+        tarifa.setValuePerHour(rs.getDouble("hourly_rate"));
+        tarifa.setValuePerFraction(rs.getDouble("fraction_rate"));
+        tarifa.setDailyTop(rs.getDouble("daily_cap"));
+        tarifa.setGracePeriodMinutes(rs.getInt("grace_period_minutes"));
+        tarifa.setActive(rs.getBoolean("is_active"));
+        return tarifa;
+    }
+}
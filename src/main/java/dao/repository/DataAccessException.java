@@ -0,0 +1,52 @@
+package dao.repository;
+
+import java.sql.SQLException;
+import java.sql.SQLNonTransientConnectionException;
+import java.sql.SQLRecoverableException;
+import java.sql.SQLTransientConnectionException;
+
+/**
+ * Unchecked exception thrown by repositories when a database operation fails
+ * and the caller must know about it (instead of receiving null or an empty result).
+ */
+public class DataAccessException extends RuntimeException {
+
+    public DataAccessException(String message) {
+        super(message);
+    }
+
+    public DataAccessException(String message, SQLException cause) {
+        super(message, cause);
+    }
+
+    /**
+     * Returns the SQLState reported by the driver, or null if there is none.
+     * @return The SQLState of the underlying SQLException.
+     */
+    public String getSqlState() {
+        return getCause() instanceof SQLException ? ((SQLException) getCause()).getSQLState() : null;
+    }
+
+    /**
+     * Checks whether the operation failed because the database could not be reached
+     * (as opposed to a constraint violation or a bad statement).
+     * @return true if the underlying SQLException is a connection failure.
+     */
+    public boolean isConnectionFailure() {
+        return getCause() instanceof SQLException && isConnectionFailure((SQLException) getCause());
+    }
+
+    /**
+     * Checks whether a SQLException is a connection failure: SQLState class 08
+     * (connection exception) or one of the JDBC connection exception types.
+     * @param e The exception to check.
+     * @return true if the database could not be reached.
+     */
+    public static boolean isConnectionFailure(SQLException e) {
+        String state = e.getSQLState();
+        return (state != null && state.startsWith("08"))
+                || e instanceof SQLTransientConnectionException
+                || e instanceof SQLNonTransientConnectionException
+                || e instanceof SQLRecoverableException;
+    }
+}
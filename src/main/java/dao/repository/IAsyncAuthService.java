@@ -0,0 +1,22 @@
+package dao.repository;
+
+import model.Operator;
+
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Non-blocking variant of {@link IAuthService}: the lookup and the BCrypt verification run
+ * off the caller's thread.
+ */
+public interface IAsyncAuthService {
+
+    /**
+     * Attempts to log in an operator without blocking the caller.
+     *
+     * @param username The operator's username.
+     * @param password The operator's plain text password.
+     * @return A future with the authenticated Operator, or an empty Optional if authentication failed.
+     */
+    CompletableFuture<Optional<Operator>> loginAsync(String username, String password);
+}
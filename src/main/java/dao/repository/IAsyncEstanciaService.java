@@ -0,0 +1,24 @@
+package dao.repository;
+
+import model.Estancia;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Non-blocking variant of {@link IEstanciaService}.
+ * Each method runs the corresponding blocking operation off the caller's thread and returns
+ * immediately. Cancelling a returned future never interrupts the operation: one that has not
+ * started is skipped, one that has started runs to the end (and may be recorded) and only its
+ * result is discarded.
+ */
+public interface IAsyncEstanciaService {
+
+    CompletableFuture<Estancia> registerVehicleEntryAsync(String plate, String vehicleType, int operatorId);
+
+    CompletableFuture<List<Estancia>> getActiveStaysAsync();
+
+    CompletableFuture<Estancia> calculateExitDetailsAsync(String plate);
+
+    CompletableFuture<Void> finalizeExitAsync(Estancia estancia, int operatorId, double amountPaid, String paymentMethod);
+}
@@ -2,8 +2,12 @@ package dao.repository;
 
 import model.Estancia;
 
+import java.sql.Timestamp;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 public interface IEstanciaRepository {
     /**
@@ -13,18 +17,79 @@ public interface IEstanciaRepository {
      */
     Estancia save(Estancia estancia);
 
+    /**
+     * Atomically registers a new stay in a single round trip: resolves the plate's membership,
+     * refuses a duplicate 'INSIDE' stay and inserts the row.
+     * If the stay type of the given Estancia is null, it is resolved by the database in the same statement.
+     * @param estancia The Estancia to register (plate, entry date, vehicle type, entry operator and optional stay type).
+     * @return The saved Estancia with its generated ID and stay type, or empty if the plate is already inside.
+     * @throws DataAccessException if the statement fails.
+     */
+    Optional<Estancia> registerEntry(Estancia estancia);
+
+    /**
+     * Registers several stays at once, with the same rules as {@link #registerEntry(Estancia)}.
+     * Implementations backed by a database should do it in a single statement (one round trip).
+     * If the same plate appears more than once, only its first stay is registered.
+     * @param estancias The stays to register.
+     * @return For each stay, at the same index, the saved Estancia, or empty if the plate is already inside.
+     * @throws DataAccessException if the statement fails (no stay is registered).
+     */
+    default List<Optional<Estancia>> registerEntries(List<Estancia> estancias) {
+        List<Optional<Estancia>> results = new ArrayList<>(estancias.size());
+        for (Estancia estancia : estancias) {
+            results.add(registerEntry(estancia));
+        }
+        return results;
+    }
+
     /**
      * Finds an active stay by plate number.
      * @param plate The vehicle's plate.
      * @return An Optional containing the Estancia if found, otherwise empty.
+     * @throws DataAccessException if the query fails (empty always means the plate is not inside).
      */
     Optional<Estancia> findActiveByPlate(String plate);
 
     /**
-     * Finds all stays that are currently active (status 'DENTRO').
+     * Finds all stays that are currently active (status 'INSIDE').
      * @return A list of active Estancia objects.
+     * @throws DataAccessException if the query fails.
      */
     List<Estancia> findAllActive();
 
-    void update(Estancia estancia);
+    /**
+     * Delivers every active stay to the consumer, ordered by (entry date, stay ID), without
+     * buffering the whole result: rows are fetched from the database in blocks.
+     * @param consumer Receives each active stay.
+     * @throws DataAccessException if the query fails.
+     */
+    void forEachActive(Consumer<Estancia> consumer);
+
+    /**
+     * Lazily streams every active stay, ordered by (entry date, stay ID).
+     * The stream holds a database connection and must be closed (use try-with-resources).
+     * @return A stream of active stays.
+     * @throws DataAccessException if the query fails.
+     */
+    Stream<Estancia> streamAllActive();
+
+    /**
+     * Returns a page of active stays using keyset pagination on (entry date, stay ID).
+     * @param afterEntryDate Entry date of the last stay of the previous page, or null for the first page.
+     * @param afterStayId Stay ID of the last stay of the previous page (ignored for the first page).
+     * @param limit Maximum number of stays in the page.
+     * @return The stays that follow the given key, in order.
+     * @throws DataAccessException if the query fails.
+     */
+    List<Estancia> findActivePage(Timestamp afterEntryDate, int afterStayId, int limit);
+
+    /**
+     * Updates the exit data (exit date, status, exit operator) of a stay that is still inside.
+     * The check is part of the update, so two lanes closing the same stay cannot both succeed.
+     * @param estancia The Estancia to update.
+     * @return false if the stay does not exist or is no longer inside (nothing was changed).
+     * @throws DataAccessException if the update fails.
+     */
+    boolean update(Estancia estancia);
 }
\ No newline at end of file
@@ -0,0 +1,58 @@
+package dao.repository;
+
+import model.Estancia;
+import model.Pago;
+
+import java.util.List;
+
+/**
+ * Local, durable log of the gate events (entries, and exits with their payment) that could not
+ * be written to the database. The events are replayed into 'stays' and 'payments' in the order
+ * they were appended once the database is reachable again.
+ */
+public interface IGateJournal {
+
+    /**
+     * Checks whether the journal holds events that have not been replayed yet. While it does,
+     * new events must be appended too, so the database receives them in order.
+     * @return true if there are pending events.
+     */
+    boolean hasPending();
+
+    /**
+     * Number of events waiting to be replayed.
+     * @return The pending events.
+     */
+    int getPendingCount();
+
+    /**
+     * Appends a vehicle entry. The stay gets a provisional (negative) stay_id that identifies it
+     * until it is replayed and the database assigns the real one.
+     * @param estancia The stay to register (plate, entry date, vehicle type, entry operator and optional stay type).
+     * @return The same Estancia, with its provisional stay_id and status 'INSIDE'.
+     */
+    Estancia appendEntry(Estancia estancia);
+
+    /**
+     * Appends a vehicle exit and, optionally, its payment.
+     * @param estancia The closed stay (exit date and exit operator set). Its stay_id may be provisional.
+     * @param pago The payment, or null if nothing was charged.
+     * @throws IllegalArgumentException if the stay_id is provisional but its entry is not in the journal.
+     */
+    void appendExit(Estancia estancia, Pago pago);
+
+    /**
+     * Returns the entries appended to the journal that have neither been replayed nor exited,
+     * e.g. to put them back in the occupancy index after a restart.
+     * @return The pending stays, in the order they were appended.
+     */
+    List<Estancia> findPendingEntries();
+
+    /**
+     * Checks whether the exit of a stay has been appended but not replayed yet, so the database
+     * still reports the stay as 'INSIDE'.
+     * @param stayId The stay ID.
+     * @return true if the exit is pending.
+     */
+    boolean isExitPending(int stayId);
+}
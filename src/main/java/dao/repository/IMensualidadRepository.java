@@ -1,5 +1,9 @@
 package dao.repository;
 
+import model.Mensualidad;
+
+import java.sql.Timestamp;
+import java.util.List;
 import java.util.Optional;
 
 public interface IMensualidadRepository {
@@ -9,4 +13,21 @@ public interface IMensualidadRepository {
      * @return An Optional containing a boolean (true if active), otherwise empty.
      */
     Optional<Boolean> isCurrentlyActive(String plate);
+
+    /**
+     * Checks if there is an active monthly plan for a given plate at a given instant.
+     * @param plate The vehicle's plate.
+     * @param instant The instant to check.
+     * @return An Optional containing a boolean (true if active), otherwise empty.
+     */
+    Optional<Boolean> isActiveAt(String plate, Timestamp instant);
+
+    /**
+     * Finds the memberships modified after the given instant, ordered by modification time.
+     * When {@code since} is null, returns every active membership that has not expired yet.
+     * @param since The lower bound (exclusive) of 'updated_at', or null for a full load.
+     * @return The matching memberships.
+     * @throws DataAccessException if the query fails.
+     */
+    List<Mensualidad> findModifiedSince(Timestamp since);
 }
@@ -3,6 +3,25 @@ package dao.repository;
 
 import model.Pago;
 
+import java.util.List;
+
 public interface IPagoRepository {
+    /**
+     * Saves a new payment record.
+     * @param pago The payment to save.
+     * @throws DataAccessException if the payment could not be saved.
+     */
     void save(Pago pago);
+
+    /**
+     * Saves several payment records. Implementations backed by a database should send them
+     * in a single batch.
+     * @param pagos The payments to save.
+     * @throws DataAccessException if any payment could not be saved.
+     */
+    default void saveAll(List<Pago> pagos) {
+        for (Pago pago : pagos) {
+            save(pago);
+        }
+    }
 }
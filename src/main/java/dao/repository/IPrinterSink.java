@@ -0,0 +1,30 @@
+package dao.repository;
+
+import java.io.IOException;
+
+/**
+ * Destination of the raw bytes of a printer (e.g. ESC/POS commands): a print service,
+ * a network printer or a file.
+ */
+public interface IPrinterSink {
+
+    /**
+     * Sends a complete print job.
+     * @param data The raw bytes of the job.
+     * @throws IOException if the bytes could not be delivered.
+     */
+    void write(byte[] data) throws IOException;
+
+    /**
+     * Aborts the writes in progress, if the destination allows it (e.g. by closing the connection):
+     * they end with an IOException. By default it does nothing.
+     */
+    default void abort() {
+    }
+
+    /**
+     * A short description of the destination, for logs and messages.
+     * @return The destination name.
+     */
+    String getName();
+}
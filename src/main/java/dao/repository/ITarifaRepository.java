@@ -1,9 +1,43 @@
 package dao.repository;
 
+import model.FranjaTarifa;
 import model.Tarifa;
+
+import java.util.List;
 import java.util.Optional;
 
 public interface ITarifaRepository {
     Optional<Tarifa> findActiveTariff();
     Optional<Tarifa> findActiveByVehicleType(String vehicleType);
+
+    /**
+     * Finds every active rate, ordered by ID.
+     * @return The active rates.
+     * @throws DataAccessException if the query fails.
+     */
+    List<Tarifa> findAllActive();
+
+    /**
+     * Returns a checksum of the active rates and their schedules. It changes whenever an active
+     * rate or one of its schedules is added, modified or removed, so callers can detect changes cheaply.
+     * @return The current version of the active rates.
+     * @throws DataAccessException if the query fails.
+     */
+    String findActiveRatesVersion();
+
+    /**
+     * Finds the time bands (peak, night, weekend...) of every active rate, ordered by rate and ID.
+     * @return The schedules of the active rates.
+     * @throws DataAccessException if the query fails.
+     */
+    List<FranjaTarifa> findActiveSchedules();
+
+    /**
+     * Finds the time bands of a rate, ordered by ID. A rate without schedules charges its
+     * flat hourly and fraction values at any time.
+     * @param rateId The rate ID.
+     * @return The schedules of the rate (possibly empty).
+     * @throws DataAccessException if the query fails.
+     */
+    List<FranjaTarifa> findSchedulesByRate(int rateId);
 }
@@ -6,4 +6,11 @@ import model.Operator;
 
 public interface ITicketService {
     void printTicket(Estancia estancia, Operator operator);
+
+    /**
+     * Aborts the tickets being printed, if the printer allows it, so that a timed-out attempt
+     * ends instead of printing late. By default it does nothing.
+     */
+    default void abort() {
+    }
 }
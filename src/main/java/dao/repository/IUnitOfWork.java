@@ -0,0 +1,33 @@
+package dao.repository;
+
+import java.util.function.Supplier;
+
+/**
+ * Groups several repository calls into a single database transaction.
+ * Every repository call made inside the work shares one connection; the work is
+ * committed if it returns normally and rolled back if it throws.
+ */
+public interface IUnitOfWork {
+
+    /**
+     * Executes the given work inside a transaction. If a transaction is already active
+     * on the current thread, the work joins it instead of opening a new one.
+     *
+     * @param work The repository calls to execute.
+     * @param <T> The type of the result.
+     * @return The value returned by the work.
+     * @throws DataAccessException if the transaction cannot be started or committed.
+     */
+    <T> T execute(Supplier<T> work);
+
+    /**
+     * Convenience variant of {@link #execute(Supplier)} for work without a result.
+     * @param work The repository calls to execute.
+     */
+    default void run(Runnable work) {
+        execute(() -> {
+            work.run();
+            return null;
+        });
+    }
+}
@@ -0,0 +1,16 @@
+package dao.repository;
+
+/**
+ * Unchecked exception thrown by ticket services that print without user interaction
+ * when a ticket could not be rendered or sent to the printer.
+ */
+public class TicketPrintException extends RuntimeException {
+
+    public TicketPrintException(String message) {
+        super(message);
+    }
+
+    public TicketPrintException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
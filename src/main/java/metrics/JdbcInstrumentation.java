@@ -0,0 +1,114 @@
+package metrics;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+
+/**
+ * Wraps JDBC connections so that every statement reports its execution time to {@link QueryTimer}.
+ *
+ * The wrapped connection hands out wrapped statements, which time execute* calls (with their SQL
+ * text, for the slow query log) and hand out wrapped result sets, which time next() because with a
+ * cursor it may fetch the next block of rows from the server. Commit and rollback are timed as
+ * statements too. Everything else is passed through unchanged.
+ *
+ * Each statement is recorded under the database node the connection belongs to.
+ */
+public final class JdbcInstrumentation {
+
+    private JdbcInstrumentation() {}
+
+    /**
+     * @param connection The connection to instrument (e.g. one borrowed from the pool).
+     * @param node The database node it is connected to: "primary" or the name of a read replica.
+     * @return A connection that behaves like the original and reports its statements.
+     */
+    public static Connection instrument(Connection connection, String node) {
+        return proxy(Connection.class, connection, (method, args) -> {
+            String name = method.getName();
+            if ("commit".equals(name) || "rollback".equals(name)) {
+                return timed(node, connection, method, args, name.toUpperCase());
+            }
+            Object result = invoke(connection, method, args);
+            if (result instanceof Statement) {
+                // prepareStatement(sql, ...) and prepareCall(sql, ...) know their SQL; createStatement() does not.
+                String sql = args != null && args.length > 0 && args[0] instanceof String ? (String) args[0] : null;
+                return statement(node, (Statement) result, method.getReturnType(), sql);
+            }
+            return result;
+        });
+    }
+
+    private static Object statement(String node, Statement statement, Class<?> type, String preparedSql) {
+        Class<?> iface = type == CallableStatement.class ? CallableStatement.class
+                : type == PreparedStatement.class ? PreparedStatement.class : Statement.class;
+        return proxy(iface, statement, (method, args) -> {
+            String name = method.getName();
+            Object result;
+            if (name.startsWith("execute")) {
+                // Statement.execute(sql, ...) receives its SQL as the first argument.
+                String sql = args != null && args.length > 0 && args[0] instanceof String ? (String) args[0] : preparedSql;
+                result = timed(node, statement, method, args, sql);
+            } else {
+                result = invoke(statement, method, args);
+            }
+            return result instanceof ResultSet ? resultSet((ResultSet) result) : result;
+        });
+    }
+
+    private static ResultSet resultSet(ResultSet resultSet) {
+        return proxy(ResultSet.class, resultSet, (method, args) -> {
+            if (!"next".equals(method.getName())) {
+                return invoke(resultSet, method, args);
+            }
+            long start = System.nanoTime();
+            try {
+                return invoke(resultSet, method, args);
+            } finally {
+                QueryTimer.recordFetch(System.nanoTime() - start);
+            }
+        });
+    }
+
+    private static Object timed(String node, Object target, Method method, Object[] args, String sql) throws Throwable {
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            Object result = invoke(target, method, args);
+            failed = false;
+            return result;
+        } finally {
+            QueryTimer.recordStatement(node, sql, System.nanoTime() - start, failed);
+        }
+    }
+
+    private interface Handler {
+        Object handle(Method method, Object[] args) throws Throwable;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> iface, Object target, Handler handler) {
+        return (T) Proxy.newProxyInstance(JdbcInstrumentation.class.getClassLoader(), new Class<?>[]{iface},
+                (proxy, method, args) -> {
+                    // unwrap() and isWrapperFor() must see the driver's object, not the proxy.
+                    if (method.getDeclaringClass() == Object.class || "unwrap".equals(method.getName())
+                            || "isWrapperFor".equals(method.getName())) {
+                        return invoke(target, method, args);
+                    }
+                    return handler.handle(method, args);
+                });
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package metrics;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+
+/**
+ * Registers the application's MBeans in the platform MBean server, where JConsole, VisualVM
+ * and the JMX monitoring agents find them.
+ */
+public final class MBeans {
+
+    private MBeans() {}
+
+    /**
+     * Registers an MBean, replacing the one registered under the same name, if any.
+     * Failures are reported on stderr and otherwise ignored: monitoring must never stop the gate.
+     *
+     * @param objectName The JMX name, e.g. "crudpark:type=Database".
+     * @param mbean An object implementing its *MXBean interface.
+     */
+    public static void register(String objectName, Object mbean) {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(objectName);
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+            server.registerMBean(mbean, name);
+        } catch (Exception | LinkageError e) {
+            System.err.println("Could not register the MBean " + objectName + ": " + e);
+        }
+    }
+}
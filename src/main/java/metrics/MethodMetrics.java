@@ -0,0 +1,72 @@
+package metrics;
+
+import java.beans.ConstructorProperties;
+
+/**
+ * Snapshot of the statistics of one repository method, as published over JMX by
+ * {@link RepositoryMetricsMXBean}. Times are in milliseconds.
+ *
+ * The total time of a call is split into connect (borrowing a connection from the pool),
+ * execute (running statements and fetching rows) and map (everything else: binding
+ * parameters and building objects from rows). See {@link QueryTimer}.
+ */
+public final class MethodMetrics {
+
+    private final long calls;
+    private final long errors;
+    private final double meanMillis;
+    private final double p50Millis;
+    private final double p99Millis;
+    private final double p999Millis;
+    private final double maxMillis;
+    private final double connectMeanMillis;
+    private final double connectP99Millis;
+    private final double executeMeanMillis;
+    private final double executeP99Millis;
+    private final double mapMeanMillis;
+    private final double mapP99Millis;
+
+    @ConstructorProperties({"calls", "errors", "meanMillis", "p50Millis", "p99Millis", "p999Millis", "maxMillis",
+            "connectMeanMillis", "connectP99Millis", "executeMeanMillis", "executeP99Millis", "mapMeanMillis", "mapP99Millis"})
+    public MethodMetrics(long calls, long errors, double meanMillis, double p50Millis, double p99Millis, double p999Millis,
+                         double maxMillis, double connectMeanMillis, double connectP99Millis, double executeMeanMillis,
+                         double executeP99Millis, double mapMeanMillis, double mapP99Millis) {
+        this.calls = calls;
+        this.errors = errors;
+        this.meanMillis = meanMillis;
+        this.p50Millis = p50Millis;
+        this.p99Millis = p99Millis;
+        this.p999Millis = p999Millis;
+        this.maxMillis = maxMillis;
+        this.connectMeanMillis = connectMeanMillis;
+        this.connectP99Millis = connectP99Millis;
+        this.executeMeanMillis = executeMeanMillis;
+        this.executeP99Millis = executeP99Millis;
+        this.mapMeanMillis = mapMeanMillis;
+        this.mapP99Millis = mapP99Millis;
+    }
+
+    /** Completed calls, including the ones that threw. */
+    public long getCalls() { return calls; }
+    /** Calls that threw an exception. */
+    public long getErrors() { return errors; }
+    public double getMeanMillis() { return meanMillis; }
+    public double getP50Millis() { return p50Millis; }
+    public double getP99Millis() { return p99Millis; }
+    public double getP999Millis() { return p999Millis; }
+    public double getMaxMillis() { return maxMillis; }
+    public double getConnectMeanMillis() { return connectMeanMillis; }
+    public double getConnectP99Millis() { return connectP99Millis; }
+    public double getExecuteMeanMillis() { return executeMeanMillis; }
+    public double getExecuteP99Millis() { return executeP99Millis; }
+    public double getMapMeanMillis() { return mapMeanMillis; }
+    public double getMapP99Millis() { return mapP99Millis; }
+
+    @Override
+    public String toString() {
+        return String.format("calls=%d errors=%d mean=%.3fms p50=%.3fms p99=%.3fms p99.9=%.3fms max=%.3fms"
+                        + " (connect %.3fms, execute %.3fms, map %.3fms)",
+                calls, errors, meanMillis, p50Millis, p99Millis, p999Millis, maxMillis,
+                connectMeanMillis, executeMeanMillis, mapMeanMillis);
+    }
+}
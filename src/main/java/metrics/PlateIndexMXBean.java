@@ -0,0 +1,13 @@
+package metrics;
+
+import plate.IndexStats;
+
+/**
+ * JMX view of an off-heap plate index, registered as crudpark:type=PlateIndex,name=&lt;index&gt;
+ * (name=ActiveStays for the occupancy index, name=Memberships for the membership cache).
+ */
+public interface PlateIndexMXBean {
+
+    /** Size, memory and probe lengths. Each read scans the whole table. */
+    IndexStats getStats();
+}
@@ -0,0 +1,33 @@
+package metrics;
+
+import plate.IndexStats;
+
+import java.util.function.Supplier;
+
+/**
+ * Publishes the statistics of an off-heap plate index over JMX.
+ */
+public final class PlateIndexMetrics implements PlateIndexMXBean {
+
+    private final Supplier<IndexStats> stats;
+
+    /**
+     * @param stats Measures the index on each read (e.g. occupancyIndex::getIndexStats), so a cache
+     *              that swaps its index keeps reporting the current one.
+     */
+    public PlateIndexMetrics(Supplier<IndexStats> stats) {
+        this.stats = stats;
+    }
+
+    /**
+     * Registers the statistics as crudpark:type=PlateIndex,name=&lt;name&gt;.
+     */
+    public static void register(String name, Supplier<IndexStats> stats) {
+        MBeans.register("crudpark:type=PlateIndex,name=" + name, new PlateIndexMetrics(stats));
+    }
+
+    @Override
+    public IndexStats getStats() {
+        return stats.get();
+    }
+}
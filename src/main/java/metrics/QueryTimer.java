@@ -0,0 +1,185 @@
+package metrics;
+
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Splits the time of repository calls into phases and keeps the database-wide statement statistics.
+ *
+ * A repository call ({@link RepositoryMetrics}) opens a {@link Frame} on its thread. While it runs,
+ * the instrumented JDBC objects ({@link JdbcInstrumentation}) add to the frame the time spent
+ * borrowing connections (connect) and executing statements and fetching their rows (execute).
+ * Whatever remains of the call is the map phase: binding parameters and turning rows into objects.
+ * Nested calls (repositories inside a unit of work) also add their phases to the enclosing frame.
+ *
+ * Statements slower than the threshold are kept, with their SQL text (never the parameter values,
+ * which hold license plates), in a bounded log of the most recent ones.
+ *
+ * Statements are also counted per database node (the primary or a read replica, see
+ * config.DatabaseConnection#getReadConnection), so the metrics show which node served them.
+ */
+public final class QueryTimer {
+
+    private static final int SLOW_QUERY_CAPACITY = 100;
+
+    private static final ThreadLocal<Frame> current = new ThreadLocal<>();
+
+    private static final LatencyHistogram connectLatency = new LatencyHistogram();
+    private static final LatencyHistogram statementLatency = new LatencyHistogram();
+    private static final ConcurrentMap<String, LatencyHistogram> statementLatencyByNode = new ConcurrentHashMap<>();
+    private static final LongAdder statementErrors = new LongAdder();
+    private static final LongAdder slowQueryCount = new LongAdder();
+    private static final Deque<SlowQuery> slowQueries = new ArrayDeque<>();
+    private static volatile long slowQueryThresholdNanos = TimeUnit.MILLISECONDS.toNanos(200);
+
+    private QueryTimer() {}
+
+    /**
+     * Time accumulated by the phases of one repository call on the current thread.
+     */
+    public static final class Frame {
+        private final Frame parent;
+        private final String label;
+        private long connectNanos;
+        private long executeNanos;
+
+        private Frame(Frame parent, String label) {
+            this.parent = parent;
+            this.label = label;
+        }
+
+        public long getConnectNanos() { return connectNanos; }
+
+        public long getExecuteNanos() { return executeNanos; }
+    }
+
+    /**
+     * Opens a frame for a repository call on the current thread.
+     * @param label Repository and method, e.g. "EstanciaRepository.update"; it labels slow queries.
+     */
+    public static Frame begin(String label) {
+        Frame frame = new Frame(current.get(), label);
+        current.set(frame);
+        return frame;
+    }
+
+    /**
+     * Closes the frame opened by {@link #begin(String)}, adding its phases to the enclosing one.
+     */
+    public static void end(Frame frame) {
+        Frame parent = frame.parent;
+        if (parent != null) {
+            parent.connectNanos += frame.connectNanos;
+            parent.executeNanos += frame.executeNanos;
+            current.set(parent);
+        } else {
+            current.remove();
+        }
+    }
+
+    /**
+     * Records the time spent obtaining a connection from the pool.
+     */
+    public static void recordConnect(long nanos) {
+        connectLatency.record(nanos);
+        Frame frame = current.get();
+        if (frame != null) {
+            frame.connectNanos += nanos;
+        }
+    }
+
+    /**
+     * Records a statement execution (or a commit/rollback).
+     * @param node The database node that ran it, e.g. "primary".
+     * @param sql The SQL text, if known.
+     */
+    public static void recordStatement(String node, String sql, long nanos, boolean failed) {
+        statementLatency.record(nanos);
+        statementLatencyByNode.computeIfAbsent(node, key -> new LatencyHistogram()).record(nanos);
+        if (failed) {
+            statementErrors.increment();
+        }
+        Frame frame = current.get();
+        if (frame != null) {
+            frame.executeNanos += nanos;
+        }
+        if (nanos >= slowQueryThresholdNanos) {
+            slowQueryCount.increment();
+            SlowQuery slowQuery = new SlowQuery(sql == null ? "?" : sql, frame == null ? "-" : frame.label,
+                    node, nanos / 1e6, failed, Instant.now().toString());
+            synchronized (slowQueries) {
+                if (slowQueries.size() == SLOW_QUERY_CAPACITY) {
+                    slowQueries.removeFirst();
+                }
+                slowQueries.addLast(slowQuery);
+            }
+        }
+    }
+
+    /**
+     * Records the time spent fetching rows of a result (ResultSet.next), which may go to the server.
+     */
+    public static void recordFetch(long nanos) {
+        Frame frame = current.get();
+        if (frame != null) {
+            frame.executeNanos += nanos;
+        }
+    }
+
+    public static LatencyHistogram.Snapshot getConnectLatency() {
+        return connectLatency.snapshot();
+    }
+
+    public static LatencyHistogram.Snapshot getStatementLatency() {
+        return statementLatency.snapshot();
+    }
+
+    /**
+     * @param node "primary" or the name of a read replica.
+     * @return The latency of the statements run on that node.
+     */
+    public static LatencyHistogram.Snapshot getStatementLatency(String node) {
+        return statementLatencyByNode.computeIfAbsent(node, key -> new LatencyHistogram()).snapshot();
+    }
+
+    public static long getStatementErrorCount() {
+        return statementErrors.sum();
+    }
+
+    public static long getSlowQueryCount() {
+        return slowQueryCount.sum();
+    }
+
+    /**
+     * @return The most recent slow statements, oldest first.
+     */
+    public static List<SlowQuery> getSlowQueries() {
+        synchronized (slowQueries) {
+            return new ArrayList<>(slowQueries);
+        }
+    }
+
+    public static void clearSlowQueries() {
+        synchronized (slowQueries) {
+            slowQueries.clear();
+        }
+    }
+
+    public static long getSlowQueryThresholdMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(slowQueryThresholdNanos);
+    }
+
+    public static void setSlowQueryThresholdMillis(long millis) {
+        if (millis < 0) {
+            throw new IllegalArgumentException("The slow query threshold cannot be negative: " + millis);
+        }
+        slowQueryThresholdNanos = TimeUnit.MILLISECONDS.toNanos(millis);
+    }
+}
@@ -0,0 +1,159 @@
+package metrics;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency and error statistics of the calls made through a repository interface.
+ *
+ * {@link #instrument(Class, Object)} wraps a repository in a proxy that times every call and
+ * splits it into connect, execute and map phases (see {@link QueryTimer}). All the instances of
+ * an interface share one RepositoryMetrics, published over JMX as
+ * crudpark:type=Repository,name=&lt;interface without the leading "I"&gt;.
+ *
+ * Methods returning a lazy result (IEstanciaRepository.streamAllActive) are measured until the
+ * result is returned, not until it is consumed.
+ */
+public final class RepositoryMetrics implements RepositoryMetricsMXBean {
+
+    private static final ConcurrentMap<String, RepositoryMetrics> registry = new ConcurrentHashMap<>();
+
+    private final String name;
+    private final ConcurrentMap<String, MethodStats> methods = new ConcurrentHashMap<>();
+
+    private RepositoryMetrics(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Statistics of one method. Recording is lock-free.
+     */
+    private static final class MethodStats {
+        final LatencyHistogram total = new LatencyHistogram();
+        final LatencyHistogram connect = new LatencyHistogram();
+        final LatencyHistogram execute = new LatencyHistogram();
+        final LatencyHistogram map = new LatencyHistogram();
+        final LongAdder errors = new LongAdder();
+
+        MethodMetrics snapshot() {
+            LatencyHistogram.Snapshot t = total.snapshot();
+            LatencyHistogram.Snapshot c = connect.snapshot();
+            LatencyHistogram.Snapshot e = execute.snapshot();
+            LatencyHistogram.Snapshot m = map.snapshot();
+            return new MethodMetrics(t.getCount(), errors.sum(), millis(t.getMeanNanos()), t.percentileMillis(0.50),
+                    t.percentileMillis(0.99), t.percentileMillis(0.999), millis(t.getMaxNanos()),
+                    millis(c.getMeanNanos()), c.percentileMillis(0.99), millis(e.getMeanNanos()), e.percentileMillis(0.99),
+                    millis(m.getMeanNanos()), m.percentileMillis(0.99));
+        }
+    }
+
+    /**
+     * Wraps a repository so that its calls are measured.
+     *
+     * @param type The repository interface (e.g. IEstanciaRepository.class); only its methods are exposed.
+     * @param target The implementation to measure.
+     * @return A proxy implementing the interface.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> T instrument(Class<T> type, T target) {
+        RepositoryMetrics metrics = forName(nameOf(type));
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type},
+                (proxy, method, args) -> {
+                    if (method.getDeclaringClass() == Object.class) {
+                        return invoke(target, method, args);
+                    }
+                    return metrics.measure(target, method, args);
+                });
+    }
+
+    /**
+     * Returns the statistics of a repository, registering its MBean on first use.
+     * @param name The repository name, e.g. "EstanciaRepository".
+     */
+    public static RepositoryMetrics forName(String name) {
+        return registry.computeIfAbsent(name, key -> {
+            RepositoryMetrics metrics = new RepositoryMetrics(key);
+            MBeans.register("crudpark:type=Repository,name=" + key, metrics);
+            return metrics;
+        });
+    }
+
+    private Object measure(Object target, Method method, Object[] args) throws Throwable {
+        MethodStats stats = methods.computeIfAbsent(method.getName(), key -> new MethodStats());
+        QueryTimer.Frame frame = QueryTimer.begin(name + "." + method.getName());
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            Object result = invoke(target, method, args);
+            failed = false;
+            return result;
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            QueryTimer.end(frame);
+            stats.total.record(elapsed);
+            stats.connect.record(frame.getConnectNanos());
+            stats.execute.record(frame.getExecuteNanos());
+            stats.map.record(elapsed - frame.getConnectNanos() - frame.getExecuteNanos());
+            if (failed) {
+                stats.errors.increment();
+            }
+        }
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public long getCalls() {
+        long calls = 0;
+        for (MethodStats stats : methods.values()) {
+            calls += stats.total.snapshot().getCount();
+        }
+        return calls;
+    }
+
+    @Override
+    public long getErrors() {
+        long errors = 0;
+        for (MethodStats stats : methods.values()) {
+            errors += stats.errors.sum();
+        }
+        return errors;
+    }
+
+    @Override
+    public Map<String, MethodMetrics> getMethods() {
+        Map<String, MethodMetrics> snapshot = new TreeMap<>();
+        methods.forEach((method, stats) -> snapshot.put(method, stats.snapshot()));
+        return snapshot;
+    }
+
+    private static String nameOf(Class<?> type) {
+        String simpleName = type.getSimpleName();
+        // IEstanciaRepository -> EstanciaRepository; OperatorRepository stays as is.
+        if (simpleName.length() > 1 && simpleName.charAt(0) == 'I' && Character.isUpperCase(simpleName.charAt(1))) {
+            return simpleName.substring(1);
+        }
+        return simpleName;
+    }
+
+    private static double millis(double nanos) {
+        return nanos / 1e6;
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package metrics;
+
+import java.util.Map;
+
+/**
+ * JMX view of the calls made through one repository interface, registered as
+ * crudpark:type=Repository,name=&lt;repository&gt; (e.g. name=EstanciaRepository).
+ */
+public interface RepositoryMetricsMXBean {
+
+    /** The repository interface, without the leading "I". */
+    String getName();
+
+    /** Calls to all its methods. */
+    long getCalls();
+
+    /** Calls to all its methods that threw an exception. */
+    long getErrors();
+
+    /** Statistics per method name. Overloads of a method are counted together. */
+    Map<String, MethodMetrics> getMethods();
+}
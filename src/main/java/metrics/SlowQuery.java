@@ -0,0 +1,43 @@
+package metrics;
+
+import java.beans.ConstructorProperties;
+
+/**
+ * A statement that took longer than the slow query threshold (see {@link QueryTimer}).
+ */
+public final class SlowQuery {
+
+    private final String sql;
+    private final String repositoryMethod;
+    private final String node;
+    private final double durationMillis;
+    private final boolean failed;
+    private final String timestamp;
+
+    @ConstructorProperties({"sql", "repositoryMethod", "node", "durationMillis", "failed", "timestamp"})
+    public SlowQuery(String sql, String repositoryMethod, String node, double durationMillis, boolean failed, String timestamp) {
+        this.sql = sql;
+        this.repositoryMethod = repositoryMethod;
+        this.node = node;
+        this.durationMillis = durationMillis;
+        this.failed = failed;
+        this.timestamp = timestamp;
+    }
+
+    /** The SQL text, without parameter values. */
+    public String getSql() { return sql; }
+    /** The repository call that ran it, e.g. "EstanciaRepository.update", or "-" outside a repository. */
+    public String getRepositoryMethod() { return repositoryMethod; }
+    /** The database node that ran it: "primary" or the name of a read replica. */
+    public String getNode() { return node; }
+    public double getDurationMillis() { return durationMillis; }
+    /** Whether the statement threw an exception. */
+    public boolean isFailed() { return failed; }
+    /** When it finished, as an ISO-8601 instant. */
+    public String getTimestamp() { return timestamp; }
+
+    @Override
+    public String toString() {
+        return String.format("%s %.3f ms%s [%s @ %s] %s", timestamp, durationMillis, failed ? " (error)" : "", repositoryMethod, node, sql);
+    }
+}
@@ -0,0 +1,32 @@
+package metrics.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+@Name("crudpark.ExitQuote")
+@Label("Exit Quote")
+@Description("EstanciaServiceImpl.calculateExitDetails")
+public class ExitQuoteEvent extends GateEvent {
+
+    @Label("Stay Type")
+    public String stayType;
+
+    @Label("Amount To Pay")
+    public double amountToPay;
+
+    @Label("Lookup Time")
+    @Description("Finding the active stay of the plate")
+    @Timespan
+    public long lookupTime;
+
+    @Label("Rate Time")
+    @Description("Finding the active rate and its schedules")
+    @Timespan
+    public long rateTime;
+
+    @Label("Pricing Time")
+    @Timespan
+    public long pricingTime;
+}
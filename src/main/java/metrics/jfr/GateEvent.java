@@ -0,0 +1,43 @@
+package metrics.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+
+/**
+ * An operation on a vehicle at the gate. A lane is identified by the operator logged in at it
+ * (or the camera/kiosk user of the HTTP API), which is what {@link JfrLaneAnalyzer} groups by.
+ */
+@Category({"CrudPark", "Gate"})
+public abstract class GateEvent extends PhasedEvent {
+
+    public static final String OK = "OK";
+    public static final String REFUSED = "REFUSED";
+    public static final String FAILED = "FAILED";
+
+    @Label("License Plate")
+    public String plate;
+
+    @Label("Stay ID")
+    @Description("0 if the stay was not found or created; negative for stays registered offline in the journal")
+    public int stayId;
+
+    @Label("Vehicle Type")
+    public String vehicleType;
+
+    @Label("Operator ID")
+    @Description("0 if not known: exit quotes are not tied to an operator")
+    public int operatorId;
+
+    @Label("Outcome")
+    @Description("OK, REFUSED (a business rule rejected it) or FAILED (unexpected error)")
+    public String outcome = OK;
+
+    /**
+     * Records why the operation did not complete.
+     * @param error Checked exceptions are business rule rejections; unchecked ones are failures.
+     */
+    public void fail(Throwable error) {
+        outcome = error instanceof RuntimeException || error instanceof Error ? FAILED : REFUSED;
+    }
+}
@@ -0,0 +1,217 @@
+package metrics.jfr;
+
+import jdk.jfr.Timespan;
+import jdk.jfr.ValueDescriptor;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedThread;
+import jdk.jfr.consumer.RecordingFile;
+import metrics.LatencyHistogram;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+
+/**
+ * Offline summary of the CrudPark events of a flight recording (.jfr): latency per lane and
+ * operation, the mean of each phase, and the slowest operations.
+ *
+ * <pre>
+ * java -cp target/classes metrics.jfr.JfrLaneAnalyzer recording.jfr [--by=operator|thread] [--top=10]
+ * </pre>
+ *
+ * By default a lane is the operator of the event. Exit quotes carry no operator, so they are assigned
+ * to the operator that closed the same stay; --by=thread groups by the recording thread instead.
+ */
+public final class JfrLaneAnalyzer {
+
+    private static final String PREFIX = "crudpark.";
+    private static final DateTimeFormatter TIME = DateTimeFormatter.ofPattern("HH:mm:ss.SSS").withZone(ZoneId.systemDefault());
+
+    private final boolean byThread;
+    private final Map<Integer, Integer> exitOperatorByStay = new HashMap<>();
+    private final Map<String, Map<String, OperationSummary>> lanes = new TreeMap<>();
+    private final PriorityQueue<Slow> slowest;
+    private final int top;
+
+    private JfrLaneAnalyzer(boolean byThread, int top) {
+        this.byThread = byThread;
+        this.top = top;
+        this.slowest = new PriorityQueue<>(Comparator.comparingLong((Slow slow) -> slow.nanos));
+    }
+
+    public static void main(String[] args) throws IOException {
+        Path file = null;
+        boolean byThread = false;
+        int top = 10;
+        for (String arg : args) {
+            if (arg.startsWith("--by=")) {
+                byThread = "thread".equals(arg.substring(5));
+            } else if (arg.startsWith("--top=")) {
+                top = Integer.parseInt(arg.substring(6));
+            } else {
+                file = Paths.get(arg);
+            }
+        }
+        if (file == null) {
+            System.err.println("Uso: JfrLaneAnalyzer <grabación.jfr> [--by=operator|thread] [--top=10]");
+            System.exit(2);
+        }
+        JfrLaneAnalyzer analyzer = new JfrLaneAnalyzer(byThread, top);
+        analyzer.analyze(file);
+        analyzer.print();
+    }
+
+    private void analyze(Path file) throws IOException {
+        if (!byThread) {
+            // First pass: who closed each stay, to place the exit quotes in their lane.
+            try (RecordingFile recording = new RecordingFile(file)) {
+                while (recording.hasMoreEvents()) {
+                    RecordedEvent event = recording.readEvent();
+                    if ("crudpark.VehicleExit".equals(event.getEventType().getName())) {
+                        exitOperatorByStay.put(event.getInt("stayId"), event.getInt("operatorId"));
+                    }
+                }
+            }
+        }
+        try (RecordingFile recording = new RecordingFile(file)) {
+            while (recording.hasMoreEvents()) {
+                RecordedEvent event = recording.readEvent();
+                String type = event.getEventType().getName();
+                if (type.startsWith(PREFIX)) {
+                    record(type.substring(PREFIX.length()), event);
+                }
+            }
+        }
+    }
+
+    private void record(String operation, RecordedEvent event) {
+        String lane = laneOf(event);
+        long nanos = event.getDuration().toNanos();
+        lanes.computeIfAbsent(lane, key -> new TreeMap<>())
+                .computeIfAbsent(operation, key -> new OperationSummary())
+                .record(event, nanos);
+        if (top > 0 && (slowest.size() < top || nanos > slowest.peek().nanos)) {
+            slowest.add(new Slow(nanos, lane, operation, event));
+            if (slowest.size() > top) {
+                slowest.poll();
+            }
+        }
+    }
+
+    private String laneOf(RecordedEvent event) {
+        if (byThread) {
+            RecordedThread thread = event.getThread();
+            if (thread == null) {
+                return "-";
+            }
+            String name = thread.getJavaName();
+            return name == null || name.isEmpty() ? "#" + thread.getJavaThreadId() : name;
+        }
+        int operatorId = event.hasField("operatorId") ? event.getInt("operatorId") : 0;
+        if (operatorId == 0 && event.hasField("stayId")) {
+            operatorId = exitOperatorByStay.getOrDefault(event.getInt("stayId"), 0);
+        }
+        return operatorId == 0 ? "-" : "operador " + operatorId;
+    }
+
+    private void print() {
+        System.out.printf(Locale.ROOT, "%-20s %-14s %7s %7s %6s %9s %9s %9s %9s  %s%n",
+                "carril", "operación", "total", "rechazo", "error", "p50 ms", "p99 ms", "p99.9 ms", "max ms", "fases (media ms)");
+        lanes.forEach((lane, operations) -> operations.forEach((operation, summary) -> {
+            LatencyHistogram.Snapshot latency = summary.latency.snapshot();
+            StringBuilder phases = new StringBuilder();
+            summary.phases.forEach((phase, histogram) -> phases.append(String.format(Locale.ROOT, "%s=%.3f ",
+                    phase, histogram.snapshot().getMeanNanos() / 1e6)));
+            System.out.printf(Locale.ROOT, "%-20s %-14s %7d %7d %6d %9.3f %9.3f %9.3f %9.3f  %s%n",
+                    lane, operation, latency.getCount(), summary.refused, summary.failed,
+                    latency.percentileMillis(0.5), latency.percentileMillis(0.99), latency.percentileMillis(0.999),
+                    latency.getMaxNanos() / 1e6, phases.toString().trim());
+        }));
+        if (slowest.isEmpty()) {
+            return;
+        }
+        List<Slow> slow = new ArrayList<>(slowest);
+        slow.sort(Comparator.comparingLong((Slow s) -> s.nanos).reversed());
+        System.out.printf("%nOperaciones más lentas:%n");
+        for (Slow s : slow) {
+            System.out.printf(Locale.ROOT, "%s %10.3f ms  %-20s %-14s %s%n",
+                    TIME.format(s.event.getStartTime()), s.nanos / 1e6, s.lane, s.operation, describe(s.event));
+        }
+    }
+
+    private static String describe(RecordedEvent event) {
+        StringBuilder text = new StringBuilder();
+        for (String field : new String[]{"plate", "stayId", "outcome", "journaled", "printer", "email"}) {
+            if (event.hasField(field)) {
+                text.append(field).append('=').append((Object) event.getValue(field)).append(' ');
+            }
+        }
+        for (Map.Entry<String, Long> phase : phasesOf(event).entrySet()) {
+            text.append(String.format(Locale.ROOT, "%s=%.3fms ", phase.getKey(), phase.getValue() / 1e6));
+        }
+        return text.toString().trim();
+    }
+
+    /**
+     * The {@link Timespan} fields of an event, in nanoseconds, named without the "Time" suffix.
+     */
+    private static Map<String, Long> phasesOf(RecordedEvent event) {
+        Map<String, Long> phases = new LinkedHashMap<>();
+        for (ValueDescriptor field : event.getFields()) {
+            String name = field.getName();
+            if (Timespan.class.getName().equals(field.getContentType()) && !"duration".equals(name)) {
+                phases.put(name.endsWith("Time") ? name.substring(0, name.length() - 4) : name,
+                        event.getDuration(name).toNanos());
+            }
+        }
+        return phases;
+    }
+
+    private static final class OperationSummary {
+        final LatencyHistogram latency = new LatencyHistogram();
+        final Map<String, LatencyHistogram> phases = new LinkedHashMap<>();
+        long refused;
+        long failed;
+
+        void record(RecordedEvent event, long nanos) {
+            latency.record(nanos);
+            phasesOf(event).forEach((phase, phaseNanos) ->
+                    phases.computeIfAbsent(phase, key -> new LatencyHistogram()).record(phaseNanos));
+            if (event.hasField("outcome")) {
+                String outcome = event.getString("outcome");
+                if (GateEvent.REFUSED.equals(outcome)) {
+                    refused++;
+                } else if (GateEvent.FAILED.equals(outcome)) {
+                    failed++;
+                }
+            } else if (event.hasField("success") && !event.getBoolean("success")) {
+                refused++;
+            }
+        }
+    }
+
+    private static final class Slow {
+        final long nanos;
+        final String lane;
+        final String operation;
+        final RecordedEvent event;
+
+        Slow(long nanos, String lane, String operation, RecordedEvent event) {
+            this.nanos = nanos;
+            this.lane = lane;
+            this.operation = operation;
+            this.event = event;
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package metrics.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+@Name("crudpark.Login")
+@Label("Login")
+@Description("AuthServiceImpl.login")
+@Category({"CrudPark", "Authentication"})
+public class LoginEvent extends PhasedEvent {
+
+    @Label("Email")
+    public String email;
+
+    @Label("Operator ID")
+    @Description("0 if no operator has that email")
+    public int operatorId;
+
+    @Label("Success")
+    public boolean success;
+
+    @Label("Lookup Time")
+    @Description("Finding the operator by email")
+    @Timespan
+    public long lookupTime;
+
+    @Label("Password Check Time")
+    @Description("BCrypt verification of the password")
+    @Timespan
+    public long passwordCheckTime;
+}
@@ -0,0 +1,20 @@
+package metrics.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * The insert of a payment, inside the transaction of a {@link VehicleExitEvent}.
+ */
+@Name("crudpark.Payment")
+@Label("Payment")
+@Description("IPagoRepository.save during a vehicle exit")
+public class PaymentEvent extends GateEvent {
+
+    @Label("Amount")
+    public double amount;
+
+    @Label("Payment Method")
+    public String paymentMethod;
+}
@@ -0,0 +1,42 @@
+package metrics.jfr;
+
+import jdk.jfr.Event;
+import jdk.jfr.StackTrace;
+
+/**
+ * Base class of the CrudPark flight recorder events: an event whose duration is split into phases.
+ *
+ * Usage: {@link #start()} when the operation begins, {@link #lap()} at the end of each phase (its
+ * result goes into a {@link jdk.jfr.Timespan} field) and commit() when it ends. When the event is
+ * not enabled in the running recording (or no recording is running), start() and lap() do not even
+ * read the clock and commit() returns at once, so the events can stay in the hot paths.
+ */
+@StackTrace(false)
+public abstract class PhasedEvent extends Event {
+
+    private transient long lapStartNanos;
+
+    /**
+     * Starts the event's duration and its first phase.
+     */
+    public void start() {
+        begin();
+        if (isEnabled()) {
+            lapStartNanos = System.nanoTime();
+        }
+    }
+
+    /**
+     * Ends the current phase and starts the next one.
+     * @return The duration of the phase that ended, in nanoseconds; 0 if the event is not enabled.
+     */
+    public long lap() {
+        if (!isEnabled()) {
+            return 0;
+        }
+        long now = System.nanoTime();
+        long elapsed = now - lapStartNanos;
+        lapStartNanos = now;
+        return elapsed;
+    }
+}
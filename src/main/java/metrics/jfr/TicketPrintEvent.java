@@ -0,0 +1,31 @@
+package metrics.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+@Name("crudpark.TicketPrint")
+@Label("Ticket Print")
+@Description("ITicketService.printTicket")
+public class TicketPrintEvent extends GateEvent {
+
+    @Label("Printer")
+    @Description("The ITicketService implementation and, for ESC/POS, its destination")
+    public String printer;
+
+    @Label("Render Time")
+    @Description("Rendering the ticket (text and QR code) and encoding it for the printer")
+    @Timespan
+    public long renderTime;
+
+    @Label("Operator Wait Time")
+    @Description("Time a dialog waited for the operator (print dialog or simulated ticket)")
+    @Timespan
+    public long operatorWaitTime;
+
+    @Label("Send Time")
+    @Description("Sending the ticket to the printer")
+    @Timespan
+    public long sendTime;
+}
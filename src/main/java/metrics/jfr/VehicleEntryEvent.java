@@ -0,0 +1,33 @@
+package metrics.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+@Name("crudpark.VehicleEntry")
+@Label("Vehicle Entry")
+@Description("EstanciaServiceImpl.registerVehicleEntry")
+public class VehicleEntryEvent extends GateEvent {
+
+    @Label("Stay Type")
+    public String stayType;
+
+    @Label("Journaled")
+    @Description("Written to the local journal because the database was unreachable")
+    public boolean journaled;
+
+    @Label("Occupancy Check Time")
+    @Description("Looking the plate up in the occupancy index (and confirming it in the database)")
+    @Timespan
+    public long occupancyCheckTime;
+
+    @Label("Membership Time")
+    @Timespan
+    public long membershipTime;
+
+    @Label("Insert Time")
+    @Description("Inserting the stay, including the wait for the group commit batch")
+    @Timespan
+    public long insertTime;
+}
@@ -0,0 +1,37 @@
+package metrics.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+@Name("crudpark.VehicleExit")
+@Label("Vehicle Exit")
+@Description("EstanciaServiceImpl.finalizeExit")
+public class VehicleExitEvent extends GateEvent {
+
+    @Label("Amount Paid")
+    public double amountPaid;
+
+    @Label("Payment Method")
+    public String paymentMethod;
+
+    @Label("Journaled")
+    @Description("Written to the local journal because the database was unreachable")
+    public boolean journaled;
+
+    @Label("Close Time")
+    @Description("Updating the stay")
+    @Timespan
+    public long closeTime;
+
+    @Label("Payment Time")
+    @Description("Inserting the payment")
+    @Timespan
+    public long paymentTime;
+
+    @Label("Commit Time")
+    @Description("Opening and committing the transaction (or appending to the journal)")
+    @Timespan
+    public long commitTime;
+}
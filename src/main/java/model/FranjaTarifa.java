@@ -0,0 +1,37 @@
+package model;
+
+/**
+ * Represents a row of the 'rate_schedules' table: a time band (e.g. peak, night or weekend)
+ * in which a rate charges different hourly and fraction values.
+ *
+ * - dayOfWeek: ISO day (1 = Monday ... 7 = Sunday), or null for every day.
+ * - startMinute / endMinute: minutes since midnight. If endMinute <= startMinute the band
+ *   crosses midnight and ends on the next day (e.g. 22:00 - 06:00).
+ */
+public class FranjaTarifa {
+    private int id;
+    private int rateId;
+    private String description;
+    private Integer dayOfWeek;
+    private int startMinute;
+    private int endMinute;
+    private double valuePerHour;
+    private double valuePerFraction;
+
+    public int getId() { return id; }
+    public void setId(int id) { this.id = id; }
+    public int getRateId() { return rateId; }
+    public void setRateId(int rateId) { this.rateId = rateId; }
+    public String getDescription() { return description; }
+    public void setDescription(String description) { this.description = description; }
+    public Integer getDayOfWeek() { return dayOfWeek; }
+    public void setDayOfWeek(Integer dayOfWeek) { this.dayOfWeek = dayOfWeek; }
+    public int getStartMinute() { return startMinute; }
+    public void setStartMinute(int startMinute) { this.startMinute = startMinute; }
+    public int getEndMinute() { return endMinute; }
+    public void setEndMinute(int endMinute) { this.endMinute = endMinute; }
+    public double getValuePerHour() { return valuePerHour; }
+    public void setValuePerHour(double valuePerHour) { this.valuePerHour = valuePerHour; }
+    public double getValuePerFraction() { return valuePerFraction; }
+    public void setValuePerFraction(double valuePerFraction) { this.valuePerFraction = valuePerFraction; }
+}
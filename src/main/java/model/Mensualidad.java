@@ -0,0 +1,31 @@
+package model;
+
+import java.sql.Timestamp;
+
+/**
+ * Represents a row of the 'memberships' table (a monthly plan for a plate).
+ */
+public class Mensualidad {
+    private int id;
+    private String licensePlate;
+    private String vehicleType;
+    private Timestamp startDate;
+    private Timestamp endDate;
+    private boolean active;
+    private Timestamp updatedAt;
+
+    public int getId() { return id; }
+    public void setId(int id) { this.id = id; }
+    public String getLicensePlate() { return licensePlate; }
+    public void setLicensePlate(String licensePlate) { this.licensePlate = licensePlate; }
+    public String getVehicleType() { return vehicleType; }
+    public void setVehicleType(String vehicleType) { this.vehicleType = vehicleType; }
+    public Timestamp getStartDate() { return startDate; }
+    public void setStartDate(Timestamp startDate) { this.startDate = startDate; }
+    public Timestamp getEndDate() { return endDate; }
+    public void setEndDate(Timestamp endDate) { this.endDate = endDate; }
+    public boolean isActive() { return active; }
+    public void setActive(boolean active) { this.active = active; }
+    public Timestamp getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(Timestamp updatedAt) { this.updatedAt = updatedAt; }
+}
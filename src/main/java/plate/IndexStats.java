@@ -0,0 +1,55 @@
+package plate;
+
+import java.beans.ConstructorProperties;
+
+/**
+ * Size, memory and probe lengths of a {@link LongIntHashIndex} (or a {@link PlateIntMap}) at one point in time.
+ */
+public final class IndexStats {
+
+    private final long size;
+    private final long capacity;
+    private final long tombstones;
+    private final long offHeapBytes;
+    private final double averageProbeLength;
+    private final int maxProbeLength;
+    private final long unpackedKeys;
+
+    @ConstructorProperties({"size", "capacity", "tombstones", "offHeapBytes", "averageProbeLength", "maxProbeLength", "unpackedKeys"})
+    public IndexStats(long size, long capacity, long tombstones, long offHeapBytes, double averageProbeLength,
+                      int maxProbeLength, long unpackedKeys) {
+        this.size = size;
+        this.capacity = capacity;
+        this.tombstones = tombstones;
+        this.offHeapBytes = offHeapBytes;
+        this.averageProbeLength = averageProbeLength;
+        this.maxProbeLength = maxProbeLength;
+        this.unpackedKeys = unpackedKeys;
+    }
+
+    /** Keys in the off-heap table. */
+    public long getSize() { return size; }
+    /** Slots in the off-heap table (a power of two). */
+    public long getCapacity() { return capacity; }
+    /** Slots of removed keys, purged on the next rebuild. */
+    public long getTombstones() { return tombstones; }
+    /** Direct memory taken by the table. */
+    public long getOffHeapBytes() { return offHeapBytes; }
+    /** Mean number of slots a successful lookup reads. 1 means no collisions. */
+    public double getAverageProbeLength() { return averageProbeLength; }
+    /** Slots read by the worst successful lookup. */
+    public int getMaxProbeLength() { return maxProbeLength; }
+    /** Plates that cannot be packed, kept on the heap under their text. */
+    public long getUnpackedKeys() { return unpackedKeys; }
+
+    /** Occupied slots (keys and tombstones) over the capacity. */
+    public double getLoadFactor() {
+        return capacity == 0 ? 0 : (double) (size + tombstones) / capacity;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("IndexStats{size=%d, capacity=%d, tombstones=%d, offHeapBytes=%d, averageProbeLength=%.2f, maxProbeLength=%d, unpackedKeys=%d}",
+                size, capacity, tombstones, offHeapBytes, averageProbeLength, maxProbeLength, unpackedKeys);
+    }
+}
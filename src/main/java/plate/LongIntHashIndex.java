@@ -0,0 +1,234 @@
+package plate;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Open-addressing hash index from a positive long (a packed plate) to an int, stored off-heap.
+ *
+ * The table lives in a direct ByteBuffer: 16 bytes per slot (the key, the value and padding to
+ * keep the keys aligned), with linear probing. Millions of plates take a few dozen megabytes
+ * outside the heap and add no objects for the garbage collector to trace, where a
+ * HashMap&lt;String, ...&gt; needs a node, a String and its array per plate.
+ *
+ * Readers never lock: a value is written before its key is published with release semantics,
+ * and read after its key with acquire semantics. Writes are serialized (one writer at a time).
+ * Removed keys leave a tombstone that is never reused, so a slot's key only ever changes from
+ * empty to a key to removed; the tombstones are purged when the table is rebuilt, which
+ * happens in a new buffer that is then published, so readers always see a consistent table.
+ */
+public final class LongIntHashIndex {
+
+    /** Returned by the lookups when the key is not in the index. It cannot be stored as a value. */
+    public static final int MISSING = Integer.MIN_VALUE;
+
+    private static final long EMPTY = 0L;
+    private static final long REMOVED = -1L;
+    private static final int SLOT_BYTES = 16;
+    private static final int VALUE_OFFSET = 8;
+    private static final int MAX_CAPACITY = 1 << 26; // 1 GB of direct memory
+    private static final double MAX_LOAD = 0.7;
+
+    private static final VarHandle KEY = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+    private static final VarHandle VALUE = MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.nativeOrder());
+
+    private volatile Table table;
+    private volatile int size;
+    private int removed; // Tombstones in the current table; only read and written by the writer.
+
+    /**
+     * @param expectedSize Number of keys it should hold without being rebuilt.
+     */
+    public LongIntHashIndex(int expectedSize) {
+        this.table = new Table(capacityFor(expectedSize));
+    }
+
+    /**
+     * @return The value of the key, or {@link #MISSING}.
+     */
+    public int get(long key) {
+        Table current = table;
+        int mask = current.mask;
+        for (int slot = slotOf(key, mask), probes = 0; probes <= mask; slot = (slot + 1) & mask, probes++) {
+            long found = current.key(slot);
+            if (found == key) {
+                return current.value(slot);
+            }
+            if (found == EMPTY) {
+                return MISSING;
+            }
+        }
+        return MISSING;
+    }
+
+    public boolean containsKey(long key) {
+        return get(key) != MISSING;
+    }
+
+    /**
+     * Adds the key or replaces its value.
+     * @param key A positive key.
+     * @param value Any value but {@link #MISSING}.
+     * @return The previous value, or {@link #MISSING}.
+     */
+    public synchronized int put(long key, int value) {
+        if (key <= 0) {
+            throw new IllegalArgumentException("Llave inválida para el índice: " + key);
+        }
+        if (value == MISSING) {
+            throw new IllegalArgumentException("Valor reservado para el índice: " + value);
+        }
+        int slot = find(table, key);
+        if (slot >= 0) {
+            int previous = table.value(slot);
+            table.setValue(slot, value);
+            return previous;
+        }
+        if (size + removed + 1 > table.capacity * MAX_LOAD) {
+            rebuild(size + 1);
+        }
+        table.insert(~find(table, key), key, value);
+        size++;
+        return MISSING;
+    }
+
+    /**
+     * @return The removed value, or {@link #MISSING} if the key was not in the index.
+     */
+    public synchronized int remove(long key) {
+        int slot = find(table, key);
+        if (slot < 0) {
+            return MISSING;
+        }
+        int previous = table.value(slot);
+        table.remove(slot);
+        size--;
+        removed++;
+        return previous;
+    }
+
+    /**
+     * Removes the key only if it still has the expected value.
+     * @return true if it was removed.
+     */
+    public synchronized boolean remove(long key, int expectedValue) {
+        int slot = find(table, key);
+        if (slot < 0 || table.value(slot) != expectedValue) {
+            return false;
+        }
+        table.remove(slot);
+        size--;
+        removed++;
+        return true;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Scans the table (O(capacity)) to measure it.
+     * @return The size, memory and probe lengths of the index.
+     */
+    public IndexStats getStats() {
+        Table current = table;
+        int mask = current.mask;
+        long live = 0;
+        long tombstones = 0;
+        long totalProbes = 0;
+        int maxProbes = 0;
+        for (int slot = 0; slot <= mask; slot++) {
+            long key = current.key(slot);
+            if (key == REMOVED) {
+                tombstones++;
+            } else if (key != EMPTY) {
+                // Slots visited by a lookup of this key: from its home slot to this one.
+                int probes = ((slot - slotOf(key, mask)) & mask) + 1;
+                live++;
+                totalProbes += probes;
+                maxProbes = Math.max(maxProbes, probes);
+            }
+        }
+        return new IndexStats(live, current.capacity, tombstones, (long) current.capacity * SLOT_BYTES,
+                live == 0 ? 0 : (double) totalProbes / live, maxProbes, 0);
+    }
+
+    /**
+     * @return The slot holding the key, or the complement (~slot) of the empty slot where it would go.
+     */
+    private static int find(Table table, long key) {
+        int mask = table.mask;
+        for (int slot = slotOf(key, mask); ; slot = (slot + 1) & mask) {
+            long found = table.key(slot);
+            if (found == key) {
+                return slot;
+            }
+            if (found == EMPTY) {
+                return ~slot;
+            }
+        }
+    }
+
+    private void rebuild(int minSize) {
+        Table old = table;
+        Table fresh = new Table(capacityFor(Math.max(minSize, size)));
+        for (int slot = 0; slot < old.capacity; slot++) {
+            long key = old.key(slot);
+            if (key != EMPTY && key != REMOVED) {
+                fresh.insert(~find(fresh, key), key, old.value(slot));
+            }
+        }
+        table = fresh; // Published: readers that started on the old table finish on it.
+        removed = 0;
+    }
+
+    private static int slotOf(long key, int mask) {
+        // Packed plates end in zero bits (short plates): mix before masking.
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 29)) & mask;
+    }
+
+    private static int capacityFor(int expectedSize) {
+        long needed = (long) Math.ceil(Math.max(expectedSize, 8) / MAX_LOAD);
+        if (needed > MAX_CAPACITY) {
+            throw new IllegalStateException("El índice no puede crecer más allá de " + MAX_CAPACITY + " posiciones.");
+        }
+        return Integer.highestOneBit((int) needed - 1) << 1;
+    }
+
+    private static final class Table {
+        final ByteBuffer buffer;
+        final int capacity;
+        final int mask;
+
+        Table(int capacity) {
+            // allocateDirect returns zeroed memory: every slot starts EMPTY.
+            this.buffer = ByteBuffer.allocateDirect(capacity * SLOT_BYTES).order(ByteOrder.nativeOrder());
+            this.capacity = capacity;
+            this.mask = capacity - 1;
+        }
+
+        long key(int slot) {
+            return (long) KEY.getAcquire(buffer, slot * SLOT_BYTES);
+        }
+
+        int value(int slot) {
+            return (int) VALUE.getAcquire(buffer, slot * SLOT_BYTES + VALUE_OFFSET);
+        }
+
+        void setValue(int slot, int value) {
+            VALUE.setRelease(buffer, slot * SLOT_BYTES + VALUE_OFFSET, value);
+        }
+
+        void insert(int slot, long key, int value) {
+            VALUE.setRelease(buffer, slot * SLOT_BYTES + VALUE_OFFSET, value);
+            KEY.setRelease(buffer, slot * SLOT_BYTES, key);
+        }
+
+        void remove(int slot) {
+            KEY.setRelease(buffer, slot * SLOT_BYTES, REMOVED);
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package plate;
+
+/**
+ * Packs a license plate into a long, the canonical key of a plate in the indexes and caches.
+ *
+ * Each character is a base-36 digit stored in 6 bits (0-9 are 1-10, A-Z are 11-36), the first
+ * character in the highest bits, and 0 marks the end of a shorter plate. So up to
+ * {@link #MAX_LENGTH} characters fit in the low 60 bits, the value is never negative, and comparing
+ * two packed plates gives the same order as comparing the plates.
+ *
+ * {@link #pack(CharSequence)} only accepts the canonical form (upper case): the database compares
+ * plates exactly, so "abc123" must not find the key of "ABC123" in a cache when the query would
+ * not find its row. Input typed at the gate is folded with {@link #packIgnoringCase(CharSequence)}.
+ *
+ * Packing and the queries on a packed plate do not allocate; only {@link #unpack(long)} does.
+ */
+public final class PlateCodec {
+
+    /** Longest plate that can be packed. */
+    public static final int MAX_LENGTH = 10;
+
+    /** Returned by {@link #pack(CharSequence)} for a plate that cannot be packed. No plate packs to 0. */
+    public static final long NONE = 0L;
+
+    private static final int BITS = 6;
+    private static final int MASK = (1 << BITS) - 1;
+    private static final int FIRST_LETTER = 11;
+    private static final byte[] CODES = new byte[128];
+    private static final char[] CHARS = new char[37];
+
+    static {
+        for (char c = '0'; c <= '9'; c++) {
+            CODES[c] = (byte) (c - '0' + 1);
+            CHARS[c - '0' + 1] = c;
+        }
+        for (char c = 'A'; c <= 'Z'; c++) {
+            CODES[c] = (byte) (c - 'A' + FIRST_LETTER);
+            CHARS[c - 'A' + FIRST_LETTER] = c;
+        }
+    }
+
+    private PlateCodec() {}
+
+    /**
+     * @param plate The plate, e.g. "ABC123".
+     * @return The packed plate, or {@link #NONE} if it is empty, longer than {@link #MAX_LENGTH}
+     *         or has characters other than upper case ASCII letters and digits (so "abc123" is NONE).
+     */
+    public static long pack(CharSequence plate) {
+        return pack(plate, false);
+    }
+
+    /**
+     * Packs the upper case form of a plate, e.g. "abc123" as "ABC123".
+     * @return The packed plate, or {@link #NONE} if it is empty, longer than {@link #MAX_LENGTH}
+     *         or has characters other than ASCII letters and digits.
+     */
+    public static long packIgnoringCase(CharSequence plate) {
+        return pack(plate, true);
+    }
+
+    private static long pack(CharSequence plate, boolean ignoreCase) {
+        int length = plate.length();
+        if (length == 0 || length > MAX_LENGTH) {
+            return NONE;
+        }
+        long packed = 0;
+        for (int i = 0; i < length; i++) {
+            char c = plate.charAt(i);
+            int code = ignoreCase ? foldedCodeOf(c) : codeOf(c);
+            if (code == 0) {
+                return NONE;
+            }
+            packed |= (long) code << shiftOf(i);
+        }
+        return packed;
+    }
+
+    /**
+     * @param packed A value returned by {@link #pack(CharSequence)}.
+     * @return The plate in upper case.
+     */
+    public static String unpack(long packed) {
+        int length = length(packed);
+        char[] chars = new char[length];
+        for (int i = 0; i < length; i++) {
+            chars[i] = CHARS[charCode(packed, i)];
+        }
+        return new String(chars);
+    }
+
+    /**
+     * @return The number of characters of a packed plate.
+     */
+    public static int length(long packed) {
+        int length = 0;
+        while (length < MAX_LENGTH && charCode(packed, length) != 0) {
+            length++;
+        }
+        return length;
+    }
+
+    /**
+     * @return The number of letters of a packed plate.
+     */
+    public static int letterCount(long packed) {
+        int letters = 0;
+        for (int i = 0; i < MAX_LENGTH; i++) {
+            if (charCode(packed, i) >= FIRST_LETTER) {
+                letters++;
+            }
+        }
+        return letters;
+    }
+
+    /**
+     * @return true if the character, in upper case, can be part of a packed plate.
+     */
+    public static boolean isPackable(char c) {
+        return foldedCodeOf(c) != 0;
+    }
+
+    /**
+     * @return true if the character is an ASCII letter, either case.
+     */
+    static boolean isLetter(char c) {
+        return foldedCodeOf(c) >= FIRST_LETTER;
+    }
+
+    /**
+     * @return true if the character is an ASCII digit.
+     */
+    static boolean isDigit(char c) {
+        int code = foldedCodeOf(c);
+        return code != 0 && code < FIRST_LETTER;
+    }
+
+    private static int codeOf(char c) {
+        return c < CODES.length ? CODES[c] : 0;
+    }
+
+    private static int foldedCodeOf(char c) {
+        return codeOf(c >= 'a' && c <= 'z' ? (char) (c - 'a' + 'A') : c);
+    }
+
+    private static int charCode(long packed, int index) {
+        return (int) (packed >>> shiftOf(index)) & MASK;
+    }
+
+    private static int shiftOf(int index) {
+        return BITS * (MAX_LENGTH - 1 - index);
+    }
+}
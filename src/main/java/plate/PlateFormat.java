@@ -0,0 +1,117 @@
+package plate;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The rules a country (or the legacy gate form) sets for a license plate: length, number of
+ * letters and, optionally, the position of letters and digits.
+ *
+ * Patterns are written with L (letter), D (digit) and A (either), e.g. "LLLDDD" for a Colombian
+ * car and "LLLDDL" for a motorcycle; a plate must match one of them. Plates are always ASCII
+ * letters and digits, at most {@link PlateCodec#MAX_LENGTH} characters, so a valid plate can
+ * always be packed. {@link #check(CharSequence)} does not allocate.
+ */
+public final class PlateFormat {
+
+    /**
+     * The rules the desktop form and the HTTP API have always applied: 6 to 10 letters and digits,
+     * at most 4 of them letters, in any order.
+     */
+    public static final PlateFormat LEGACY = new PlateFormat("legacy", 6, PlateCodec.MAX_LENGTH, 4);
+
+    /** Colombian plates: ABC123 for cars, ABC12D for motorcycles. */
+    public static final PlateFormat COLOMBIA = new PlateFormat("colombia", 6, 6, 4, "LLLDDD", "LLLDDL");
+
+    private final String name;
+    private final int minLength;
+    private final int maxLength;
+    private final int maxLetters;
+    private final String[] patterns;
+
+    /**
+     * @param patterns Allowed arrangements of letters (L), digits (D) or either (A); none allows any.
+     * @throws IllegalArgumentException if the limits or a pattern are not valid.
+     */
+    public PlateFormat(String name, int minLength, int maxLength, int maxLetters, String... patterns) {
+        if (minLength < 1 || maxLength < minLength || maxLength > PlateCodec.MAX_LENGTH) {
+            throw new IllegalArgumentException("Longitudes de placa inválidas en el formato " + name + ": "
+                    + minLength + " a " + maxLength + " (máximo " + PlateCodec.MAX_LENGTH + ").");
+        }
+        for (String pattern : patterns) {
+            if (pattern.length() < minLength || pattern.length() > maxLength || !pattern.matches("[LDA]+")) {
+                throw new IllegalArgumentException("Patrón de placa inválido en el formato " + name + ": " + pattern);
+            }
+        }
+        this.name = name;
+        this.minLength = minLength;
+        this.maxLength = maxLength;
+        this.maxLetters = maxLetters;
+        this.patterns = patterns.clone();
+    }
+
+    /**
+     * Checks a plate. Lower case letters are accepted (they are folded when the plate is packed).
+     * @return {@link PlateStatus#VALID}, or the first rule the plate breaks.
+     */
+    public PlateStatus check(CharSequence plate) {
+        int length = plate.length();
+        if (length == 0) {
+            return PlateStatus.EMPTY;
+        }
+        if (length < minLength) {
+            return PlateStatus.TOO_SHORT;
+        }
+        if (length > maxLength) {
+            return PlateStatus.TOO_LONG;
+        }
+        int letters = 0;
+        for (int i = 0; i < length; i++) {
+            char c = plate.charAt(i);
+            if (!PlateCodec.isPackable(c)) {
+                return PlateStatus.INVALID_CHARACTER;
+            }
+            if (PlateCodec.isLetter(c)) {
+                letters++;
+            }
+        }
+        if (letters > maxLetters) {
+            return PlateStatus.TOO_MANY_LETTERS;
+        }
+        if (patterns.length == 0) {
+            return PlateStatus.VALID;
+        }
+        for (String pattern : patterns) {
+            if (matches(pattern, plate)) {
+                return PlateStatus.VALID;
+            }
+        }
+        return PlateStatus.PATTERN_MISMATCH;
+    }
+
+    private static boolean matches(String pattern, CharSequence plate) {
+        if (pattern.length() != plate.length()) {
+            return false;
+        }
+        for (int i = 0; i < pattern.length(); i++) {
+            char kind = pattern.charAt(i);
+            char c = plate.charAt(i);
+            if ((kind == 'L' && !PlateCodec.isLetter(c)) || (kind == 'D' && !PlateCodec.isDigit(c))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public String getName() { return name; }
+    public int getMinLength() { return minLength; }
+    public int getMaxLength() { return maxLength; }
+    public int getMaxLetters() { return maxLetters; }
+    public List<String> getPatterns() { return Arrays.asList(patterns.clone()); }
+
+    @Override
+    public String toString() {
+        return name + "{" + minLength + "-" + maxLength + " caracteres, máx. " + maxLetters + " letras"
+                + (patterns.length == 0 ? "" : ", " + String.join("|", patterns)) + "}";
+    }
+}
@@ -0,0 +1,94 @@
+package plate;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Map from license plate to an int (a stay_id, a slot number) for indexes holding every plate
+ * of one or more sites.
+ *
+ * Packed plates ({@link PlateCodec}) live in an off-heap {@link LongIntHashIndex}: lookups do not
+ * lock and add no garbage, and the entries cost no heap. Plates that cannot be packed are kept
+ * apart under their text, as in {@link PlateMap}. Keys are exact: plates that differ in case are
+ * different plates, as in the database.
+ *
+ * Any number of threads may read; writes are serialized by the index.
+ */
+public final class PlateIntMap {
+
+    /** Returned when the plate is not in the map. It cannot be stored as a value. */
+    public static final int MISSING = LongIntHashIndex.MISSING;
+
+    private final LongIntHashIndex packed;
+    private final ConcurrentHashMap<String, Integer> unpacked = new ConcurrentHashMap<>();
+
+    /**
+     * @param expectedSize Number of plates it should hold without rebuilding the off-heap table.
+     */
+    public PlateIntMap(int expectedSize) {
+        this.packed = new LongIntHashIndex(expectedSize);
+    }
+
+    /**
+     * @return The plate's value, or {@link #MISSING}.
+     */
+    public int get(String plate) {
+        long key = PlateCodec.pack(plate);
+        if (key != PlateCodec.NONE) {
+            return packed.get(key);
+        }
+        Integer value = unpacked.get(plate);
+        return value == null ? MISSING : value;
+    }
+
+    public boolean containsKey(String plate) {
+        return get(plate) != MISSING;
+    }
+
+    /**
+     * @return The previous value of the plate, or {@link #MISSING}.
+     */
+    public int put(String plate, int value) {
+        long key = PlateCodec.pack(plate);
+        if (key != PlateCodec.NONE) {
+            return packed.put(key, value);
+        }
+        if (value == MISSING) {
+            throw new IllegalArgumentException("Valor reservado para el índice: " + value);
+        }
+        Integer previous = unpacked.put(plate, value);
+        return previous == null ? MISSING : previous;
+    }
+
+    /**
+     * @return The removed value, or {@link #MISSING}.
+     */
+    public int remove(String plate) {
+        long key = PlateCodec.pack(plate);
+        if (key != PlateCodec.NONE) {
+            return packed.remove(key);
+        }
+        Integer previous = unpacked.remove(plate);
+        return previous == null ? MISSING : previous;
+    }
+
+    /**
+     * Removes the plate only if it is mapped to the given value.
+     */
+    public boolean remove(String plate, int value) {
+        long key = PlateCodec.pack(plate);
+        return key != PlateCodec.NONE ? packed.remove(key, value) : unpacked.remove(plate, value);
+    }
+
+    public int size() {
+        return packed.size() + unpacked.size();
+    }
+
+    /**
+     * Scans the off-heap table; see {@link LongIntHashIndex#getStats()}.
+     */
+    public IndexStats getStats() {
+        IndexStats stats = packed.getStats();
+        return new IndexStats(stats.getSize(), stats.getCapacity(), stats.getTombstones(), stats.getOffHeapBytes(),
+                stats.getAverageProbeLength(), stats.getMaxProbeLength(), unpacked.size());
+    }
+}
@@ -0,0 +1,96 @@
+package plate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BinaryOperator;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
+
+/**
+ * Concurrent map keyed by license plate, for the service-layer indexes and caches.
+ *
+ * Plates are keyed by their packed value ({@link PlateCodec}), so a lookup hashes and compares a
+ * long instead of a string. Plates that cannot be packed (rows written by other modules with
+ * dashes, spaces or more than {@link PlateCodec#MAX_LENGTH} characters) are kept apart under
+ * their text, so they are still found. Keys are exact, as in the database: "abc123" (not
+ * canonical, so kept under its text) and "ABC123" are different plates.
+ */
+public final class PlateMap<V> {
+
+    private final ConcurrentHashMap<Long, V> packed = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, V> unpacked = new ConcurrentHashMap<>();
+
+    public V get(String plate) {
+        long key = PlateCodec.pack(plate);
+        return key != PlateCodec.NONE ? packed.get(key) : unpacked.get(plate);
+    }
+
+    public boolean containsKey(String plate) {
+        return get(plate) != null;
+    }
+
+    /**
+     * @return The previous value of the plate, or null.
+     */
+    public V put(String plate, V value) {
+        long key = PlateCodec.pack(plate);
+        return key != PlateCodec.NONE ? packed.put(key, value) : unpacked.put(plate, value);
+    }
+
+    /**
+     * @return The removed value, or null.
+     */
+    public V remove(String plate) {
+        long key = PlateCodec.pack(plate);
+        return key != PlateCodec.NONE ? packed.remove(key) : unpacked.remove(plate);
+    }
+
+    /**
+     * Removes the plate only if it is mapped to the given value.
+     */
+    public boolean remove(String plate, V value) {
+        long key = PlateCodec.pack(plate);
+        return key != PlateCodec.NONE ? packed.remove(key, value) : unpacked.remove(plate, value);
+    }
+
+    /**
+     * Atomically combines the value with the plate's current one, as {@link ConcurrentHashMap#merge}.
+     */
+    public V merge(String plate, V value, BinaryOperator<V> remapping) {
+        long key = PlateCodec.pack(plate);
+        return key != PlateCodec.NONE ? packed.merge(key, value, remapping) : unpacked.merge(plate, value, remapping);
+    }
+
+    /**
+     * Atomically replaces the plate's value, if it has one; a null result removes the plate.
+     */
+    public V computeIfPresent(String plate, UnaryOperator<V> remapping) {
+        long key = PlateCodec.pack(plate);
+        return key != PlateCodec.NONE
+                ? packed.computeIfPresent(key, (k, current) -> remapping.apply(current))
+                : unpacked.computeIfPresent(plate, (k, current) -> remapping.apply(current));
+    }
+
+    /**
+     * Removes every plate whose value matches.
+     */
+    public void removeIf(Predicate<? super V> filter) {
+        packed.values().removeIf(filter);
+        unpacked.values().removeIf(filter);
+    }
+
+    /**
+     * @return A copy of the values.
+     */
+    public List<V> values() {
+        List<V> values = new ArrayList<>(size());
+        values.addAll(packed.values());
+        values.addAll(unpacked.values());
+        return values;
+    }
+
+    public int size() {
+        return packed.size() + unpacked.size();
+    }
+}
@@ -0,0 +1,94 @@
+package plate;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Set of license plates stored as packed longs in an open-addressing array, without a String or
+ * a boxed key per plate. Plates that cannot be packed go to a small ordinary set. Not thread-safe.
+ */
+public final class PlateSet {
+
+    private long[] keys;
+    private int size;
+    private final Set<String> unpacked = new HashSet<>();
+
+    /**
+     * @param expectedSize Number of plates it should hold without growing.
+     */
+    public PlateSet(int expectedSize) {
+        keys = new long[tableSizeFor(expectedSize)];
+    }
+
+    /**
+     * @return true if the plate was not in the set.
+     */
+    public boolean add(String plate) {
+        long key = PlateCodec.pack(plate);
+        if (key == PlateCodec.NONE) {
+            return unpacked.add(plate);
+        }
+        if ((size + 1) * 2 > keys.length) {
+            rehash(keys.length * 2);
+        }
+        return insert(keys, key);
+    }
+
+    public boolean contains(String plate) {
+        long key = PlateCodec.pack(plate);
+        if (key == PlateCodec.NONE) {
+            return unpacked.contains(plate);
+        }
+        int mask = keys.length - 1;
+        for (int i = indexOf(key, mask); ; i = (i + 1) & mask) {
+            long current = keys[i];
+            if (current == key) {
+                return true;
+            }
+            if (current == PlateCodec.NONE) {
+                return false;
+            }
+        }
+    }
+
+    public int size() {
+        return size + unpacked.size();
+    }
+
+    private boolean insert(long[] table, long key) {
+        int mask = table.length - 1;
+        for (int i = indexOf(key, mask); ; i = (i + 1) & mask) {
+            long current = table[i];
+            if (current == key) {
+                return false;
+            }
+            if (current == PlateCodec.NONE) {
+                table[i] = key;
+                size++;
+                return true;
+            }
+        }
+    }
+
+    private void rehash(int capacity) {
+        long[] old = keys;
+        keys = new long[capacity];
+        size = 0;
+        for (long key : old) {
+            if (key != PlateCodec.NONE) {
+                insert(keys, key);
+            }
+        }
+    }
+
+    private static int indexOf(long key, int mask) {
+        // Packed plates share their low bits (short plates end in zeros): mix before masking.
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+
+    private static int tableSizeFor(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(8, expectedSize * 2 - 1)) << 1;
+        return Math.max(16, capacity);
+    }
+}
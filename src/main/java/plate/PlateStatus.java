@@ -0,0 +1,42 @@
+package plate;
+
+/**
+ * Result of checking a plate against a {@link PlateFormat}.
+ */
+public enum PlateStatus {
+    VALID,
+    EMPTY,
+    TOO_SHORT,
+    TOO_LONG,
+    INVALID_CHARACTER,
+    TOO_MANY_LETTERS,
+    PATTERN_MISMATCH;
+
+    public boolean isValid() {
+        return this == VALID;
+    }
+
+    /**
+     * @param format The format the plate was checked against, for the limits in the message.
+     * @return The message shown to the operator (or returned by the API), in Spanish.
+     */
+    public String getMessage(PlateFormat format) {
+        switch (this) {
+            case VALID:
+                return "Placa válida.";
+            case EMPTY:
+                return "Por favor, ingrese una placa.";
+            case TOO_SHORT:
+                return "La placa debe tener al menos " + format.getMinLength() + " caracteres.";
+            case TOO_LONG:
+                return "La placa no puede tener más de " + format.getMaxLength() + " caracteres.";
+            case INVALID_CHARACTER:
+                return "La placa solo puede contener letras y números (sin espacios ni guiones).";
+            case TOO_MANY_LETTERS:
+                return "La placa no puede contener más de " + format.getMaxLetters() + " letras.";
+            default:
+                return "La placa no tiene un formato válido (" + String.join(", ", format.getPatterns())
+                        + "; L = letra, D = dígito).";
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package plate;
+
+import java.util.List;
+
+/**
+ * Validates plates against the formats accepted at the gate (e.g. the domestic one and those of
+ * neighbouring countries) and turns them into their packed key.
+ */
+public final class PlateValidator {
+
+    private final PlateFormat[] formats;
+
+    /**
+     * @param formats The accepted formats, the main one first: its message is the one reported
+     *                when a plate matches none of them.
+     */
+    public PlateValidator(List<PlateFormat> formats) {
+        if (formats.isEmpty()) {
+            throw new IllegalArgumentException("Se necesita al menos un formato de placa.");
+        }
+        this.formats = formats.toArray(new PlateFormat[0]);
+    }
+
+    /**
+     * @return {@link PlateStatus#VALID} if some format accepts the plate, otherwise the main format's verdict.
+     */
+    public PlateStatus check(CharSequence plate) {
+        PlateStatus first = formats[0].check(plate);
+        if (first.isValid()) {
+            return first;
+        }
+        for (int i = 1; i < formats.length; i++) {
+            if (formats[i].check(plate).isValid()) {
+                return PlateStatus.VALID;
+            }
+        }
+        return first;
+    }
+
+    /**
+     * Validates a plate and returns the packed key of its canonical form (upper case).
+     * @throws IllegalArgumentException with the message for the operator, if the plate is not valid.
+     */
+    public long pack(CharSequence plate) {
+        PlateStatus status = check(plate);
+        if (!status.isValid()) {
+            throw new IllegalArgumentException(status.getMessage(formats[0]));
+        }
+        return PlateCodec.packIgnoringCase(plate);
+    }
+
+    /**
+     * Validates a plate and returns it in its canonical form (upper case).
+     * @throws IllegalArgumentException with the message for the operator, if the plate is not valid.
+     */
+    public String normalize(CharSequence plate) {
+        return PlateCodec.unpack(pack(plate));
+    }
+
+    /**
+     * @return The message for a plate that is not valid, from the main format.
+     */
+    public String messageFor(PlateStatus status) {
+        return status.getMessage(formats[0]);
+    }
+
+    public List<PlateFormat> getFormats() {
+        return List.of(formats);
+    }
+}
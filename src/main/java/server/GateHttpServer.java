@@ -0,0 +1,496 @@
+package server;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import dao.repository.DataAccessException;
+import dao.repository.IEstanciaService;
+import metrics.LatencyHistogram;
+import model.Estancia;
+import plate.PlateValidator;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Headless HTTP API of the gate, for license-plate-recognition cameras and pay kiosks.
+ * Built on the JDK {@link HttpServer}; every request runs on its own virtual thread, so
+ * hundreds of lanes waiting on the database do not need hundreds of platform threads.
+ *
+ * Endpoints (requests are form-encoded, in the query string or the body; responses are JSON):
+ * - POST /api/entries         plate, vehicleType[, operatorId]  -> 201 with the new stay
+ * - GET  /api/exits/quote     plate                             -> the stay and its amountToPay
+ * - POST /api/exits           plate, amountPaid[, paymentMethod, operatorId] -> the closed stay
+ *                             (amountPaid may be omitted only when nothing is owed)
+ * - GET  /api/stays/active    [offset, limit]                   -> a page of the active stays
+ * - GET  /metrics                                               -> per-endpoint counters and latencies
+ * - GET  /health
+ *
+ * Each endpoint has its own concurrency limit: a request that cannot get a slot within
+ * queueTimeoutMillis is answered 503 with Retry-After. Work that exceeds requestTimeoutMillis
+ * is answered 504, but it is never interrupted: the service call keeps running on the request's
+ * thread (and keeps its slot) until it completes, so an entry or exit that reaches the database is
+ * also recorded in the occupancy index. After a 504 the client should check the stay (e.g. with
+ * /api/exits/quote) before retrying.
+ * Business rule violations (plate already inside, not found...) are 409, invalid parameters 400,
+ * and an unreachable database 503.
+ *
+ * If an API key is configured, every request except /health must send it in X-Api-Key. Without
+ * one, the server only accepts being bound to a loopback address.
+ */
+public class GateHttpServer {
+
+    private static final int MAX_BODY_BYTES = 8 * 1024;
+    private static final int DEFAULT_PAGE_SIZE = 100;
+    private static final int MAX_PAGE_SIZE = 1000;
+
+    private final IEstanciaService estanciaService;
+    private final PlateValidator plateValidator;
+    private final String bindAddress;
+    private final int port;
+    private final long requestTimeoutMillis;
+    private final int maxConcurrentPerEndpoint;
+    private final long queueTimeoutMillis;
+    private final int defaultOperatorId;
+    private final String apiKey;
+    private final ExecutorService executor;
+
+    private final Map<String, Endpoint> endpoints = new LinkedHashMap<>();
+    private HttpServer server;
+    private ScheduledExecutorService deadlines;
+
+    /**
+     * @param estanciaService The gate service.
+     * @param plateValidator The accepted plate formats.
+     * @param bindAddress The interface to listen on, e.g. "127.0.0.1" or "0.0.0.0" (all; requires an API key).
+     * @param port The TCP port (0 = any free port, see {@link #getPort()}).
+     * @param requestTimeoutMillis Maximum time a request may spend in the service.
+     * @param maxConcurrentPerEndpoint Requests served at the same time by each endpoint.
+     * @param queueTimeoutMillis Maximum time a request waits for a free slot.
+     * @param defaultOperatorId Operator recorded when the request does not send operatorId (0 = required).
+     * @param apiKey Value required in the X-Api-Key header, or null/empty for none.
+     * @param executor Runs the requests; should create a virtual thread per task.
+     */
+    public GateHttpServer(IEstanciaService estanciaService, PlateValidator plateValidator, String bindAddress, int port, long requestTimeoutMillis,
+                          int maxConcurrentPerEndpoint, long queueTimeoutMillis, int defaultOperatorId, String apiKey,
+                          ExecutorService executor) {
+        this.estanciaService = estanciaService;
+        this.plateValidator = plateValidator;
+        this.bindAddress = bindAddress;
+        this.port = port;
+        this.requestTimeoutMillis = requestTimeoutMillis;
+        this.maxConcurrentPerEndpoint = maxConcurrentPerEndpoint;
+        this.queueTimeoutMillis = queueTimeoutMillis;
+        this.defaultOperatorId = defaultOperatorId;
+        this.apiKey = apiKey == null || apiKey.isEmpty() ? null : apiKey;
+        this.executor = executor;
+
+        register("POST", "/api/entries", this::registerEntry);
+        register("GET", "/api/exits/quote", this::quoteExit);
+        register("POST", "/api/exits", this::finalizeExit);
+        register("GET", "/api/stays/active", this::activeStays);
+    }
+
+    /**
+     * Binds the port and starts serving.
+     * @throws IOException if the port cannot be bound.
+     * @throws IllegalStateException if no API key is configured and the address is not a loopback one.
+     */
+    public synchronized void start() throws IOException {
+        if (server != null) {
+            return;
+        }
+        InetAddress address = InetAddress.getByName(bindAddress);
+        if (apiKey == null && !address.isLoopbackAddress()) {
+            // Anyone on the network could open the barrier and record payments.
+            throw new IllegalStateException("Sin server.apiKey la API solo puede escuchar en una dirección local (server.bindAddress="
+                    + bindAddress + ").");
+        }
+        deadlines = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "crudpark-http-deadlines");
+            t.setDaemon(true);
+            return t;
+        });
+        server = HttpServer.create(new InetSocketAddress(address, port), 1024);
+        server.setExecutor(executor);
+        for (Endpoint endpoint : endpoints.values()) {
+            server.createContext(endpoint.path, exchange -> handle(endpoint, exchange));
+        }
+        server.createContext("/metrics", exchange -> {
+            if (authorized(exchange)) {
+                send(exchange, 200, metrics());
+            }
+        });
+        server.createContext("/health", exchange -> send(exchange, 200, Map.of("status", "UP")));
+        server.start();
+    }
+
+    /**
+     * Stops accepting requests and waits up to the given time for the running ones.
+     * @param delaySeconds Maximum wait.
+     */
+    public synchronized void stop(int delaySeconds) {
+        if (server != null) {
+            server.stop(delaySeconds);
+            server = null;
+            deadlines.shutdownNow();
+            deadlines = null;
+        }
+    }
+
+    /**
+     * Returns the bound port (useful when the server was created with port 0).
+     */
+    public synchronized int getPort() {
+        return server != null ? server.getAddress().getPort() : port;
+    }
+
+    /**
+     * Returns the latency histogram of an endpoint, e.g. "POST /api/entries".
+     */
+    public LatencyHistogram getLatency(String endpoint) {
+        Endpoint e = endpoints.get(endpoint);
+        return e == null ? null : e.latency;
+    }
+
+    // --- Endpoints ---
+
+    private Response registerEntry(Map<String, String> params) throws Exception {
+        String plate = requirePlate(params);
+        String vehicleType = require(params, "vehicleType");
+        Estancia estancia = estanciaService.registerVehicleEntry(plate, vehicleType, operatorId(params));
+        return new Response(201, stayToMap(estancia));
+    }
+
+    private Response quoteExit(Map<String, String> params) throws Exception {
+        Estancia estancia = estanciaService.calculateExitDetails(requirePlate(params));
+        return new Response(200, stayToMap(estancia));
+    }
+
+    private Response finalizeExit(Map<String, String> params) throws Exception {
+        String plate = requirePlate(params);
+        int operatorId = operatorId(params);
+        // The fee is quoted again: it may have grown since the kiosk showed it.
+        Estancia estancia = estanciaService.calculateExitDetails(plate);
+        double amountToPay = estancia.getAmountToPay();
+        if (amountToPay > 0) {
+            // The payment is recorded as received: the kiosk must state what it collected.
+            require(params, "amountPaid");
+            double amountPaid = parseDouble(params, "amountPaid");
+            if (amountPaid + 0.005 < amountToPay) {
+                Map<String, Object> body = new LinkedHashMap<>();
+                body.put("error", "Monto insuficiente.");
+                body.put("amountToPay", amountToPay);
+                return new Response(409, body);
+            }
+        }
+        estanciaService.finalizeExit(estancia, operatorId, amountToPay, params.getOrDefault("paymentMethod", "Efectivo"));
+        return new Response(200, stayToMap(estancia));
+    }
+
+    private Response activeStays(Map<String, String> params) {
+        int offset = params.containsKey("offset") ? parseInt(params, "offset") : 0;
+        int limit = params.containsKey("limit") ? parseInt(params, "limit") : DEFAULT_PAGE_SIZE;
+        if (offset < 0 || limit <= 0 || limit > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("offset debe ser >= 0 y limit debe estar entre 1 y " + MAX_PAGE_SIZE + ".");
+        }
+        List<Estancia> active = estanciaService.getActiveStays();
+        List<Map<String, Object>> page = new ArrayList<>();
+        for (int i = offset; i < active.size() && i < offset + limit; i++) {
+            page.add(stayToMap(active.get(i)));
+        }
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("total", active.size());
+        body.put("offset", offset);
+        body.put("stays", page);
+        return new Response(200, body);
+    }
+
+    private Map<String, Object> metrics() {
+        Map<String, Object> body = new LinkedHashMap<>();
+        for (Endpoint endpoint : endpoints.values()) {
+            LatencyHistogram.Snapshot snapshot = endpoint.latency.snapshot();
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("count", snapshot.getCount());
+            stats.put("inFlight", maxConcurrentPerEndpoint - endpoint.slots.availablePermits());
+            stats.put("rejected", endpoint.rejected.sum());
+            stats.put("timeouts", endpoint.timeouts.sum());
+            stats.put("clientErrors", endpoint.clientErrors.sum());
+            stats.put("serverErrors", endpoint.serverErrors.sum());
+            stats.put("meanMs", round(snapshot.getMeanNanos() / 1_000_000.0));
+            stats.put("p50Ms", round(snapshot.percentileMillis(0.50)));
+            stats.put("p99Ms", round(snapshot.percentileMillis(0.99)));
+            stats.put("p999Ms", round(snapshot.percentileMillis(0.999)));
+            stats.put("maxMs", round(snapshot.getMaxNanos() / 1_000_000.0));
+            body.put(endpoint.key(), stats);
+        }
+        return body;
+    }
+
+    // --- Request handling ---
+
+    private void register(String method, String path, Action action) {
+        Endpoint endpoint = new Endpoint(method, path, action, maxConcurrentPerEndpoint);
+        endpoints.put(endpoint.key(), endpoint);
+    }
+
+    private void handle(Endpoint endpoint, HttpExchange exchange) throws IOException {
+        long start = System.nanoTime();
+        try {
+            if (!endpoint.path.equals(exchange.getRequestURI().getPath())) {
+                send(exchange, 404, error("Recurso no encontrado."));
+                return;
+            }
+            if (!endpoint.method.equals(exchange.getRequestMethod())) {
+                exchange.getResponseHeaders().set("Allow", endpoint.method);
+                send(exchange, 405, error("Método no permitido."));
+                return;
+            }
+            if (!authorized(exchange)) {
+                return;
+            }
+
+            boolean acquired;
+            try {
+                acquired = endpoint.slots.tryAcquire(queueTimeoutMillis, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                acquired = false;
+            }
+            if (!acquired) {
+                endpoint.rejected.increment();
+                exchange.getResponseHeaders().set("Retry-After", "1");
+                send(exchange, 503, error("Demasiadas solicitudes simultáneas."));
+                return;
+            }
+            Response response;
+            AtomicBoolean responded = new AtomicBoolean();
+            try {
+                Map<String, String> params = readParams(exchange);
+                ScheduledFuture<?> deadline = deadlines.schedule(() -> {
+                    if (responded.compareAndSet(false, true)) {
+                        endpoint.timeouts.increment();
+                        endpoint.serverErrors.increment();
+                        sendQuietly(exchange, 504, error("La operación superó el tiempo máximo de " + requestTimeoutMillis + " ms."));
+                    }
+                }, requestTimeoutMillis, TimeUnit.MILLISECONDS);
+                try {
+                    // Runs on this request's (virtual) thread and is never interrupted, even after a 504.
+                    response = execute(endpoint, params);
+                } finally {
+                    deadline.cancel(false);
+                }
+            } finally {
+                endpoint.slots.release();
+            }
+            if (!responded.compareAndSet(false, true)) {
+                return; // Already answered 504.
+            }
+            if (response.status >= 500) {
+                endpoint.serverErrors.increment();
+            } else if (response.status >= 400) {
+                endpoint.clientErrors.increment();
+            }
+            send(exchange, response.status, response.body);
+        } catch (IllegalArgumentException e) {
+            endpoint.clientErrors.increment();
+            send(exchange, 400, error(e.getMessage()));
+        } finally {
+            endpoint.latency.recordSince(start);
+            exchange.close();
+        }
+    }
+
+    private static Response execute(Endpoint endpoint, Map<String, String> params) {
+        try {
+            return endpoint.action.handle(params);
+        } catch (IllegalArgumentException e) {
+            return new Response(400, error(e.getMessage()));
+        } catch (DataAccessException e) {
+            return new Response(503, error(e.getMessage()));
+        } catch (RuntimeException | Error e) {
+            e.printStackTrace();
+            return new Response(500, error("Error interno."));
+        } catch (Exception e) {
+            // Checked exceptions from the service are business rule violations.
+            return new Response(409, error(e.getMessage()));
+        }
+    }
+
+    private boolean authorized(HttpExchange exchange) throws IOException {
+        if (apiKey == null || apiKey.equals(exchange.getRequestHeaders().getFirst("X-Api-Key"))) {
+            return true;
+        }
+        send(exchange, 401, error("Falta la clave de la API o no es válida."));
+        return false;
+    }
+
+    private static Map<String, String> readParams(HttpExchange exchange) throws IOException {
+        Map<String, String> params = new HashMap<>();
+        parseForm(exchange.getRequestURI().getRawQuery(), params);
+        if ("POST".equals(exchange.getRequestMethod())) {
+            parseForm(readBody(exchange.getRequestBody()), params);
+        }
+        return params;
+    }
+
+    private static String readBody(InputStream in) throws IOException {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        byte[] buffer = new byte[1024];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            body.write(buffer, 0, read);
+            if (body.size() > MAX_BODY_BYTES) {
+                throw new IllegalArgumentException("El cuerpo de la solicitud supera " + MAX_BODY_BYTES + " bytes.");
+            }
+        }
+        return body.toString(StandardCharsets.UTF_8);
+    }
+
+    private static void parseForm(String form, Map<String, String> params) {
+        if (form == null || form.isEmpty()) {
+            return;
+        }
+        for (String pair : form.split("&")) {
+            int eq = pair.indexOf('=');
+            String name = URLDecoder.decode(eq < 0 ? pair : pair.substring(0, eq), StandardCharsets.UTF_8);
+            String value = eq < 0 ? "" : URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8);
+            params.put(name, value.trim());
+        }
+    }
+
+    private static void send(HttpExchange exchange, int status, Object body) throws IOException {
+        byte[] bytes = Json.write(body).getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static void sendQuietly(HttpExchange exchange, int status, Object body) {
+        try {
+            send(exchange, status, body);
+        } catch (IOException | RuntimeException e) {
+            // The client went away; nothing else to do.
+        }
+    }
+
+    // --- Parameters ---
+
+    private int operatorId(Map<String, String> params) {
+        int operatorId = params.containsKey("operatorId") ? parseInt(params, "operatorId") : defaultOperatorId;
+        if (operatorId <= 0) {
+            throw new IllegalArgumentException("Falta el parámetro operatorId.");
+        }
+        return operatorId;
+    }
+
+    /**
+     * Same rules as the entry form of the desktop application (the configured plate formats).
+     */
+    private String requirePlate(Map<String, String> params) {
+        return plateValidator.normalize(require(params, "plate"));
+    }
+
+    private static String require(Map<String, String> params, String name) {
+        String value = params.get(name);
+        if (value == null || value.isEmpty()) {
+            throw new IllegalArgumentException("Falta el parámetro " + name + ".");
+        }
+        return value;
+    }
+
+    private static int parseInt(Map<String, String> params, String name) {
+        try {
+            return Integer.parseInt(params.get(name));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("El parámetro " + name + " debe ser un número entero.");
+        }
+    }
+
+    private static double parseDouble(Map<String, String> params, String name) {
+        try {
+            return Double.parseDouble(params.get(name));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("El parámetro " + name + " debe ser un número.");
+        }
+    }
+
+    private static Map<String, Object> stayToMap(Estancia estancia) {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("stayId", estancia.getStay_id());
+        map.put("plate", estancia.getLicense_plate());
+        map.put("vehicleType", estancia.getVehicleType());
+        map.put("stayType", estancia.getStayType());
+        map.put("status", estancia.getStatus());
+        map.put("entryDate", estancia.getEntryDate());
+        map.put("exitDate", estancia.getExitDate());
+        map.put("amountToPay", estancia.getAmountToPay());
+        return map;
+    }
+
+    private static Map<String, Object> error(String message) {
+        return Map.of("error", message == null ? "Error." : message);
+    }
+
+    private static double round(double millis) {
+        return Math.round(millis * 1000) / 1000.0;
+    }
+
+    @FunctionalInterface
+    private interface Action {
+        Response handle(Map<String, String> params) throws Exception;
+    }
+
+    private static final class Response {
+        private final int status;
+        private final Object body;
+
+        private Response(int status, Object body) {
+            this.status = status;
+            this.body = body;
+        }
+    }
+
+    private static final class Endpoint {
+        private final String method;
+        private final String path;
+        private final Action action;
+        private final Semaphore slots;
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final LongAdder rejected = new LongAdder();
+        private final LongAdder timeouts = new LongAdder();
+        private final LongAdder clientErrors = new LongAdder();
+        private final LongAdder serverErrors = new LongAdder();
+
+        private Endpoint(String method, String path, Action action, int maxConcurrent) {
+            this.method = method;
+            this.path = path;
+            this.action = action;
+            this.slots = new Semaphore(maxConcurrent);
+        }
+
+        private String key() {
+            return method + " " + path;
+        }
+    }
+}
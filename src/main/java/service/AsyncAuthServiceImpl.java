@@ -0,0 +1,42 @@
+package service;
+
+import config.AppExecutors;
+import dao.repository.IAsyncAuthService;
+import dao.repository.IAuthService;
+import model.Operator;
+
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Implementation of IAsyncAuthService that runs a blocking IAuthService (database lookup and
+ * BCrypt verification) on virtual threads. The returned futures complete on the completion
+ * executor (the Swing EDT by default).
+ */
+public class AsyncAuthServiceImpl implements IAsyncAuthService {
+
+    private final IAuthService authService;
+    private final ExecutorService worker;
+    private final Executor completion;
+
+    /**
+     * Runs the service on virtual threads and completes the futures on the EDT.
+     * @param authService The blocking service.
+     */
+    public AsyncAuthServiceImpl(IAuthService authService) {
+        this(authService, AppExecutors.virtualThreads(), AppExecutors.edt());
+    }
+
+    public AsyncAuthServiceImpl(IAuthService authService, ExecutorService worker, Executor completion) {
+        this.authService = authService;
+        this.worker = worker;
+        this.completion = completion;
+    }
+
+    @Override
+    public CompletableFuture<Optional<Operator>> loginAsync(String username, String password) {
+        return CancellableFuture.supplyAsync(() -> authService.login(username, password), worker, completion);
+    }
+}
@@ -0,0 +1,59 @@
+package service;
+
+import config.AppExecutors;
+import dao.repository.IAsyncEstanciaService;
+import dao.repository.IEstanciaService;
+import model.Estancia;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Implementation of IAsyncEstanciaService that runs a blocking IEstanciaService on virtual threads.
+ * The returned futures complete on the completion executor (the Swing EDT by default).
+ */
+public class AsyncEstanciaServiceImpl implements IAsyncEstanciaService {
+
+    private final IEstanciaService estanciaService;
+    private final ExecutorService worker;
+    private final Executor completion;
+
+    /**
+     * Runs the service on virtual threads and completes the futures on the EDT.
+     * @param estanciaService The blocking service.
+     */
+    public AsyncEstanciaServiceImpl(IEstanciaService estanciaService) {
+        this(estanciaService, AppExecutors.virtualThreads(), AppExecutors.edt());
+    }
+
+    public AsyncEstanciaServiceImpl(IEstanciaService estanciaService, ExecutorService worker, Executor completion) {
+        this.estanciaService = estanciaService;
+        this.worker = worker;
+        this.completion = completion;
+    }
+
+    @Override
+    public CompletableFuture<Estancia> registerVehicleEntryAsync(String plate, String vehicleType, int operatorId) {
+        return CancellableFuture.supplyAsync(() -> estanciaService.registerVehicleEntry(plate, vehicleType, operatorId), worker, completion);
+    }
+
+    @Override
+    public CompletableFuture<List<Estancia>> getActiveStaysAsync() {
+        return CancellableFuture.supplyAsync(estanciaService::getActiveStays, worker, completion);
+    }
+
+    @Override
+    public CompletableFuture<Estancia> calculateExitDetailsAsync(String plate) {
+        return CancellableFuture.supplyAsync(() -> estanciaService.calculateExitDetails(plate), worker, completion);
+    }
+
+    @Override
+    public CompletableFuture<Void> finalizeExitAsync(Estancia estancia, int operatorId, double amountPaid, String paymentMethod) {
+        return CancellableFuture.supplyAsync(() -> {
+            estanciaService.finalizeExit(estancia, operatorId, amountPaid, paymentMethod);
+            return null;
+        }, worker, completion);
+    }
+}
@@ -1,8 +1,10 @@
 package service;
 
+import config.DatabaseConnection;
 import dao.implementation.OperatorRepositoryImpl;
 import dao.repository.OperatorRepository;
 import dao.repository.IAuthService;
+import metrics.jfr.LoginEvent;
 import model.Operator;
 import org.mindrot.jbcrypt.BCrypt;
 
@@ -22,7 +24,7 @@ public class AuthServiceImpl implements IAuthService {
      */
     public AuthServiceImpl() {
         // In a real application, this might be handled by a dependency injection framework.
-        this.operatorRepository = new OperatorRepositoryImpl();
+        this.operatorRepository = DatabaseConnection.instrument(OperatorRepository.class, new OperatorRepositoryImpl());
     }
 
     /**
@@ -45,22 +47,34 @@ public class AuthServiceImpl implements IAuthService {
      */
     @Override
     public Optional<Operator> login(String email, String password) {
-        // Step 1: Find the user by their unique email.
-        Optional<Operator> operatorOpt = operatorRepository.findByEmail(email);
+        LoginEvent event = new LoginEvent();
+        event.start();
+        event.email = email;
+        try {
+            // Step 1: Find the user by their unique email.
+            Optional<Operator> operatorOpt = operatorRepository.findByEmail(email);
+            event.lookupTime = event.lap();
 
-        // Step 2: Proceed only if a user with that email was found.
-        if (operatorOpt.isPresent()) {
-            Operator operator = operatorOpt.get();
+            // Step 2: Proceed only if a user with that email was found.
+            if (operatorOpt.isPresent()) {
+                Operator operator = operatorOpt.get();
+                event.operatorId = operator.getId();
 
-            // Step 3: Check business rules: user must be active AND the password must be correct.
-            // BCrypt.checkpw securely compares the plain-text password with the stored hash.
-            if (operator.isActive() && BCrypt.checkpw(password, operator.getPassword())) {
-                // Authentication successful.
-                return Optional.of(operator);
+                // Step 3: Check business rules: user must be active AND the password must be correct.
+                // BCrypt.checkpw securely compares the plain-text password with the stored hash.
+                if (operator.isActive() && BCrypt.checkpw(password, operator.getPassword())) {
+                    // Authentication successful.
+                    event.passwordCheckTime = event.lap();
+                    event.success = true;
+                    return Optional.of(operator);
+                }
+                event.passwordCheckTime = event.lap();
             }
-        }
 
-        // If the user was not found, is not active, or the password was incorrect, return empty.
-        return Optional.empty();
+            // If the user was not found, is not active, or the password was incorrect, return empty.
+            return Optional.empty();
+        } finally {
+            event.commit();
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,94 @@
+package service;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * CompletableFuture for a blocking task whose cancel() never interrupts the task.
+ *
+ * Interrupting a virtual thread blocked on a socket closes the socket: a JDBC call would fail
+ * with a connection error that the service takes for an outage (and, e.g., journals the exit the
+ * operator wanted to cancel). So cancel() only skips the task if it has not started yet; a task
+ * that already started runs to the end and its result is discarded. {@link #hasStarted()} and
+ * {@link #whenSettled()} let the caller find out what actually happened.
+ *
+ * The task runs on a worker executor and the future is completed on a separate completion
+ * executor, e.g. the Swing EDT, so the callbacks attached to it can update the UI directly.
+ *
+ * @param <T> The type of the result.
+ */
+public class CancellableFuture<T> extends CompletableFuture<T> {
+
+    private static final int NEW = 0;
+    private static final int RUNNING = 1;
+    private static final int SKIPPED = 2;
+
+    private final AtomicInteger state = new AtomicInteger(NEW);
+    private final CompletableFuture<Void> settled = new CompletableFuture<>();
+
+    /**
+     * Runs the task on the worker executor and completes the returned future on the completion executor.
+     *
+     * @param work The blocking work to run.
+     * @param worker The executor that runs the work (e.g. virtual threads).
+     * @param completion The executor that completes the future (e.g. the EDT).
+     * @param <T> The type of the result.
+     * @return A future that can be cancelled before the work starts.
+     */
+    public static <T> CancellableFuture<T> supplyAsync(Callable<T> work, ExecutorService worker, Executor completion) {
+        CancellableFuture<T> result = new CancellableFuture<>();
+        worker.execute(() -> {
+            if (!result.state.compareAndSet(NEW, RUNNING)) {
+                completion.execute(() -> result.settled.complete(null)); // Cancelled before it started.
+                return;
+            }
+            try {
+                T value = work.call();
+                completion.execute(() -> {
+                    result.complete(value); // No effect if it was cancelled meanwhile.
+                    result.settled.complete(null);
+                });
+            } catch (Throwable e) {
+                completion.execute(() -> {
+                    result.completeExceptionally(e);
+                    result.settled.complete(null);
+                });
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Completes the future with a CancellationException. The task is skipped if it has not
+     * started; otherwise it runs to the end without being interrupted.
+     * @param mayInterruptIfRunning Ignored: the task is never interrupted.
+     */
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+        state.compareAndSet(NEW, SKIPPED);
+        return super.cancel(false);
+    }
+
+    /**
+     * @return true if the task started, so it runs (or ran) to the end even if the future was cancelled.
+     */
+    public boolean hasStarted() {
+        return state.get() == RUNNING;
+    }
+
+    /**
+     * @return A stage completed, on the completion executor, once the task has ended or was skipped,
+     *         whether or not this future was cancelled. It never completes exceptionally.
+     */
+    public CompletableFuture<Void> whenSettled() {
+        return settled;
+    }
+
+    @Override
+    public <U> CompletableFuture<U> newIncompleteFuture() {
+        return new CompletableFuture<>();
+    }
+}
@@ -0,0 +1,104 @@
+package service;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.awt.image.MultiPixelPackedSampleModel;
+import java.io.ByteArrayOutputStream;
+
+/**
+ * Codifica una imagen monocromática como comandos ESC/POS de impresión raster
+ * (GS v 0), el formato que entienden las impresoras térmicas de 58 mm.
+ *
+ * Un trabajo es: ESC @ (inicializar), la imagen en bandas de hasta 255 filas, avance de papel
+ * y, opcionalmente, corte parcial (GS V 66).
+ */
+final class EscPosEncoder {
+
+    // Muchas impresoras térmicas tienen un búfer pequeño: la imagen se envía en bandas.
+    private static final int MAX_BAND_ROWS = 255;
+
+    private EscPosEncoder() {}
+
+    /**
+     * @param image La imagen, idealmente TYPE_BYTE_BINARY (la de {@link TicketRenderer}).
+     * @param feedLines Líneas de avance después de la imagen.
+     * @param cut Si se corta el papel al final.
+     * @return Los bytes del trabajo de impresión.
+     */
+    static byte[] encode(BufferedImage image, int feedLines, boolean cut) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        int bytesPerRow = (width + 7) / 8;
+        byte[] rows = toPrinterBits(image, bytesPerRow);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream(rows.length + 16 * (height / MAX_BAND_ROWS + 1) + 16);
+        out.write(0x1B); // ESC @: inicializar
+        out.write('@');
+
+        for (int bandStart = 0; bandStart < height; bandStart += MAX_BAND_ROWS) {
+            int bandRows = Math.min(MAX_BAND_ROWS, height - bandStart);
+            out.write(0x1D); // GS v 0 m xL xH yL yH
+            out.write('v');
+            out.write('0');
+            out.write(0); // modo normal
+            out.write(bytesPerRow & 0xFF);
+            out.write((bytesPerRow >> 8) & 0xFF);
+            out.write(bandRows & 0xFF);
+            out.write((bandRows >> 8) & 0xFF);
+            out.write(rows, bandStart * bytesPerRow, bandRows * bytesPerRow);
+        }
+
+        out.write(0x1B); // ESC d n: avanzar n líneas
+        out.write('d');
+        out.write(Math.max(0, Math.min(255, feedLines)));
+        if (cut) {
+            out.write(0x1D); // GS V 66 0: corte parcial
+            out.write('V');
+            out.write(66);
+            out.write(0);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Devuelve las filas de la imagen empaquetadas a 1 bit por punto, bit más significativo
+     * primero, con 1 = punto negro (impreso).
+     */
+    private static byte[] toPrinterBits(BufferedImage image, int bytesPerRow) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        byte[] bits = new byte[bytesPerRow * height];
+
+        if (isPacked(image, bytesPerRow)) {
+            // Camino rápido: los datos ya están empaquetados a 1 bit (índice 0 = negro, 1 = blanco).
+            byte[] packed = ((DataBufferByte) image.getRaster().getDataBuffer()).getData();
+            int lastByteMask = width % 8 == 0 ? 0xFF : (0xFF << (8 - width % 8)) & 0xFF;
+            for (int i = 0; i < bits.length; i++) {
+                int value = ~packed[i] & 0xFF;
+                bits[i] = (byte) (i % bytesPerRow == bytesPerRow - 1 ? value & lastByteMask : value);
+            }
+            return bits;
+        }
+
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int rgb = image.getRGB(x, y);
+                int luminance = (((rgb >> 16) & 0xFF) * 299 + ((rgb >> 8) & 0xFF) * 587 + (rgb & 0xFF) * 114) / 1000;
+                if ((rgb >>> 24) > 127 && luminance < 128) {
+                    bits[y * bytesPerRow + x / 8] |= (byte) (0x80 >> (x % 8));
+                }
+            }
+        }
+        return bits;
+    }
+
+    private static boolean isPacked(BufferedImage image, int bytesPerRow) {
+        return image.getType() == BufferedImage.TYPE_BYTE_BINARY
+                && image.getColorModel().getPixelSize() == 1
+                && image.getColorModel().getRGB(0) == 0xFF000000
+                && image.getRaster().getSampleModel() instanceof MultiPixelPackedSampleModel sampleModel
+                && sampleModel.getScanlineStride() == bytesPerRow
+                && image.getRaster().getSampleModelTranslateX() == 0
+                && image.getRaster().getSampleModelTranslateY() == 0;
+    }
+}
@@ -0,0 +1,92 @@
+package service;
+
+import dao.repository.IPrinterSink;
+import dao.repository.ITicketService;
+import dao.repository.TicketPrintException;
+import metrics.jfr.TicketPrintEvent;
+import model.Estancia;
+import model.Operator;
+
+import java.awt.image.BufferedImage;
+
+/**
+ * Imprime el ticket directamente en una impresora térmica de 58 mm, sin diálogo de impresión
+ * ni la canalización de Java2D: el ticket renderizado por {@link TicketRenderer} se codifica como
+ * comandos raster ESC/POS y se envía tal cual al destino configurado ({@link IPrinterSink}).
+ *
+ * No muestra mensajes: si el ticket no se puede imprimir lanza {@link TicketPrintException},
+ * para que quien llama decida si reintentar o avisar al operador.
+ */
+public class EscPosTicketPrinterServiceImpl implements ITicketService {
+
+    private final TicketRenderer ticketRenderer;
+    private final IPrinterSink sink;
+    private final int feedLines;
+    private final boolean cut;
+
+    public EscPosTicketPrinterServiceImpl(IPrinterSink sink) {
+        this(new TicketRenderer(), sink, 4, true);
+    }
+
+    public EscPosTicketPrinterServiceImpl(TicketRenderer ticketRenderer, IPrinterSink sink, int feedLines, boolean cut) {
+        this.ticketRenderer = ticketRenderer;
+        this.sink = sink;
+        this.feedLines = feedLines;
+        this.cut = cut;
+    }
+
+    /**
+     * @throws TicketPrintException si el ticket no se pudo renderizar o enviar a la impresora.
+     */
+    @Override
+    public void printTicket(Estancia estancia, Operator operator) {
+        TicketPrintEvent event = new TicketPrintEvent();
+        event.start();
+        event.printer = getClass().getSimpleName() + " (" + sink.getName() + ")";
+        event.plate = estancia.getLicense_plate();
+        event.stayId = estancia.getStay_id();
+        event.vehicleType = estancia.getVehicleType();
+        event.operatorId = operator.getId();
+        try {
+            byte[] job = encodeTicket(estancia, operator);
+            event.renderTime = event.lap();
+            try {
+                sink.write(job);
+            } catch (Exception e) {
+                throw new TicketPrintException("No se pudo enviar el ticket a " + sink.getName() + ": " + e.getMessage(), e);
+            }
+            event.sendTime = event.lap();
+        } catch (TicketPrintException e) {
+            event.fail(e);
+            throw e;
+        } finally {
+            event.commit();
+        }
+    }
+
+    /**
+     * Corta los envíos en curso al destino (por ejemplo, cierra la conexión con la impresora de red).
+     */
+    @Override
+    public void abort() {
+        sink.abort();
+    }
+
+    /**
+     * Devuelve los bytes ESC/POS del ticket, sin enviarlos.
+     * @throws TicketPrintException si el ticket no se pudo renderizar.
+     */
+    public byte[] encodeTicket(Estancia estancia, Operator operator) {
+        BufferedImage ticketImage;
+        try {
+            ticketImage = ticketRenderer.render(estancia, operator);
+        } catch (Exception e) {
+            throw new TicketPrintException("No se pudo generar el ticket #" + estancia.getStay_id() + ": " + e.getMessage(), e);
+        }
+        return EscPosEncoder.encode(ticketImage, feedLines, cut);
+    }
+
+    public IPrinterSink getSink() {
+        return sink;
+    }
+}
@@ -1,17 +1,27 @@
 package service;
 
+import config.DatabaseConnection;
+import config.JournalConfig;
+import dao.implementation.CachingMensualidadRepository;
+import dao.implementation.CachingTarifaRepository;
 import dao.implementation.EstanciaRepositoryImpl;
+import dao.implementation.GroupCommitEstanciaRepository;
+import dao.implementation.JdbcUnitOfWork;
 import dao.implementation.MensualidadRepositoryImpl;
 import dao.implementation.PagoRepositoryImpl;
 import dao.implementation.TarifaRepositoryImpl;
 import dao.repository.*;
+import metrics.PlateIndexMetrics;
+import metrics.jfr.ExitQuoteEvent;
+import metrics.jfr.PaymentEvent;
+import metrics.jfr.VehicleEntryEvent;
+import metrics.jfr.VehicleExitEvent;
 import model.Estancia;
 import model.Pago;
 import model.Tarifa;
 
 import java.sql.Timestamp;
 import java.util.List;
-import java.util.concurrent.TimeUnit;
 
 public class EstanciaServiceImpl implements IEstanciaService {
 
@@ -19,49 +29,220 @@ public class EstanciaServiceImpl implements IEstanciaService {
     private final IMensualidadRepository mensualidadRepository;
     private final ITarifaRepository tarifaRepository;
     private final IPagoRepository pagoRepository;
+    private final IUnitOfWork unitOfWork;
+    private final OccupancyIndex occupancyIndex;
+    private final FeeEngine feeEngine;
+    private final IGateJournal gateJournal; // null = sin journal: las escrituras dependen de la base de datos
 
     public EstanciaServiceImpl() {
-        this.estanciaRepository = new EstanciaRepositoryImpl();
-        this.mensualidadRepository = new MensualidadRepositoryImpl();
-        this.tarifaRepository = new TarifaRepositoryImpl();
-        this.pagoRepository = new PagoRepositoryImpl();
+        // The JDBC repositories are instrumented beneath the decorators, so JMX shows the calls that reach the database.
+        // Entries arriving at the same time from several lanes share one INSERT (group commit).
+        GroupCommitEstanciaRepository entryBatcher = new GroupCommitEstanciaRepository(
+                DatabaseConnection.instrument(IEstanciaRepository.class, new EstanciaRepositoryImpl()),
+                DatabaseConnection.getGroupCommitWindowMillis(), DatabaseConnection.getGroupCommitMaxBatchSize());
+        entryBatcher.start();
+        this.estanciaRepository = entryBatcher;
+        // Memberships are answered from memory; the cache refreshes itself in the background.
+        CachingMensualidadRepository membershipCache = new CachingMensualidadRepository(
+                DatabaseConnection.instrument(IMensualidadRepository.class, new MensualidadRepositoryImpl()));
+        membershipCache.start();
+        this.mensualidadRepository = membershipCache;
+        // Active rates are served from an in-memory snapshot that is swapped when the rates change.
+        CachingTarifaRepository rateCache = new CachingTarifaRepository(
+                DatabaseConnection.instrument(ITarifaRepository.class, new TarifaRepositoryImpl()));
+        rateCache.start();
+        this.tarifaRepository = rateCache;
+        this.pagoRepository = DatabaseConnection.instrument(IPagoRepository.class, new PagoRepositoryImpl());
+        this.unitOfWork = DatabaseConnection.instrument(IUnitOfWork.class, new JdbcUnitOfWork());
+        // Active stays are looked up in memory; the reconciler repairs drift caused by the web admin module.
+        this.occupancyIndex = new OccupancyIndex(estanciaRepository);
+        this.occupancyIndex.startReconciler(60_000);
+        if (DatabaseConnection.isMetricsEnabled()) {
+            PlateIndexMetrics.register("ActiveStays", occupancyIndex::getIndexStats);
+            PlateIndexMetrics.register("Memberships", membershipCache::getIndexStats);
+        }
+        this.feeEngine = new FeeEngine();
+        // Entries and exits are written to the local journal while the database is unreachable.
+        this.gateJournal = JournalConfig.getJournal();
+        restorePendingEntries();
+    }
+
+    /**
+     * Constructor for dependency injection, useful for testing purposes.
+     */
+    public EstanciaServiceImpl(IEstanciaRepository estanciaRepository, IMensualidadRepository mensualidadRepository,
+                               ITarifaRepository tarifaRepository, IPagoRepository pagoRepository, IUnitOfWork unitOfWork) {
+        this(estanciaRepository, mensualidadRepository, tarifaRepository, pagoRepository, unitOfWork, new FeeEngine());
+    }
+
+    /**
+     * Constructor for dependency injection with a custom fee engine (e.g. one with a fixed clock).
+     */
+    public EstanciaServiceImpl(IEstanciaRepository estanciaRepository, IMensualidadRepository mensualidadRepository,
+                               ITarifaRepository tarifaRepository, IPagoRepository pagoRepository, IUnitOfWork unitOfWork,
+                               FeeEngine feeEngine) {
+        this(estanciaRepository, mensualidadRepository, tarifaRepository, pagoRepository, unitOfWork, feeEngine, null);
+    }
+
+    /**
+     * Constructor for dependency injection with a local journal, used when the database is unreachable.
+     * @param gateJournal The journal, or null to always write to the database.
+     */
+    public EstanciaServiceImpl(IEstanciaRepository estanciaRepository, IMensualidadRepository mensualidadRepository,
+                               ITarifaRepository tarifaRepository, IPagoRepository pagoRepository, IUnitOfWork unitOfWork,
+                               FeeEngine feeEngine, IGateJournal gateJournal) {
+        this.estanciaRepository = estanciaRepository;
+        this.mensualidadRepository = mensualidadRepository;
+        this.tarifaRepository = tarifaRepository;
+        this.pagoRepository = pagoRepository;
+        this.unitOfWork = unitOfWork;
+        this.occupancyIndex = new OccupancyIndex(estanciaRepository);
+        this.feeEngine = feeEngine;
+        this.gateJournal = gateJournal;
+        restorePendingEntries();
     }
 
     @Override
     public Estancia registerVehicleEntry(String plate, String vehicleType, int operatorId) throws Exception {
-        // Business Rule 1: A vehicle cannot enter if it's already inside.
-        if (estanciaRepository.findActiveByPlate(plate).isPresent()) {
-            throw new Exception("El vehículo con placa " + plate + " ya se encuentra dentro del parqueadero.");
+        VehicleEntryEvent event = new VehicleEntryEvent();
+        event.start();
+        event.plate = plate;
+        event.vehicleType = vehicleType;
+        event.operatorId = operatorId;
+        try {
+            Estancia saved = registerEntry(plate, vehicleType, operatorId, event);
+            event.stayId = saved.getStay_id();
+            event.stayType = saved.getStayType();
+            return saved;
+        } catch (Exception e) {
+            event.fail(e);
+            throw e;
+        } finally {
+            event.commit();
         }
+    }
+
+    private Estancia registerEntry(String plate, String vehicleType, int operatorId, VehicleEntryEvent event) throws Exception {
+        boolean offline = isJournalBacklogged();
+
+        // Business Rule 1 (fast path): the occupancy index already knows the plate is inside.
+        // The index may be stale (the web admin module can close stays), so the database confirms it,
+        // unless the gate is working offline: then the index is the only source of truth.
+        boolean indexed = occupancyIndex.findByPlate(plate).isPresent();
+        if (indexed) {
+            if (offline || isStillInside(plate)) {
+                throw new Exception("El vehículo con placa " + plate + " ya se encuentra dentro del parqueadero.");
+            }
+            // Only evicted once the database has confirmed the stay is closed.
+            occupancyIndex.evict(plate);
+        }
+        event.occupancyCheckTime = event.lap();
 
-        // Business Rule 2: Check for an active monthly plan.
-        boolean hasMonthlyPlan = mensualidadRepository.isCurrentlyActive(plate).orElse(false);
-        String stayType = hasMonthlyPlan ? "Membership" : "Guest";
+        // Business Rule 2: Check for an active monthly plan. The membership repository answers from
+        // memory when it can; if it cannot (empty), the stay type is resolved by the database in the
+        // same statement that inserts the row.
+        Timestamp entryDate = new Timestamp(feeEngine.getClock().millis());
+        String stayType = mensualidadRepository.isActiveAt(plate, entryDate)
+                .map(hasMonthlyPlan -> hasMonthlyPlan ? "Membership" : "Guest")
+                .orElse(null);
+        event.membershipTime = event.lap();
 
         // Create the new Estancia record
         Estancia newEstancia = new Estancia();
         newEstancia.setLicense_plate(plate);
-        newEstancia.setEntryDate(new Timestamp(System.currentTimeMillis()));
+        newEstancia.setEntryDate(entryDate);
         newEstancia.setStayType(stayType);
         newEstancia.setStatus("INSIDE");
         newEstancia.setVehicleType(vehicleType);
         newEstancia.setEntryOperatorId(operatorId);
 
-        return estanciaRepository.save(newEstancia);
+        // Business Rule 1 (no duplicate entry) is enforced atomically by the repository,
+        // so two lanes scanning the same plate cannot both get in.
+        Estancia saved;
+        if (offline) {
+            saved = gateJournal.appendEntry(newEstancia);
+            event.journaled = true;
+        } else {
+            try {
+                saved = estanciaRepository.registerEntry(newEstancia)
+                        .orElseThrow(() -> new Exception("El vehículo con placa " + plate + " ya se encuentra dentro del parqueadero."));
+            } catch (DataAccessException e) {
+                if (!canJournal(e)) {
+                    throw e;
+                }
+                if (indexed) {
+                    // The database could not confirm that the indexed stay was closed.
+                    throw new Exception("El vehículo con placa " + plate + " ya se encuentra dentro del parqueadero.");
+                }
+                saved = gateJournal.appendEntry(newEstancia);
+                event.journaled = true;
+            }
+        }
+        event.insertTime = event.lap();
+        occupancyIndex.onEntry(saved);
+        return saved;
     }
 
     @Override
     public List<Estancia> getActiveStays() {
-        // Por ahora, solo pasamos la llamada al repositorio.
-        // En el futuro, podríamos añadir lógica de negocio aquí si fuera necesario.
-        return estanciaRepository.findAllActive();
+        // Served from the occupancy index; the first call loads it from the repository.
+        if (!occupancyIndex.isWarmed()) {
+            try {
+                occupancyIndex.warm();
+            } catch (DataAccessException e) {
+                if (!canJournal(e)) {
+                    throw e;
+                }
+                // Offline: the index holds the stays registered locally (and the journal's pending entries).
+            }
+        }
+        List<Estancia> stays = occupancyIndex.getActiveStays();
+        if (isJournalBacklogged()) {
+            stays.removeIf(estancia -> gateJournal.isExitPending(estancia.getStay_id()));
+        }
+        return stays;
     }
 
     @Override
     public Estancia calculateExitDetails(String plate) throws Exception {
-        // 1. Obtener la estancia (ahora incluirá el vehicleType gracias al Paso 2)
-        Estancia estancia = estanciaRepository.findActiveByPlate(plate)
-                .orElseThrow(() -> new Exception("Vehículo con placa " + plate + " no encontrado o ya ha salido."));
+        ExitQuoteEvent event = new ExitQuoteEvent();
+        event.start();
+        event.plate = plate;
+        try {
+            Estancia estancia = quoteExit(plate, event);
+            event.stayId = estancia.getStay_id();
+            event.vehicleType = estancia.getVehicleType();
+            event.stayType = estancia.getStayType();
+            event.amountToPay = estancia.getAmountToPay();
+            return estancia;
+        } catch (Exception e) {
+            event.fail(e);
+            throw e;
+        } finally {
+            event.commit();
+        }
+    }
+
+    private Estancia quoteExit(String plate, ExitQuoteEvent event) throws Exception {
+        // 1. Obtener la estancia: primero del índice en memoria y, si no está, de la base de datos
+        //    (puede haber sido registrada por otro módulo desde la última reconciliación).
+        //    Sin conexión no se consulta la base de datos: solo se conocen las estancias del índice.
+        //    Si la consulta falla, el error se propaga: no se puede afirmar que el vehículo no esté.
+        Estancia estancia = occupancyIndex.findByPlate(plate).orElse(null);
+        if (estancia == null) {
+            if (isJournalBacklogged()) {
+                throw new Exception("Vehículo con placa " + plate + " no encontrado o ya ha salido.");
+            }
+            estancia = estanciaRepository.findActiveByPlate(plate)
+                    .orElseThrow(() -> new Exception("Vehículo con placa " + plate + " no encontrado o ya ha salido."));
+            occupancyIndex.onEntry(estancia);
+        }
+        if (gateJournal != null && gateJournal.isExitPending(estancia.getStay_id())) {
+            // La salida está en el journal, pero la base de datos aún no la recibió.
+            occupancyIndex.onExit(estancia);
+            throw new Exception("Vehículo con placa " + plate + " no encontrado o ya ha salido.");
+        }
+        event.lookupTime = event.lap();
 
         // 2. Si es miembro, no se cobra. Esta lógica no cambia.
         if ("Membership".equals(estancia.getStayType())) {
@@ -85,50 +266,151 @@ public class EstanciaServiceImpl implements IEstanciaService {
         // --- FIN DE LA REFACTORIZACIÓN ---
 
 
-        // 5. El resto de la lógica de cálculo permanece EXACTAMENTE IGUAL,
-        //    porque ahora opera sobre la tarifa correcta (sea de carro o moto).
-        long durationMillis = System.currentTimeMillis() - estancia.getEntryDate().getTime();
-        long durationMinutes = TimeUnit.MILLISECONDS.toMinutes(durationMillis);
-
-        if (durationMinutes <= tarifa.getGracePeriodMinutes()) {
-            estancia.setAmountToPay(0.0);
-            return estancia;
-        }
-
-        long hours = TimeUnit.MINUTES.toHours(durationMinutes);
-        long remainingMinutes = durationMinutes % 60;
-
-        double totalCost = hours * tarifa.getValuePerHour();
-        if (remainingMinutes > 0) {
-            // Lógica mejorada: Redondear hacia arriba para las fracciones.
-            // Si una hora son 4 fracciones de 15min, podemos calcularlo así:
-            long fractions = (long) Math.ceil(remainingMinutes / 15.0); // Asumiendo fracciones de 15 min
-            totalCost += fractions * tarifa.getValuePerFraction();
-        }
-
-        if (tarifa.getDailyTop() > 0 && totalCost > tarifa.getDailyTop()) {
-            totalCost = tarifa.getDailyTop();
-        }
-
-        estancia.setAmountToPay(totalCost);
+        // 5. La tarifa y sus franjas horarias se compilan (una vez por cambio) en una tabla de precios
+        //    en centavos. Reglas: periodo de gracia, horas completas, fracciones de 15 min redondeadas
+        //    hacia arriba y tope diario; con franjas, cada tramo de la estancia se cobra con la suya.
+        FeeEngine.CompiledRate rate = feeEngine.compile(tarifa, tarifaRepository.findSchedulesByRate(tarifa.getId()));
+        event.rateTime = event.lap();
+        long cents = feeEngine.quoteNow(rate, estancia.getEntryDate().getTime());
+        estancia.setAmountToPay(FeeEngine.toAmount(cents));
+        event.pricingTime = event.lap();
         return estancia;
     }
 
     @Override
     public void finalizeExit(Estancia estancia, int operatorId, double amountPaid, String paymentMethod) throws Exception {
+        VehicleExitEvent event = new VehicleExitEvent();
+        event.start();
+        event.plate = estancia.getLicense_plate();
+        event.stayId = estancia.getStay_id();
+        event.vehicleType = estancia.getVehicleType();
+        event.operatorId = operatorId;
+        event.amountPaid = amountPaid;
+        event.paymentMethod = paymentMethod;
+        try {
+            closeStay(estancia, operatorId, amountPaid, paymentMethod, event);
+        } catch (Exception e) {
+            event.fail(e);
+            throw e;
+        } finally {
+            event.commit();
+        }
+    }
+
+    private void closeStay(Estancia estancia, int operatorId, double amountPaid, String paymentMethod,
+                           VehicleExitEvent event) throws Exception {
+        Timestamp now = new Timestamp(feeEngine.getClock().millis());
+        estancia.setExitDate(now);
+        estancia.setStatus("OUTSIDE");
+        estancia.setExitOperatorId(operatorId);
+
+        Pago pago = null;
         if (amountPaid > 0) {
-            Pago pago = new Pago();
+            pago = new Pago();
             pago.setEstanciaId(estancia.getStay_id());
             pago.setAmount(amountPaid);
-            pago.setPaymentDate(new Timestamp(System.currentTimeMillis()));
+            pago.setPaymentDate(now);
             pago.setPaymentMethod(paymentMethod);
             pago.setOperatorId(operatorId);
+        }
+
+        // A stay registered offline (provisional, negative stay_id) can only be closed through the journal,
+        // which replays its entry first.
+        if (estancia.getStay_id() < 0 || isJournalBacklogged()) {
+            gateJournal.appendExit(estancia, pago);
+            event.journaled = true;
+            event.commitTime = event.lap();
+            occupancyIndex.onExit(estancia);
+            return;
+        }
+
+        // Closing the stay and registering the payment share one connection and one commit:
+        // either both are persisted or neither is (no payment without a closed stay).
+        Pago payment = pago;
+        boolean closed;
+        try {
+            closed = unitOfWork.execute(() -> {
+                event.commitTime = event.lap(); // Opening the transaction.
+                if (!estanciaRepository.update(estancia)) {
+                    return false; // Closed meanwhile (another lane or the web module): nothing was written.
+                }
+                event.closeTime = event.lap();
+                if (payment != null) {
+                    savePayment(payment, estancia);
+                    event.paymentTime = event.lap();
+                }
+                return true;
+            });
+            event.commitTime += event.lap();
+        } catch (DataAccessException e) {
+            if (!canJournal(e)) {
+                throw e;
+            }
+            // If the commit did reach the database, replaying the exit changes nothing (idempotent).
+            gateJournal.appendExit(estancia, pago);
+            event.journaled = true;
+            event.commitTime = event.lap();
+            closed = true;
+        }
+        if (!closed) {
+            occupancyIndex.evict(estancia.getLicense_plate());
+            throw new Exception("Vehículo con placa " + estancia.getLicense_plate() + " no encontrado o ya ha salido.");
+        }
+        occupancyIndex.onExit(estancia);
+    }
+
+    private void savePayment(Pago pago, Estancia estancia) {
+        PaymentEvent event = new PaymentEvent();
+        event.begin();
+        event.plate = estancia.getLicense_plate();
+        event.stayId = pago.getEstanciaId();
+        event.vehicleType = estancia.getVehicleType();
+        event.operatorId = pago.getOperatorId();
+        event.amount = pago.getAmount();
+        event.paymentMethod = pago.getPaymentMethod();
+        try {
             pagoRepository.save(pago);
+        } catch (RuntimeException e) {
+            event.fail(e);
+            throw e;
+        } finally {
+            event.commit();
         }
+    }
 
-        estancia.setExitDate(new Timestamp(System.currentTimeMillis()));
-        estancia.setStatus("OUTSIDE");
-        estancia.setExitOperatorId(operatorId);
-        estanciaRepository.update(estancia);
+    /**
+     * Asks the database whether an indexed plate is still inside. If the database cannot be
+     * reached, the index is authoritative: the plate is considered inside.
+     */
+    private boolean isStillInside(String plate) {
+        try {
+            return estanciaRepository.findActiveByPlate(plate).isPresent();
+        } catch (DataAccessException e) {
+            if (!e.isConnectionFailure()) {
+                throw e;
+            }
+            return true;
+        }
+    }
+
+    /**
+     * While the journal has events that were not replayed, every write goes to it as well,
+     * so the database receives them in the order they happened.
+     */
+    private boolean isJournalBacklogged() {
+        return gateJournal != null && gateJournal.hasPending();
+    }
+
+    private boolean canJournal(DataAccessException e) {
+        return gateJournal != null && e.isConnectionFailure();
+    }
+
+    /**
+     * Puts the entries registered offline in a previous run (not yet replayed) back in the index.
+     */
+    private void restorePendingEntries() {
+        if (gateJournal != null) {
+            gateJournal.findPendingEntries().forEach(occupancyIndex::onEntry);
+        }
     }
 }
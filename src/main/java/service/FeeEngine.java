@@ -0,0 +1,271 @@
+package service;
+
+import dao.repository.ITarifaRepository;
+import model.Estancia;
+import model.FranjaTarifa;
+import model.Tarifa;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.zone.ZoneRules;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Computes parking fees in fixed-point cents.
+ *
+ * Each {@link Tarifa} is compiled once into a {@link CompiledRate}: a table with the price of every
+ * stay length, minute by minute, for the first 24 hours. Quoting a stay is then a table lookup that
+ * does not allocate. Longer stays are priced with the same formula in long arithmetic.
+ * Rates with time bands (peak, night, weekend...) are compiled into a {@link RateTimeline} instead,
+ * and each part of the stay is charged with the band in effect, in the clock's time zone.
+ *
+ * Pricing rules (the ones the exit lane has always used):
+ * - Stays up to the grace period are free.
+ * - Every complete hour costs the hourly rate (of the band in which the hour starts).
+ * - The remaining minutes are charged in fractions (15 minutes by default), rounding up.
+ * - The total never exceeds the daily cap, when the rate has one.
+ * The grace period and the cap apply to the whole stay, whatever bands it crosses.
+ *
+ * Compiled rates are cached per vehicle type and recompiled when the rate changes.
+ * Instances are thread-safe.
+ */
+public class FeeEngine {
+
+    /** Returned by the batch API for stays whose vehicle type has no active rate. */
+    public static final long NO_RATE = -1;
+
+    private static final long MILLIS_PER_MINUTE = 60_000;
+    private static final int TABLE_MINUTES = 24 * 60;
+
+    private final Clock clock;
+    private final int fractionMinutes;
+    private final Map<String, CompiledRate> compiledByVehicleType = new ConcurrentHashMap<>();
+
+    /**
+     * Creates an engine that charges 15-minute fractions and reads the system clock, in the
+     * default time zone.
+     */
+    public FeeEngine() {
+        this(Clock.systemDefaultZone(), 15);
+    }
+
+    /**
+     * @param clock The clock used as the exit instant by {@link #quoteNow(CompiledRate, long)}.
+     *              Its zone places the time bands of the rates.
+     * @param fractionMinutes The length of a charged fraction of an hour, in minutes.
+     */
+    public FeeEngine(Clock clock, int fractionMinutes) {
+        if (fractionMinutes <= 0 || fractionMinutes > 60) {
+            throw new IllegalArgumentException("fractionMinutes debe estar entre 1 y 60: " + fractionMinutes);
+        }
+        this.clock = clock;
+        this.fractionMinutes = fractionMinutes;
+    }
+
+    public Clock getClock() {
+        return clock;
+    }
+
+    /**
+     * Compiles a rate without time bands. See {@link #compile(Tarifa, List)}.
+     */
+    public CompiledRate compile(Tarifa tarifa) {
+        return compile(tarifa, List.of());
+    }
+
+    /**
+     * Returns the compiled form of a rate and its time bands, compiling it only if either changed
+     * since the last call for the same vehicle type.
+     * @param tarifa The active rate of a vehicle type.
+     * @param schedules The rate's time bands; empty for a flat rate.
+     * @return The compiled rate.
+     */
+    public CompiledRate compile(Tarifa tarifa, List<FranjaTarifa> schedules) {
+        String key = tarifa.getVehicle_type() == null ? "" : tarifa.getVehicle_type();
+        CompiledRate cached = compiledByVehicleType.get(key);
+        if (cached != null && cached.matches(tarifa, schedules)) {
+            return cached;
+        }
+        CompiledRate compiled = new CompiledRate(tarifa, schedules, fractionMinutes, clock.getZone());
+        compiledByVehicleType.put(key, compiled);
+        return compiled;
+    }
+
+    /**
+     * Quotes a stay that ends now, according to the engine's clock.
+     * @param rate The compiled rate of the vehicle type.
+     * @param entryMillis The entry instant, in epoch milliseconds.
+     * @return The fee in cents.
+     */
+    public long quoteNow(CompiledRate rate, long entryMillis) {
+        return rate.quote(entryMillis, clock.millis());
+    }
+
+    /**
+     * Quotes many stays of the same vehicle type that end at the same instant, without allocating.
+     * @param rate The compiled rate.
+     * @param entryMillis The entry instants, in epoch milliseconds.
+     * @param exitMillis The common exit instant.
+     * @param outCents Receives the fee of each stay, at the same index; at least as long as entryMillis.
+     * @return The sum of the fees, in cents.
+     */
+    public long quoteAll(CompiledRate rate, long[] entryMillis, long exitMillis, long[] outCents) {
+        long total = 0;
+        for (int i = 0; i < entryMillis.length; i++) {
+            long cents = rate.quote(entryMillis[i], exitMillis);
+            outCents[i] = cents;
+            total += cents;
+        }
+        return total;
+    }
+
+    /**
+     * Quotes a list of stays (e.g. every active stay, for a dashboard or an audit) as if they all
+     * left at the given instant. Rates are looked up once per vehicle type.
+     * @param stays The stays to quote.
+     * @param tarifaRepository Source of the active rate of each vehicle type.
+     * @param exitMillis The exit instant, in epoch milliseconds.
+     * @return The fee of each stay in cents, at the same index. Membership stays are 0, and stays
+     *         without an active rate for their vehicle type are {@link #NO_RATE}.
+     */
+    public long[] quoteStays(List<Estancia> stays, ITarifaRepository tarifaRepository, long exitMillis) {
+        long[] cents = new long[stays.size()];
+        Map<String, Optional<CompiledRate>> rates = new HashMap<>();
+        for (int i = 0; i < cents.length; i++) {
+            Estancia estancia = stays.get(i);
+            if ("Membership".equals(estancia.getStayType())) {
+                continue;
+            }
+            String vehicleType = estancia.getVehicleType();
+            Optional<CompiledRate> rate = vehicleType == null ? Optional.empty()
+                    : rates.computeIfAbsent(vehicleType, type -> tarifaRepository.findActiveByVehicleType(type)
+                            .map(tarifa -> compile(tarifa, tarifaRepository.findSchedulesByRate(tarifa.getId()))));
+            cents[i] = rate.isPresent() ? rate.get().quote(estancia.getEntryDate().getTime(), exitMillis) : NO_RATE;
+        }
+        return cents;
+    }
+
+    /**
+     * Converts cents to the double amount used by the model and the payments table.
+     */
+    public static double toAmount(long cents) {
+        return cents / 100.0;
+    }
+
+    /**
+     * A rate compiled into a per-minute price table, or into a weekly timeline when it has
+     * time bands. Immutable.
+     */
+    public static final class CompiledRate {
+        private final int rateId;
+        private final double valuePerHour;
+        private final double valuePerFraction;
+        private final double dailyTop;
+        private final int gracePeriodMinutes;
+        private final List<FranjaTarifa> schedules;
+
+        private final int fractionMinutes;
+        private final long hourCents;
+        private final long fractionCents;
+        private final long capCents; // 0 = sin tope
+        private final long[] centsByMinute;
+
+        private final RateTimeline timeline; // null = tarifa plana
+        private final ZoneRules zoneRules;
+        private final long fixedOffsetMillis; // Solo si la zona no tiene cambios de horario.
+
+        private CompiledRate(Tarifa tarifa, List<FranjaTarifa> schedules, int fractionMinutes, ZoneId zone) {
+            this.rateId = tarifa.getId();
+            this.valuePerHour = tarifa.getValuePerHour();
+            this.valuePerFraction = tarifa.getValuePerFraction();
+            this.dailyTop = tarifa.getDailyTop();
+            this.gracePeriodMinutes = tarifa.getGracePeriodMinutes();
+            this.schedules = List.copyOf(schedules);
+
+            this.fractionMinutes = fractionMinutes;
+            this.hourCents = Math.round(valuePerHour * 100);
+            this.fractionCents = Math.round(valuePerFraction * 100);
+            this.capCents = dailyTop > 0 ? Math.round(dailyTop * 100) : 0;
+
+            this.centsByMinute = new long[TABLE_MINUTES + 1];
+            for (int minute = 0; minute <= TABLE_MINUTES; minute++) {
+                centsByMinute[minute] = price(minute);
+            }
+
+            this.timeline = schedules.isEmpty() ? null : RateTimeline.compile(hourCents, fractionCents, schedules);
+            this.zoneRules = zone.getRules();
+            this.fixedOffsetMillis = zoneRules.isFixedOffset() ? zoneRules.getOffset(Instant.EPOCH).getTotalSeconds() * 1000L : 0;
+        }
+
+        /**
+         * Quotes a stay.
+         * @param entryMillis The entry instant, in epoch milliseconds.
+         * @param exitMillis The exit instant, in epoch milliseconds.
+         * @return The fee in cents.
+         */
+        public long quote(long entryMillis, long exitMillis) {
+            long minutes = (exitMillis - entryMillis) / MILLIS_PER_MINUTE;
+            if (minutes <= 0) {
+                return 0;
+            }
+            if (timeline != null) {
+                if (minutes <= gracePeriodMinutes) {
+                    return 0;
+                }
+                // El desfase de la entrada se usa para toda la estancia.
+                long offsetMillis = zoneRules.isFixedOffset() ? fixedOffsetMillis
+                        : zoneRules.getOffset(Instant.ofEpochMilli(entryMillis)).getTotalSeconds() * 1000L;
+                return timeline.price(entryMillis + offsetMillis, minutes, fractionMinutes, capCents);
+            }
+            return minutes <= TABLE_MINUTES ? centsByMinute[(int) minutes] : price(minutes);
+        }
+
+        private long price(long minutes) {
+            if (minutes <= gracePeriodMinutes) {
+                return 0;
+            }
+            long remainingMinutes = minutes % 60;
+            long fractions = (remainingMinutes + fractionMinutes - 1) / fractionMinutes;
+            long cents = (minutes / 60) * hourCents + fractions * fractionCents;
+            return capCents > 0 && cents > capCents ? capCents : cents;
+        }
+
+        private boolean matches(Tarifa tarifa, List<FranjaTarifa> otherSchedules) {
+            return rateId == tarifa.getId()
+                    && valuePerHour == tarifa.getValuePerHour()
+                    && valuePerFraction == tarifa.getValuePerFraction()
+                    && dailyTop == tarifa.getDailyTop()
+                    && gracePeriodMinutes == tarifa.getGracePeriodMinutes()
+                    && sameSchedules(otherSchedules);
+        }
+
+        private boolean sameSchedules(List<FranjaTarifa> other) {
+            if (other.size() != schedules.size()) {
+                return false;
+            }
+            for (int i = 0; i < other.size(); i++) {
+                FranjaTarifa a = schedules.get(i);
+                FranjaTarifa b = other.get(i);
+                if (a != b && (a.getId() != b.getId()
+                        || !Objects.equals(a.getDayOfWeek(), b.getDayOfWeek())
+                        || a.getStartMinute() != b.getStartMinute()
+                        || a.getEndMinute() != b.getEndMinute()
+                        || a.getValuePerHour() != b.getValuePerHour()
+                        || a.getValuePerFraction() != b.getValuePerFraction())) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        public int getRateId() { return rateId; }
+        public int getFractionMinutes() { return fractionMinutes; }
+        public boolean hasSchedules() { return timeline != null; }
+    }
+}
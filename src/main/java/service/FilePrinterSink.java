@@ -0,0 +1,67 @@
+package service;
+
+import dao.repository.IPrinterSink;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Escribe los bytes de cada trabajo en un archivo (al final, si ya existe). Permite revisar
+ * la salida byte a byte sin impresora, o enviarla a un dispositivo como /dev/usb/lp0.
+ *
+ * Escribe a través de un FileChannel para que {@link #abort()} pueda cortar una escritura
+ * bloqueada (un dispositivo sin papel o con la tapa abierta deja de aceptar bytes).
+ */
+public class FilePrinterSink implements IPrinterSink {
+
+    private final Path path;
+    // Canales abiertos, para poder cerrarlos desde abort().
+    private final Set<FileChannel> open = ConcurrentHashMap.newKeySet();
+
+    public FilePrinterSink(Path path) {
+        this.path = path;
+    }
+
+    @Override
+    public synchronized void write(byte[] data) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        open.add(channel);
+        try (channel) {
+            ByteBuffer buffer = ByteBuffer.wrap(data);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        } catch (ClosedChannelException e) {
+            // El canal se cerró desde abort() (antes o durante la escritura).
+            throw new IOException("Se abortó la escritura en " + getName() + ".", e);
+        } finally {
+            open.remove(channel);
+        }
+    }
+
+    /**
+     * Cierra los canales abiertos: las escrituras bloqueadas terminan con una IOException.
+     * No es synchronized, para no esperar a la escritura que tiene que cortar.
+     */
+    @Override
+    public void abort() {
+        for (FileChannel channel : open) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                // Ya estaba cerrado.
+            }
+        }
+    }
+
+    @Override
+    public String getName() {
+        return path.toString();
+    }
+}
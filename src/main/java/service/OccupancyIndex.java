@@ -0,0 +1,330 @@
+package service;
+
+import dao.repository.IEstanciaRepository;
+import model.Estancia;
+import plate.IndexStats;
+import plate.PlateIntMap;
+import plate.PlateMap;
+import plate.PlateSet;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-memory index of the stays currently inside the parking lot ('INSIDE').
+ * It is warmed from {@link IEstanciaRepository#forEachActive} and kept current by the entry
+ * and exit paths of the service, so active-stay lookups by plate or stay_id are O(1) and do not
+ * touch the database.
+ *
+ * The web admin module also writes to 'stays', so the index can drift from the database.
+ * {@link #reconcile()} compares both and repairs the differences; it can run periodically
+ * with {@link #startReconciler(long)}.
+ *
+ * Lookups return copies, so callers can modify the returned Estancia freely.
+ * Plates are keyed by their packed value (see {@link plate.PlateCodec}) in an off-heap
+ * plate -&gt; stay_id index ({@link PlateIntMap}), so a lot with many sites and plates keeps only
+ * the stays themselves on the heap.
+ */
+public class OccupancyIndex {
+
+    private final IEstanciaRepository estanciaRepository;
+
+    private final PlateIntMap byPlate;
+    private final Map<Integer, Entry> byId = new ConcurrentHashMap<>();
+    // Local exits, so a reconcile that read the database before them does not re-add the stays.
+    private final PlateMap<Long> recentExits = new PlateMap<>();
+
+    private volatile boolean warmed;
+    private ScheduledExecutorService reconciler;
+
+    public OccupancyIndex(IEstanciaRepository estanciaRepository) {
+        this(estanciaRepository, 4_096);
+    }
+
+    /**
+     * @param expectedStays Number of simultaneous stays the plate index is sized for; it grows beyond it if needed.
+     */
+    public OccupancyIndex(IEstanciaRepository estanciaRepository, int expectedStays) {
+        this.estanciaRepository = estanciaRepository;
+        this.byPlate = new PlateIntMap(expectedStays);
+    }
+
+    /**
+     * Loads every active stay from the repository. It is a {@link #reconcile()} against an
+     * empty index, so entries and exits recorded concurrently are not lost.
+     */
+    public void warm() {
+        reconcile();
+    }
+
+    /**
+     * Checks whether the index has been loaded at least once.
+     * @return true after the first warm-up or reconcile.
+     */
+    public boolean isWarmed() {
+        return warmed;
+    }
+
+    /**
+     * Finds the active stay of a plate.
+     * @param plate The vehicle's plate.
+     * @return A copy of the active stay, or empty if the plate is not in the index.
+     */
+    public Optional<Estancia> findByPlate(String plate) {
+        Entry entry = entryOf(plate);
+        return entry == null ? Optional.empty() : Optional.of(copyOf(entry.estancia));
+    }
+
+    /**
+     * Finds an active stay by its ID.
+     * @param stayId The stay ID.
+     * @return A copy of the active stay, or empty if it is not in the index.
+     */
+    public Optional<Estancia> findById(int stayId) {
+        Entry entry = byId.get(stayId);
+        return entry == null ? Optional.empty() : Optional.of(copyOf(entry.estancia));
+    }
+
+    /**
+     * Returns copies of every indexed stay, ordered by entry date (like findAllActive).
+     * @return The active stays.
+     */
+    public List<Estancia> getActiveStays() {
+        List<Estancia> stays = new ArrayList<>(byId.size());
+        for (Entry entry : byId.values()) {
+            stays.add(copyOf(entry.estancia));
+        }
+        stays.sort(Comparator.comparing(Estancia::getEntryDate).thenComparingInt(Estancia::getStay_id));
+        return stays;
+    }
+
+    public int size() {
+        return byId.size();
+    }
+
+    /**
+     * Measures the off-heap plate index (it scans the whole table).
+     * @return Its size, memory and probe lengths.
+     */
+    public IndexStats getIndexStats() {
+        return byPlate.getStats();
+    }
+
+    /**
+     * Records a vehicle entry registered by this application.
+     * @param estancia The saved stay (with its stay_id).
+     */
+    public void onEntry(Estancia estancia) {
+        recentExits.remove(estancia.getLicense_plate());
+        put(copyOf(estancia), System.nanoTime());
+    }
+
+    /**
+     * Records a vehicle exit finalized by this application.
+     * @param estancia The closed stay.
+     */
+    public void onExit(Estancia estancia) {
+        recentExits.put(estancia.getLicense_plate(), System.nanoTime());
+        remove(estancia.getLicense_plate());
+    }
+
+    /**
+     * Removes a plate from the index without recording an exit (e.g. the entry was found stale).
+     * @param plate The vehicle's plate.
+     */
+    public void evict(String plate) {
+        remove(plate);
+    }
+
+    /**
+     * Compares the index with the active stays in the database and repairs any drift:
+     * stays added or closed by another module, or a plate now bound to a different stay.
+     * Changes made locally while the database was being read are left untouched.
+     *
+     * @return A report with the number of repaired differences.
+     */
+    public synchronized ReconcileReport reconcile() {
+        long startedAt = System.nanoTime();
+
+        // Las filas se procesan a medida que llegan del cursor; solo se retienen las placas.
+        PlateSet dbPlates = new PlateSet(byId.size());
+        int[] counts = new int[2]; // {added, replaced}
+
+        estanciaRepository.forEachActive(dbStay -> {
+            String plate = dbStay.getLicense_plate();
+            dbPlates.add(plate);
+
+            Entry local = entryOf(plate);
+            if (local != null && local.indexedAtNanos > startedAt) {
+                return; // Changed locally after the database was read.
+            }
+            Long exitedAt = recentExits.get(plate);
+            if (exitedAt != null && exitedAt > startedAt) {
+                return;
+            }
+            if (local == null) {
+                put(dbStay, startedAt);
+                counts[0]++;
+            } else if (local.estancia.getStay_id() != dbStay.getStay_id()) {
+                removeStay(local);
+                put(dbStay, startedAt);
+                counts[1]++;
+            }
+        });
+
+        int added = counts[0];
+        int replaced = counts[1];
+        int removed = 0;
+
+        for (Entry local : byId.values()) {
+            if (local.estancia.getStay_id() < 0) {
+                continue; // Registered offline: not in the database until the journal is replayed.
+            }
+            // Removed by stay_id: the plate may already point to a newer stay registered meanwhile.
+            if (local.indexedAtNanos <= startedAt && !dbPlates.contains(local.estancia.getLicense_plate()) && removeStay(local)) {
+                removed++;
+            }
+        }
+
+        recentExits.removeIf(exitedAt -> exitedAt <= startedAt);
+        warmed = true;
+        return new ReconcileReport(added, removed, replaced, byId.size());
+    }
+
+    /**
+     * Runs {@link #reconcile()} periodically on a daemon thread. The first run warms the index.
+     * @param periodMillis The time between two reconciles.
+     */
+    public synchronized void startReconciler(long periodMillis) {
+        if (reconciler != null) {
+            return;
+        }
+        reconciler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "crudpark-occupancy-reconciler");
+            t.setDaemon(true);
+            return t;
+        });
+        reconciler.scheduleWithFixedDelay(() -> {
+            try {
+                ReconcileReport report = reconcile();
+                if (report.hasDrift()) {
+                    System.out.println("Índice de ocupación reconciliado: " + report);
+                }
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+            }
+        }, 0, periodMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops the periodic reconcile.
+     */
+    public synchronized void stopReconciler() {
+        if (reconciler != null) {
+            reconciler.shutdownNow();
+            reconciler = null;
+        }
+    }
+
+    private Entry entryOf(String plate) {
+        int stayId = byPlate.get(plate);
+        return stayId == PlateIntMap.MISSING ? null : byId.get(stayId);
+    }
+
+    private void put(Estancia estancia, long indexedAtNanos) {
+        int stayId = estancia.getStay_id();
+        // The stay goes in before its plate points to it, so a reader that finds the plate finds the stay.
+        byId.put(stayId, new Entry(estancia, indexedAtNanos));
+        int previousId = byPlate.put(estancia.getLicense_plate(), stayId);
+        if (previousId != PlateIntMap.MISSING && previousId != stayId) {
+            byId.remove(previousId);
+        }
+    }
+
+    private void remove(String plate) {
+        int stayId = byPlate.remove(plate);
+        if (stayId != PlateIntMap.MISSING) {
+            byId.remove(stayId);
+        }
+    }
+
+    /**
+     * Removes one indexed stay, and its plate only while the plate still points to it.
+     * @return false if the stay was no longer in the index.
+     */
+    private boolean removeStay(Entry entry) {
+        int stayId = entry.estancia.getStay_id();
+        if (!byId.remove(stayId, entry)) {
+            return false;
+        }
+        byPlate.remove(entry.estancia.getLicense_plate(), stayId);
+        return true;
+    }
+
+    private static Estancia copyOf(Estancia source) {
+        Estancia copy = new Estancia();
+        copy.setStay_id(source.getStay_id());
+        copy.setLicense_plate(source.getLicense_plate());
+        copy.setEntryDate(source.getEntryDate());
+        copy.setExitDate(source.getExitDate());
+        copy.setStayType(source.getStayType());
+        copy.setStatus(source.getStatus());
+        copy.setEntryOperatorId(source.getEntryOperatorId());
+        copy.setExitOperatorId(source.getExitOperatorId());
+        copy.setVehicleType(source.getVehicleType());
+        copy.setAmountToPay(source.getAmountToPay());
+        return copy;
+    }
+
+    private static final class Entry {
+        private final Estancia estancia;
+        private final long indexedAtNanos;
+
+        private Entry(Estancia estancia, long indexedAtNanos) {
+            this.estancia = estancia;
+            this.indexedAtNanos = indexedAtNanos;
+        }
+    }
+
+    /**
+     * Result of a {@link #reconcile()} run.
+     */
+    public static final class ReconcileReport {
+        private final int added;
+        private final int removed;
+        private final int replaced;
+        private final int size;
+
+        public ReconcileReport(int added, int removed, int replaced, int size) {
+            this.added = added;
+            this.removed = removed;
+            this.replaced = replaced;
+            this.size = size;
+        }
+
+        /** Stays found in the database but missing from the index. */
+        public int getAdded() { return added; }
+        /** Stays in the index that are no longer active in the database. */
+        public int getRemoved() { return removed; }
+        /** Plates whose active stay in the database is a different one. */
+        public int getReplaced() { return replaced; }
+        /** Number of stays in the index after the reconcile. */
+        public int getSize() { return size; }
+
+        public boolean hasDrift() {
+            return added + removed + replaced > 0;
+        }
+
+        @Override
+        public String toString() {
+            return "ReconcileReport{added=" + added + ", removed=" + removed + ", replaced=" + replaced + ", size=" + size + '}';
+        }
+    }
+}
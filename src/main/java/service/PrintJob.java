@@ -0,0 +1,69 @@
+package service;
+
+import model.Estancia;
+import model.Operator;
+
+/**
+ * A ticket waiting in, or processed by, the {@link PrintSpooler}.
+ * The status fields are updated by the printer's worker; listeners receive the job after each change.
+ */
+public class PrintJob {
+
+    public enum Status {
+        /** Waiting in the printer's queue. */
+        QUEUED,
+        /** Being sent to the printer. */
+        PRINTING,
+        /** The last attempt failed; it will be retried after a backoff. */
+        RETRYING,
+        /** Printed. Final. */
+        PRINTED,
+        /** Every attempt failed. Final. */
+        FAILED,
+        /** Not accepted because the printer's queue is full. Final. */
+        REJECTED
+    }
+
+    private final String id;
+    private final String printerId;
+    private final Estancia estancia;
+    private final Operator operator;
+    private final long submittedAtMillis;
+
+    private volatile Status status = Status.QUEUED;
+    private volatile int attempts;
+    private volatile String lastError;
+
+    PrintJob(String id, String printerId, Estancia estancia, Operator operator, long submittedAtMillis) {
+        this.id = id;
+        this.printerId = printerId;
+        this.estancia = estancia;
+        this.operator = operator;
+        this.submittedAtMillis = submittedAtMillis;
+    }
+
+    public String getId() { return id; }
+    public String getPrinterId() { return printerId; }
+    public Estancia getEstancia() { return estancia; }
+    public Operator getOperator() { return operator; }
+    public long getSubmittedAtMillis() { return submittedAtMillis; }
+    public Status getStatus() { return status; }
+    public int getAttempts() { return attempts; }
+    /** Message of the last failed attempt, or null. */
+    public String getLastError() { return lastError; }
+
+    public boolean isFinished() {
+        Status current = status;
+        return current == Status.PRINTED || current == Status.FAILED || current == Status.REJECTED;
+    }
+
+    void setStatus(Status status) { this.status = status; }
+    void setAttempts(int attempts) { this.attempts = attempts; }
+    void setLastError(String lastError) { this.lastError = lastError; }
+
+    @Override
+    public String toString() {
+        return "PrintJob{id=" + id + ", printer=" + printerId + ", stayId=" + estancia.getStay_id() +
+                ", status=" + status + ", attempts=" + attempts + '}';
+    }
+}
@@ -0,0 +1,61 @@
+package service;
+
+import dao.repository.IPrinterSink;
+
+import javax.print.Doc;
+import javax.print.DocFlavor;
+import javax.print.DocPrintJob;
+import javax.print.PrintException;
+import javax.print.PrintService;
+import javax.print.PrintServiceLookup;
+import javax.print.SimpleDoc;
+import java.io.IOException;
+
+/**
+ * Envía los bytes sin procesar (DocFlavor AUTOSENSE) a una impresora instalada en el sistema,
+ * sin diálogo de impresión. El driver no interpreta los bytes: deben ser comandos de la impresora.
+ */
+public class PrintServiceSink implements IPrinterSink {
+
+    private final String printerName;
+
+    /**
+     * @param printerName Nombre de la impresora en el sistema, o null/vacío para la predeterminada.
+     */
+    public PrintServiceSink(String printerName) {
+        this.printerName = printerName;
+    }
+
+    @Override
+    public void write(byte[] data) throws IOException {
+        PrintService service = findService();
+        DocPrintJob job = service.createPrintJob();
+        Doc doc = new SimpleDoc(data, DocFlavor.BYTE_ARRAY.AUTOSENSE, null);
+        try {
+            job.print(doc, null);
+        } catch (PrintException e) {
+            throw new IOException("La impresora '" + service.getName() + "' rechazó el trabajo: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public String getName() {
+        return printerName == null || printerName.isEmpty() ? "impresora predeterminada" : printerName;
+    }
+
+    private PrintService findService() throws IOException {
+        if (printerName == null || printerName.isEmpty()) {
+            PrintService service = PrintServiceLookup.lookupDefaultPrintService();
+            if (service == null) {
+                throw new IOException("No hay una impresora predeterminada configurada.");
+            }
+            return service;
+        }
+        for (PrintService service : PrintServiceLookup.lookupPrintServices(DocFlavor.BYTE_ARRAY.AUTOSENSE, null)) {
+            if (service.getName().equalsIgnoreCase(printerName)) {
+                return service;
+            }
+        }
+        throw new IOException("No se encontró la impresora '" + printerName + "'.");
+    }
+}
@@ -0,0 +1,535 @@
+package service;
+
+import config.AppExecutors;
+import dao.repository.ITicketService;
+import model.Estancia;
+import model.Operator;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cola de impresión de tickets: registrar un ingreso nunca espera a la impresora.
+ *
+ * - Cada impresora registrada tiene su propia cola acotada y un hilo trabajador dedicado, que
+ *   imprime los tickets en orden. Si la cola está llena, el trabajo se rechaza (REJECTED).
+ * - Cada intento tiene un tiempo máximo; si falla o se agota, se reintenta con espera
+ *   exponencial hasta maxAttempts veces antes de marcarse como FAILED. Un intento agotado se
+ *   aborta ({@link ITicketService#abort()}) y se espera a que termine antes de reintentar, para
+ *   que dos intentos nunca escriban a la vez en la impresora.
+ * - Esa espera también tiene un límite (otro tiempo de intento): no todas las impresoras se
+ *   pueden abortar. Si el intento sigue sin terminar, el trabajo pasa a FAILED y la impresora
+ *   queda bloqueada ({@link #isPrinterWedged(String)}): los trabajos siguientes esperan a que
+ *   ese intento termine, cada vez con el mismo límite, y si no termina cuentan un intento fallido.
+ * - Los cambios de estado se notifican a los listeners en el executor de callbacks (por
+ *   defecto, el hilo de Swing).
+ * - Los trabajos pendientes se guardan en un archivo, así sobreviven a un reinicio: al registrar
+ *   la impresora se vuelven a encolar. El archivo nunca se escribe en el hilo que encola (el de
+ *   Swing): submit() lo deja para un hilo de fondo.
+ * - Lleva métricas de profundidad de cola y de latencia (desde que se encola hasta que se imprime).
+ */
+public class PrintSpooler {
+
+    /**
+     * Recibe los cambios de estado de los trabajos.
+     */
+    public interface JobListener {
+        /**
+         * @param job El trabajo.
+         * @param status El estado al que pasó (el del trabajo puede haber cambiado otra vez).
+         */
+        void onStatusChanged(PrintJob job, PrintJob.Status status);
+    }
+
+    private final Path spoolFile;
+    private final int queueCapacity;
+    private final int maxAttempts;
+    private final long attemptTimeoutMillis;
+    private final long initialBackoffMillis;
+    private final long maxBackoffMillis;
+    private final ExecutorService attemptExecutor;
+    private final Executor callbackExecutor;
+
+    private final Map<String, Worker> workers = new ConcurrentHashMap<>();
+    // Trabajos sin terminar (los que se persisten).
+    private final Map<String, PrintJob> pending = new ConcurrentHashMap<>();
+    // Trabajos leídos del archivo cuya impresora aún no se ha registrado.
+    private final Map<String, List<PrintJob>> recovered = new HashMap<>();
+    private final List<JobListener> listeners = new CopyOnWriteArrayList<>();
+    // Hay una escritura del archivo pendiente en attemptExecutor (varias solicitudes se agrupan en una).
+    private final AtomicBoolean persistScheduled = new AtomicBoolean();
+
+    private final LongAdder submitted = new LongAdder();
+    private final LongAdder printed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder retries = new LongAdder();
+    private final LongAdder totalLatencyMillis = new LongAdder();
+    private final LongAccumulator maxLatencyMillis = new LongAccumulator(Math::max, 0);
+
+    /**
+     * Crea la cola con los valores por defecto: 50 trabajos por impresora, 5 intentos de 10 s
+     * como máximo cada uno, y esperas entre intentos de 1 s a 30 s.
+     * @param spoolFile Archivo donde se guardan los trabajos pendientes, o null para no guardarlos.
+     */
+    public PrintSpooler(Path spoolFile) {
+        this(spoolFile, 50, 5, 10_000, 1_000, 30_000, AppExecutors.virtualThreads(), AppExecutors.edt());
+    }
+
+    public PrintSpooler(Path spoolFile, int queueCapacity, int maxAttempts, long attemptTimeoutMillis,
+                        long initialBackoffMillis, long maxBackoffMillis,
+                        ExecutorService attemptExecutor, Executor callbackExecutor) {
+        this.spoolFile = spoolFile;
+        this.queueCapacity = queueCapacity;
+        this.maxAttempts = maxAttempts;
+        this.attemptTimeoutMillis = attemptTimeoutMillis;
+        this.initialBackoffMillis = initialBackoffMillis;
+        this.maxBackoffMillis = maxBackoffMillis;
+        this.attemptExecutor = attemptExecutor;
+        this.callbackExecutor = callbackExecutor;
+        loadSpoolFile();
+    }
+
+    /**
+     * Registra una impresora e inicia su trabajador. Los trabajos pendientes de una ejecución
+     * anterior para esa impresora se vuelven a encolar.
+     * @param printerId Identificador de la impresora (el mismo entre ejecuciones).
+     * @param printer El servicio que imprime; debe lanzar una excepción si no pudo imprimir.
+     */
+    public synchronized void registerPrinter(String printerId, ITicketService printer) {
+        if (workers.containsKey(printerId)) {
+            throw new IllegalStateException("La impresora '" + printerId + "' ya está registrada.");
+        }
+        Worker worker = new Worker(printerId, printer);
+        workers.put(printerId, worker);
+
+        List<PrintJob> jobs = recovered.remove(printerId);
+        if (jobs != null) {
+            for (PrintJob job : jobs) {
+                if (!worker.queue.offer(job)) {
+                    reject(job);
+                }
+            }
+            persist();
+        }
+        worker.thread.start();
+    }
+
+    /**
+     * Encola un ticket. Nunca bloquea: ni a la impresora ni al disco.
+     * @param printerId La impresora registrada.
+     * @param estancia La estancia del ticket.
+     * @param operator El operador que registró el ingreso.
+     * @return El trabajo, en estado QUEUED o, si la cola está llena, REJECTED.
+     * @throws IllegalArgumentException si la impresora no está registrada.
+     */
+    public PrintJob submit(String printerId, Estancia estancia, Operator operator) {
+        Worker worker = workers.get(printerId);
+        if (worker == null) {
+            throw new IllegalArgumentException("Impresora no registrada: " + printerId);
+        }
+        PrintJob job = new PrintJob(UUID.randomUUID().toString(), printerId, estancia, operator, System.currentTimeMillis());
+        submitted.increment();
+
+        // Se registra y se notifica antes de encolarlo: el trabajador nunca termina un trabajo aún no
+        // registrado, y los listeners reciben QUEUED antes que PRINTING (o, si la cola está llena, REJECTED).
+        pending.put(job.getId(), job);
+        notifyListeners(job, PrintJob.Status.QUEUED);
+        if (!worker.queue.offer(job)) {
+            reject(job);
+        }
+        persistLater();
+        return job;
+    }
+
+    public void addListener(JobListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(JobListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * @param printerId La impresora.
+     * @return true si un intento agotado que no se pudo abortar sigue sin terminar: la impresora
+     *         no acepta más trabajos hasta que termine (sin papel, tapa abierta, cable, etc.).
+     */
+    public boolean isPrinterWedged(String printerId) {
+        Worker worker = workers.get(printerId);
+        return worker != null && worker.isWedged();
+    }
+
+    /**
+     * Detiene los trabajadores. Los trabajos pendientes quedan guardados en el archivo.
+     */
+    public synchronized void shutdown() {
+        for (Worker worker : workers.values()) {
+            worker.thread.interrupt();
+        }
+        workers.clear();
+    }
+
+    // --- Procesamiento ---
+
+    private final class Worker implements Runnable {
+        private final String printerId;
+        private final ITicketService printer;
+        private final BlockingQueue<PrintJob> queue;
+        private final Thread thread;
+        // Intento agotado que no terminó tras abortarlo; null si no hay ninguno.
+        private volatile CountDownLatch wedged;
+
+        private Worker(String printerId, ITicketService printer) {
+            this.printerId = printerId;
+            this.printer = printer;
+            this.queue = new ArrayBlockingQueue<>(queueCapacity);
+            this.thread = new Thread(this, "crudpark-printer-" + printerId);
+            this.thread.setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            while (!Thread.currentThread().isInterrupted()) {
+                PrintJob job;
+                try {
+                    job = queue.take();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                if (!process(this, job)) {
+                    return; // Interrumpido: el trabajo sigue pendiente en el archivo.
+                }
+            }
+        }
+
+        private boolean isWedged() {
+            CountDownLatch attempt = wedged;
+            return attempt != null && attempt.getCount() > 0;
+        }
+
+        /**
+         * Espera a que termine el intento que dejó bloqueada la impresora, si lo hay.
+         * @return false si sigue sin terminar después de timeoutMillis.
+         */
+        private boolean awaitUnwedged(long timeoutMillis) throws InterruptedException {
+            CountDownLatch attempt = wedged;
+            if (attempt == null) {
+                return true;
+            }
+            if (!attempt.await(timeoutMillis, TimeUnit.MILLISECONDS)) {
+                return false;
+            }
+            wedged = null;
+            return true;
+        }
+    }
+
+    /**
+     * Imprime un trabajo con reintentos.
+     * @return false si el hilo fue interrumpido antes de terminar.
+     */
+    private boolean process(Worker worker, PrintJob job) {
+        long backoff = initialBackoffMillis;
+        for (int attempt = 1; attempt <= maxAttempts; attempt++) {
+            job.setAttempts(attempt);
+            try {
+                if (!worker.awaitUnwedged(attemptTimeoutMillis)) {
+                    job.setLastError("La impresora sigue bloqueada por un envío anterior que no terminó.");
+                    if (!retryLater(job, attempt, backoff)) {
+                        return false;
+                    }
+                    backoff = Math.min(backoff * 2, maxBackoffMillis);
+                    continue;
+                }
+            } catch (InterruptedException e) {
+                job.setStatus(PrintJob.Status.QUEUED);
+                Thread.currentThread().interrupt();
+                return false;
+            }
+            job.setStatus(PrintJob.Status.PRINTING);
+            notifyListeners(job, PrintJob.Status.PRINTING);
+
+            CountDownLatch ended = new CountDownLatch(1);
+            Future<?> result = attemptExecutor.submit(() -> {
+                try {
+                    worker.printer.printTicket(job.getEstancia(), job.getOperator());
+                } finally {
+                    ended.countDown();
+                }
+            });
+            try {
+                result.get(attemptTimeoutMillis, TimeUnit.MILLISECONDS);
+                finish(job, PrintJob.Status.PRINTED);
+                return true;
+            } catch (TimeoutException e) {
+                // Interrumpir no detiene una escritura bloqueada: se aborta el envío y se espera a que
+                // el intento termine, para que el siguiente no imprima a la vez ni intercalado.
+                worker.printer.abort();
+                result.cancel(true);
+                try {
+                    if (!ended.await(attemptTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                        // La impresora no se pudo abortar: reintentar solo volvería a bloquearse.
+                        worker.wedged = ended;
+                        job.setLastError("La impresora no respondió en " + attemptTimeoutMillis
+                                + " ms y el envío no se pudo abortar: está bloqueada (revise el papel, la tapa y el cable).");
+                        System.err.println("Impresora " + worker.printerId + " bloqueada: " + job);
+                        finish(job, PrintJob.Status.FAILED);
+                        return true;
+                    }
+                } catch (InterruptedException interrupted) {
+                    job.setStatus(PrintJob.Status.QUEUED);
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+                job.setLastError("La impresora no respondió en " + attemptTimeoutMillis + " ms.");
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause() != null ? e.getCause() : e;
+                job.setLastError(cause.getMessage() != null ? cause.getMessage() : cause.toString());
+            } catch (InterruptedException e) {
+                result.cancel(true);
+                job.setStatus(PrintJob.Status.QUEUED);
+                Thread.currentThread().interrupt();
+                return false;
+            }
+
+            if (!retryLater(job, attempt, backoff)) {
+                return false;
+            }
+            backoff = Math.min(backoff * 2, maxBackoffMillis);
+        }
+        System.err.println("No se pudo imprimir " + job + ": " + job.getLastError());
+        finish(job, PrintJob.Status.FAILED);
+        return true;
+    }
+
+    /**
+     * Si quedan intentos, marca el trabajo como RETRYING y espera backoff antes del siguiente.
+     * @return false si el hilo fue interrumpido durante la espera.
+     */
+    private boolean retryLater(PrintJob job, int attempt, long backoff) {
+        if (attempt >= maxAttempts) {
+            return true;
+        }
+        job.setStatus(PrintJob.Status.RETRYING);
+        retries.increment();
+        notifyListeners(job, PrintJob.Status.RETRYING);
+        try {
+            Thread.sleep(backoff);
+            return true;
+        } catch (InterruptedException e) {
+            job.setStatus(PrintJob.Status.QUEUED);
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private void finish(PrintJob job, PrintJob.Status status) {
+        job.setStatus(status);
+        pending.remove(job.getId());
+        persist();
+        if (status == PrintJob.Status.PRINTED) {
+            printed.increment();
+            long latency = Math.max(0, System.currentTimeMillis() - job.getSubmittedAtMillis());
+            totalLatencyMillis.add(latency);
+            maxLatencyMillis.accumulate(latency);
+        } else {
+            failed.increment();
+        }
+        notifyListeners(job, status);
+    }
+
+    private void reject(PrintJob job) {
+        job.setStatus(PrintJob.Status.REJECTED);
+        pending.remove(job.getId());
+        rejected.increment();
+        notifyListeners(job, PrintJob.Status.REJECTED);
+    }
+
+    private void notifyListeners(PrintJob job, PrintJob.Status status) {
+        if (listeners.isEmpty()) {
+            return;
+        }
+        callbackExecutor.execute(() -> {
+            for (JobListener listener : listeners) {
+                try {
+                    listener.onStatusChanged(job, status);
+                } catch (RuntimeException e) {
+                    e.printStackTrace();
+                }
+            }
+        });
+    }
+
+    // --- Persistencia ---
+    // Una línea por trabajo pendiente, con los campos separados por tabuladores y codificados
+    // como URL (así ningún campo contiene tabuladores ni saltos de línea). "" representa null.
+
+    /**
+     * Guarda los trabajos pendientes en un hilo de fondo, sin bloquear al que llama.
+     */
+    private void persistLater() {
+        if (spoolFile == null || !persistScheduled.compareAndSet(false, true)) {
+            return;
+        }
+        attemptExecutor.execute(() -> {
+            // Se baja antes de escribir: lo que cambie a partir de aquí programa otra escritura.
+            persistScheduled.set(false);
+            persist();
+        });
+    }
+
+    private synchronized void persist() {
+        if (spoolFile == null) {
+            return;
+        }
+        List<PrintJob> jobs = new ArrayList<>(pending.values());
+        jobs.sort(Comparator.comparingLong(PrintJob::getSubmittedAtMillis));
+        try {
+            Path parent = spoolFile.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            Path temp = spoolFile.resolveSibling(spoolFile.getFileName() + ".tmp");
+            try (BufferedWriter writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+                for (PrintJob job : jobs) {
+                    writer.write(toLine(job));
+                    writer.newLine();
+                }
+            }
+            try {
+                Files.move(temp, spoolFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, spoolFile, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            // La impresión continúa; solo se pierde la garantía ante un reinicio.
+            e.printStackTrace();
+        }
+    }
+
+    private void loadSpoolFile() {
+        if (spoolFile == null || !Files.exists(spoolFile)) {
+            return;
+        }
+        try (BufferedReader reader = Files.newBufferedReader(spoolFile, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                try {
+                    PrintJob job = fromLine(line);
+                    pending.put(job.getId(), job);
+                    recovered.computeIfAbsent(job.getPrinterId(), id -> new ArrayList<>()).add(job);
+                } catch (RuntimeException e) {
+                    System.err.println("Trabajo de impresión ilegible en " + spoolFile + ": " + line);
+                }
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private static String toLine(PrintJob job) {
+        Estancia estancia = job.getEstancia();
+        Operator operator = job.getOperator();
+        return String.join("\t",
+                encode(job.getId()),
+                encode(job.getPrinterId()),
+                String.valueOf(job.getSubmittedAtMillis()),
+                String.valueOf(estancia.getStay_id()),
+                encode(estancia.getLicense_plate()),
+                encode(estancia.getVehicleType()),
+                encode(estancia.getStayType()),
+                String.valueOf(estancia.getEntryDate().getTime()),
+                String.valueOf(operator.getId()),
+                encode(operator.getFullName()));
+    }
+
+    private static PrintJob fromLine(String line) {
+        String[] fields = line.split("\t", -1);
+        Estancia estancia = new Estancia();
+        estancia.setStay_id(Integer.parseInt(fields[3]));
+        estancia.setLicense_plate(decode(fields[4]));
+        estancia.setVehicleType(decode(fields[5]));
+        estancia.setStayType(decode(fields[6]));
+        estancia.setEntryDate(new Timestamp(Long.parseLong(fields[7])));
+        estancia.setStatus("INSIDE");
+
+        Operator operator = new Operator();
+        operator.setId(Integer.parseInt(fields[8]));
+        operator.setFullName(decode(fields[9]));
+
+        return new PrintJob(decode(fields[0]), decode(fields[1]), estancia, operator, Long.parseLong(fields[2]));
+    }
+
+    private static String encode(String value) {
+        return value == null ? "" : URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+
+    private static String decode(String value) {
+        return value.isEmpty() ? null : URLDecoder.decode(value, StandardCharsets.UTF_8);
+    }
+
+    // --- Métricas ---
+
+    /** Trabajos esperando en todas las colas. */
+    public int getQueueDepth() {
+        int depth = 0;
+        for (Worker worker : workers.values()) {
+            depth += worker.queue.size();
+        }
+        return depth;
+    }
+
+    /** Trabajos esperando en la cola de una impresora. */
+    public int getQueueDepth(String printerId) {
+        Worker worker = workers.get(printerId);
+        return worker == null ? 0 : worker.queue.size();
+    }
+
+    /** Trabajos sin terminar, incluidos el que se está imprimiendo y los de impresoras no registradas. */
+    public int getPendingCount() { return pending.size(); }
+    public long getSubmittedCount() { return submitted.sum(); }
+    public long getPrintedCount() { return printed.sum(); }
+    public long getFailedCount() { return failed.sum(); }
+    public long getRejectedCount() { return rejected.sum(); }
+    public long getRetryCount() { return retries.sum(); }
+    public long getMaxLatencyMillis() { return maxLatencyMillis.get(); }
+
+    /** Latencia media desde que se encola un ticket hasta que se imprime. */
+    public double getAverageLatencyMillis() {
+        long count = printed.sum();
+        return count == 0 ? 0 : (double) totalLatencyMillis.sum() / count;
+    }
+}
@@ -14,6 +14,9 @@ import java.awt.image.BufferedImage;
  */
 public class QRCodeServiceImpl implements IQRCodeService {
 
+    // QRCodeWriter has no state, so a single instance is reused for every ticket.
+    private final QRCodeWriter qrCodeWriter = new QRCodeWriter();
+
     /**
      * Generates a QR code image from a given text.
      *
@@ -25,7 +28,6 @@ public class QRCodeServiceImpl implements IQRCodeService {
      */
     @Override
     public BufferedImage generateQRCodeImage(String text, int width, int height) throws WriterException {
-        QRCodeWriter qrCodeWriter = new QRCodeWriter();
         BitMatrix bitMatrix = qrCodeWriter.encode(text, BarcodeFormat.QR_CODE, width, height);
         return MatrixToImageWriter.toBufferedImage(bitMatrix);
     }
@@ -0,0 +1,160 @@
+package service;
+
+import model.FranjaTarifa;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * The week of a rate compiled into a sorted array of boundaries (minutes since Monday 00:00).
+ * Segment i starts at {@code startMinutes[i]} and lasts until the next boundary, charging its
+ * own hourly and fraction values: the rate's flat values, or those of the time band
+ * ({@link FranjaTarifa}) that covers it. When bands overlap, the one with the lowest ID wins.
+ *
+ * A stay is split into charge units, as in the flat pricing: one unit per complete hour, then
+ * the remaining minutes in fractions. Each unit costs the value of the segment in which it starts.
+ * Pricing finds the entry segment with a binary search and then walks the segments the stay
+ * crosses, counting the units that start in each one arithmetically: O(log n + segments).
+ *
+ * Immutable and thread-safe.
+ */
+final class RateTimeline {
+
+    static final int MINUTES_PER_DAY = 24 * 60;
+    static final int MINUTES_PER_WEEK = 7 * MINUTES_PER_DAY;
+    // 1970-01-01 fue jueves: se suman tres días para contar la semana desde el lunes.
+    private static final long EPOCH_MINUTE_OF_WEEK = 3L * MINUTES_PER_DAY;
+
+    private final int[] startMinutes;
+    private final long[] hourCents;
+    private final long[] fractionCents;
+
+    private RateTimeline(int[] startMinutes, long[] hourCents, long[] fractionCents) {
+        this.startMinutes = startMinutes;
+        this.hourCents = hourCents;
+        this.fractionCents = fractionCents;
+    }
+
+    /**
+     * Builds the weekly timeline of a rate.
+     * @param baseHourCents The flat hourly value, used outside every band.
+     * @param baseFractionCents The flat fraction value, used outside every band.
+     * @param schedules The rate's time bands.
+     */
+    static RateTimeline compile(long baseHourCents, long baseFractionCents, List<FranjaTarifa> schedules) {
+        FranjaTarifa[] bands = schedules.toArray(new FranjaTarifa[0]);
+        Arrays.sort(bands, (a, b) -> Integer.compare(a.getId(), b.getId()));
+
+        TreeSet<Integer> boundaries = new TreeSet<>();
+        boundaries.add(0);
+        for (FranjaTarifa band : bands) {
+            for (int day : daysOf(band)) {
+                int start = dayStart(day) + band.getStartMinute();
+                boundaries.add(start % MINUTES_PER_WEEK);
+                boundaries.add((start + lengthOf(band)) % MINUTES_PER_WEEK);
+            }
+        }
+
+        int[] starts = new int[boundaries.size()];
+        long[] hours = new long[starts.length];
+        long[] fractions = new long[starts.length];
+        int count = 0;
+        for (int start : boundaries) {
+            FranjaTarifa band = bandAt(bands, start);
+            long hour = band == null ? baseHourCents : Math.round(band.getValuePerHour() * 100);
+            long fraction = band == null ? baseFractionCents : Math.round(band.getValuePerFraction() * 100);
+            if (count > 0 && hours[count - 1] == hour && fractions[count - 1] == fraction) {
+                continue; // Mismo precio que el segmento anterior: se fusionan.
+            }
+            starts[count] = start;
+            hours[count] = hour;
+            fractions[count] = fraction;
+            count++;
+        }
+        return new RateTimeline(Arrays.copyOf(starts, count), Arrays.copyOf(hours, count), Arrays.copyOf(fractions, count));
+    }
+
+    /**
+     * Prices a stay, without the grace period (the caller applies it).
+     * @param entryLocalMillis The entry instant shifted to local time (epoch millis plus the zone offset).
+     * @param minutes The length of the stay in whole minutes (positive).
+     * @param fractionMinutes The length of a charged fraction.
+     * @param capCents The cap on the whole stay, or 0 for none.
+     * @return The fee in cents.
+     */
+    long price(long entryLocalMillis, long minutes, int fractionMinutes, long capCents) {
+        long fullHours = minutes / 60;
+        long fractionBase = fullHours * 60;
+        long fractionUnits = (minutes - fractionBase + fractionMinutes - 1) / fractionMinutes;
+
+        int minuteOfWeek = (int) Math.floorMod(Math.floorDiv(entryLocalMillis, 60_000L) + EPOCH_MINUTE_OF_WEEK, (long) MINUTES_PER_WEEK);
+        int segment = segmentAt(minuteOfWeek);
+
+        long total = 0;
+        long from = 0; // Minuto de la estancia en que empieza el segmento actual.
+        while (from < minutes) {
+            int segmentEnd = segment + 1 < startMinutes.length ? startMinutes[segment + 1] : MINUTES_PER_WEEK;
+            long to = from + (segmentEnd - minuteOfWeek);
+
+            // Horas completas que empiezan en [from, to).
+            long hoursHere = Math.min(ceilDiv(to, 60), fullHours) - Math.min(ceilDiv(from, 60), fullHours);
+            // Fracciones (empiezan en fractionBase + k * fractionMinutes) que empiezan en [from, to).
+            long fractionsHere = clamp(ceilDiv(to - fractionBase, fractionMinutes), fractionUnits)
+                    - clamp(ceilDiv(from - fractionBase, fractionMinutes), fractionUnits);
+
+            total += hoursHere * hourCents[segment] + fractionsHere * fractionCents[segment];
+            if (capCents > 0 && total >= capCents) {
+                return capCents;
+            }
+
+            from = to;
+            minuteOfWeek = segmentEnd == MINUTES_PER_WEEK ? 0 : segmentEnd;
+            segment = segment + 1 < startMinutes.length ? segment + 1 : 0;
+        }
+        return total;
+    }
+
+    int getSegmentCount() {
+        return startMinutes.length;
+    }
+
+    private int segmentAt(int minuteOfWeek) {
+        int index = Arrays.binarySearch(startMinutes, minuteOfWeek);
+        return index >= 0 ? index : -index - 2;
+    }
+
+    private static FranjaTarifa bandAt(FranjaTarifa[] bands, int minuteOfWeek) {
+        for (FranjaTarifa band : bands) {
+            for (int day : daysOf(band)) {
+                int start = dayStart(day) + band.getStartMinute();
+                int offset = Math.floorMod(minuteOfWeek - start, MINUTES_PER_WEEK);
+                if (offset < lengthOf(band)) {
+                    return band;
+                }
+            }
+        }
+        return null;
+    }
+
+    private static int[] daysOf(FranjaTarifa band) {
+        return band.getDayOfWeek() == null ? new int[]{1, 2, 3, 4, 5, 6, 7} : new int[]{band.getDayOfWeek()};
+    }
+
+    private static int dayStart(int isoDay) {
+        return (isoDay - 1) * MINUTES_PER_DAY;
+    }
+
+    private static int lengthOf(FranjaTarifa band) {
+        int length = band.getEndMinute() - band.getStartMinute();
+        return length > 0 ? length : length + MINUTES_PER_DAY; // Cruza la medianoche.
+    }
+
+    private static long ceilDiv(long value, long divisor) {
+        return -Math.floorDiv(-value, divisor);
+    }
+
+    private static long clamp(long value, long max) {
+        return value < 0 ? 0 : Math.min(value, max);
+    }
+}
@@ -1,7 +1,9 @@
 package service;
 
-import dao.repository.IQRCodeService;
+import config.AppExecutors;
 import dao.repository.ITicketService;
+import metrics.jfr.GateEvent;
+import metrics.jfr.TicketPrintEvent;
 import model.Estancia;
 import model.Operator;
 
@@ -9,23 +11,82 @@ import javax.swing.*;
 import java.awt.*;
 import java.awt.image.BufferedImage;
 import java.awt.print.*;
-import java.text.SimpleDateFormat;
+import java.util.concurrent.Executor;
 
 /**
  * Implementación final del servicio de impresión.
  * Utiliza PrinterJob para un control total y "quema" (fija) las dimensiones del papel
  * para asegurar la máxima compatibilidad con impresoras térmicas de 58mm.
+ * El ticket se renderiza una sola vez con {@link TicketRenderer}, que lo guarda en caché para reimpresiones.
+ *
+ * El diálogo de impresión se muestra en el hilo que llama (el de Swing), pero el envío a la
+ * impresora (PrinterJob.print(), que puede tardar varios segundos) se hace en un hilo virtual:
+ * printTicket vuelve en cuanto el operador acepta el diálogo y el resultado se informa en el hilo de Swing.
  */
 public class RealTicketPrinterServiceImpl implements ITicketService {
 
-    private final IQRCodeService qrCodeService;
+    private final TicketRenderer ticketRenderer;
+    private final Executor printExecutor;
+    private final Executor uiExecutor;
 
     public RealTicketPrinterServiceImpl() {
-        this.qrCodeService = new QRCodeServiceImpl();
+        this(new TicketRenderer());
+    }
+
+    public RealTicketPrinterServiceImpl(TicketRenderer ticketRenderer) {
+        this(ticketRenderer, AppExecutors.virtualThreads(), AppExecutors.edt());
+    }
+
+    /**
+     * @param printExecutor Ejecuta el envío a la impresora.
+     * @param uiExecutor Muestra el resultado (el hilo de Swing).
+     */
+    public RealTicketPrinterServiceImpl(TicketRenderer ticketRenderer, Executor printExecutor, Executor uiExecutor) {
+        this.ticketRenderer = ticketRenderer;
+        this.printExecutor = printExecutor;
+        this.uiExecutor = uiExecutor;
     }
 
     @Override
     public void printTicket(Estancia estancia, Operator operator) {
+        TicketPrintEvent event = new TicketPrintEvent();
+        event.start();
+        event.printer = getClass().getSimpleName();
+        event.plate = estancia.getLicense_plate();
+        event.stayId = estancia.getStay_id();
+        event.vehicleType = estancia.getVehicleType();
+        event.operatorId = operator.getId();
+        PrinterJob printerJob;
+        try {
+            printerJob = prepare(estancia, operator, event);
+        } catch (RuntimeException | Error e) {
+            event.commit();
+            throw e;
+        }
+        if (printerJob == null) {
+            event.commit(); // Falló o el operador canceló: no hay nada que enviar.
+            return;
+        }
+        // El evento se registra cuando termina el envío.
+        printExecutor.execute(() -> send(printerJob, event));
+    }
+
+    /**
+     * Renderiza el ticket y muestra el diálogo de impresión.
+     * @return El trabajo listo para enviar, o null si no se pudo generar o el operador canceló.
+     */
+    private PrinterJob prepare(Estancia estancia, Operator operator, TicketPrintEvent event) {
+        // 0. Renderizamos el ticket (texto + QR) una sola vez, antes de abrir el diálogo.
+        BufferedImage ticketImage;
+        try {
+            ticketImage = ticketRenderer.render(estancia, operator);
+        } catch (Exception e) {
+            event.outcome = GateEvent.FAILED;
+            e.printStackTrace();
+            JOptionPane.showMessageDialog(null, "No se pudo generar el ticket: " + e.getMessage(), "Error de Impresión", JOptionPane.ERROR_MESSAGE);
+            return null;
+        }
+
         // 1. Obtenemos el PrinterJob, que nos da control total sobre la impresión.
         PrinterJob printerJob = PrinterJob.getPrinterJob();
 
@@ -48,35 +109,49 @@ public class RealTicketPrinterServiceImpl implements ITicketService {
         // --- FIN DE LA CONFIGURACIÓN DEL PAPEL ---
 
         // 3. Asignamos nuestro objeto "dibujable" (Printable) que contiene el diseño del ticket.
-        Printable ticketContent = new TicketPrintable(estancia, operator);
+        Printable ticketContent = new TicketPrintable(ticketImage);
         printerJob.setPrintable(ticketContent, pageFormat);
+        event.renderTime = event.lap();
 
         // 4. Mostramos el diálogo de impresión estándar del sistema operativo.
         //    Este diálogo permite al usuario seleccionar la impresora.
         //    Si el usuario presiona "Imprimir", el método devuelve 'true'.
-        if (printerJob.printDialog()) {
-            try {
-                // 5. Ejecutamos la impresión.
-                printerJob.print();
-                JOptionPane.showMessageDialog(null, "Ticket enviado a la impresora.", "Impresión Exitosa", JOptionPane.INFORMATION_MESSAGE);
-            } catch (PrinterException ex) {
-                ex.printStackTrace();
-                JOptionPane.showMessageDialog(null, "Ocurrió un error al imprimir el ticket: " + ex.getMessage(), "Error de Impresión", JOptionPane.ERROR_MESSAGE);
-            }
+        boolean accepted = printerJob.printDialog();
+        event.operatorWaitTime = event.lap();
+        if (!accepted) {
+            event.outcome = GateEvent.REFUSED; // El operador canceló la impresión.
+            return null;
         }
+        return printerJob;
     }
 
     /**
-     * Clase interna que dibuja el contenido del ticket.
-     * Su lógica no necesita cambiar, ya que se adapta al PageFormat que le pasemos.
+     * 5. Ejecuta la impresión, fuera del hilo de Swing, y avisa al operador del resultado.
      */
-    private class TicketPrintable implements Printable {
-        private final Estancia estancia;
-        private final Operator operator;
+    private void send(PrinterJob printerJob, TicketPrintEvent event) {
+        try {
+            printerJob.print();
+            event.sendTime = event.lap();
+            uiExecutor.execute(() -> JOptionPane.showMessageDialog(null, "Ticket enviado a la impresora.", "Impresión Exitosa", JOptionPane.INFORMATION_MESSAGE));
+        } catch (PrinterException ex) {
+            event.outcome = GateEvent.FAILED;
+            ex.printStackTrace();
+            uiExecutor.execute(() -> JOptionPane.showMessageDialog(null, "Ocurrió un error al imprimir el ticket: " + ex.getMessage(), "Error de Impresión", JOptionPane.ERROR_MESSAGE));
+        } finally {
+            event.commit();
+        }
+    }
 
-        public TicketPrintable(Estancia estancia, Operator operator) {
-            this.estancia = estancia;
-            this.operator = operator;
+    /**
+     * Clase interna que dibuja el ticket ya renderizado.
+     * Java2D puede llamar a print() varias veces por página; cada llamada solo copia la imagen,
+     * escalada de la resolución de la impresora térmica (203 dpi) a puntos (72 por pulgada).
+     */
+    private static class TicketPrintable implements Printable {
+        private final BufferedImage ticketImage;
+
+        public TicketPrintable(BufferedImage ticketImage) {
+            this.ticketImage = ticketImage;
         }
 
         @Override
@@ -85,52 +160,15 @@ public class RealTicketPrinterServiceImpl implements ITicketService {
 
             Graphics2D g2d = (Graphics2D) graphics;
             g2d.translate(pageFormat.getImageableX(), pageFormat.getImageableY());
-            int availableWidth = (int) pageFormat.getImageableWidth();
-
-            try {
-                String ticketText = buildTicketText(estancia, operator);
-                String[] lines = ticketText.split("\n");
-
-                long timestamp = estancia.getEntryDate().getTime() / 1000;
-                String qrContent = String.format("TICKET:%d|PLATE:%s|DATE:%d", estancia.getStay_id(), estancia.getLicense_plate(), timestamp);
-                BufferedImage qrImage = qrCodeService.generateQRCodeImage(qrContent, 100, 100);
 
-                g2d.setColor(Color.BLACK);
-                g2d.setFont(new Font("Monospaced", Font.PLAIN, 9));
-
-                int lineHeight = 12;
-                int y = lineHeight;
-                for (String line : lines) {
-                    g2d.drawString(line, 0, y);
-                    y += lineHeight;
-                }
-                y += 5;
-
-                int qrX = (availableWidth - qrImage.getWidth()) / 2;
-                g2d.drawImage(qrImage, qrX, y, null);
-
-            } catch (Exception e) {
-                throw new PrinterException("Error al generar contenido del ticket: " + e.getMessage());
-            }
+            double scale = 72.0 / TicketRenderer.DPI;
+            int width = (int) Math.round(ticketImage.getWidth() * scale);
+            int height = (int) Math.round(ticketImage.getHeight() * scale);
+            int x = Math.max(0, ((int) pageFormat.getImageableWidth() - width) / 2);
 
+            g2d.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR);
+            g2d.drawImage(ticketImage, x, 0, width, height, null);
             return PAGE_EXISTS;
         }
     }
-
-    /**
-     * Helper que construye el texto del ticket. Sin cambios.
-     */
-    private String buildTicketText(Estancia estancia, Operator operator) {
-        SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
-        return "===========================\n" +
-                "     CrudPark - Crudzaso\n" +
-                "===========================\n" +
-                "Ticket #: " + String.format("%06d", estancia.getStay_id()) + "\n" +
-                "Placa: " + estancia.getLicense_plate() + "\n" +
-                "Tipo Vehículo: " + estancia.getVehicleType() + "\n" +
-                "Tipo Estancia: " + estancia.getStayType() + "\n" +
-                "Ingreso: " + sdf.format(estancia.getEntryDate()) + "\n" +
-                "Operador: " + operator.getFullName() + "\n" +
-                "---------------------------\n";
-    }
-}
\ No newline at end of file
+}
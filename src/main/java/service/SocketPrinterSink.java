@@ -0,0 +1,98 @@
+package service;
+
+import dao.repository.IPrinterSink;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Envía los bytes a una impresora de red por TCP (puerto RAW, normalmente 9100).
+ * Abre una conexión por trabajo.
+ *
+ * El tiempo máximo se aplica a la conexión y también al envío: setSoTimeout solo limita las
+ * lecturas, y una impresora sin papel deja de leer y bloquea la escritura indefinidamente, así
+ * que un temporizador cierra el socket cuando el envío se pasa del plazo.
+ */
+public class SocketPrinterSink implements IPrinterSink {
+
+    private final String host;
+    private final int port;
+    private final int timeoutMillis;
+    // Conexiones abiertas, para poder cortarlas desde abort().
+    private final Set<Socket> open = ConcurrentHashMap.newKeySet();
+
+    private static final class DeadlineHolder {
+        private static final ScheduledExecutorService DEADLINES = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "crudpark-printer-deadlines");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    public SocketPrinterSink(String host, int port, int timeoutMillis) {
+        this.host = host;
+        this.port = port;
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    @Override
+    public void write(byte[] data) throws IOException {
+        Socket socket = new Socket();
+        open.add(socket);
+        AtomicBoolean expired = new AtomicBoolean();
+        try (socket) {
+            socket.connect(new InetSocketAddress(host, port), timeoutMillis);
+            socket.setSoTimeout(timeoutMillis);
+            ScheduledFuture<?> deadline = DeadlineHolder.DEADLINES.schedule(() -> {
+                expired.set(true);
+                closeQuietly(socket);
+            }, timeoutMillis, TimeUnit.MILLISECONDS);
+            try {
+                OutputStream out = socket.getOutputStream();
+                out.write(data);
+                out.flush();
+            } finally {
+                deadline.cancel(false);
+            }
+        } catch (IOException e) {
+            if (expired.get()) {
+                throw new IOException("La impresora " + getName() + " no recibió el trabajo en " + timeoutMillis + " ms.", e);
+            }
+            throw e;
+        } finally {
+            open.remove(socket);
+        }
+    }
+
+    /**
+     * Cierra las conexiones abiertas: las escrituras bloqueadas terminan con una SocketException.
+     */
+    @Override
+    public void abort() {
+        for (Socket socket : open) {
+            closeQuietly(socket);
+        }
+    }
+
+    private static void closeQuietly(Socket socket) {
+        try {
+            socket.close();
+        } catch (IOException e) {
+            // Ya estaba cerrado.
+        }
+    }
+
+    @Override
+    public String getName() {
+        return host + ":" + port;
+    }
+}
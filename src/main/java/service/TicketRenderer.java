@@ -0,0 +1,158 @@
+package service;
+
+import dao.repository.IQRCodeService;
+import model.Estancia;
+import model.Operator;
+
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Renderiza el ticket de ingreso (texto + código QR) como una imagen monocromática lista para
+ * una impresora térmica de 58 mm: 384 puntos de ancho a 203 dpi.
+ *
+ * Cada ticket se renderiza una sola vez: el resultado se guarda en una caché LRU acotada,
+ * indexada por stay_id, para que las reimpresiones y las llamadas repetidas de Java2D a
+ * Printable.print() no vuelvan a generar el QR. El codificador QR y la fuente se reutilizan.
+ *
+ * Es seguro usarlo desde varios hilos.
+ */
+public class TicketRenderer {
+
+    /** Ancho del área imprimible de un rollo de 58 mm, en puntos de la impresora. */
+    public static final int WIDTH_DOTS = 384;
+    /** Resolución de las impresoras térmicas de 58 mm. */
+    public static final int DPI = 203;
+
+    private static final int DEFAULT_CACHE_SIZE = 32;
+    private static final Font FONT = new Font(Font.MONOSPACED, Font.PLAIN, 22);
+    private static final int LINE_HEIGHT = 30;
+    private static final int QR_SIZE = 280;
+    private static final int MARGIN = 10;
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private final IQRCodeService qrCodeService;
+    private final Map<Integer, CachedTicket> cache;
+
+    public TicketRenderer() {
+        this(new QRCodeServiceImpl(), DEFAULT_CACHE_SIZE);
+    }
+
+    /**
+     * @param qrCodeService El servicio que genera el código QR.
+     * @param cacheSize Número máximo de tickets renderizados que se conservan.
+     */
+    public TicketRenderer(IQRCodeService qrCodeService, int cacheSize) {
+        this.qrCodeService = qrCodeService;
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, CachedTicket> eldest) {
+                return size() > cacheSize;
+            }
+        };
+    }
+
+    /**
+     * Devuelve la imagen del ticket de una estancia, renderizándola solo si no está en caché.
+     * @param estancia La estancia (con su stay_id).
+     * @param operator El operador que registró el ingreso.
+     * @return Una imagen TYPE_BYTE_BINARY de {@link #WIDTH_DOTS} de ancho. No debe modificarse.
+     * @throws Exception si no se pudo generar el código QR.
+     */
+    public BufferedImage render(Estancia estancia, Operator operator) throws Exception {
+        int stayId = estancia.getStay_id();
+        synchronized (cache) {
+            CachedTicket cached = cache.get(stayId);
+            if (cached != null && cached.plate.equals(estancia.getLicense_plate())) {
+                return cached.raster;
+            }
+        }
+
+        // Se renderiza fuera del candado: dos hilos con el mismo ticket, a lo sumo, lo renderizan dos veces.
+        BufferedImage raster = draw(buildTicketText(estancia, operator), buildQrContent(estancia));
+        synchronized (cache) {
+            cache.put(stayId, new CachedTicket(estancia.getLicense_plate(), raster));
+        }
+        return raster;
+    }
+
+    /**
+     * Construye el texto del ticket.
+     */
+    String buildTicketText(Estancia estancia, Operator operator) {
+        return "===========================\n" +
+                "     CrudPark - Crudzaso\n" +
+                "===========================\n" +
+                "Ticket #: " + String.format("%06d", estancia.getStay_id()) + "\n" +
+                "Placa: " + estancia.getLicense_plate() + "\n" +
+                "Tipo Vehículo: " + estancia.getVehicleType() + "\n" +
+                "Tipo Estancia: " + estancia.getStayType() + "\n" +
+                "Ingreso: " + DATE_FORMAT.format(estancia.getEntryDate().toInstant().atZone(ZoneId.systemDefault())) + "\n" +
+                "Operador: " + operator.getFullName() + "\n" +
+                "---------------------------\n";
+    }
+
+    /**
+     * Contenido del QR: TICKET:{id}|PLATE:{placa}|DATE:{timestamp_seconds}
+     */
+    static String buildQrContent(Estancia estancia) {
+        return "TICKET:" + estancia.getStay_id() +
+                "|PLATE:" + estancia.getLicense_plate() +
+                "|DATE:" + estancia.getEntryDate().getTime() / 1000;
+    }
+
+    private BufferedImage draw(String text, String qrContent) throws Exception {
+        String[] lines = text.split("\n");
+        BufferedImage qrImage = qrCodeService.generateQRCodeImage(qrContent, QR_SIZE, QR_SIZE);
+
+        int height = MARGIN + lines.length * LINE_HEIGHT + MARGIN + qrImage.getHeight() + MARGIN;
+        BufferedImage raster = new BufferedImage(WIDTH_DOTS, height, BufferedImage.TYPE_BYTE_BINARY);
+        Graphics2D g = raster.createGraphics();
+        try {
+            // Sin suavizado: la impresora solo imprime puntos blancos o negros.
+            g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_OFF);
+            g.setColor(Color.WHITE);
+            g.fillRect(0, 0, WIDTH_DOTS, height);
+            g.setColor(Color.BLACK);
+            g.setFont(FONT);
+
+            int y = MARGIN + LINE_HEIGHT - (LINE_HEIGHT - FONT.getSize()) / 2;
+            for (String line : lines) {
+                g.drawString(line, 0, y);
+                y += LINE_HEIGHT;
+            }
+
+            int qrY = MARGIN + lines.length * LINE_HEIGHT + MARGIN;
+            g.drawImage(qrImage, (WIDTH_DOTS - qrImage.getWidth()) / 2, qrY, null);
+        } finally {
+            g.dispose();
+        }
+        return raster;
+    }
+
+    /**
+     * Número de tickets en caché.
+     */
+    public int getCachedCount() {
+        synchronized (cache) {
+            return cache.size();
+        }
+    }
+
+    private static final class CachedTicket {
+        private final String plate;
+        private final BufferedImage raster;
+
+        private CachedTicket(String plate, BufferedImage raster) {
+            this.plate = plate;
+            this.raster = raster;
+        }
+    }
+}
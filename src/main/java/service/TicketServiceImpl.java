@@ -3,6 +3,8 @@ package service;
 
 import dao.repository.IQRCodeService;
 import dao.repository.ITicketService;
+import metrics.jfr.GateEvent;
+import metrics.jfr.TicketPrintEvent;
 import model.Estancia;
 import model.Operator;
 import javax.swing.*;
@@ -30,6 +32,21 @@ public class TicketServiceImpl implements ITicketService {
      */
     @Override
     public void printTicket(Estancia estancia, Operator operator) {
+        TicketPrintEvent event = new TicketPrintEvent();
+        event.start();
+        event.printer = getClass().getSimpleName();
+        event.plate = estancia.getLicense_plate();
+        event.stayId = estancia.getStay_id();
+        event.vehicleType = estancia.getVehicleType();
+        event.operatorId = operator.getId();
+        try {
+            showTicket(estancia, operator, event);
+        } finally {
+            event.commit();
+        }
+    }
+
+    private void showTicket(Estancia estancia, Operator operator, TicketPrintEvent event) {
         // 1. Format the ticket content as a String
         String ticketContent = buildTicketText(estancia, operator);
 
@@ -42,11 +59,14 @@ public class TicketServiceImpl implements ITicketService {
         try {
             // 3. Generate the QR code image
             BufferedImage qrImage = qrCodeService.generateQRCodeImage(qrContent, 200, 200);
+            event.renderTime = event.lap();
 
             // 4. Display the ticket in a dialog for simulation
             showTicketDialog(ticketContent, new ImageIcon(qrImage));
+            event.operatorWaitTime = event.lap();
 
         } catch (Exception e) {
+            event.outcome = GateEvent.FAILED;
             e.printStackTrace();
             JOptionPane.showMessageDialog(null, "No se pudo generar el código QR del ticket.", "Error de Ticket", JOptionPane.ERROR_MESSAGE);
         }
@@ -54,8 +74,9 @@ public class TicketServiceImpl implements ITicketService {
 
     /**
      * Helper method to build the text part of the ticket.
+     * Package-private so the JMH benchmarks can measure it.
      */
-    private String buildTicketText(Estancia estancia, Operator operator) {
+    String buildTicketText(Estancia estancia, Operator operator) {
         SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
 
         return "==============================\n" +
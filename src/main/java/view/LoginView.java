@@ -15,12 +15,14 @@ public class LoginView extends JFrame {
     private final JTextField userField;
     private final JPasswordField passwordField;
     private final JButton loginButton;
+    private final JProgressBar progressBar;
+    private final JButton cancelButton;
 
     public LoginView() {
         // --- Set up the main frame ---
         setTitle("CrudPark - Inicio de Sesión");
         setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
-        setSize(400, 280);
+        setSize(400, 330);
         setLocationRelativeTo(null); // Center the window on the screen
         setResizable(false);
 
@@ -102,6 +104,22 @@ public class LoginView extends JFrame {
         gbc.fill = GridBagConstraints.NONE;
         mainPanel.add(loginButton, gbc);
 
+        // --- Progress Bar and Cancel Button (visible only while the login is being verified) ---
+        progressBar = new JProgressBar();
+        progressBar.setIndeterminate(true);
+        progressBar.setVisible(false);
+        gbc.gridy = 4;
+        gbc.insets = new Insets(15, 0, 0, 0);
+        gbc.fill = GridBagConstraints.HORIZONTAL;
+        mainPanel.add(progressBar, gbc);
+
+        cancelButton = new JButton("Cancelar");
+        cancelButton.setVisible(false);
+        gbc.gridy = 5;
+        gbc.insets = new Insets(5, 0, 0, 0);
+        gbc.fill = GridBagConstraints.NONE;
+        mainPanel.add(cancelButton, gbc);
+
         // Add the main panel to the frame
         add(mainPanel);
     }
@@ -141,6 +159,37 @@ public class LoginView extends JFrame {
         loginButton.addActionListener(listener);
     }
 
+    /**
+     * Shows the progress bar and the cancel button while the credentials are being verified,
+     * and disables the form so the login cannot be submitted twice.
+     */
+    public void showBusy() {
+        progressBar.setVisible(true);
+        cancelButton.setVisible(true);
+        loginButton.setEnabled(false);
+        userField.setEnabled(false);
+        passwordField.setEnabled(false);
+    }
+
+    /**
+     * Hides the progress indicators and enables the form again.
+     */
+    public void hideBusy() {
+        progressBar.setVisible(false);
+        cancelButton.setVisible(false);
+        loginButton.setEnabled(true);
+        userField.setEnabled(true);
+        passwordField.setEnabled(true);
+    }
+
+    /**
+     * Adds an ActionListener to the cancel button shown while logging in.
+     * @param listener The ActionListener to be added.
+     */
+    public void addCancelListener(ActionListener listener) {
+        cancelButton.addActionListener(listener);
+    }
+
     /**
      * Displays a message dialog to the user.
      * This method is called by the controller to show feedback.
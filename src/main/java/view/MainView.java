@@ -2,9 +2,10 @@ package view;
 
 import javax.swing.*;
 import javax.swing.border.TitledBorder;
-import javax.swing.table.DefaultTableModel;
+import javax.swing.table.TableRowSorter;
 import java.awt.*;
 import java.awt.event.ActionListener;
+import java.util.List;
 
 /**
  * The main operational view for the parking operator.
@@ -19,7 +20,11 @@ public class MainView extends JFrame {
     private JTextField exitPlateField;
     private JButton registerExitButton;
     private JTable vehiclesTable;
-    private DefaultTableModel tableModel;
+    private VehicleTableModel tableModel;
+    private JProgressBar progressBar;
+    private JLabel statusLabel;
+    private JButton cancelButton;
+    private JLabel printerStatusLabel;
 
     public MainView() {
         // --- Main Frame Setup ---
@@ -40,15 +45,14 @@ public class MainView extends JFrame {
         add(northPanel, BorderLayout.NORTH);
 
         // --- Center Panel: Table of Vehicles Currently Inside ---
-        String[] columnNames = {"Placa", "Tipo", "Fecha y Hora de Ingreso"};
-        tableModel = new DefaultTableModel(columnNames, 0) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                // Make table cells non-editable
-                return false;
-            }
-        };
+        tableModel = new VehicleTableModel();
         vehiclesTable = new JTable(tableModel);
+        // Keep the rows ordered by entry date ("yyyy-MM-dd HH:mm:ss" sorts chronologically as text),
+        // regardless of where the model stores them.
+        TableRowSorter<VehicleTableModel> sorter = new TableRowSorter<>(tableModel);
+        sorter.setSortKeys(List.of(new RowSorter.SortKey(2, SortOrder.ASCENDING)));
+        sorter.setSortsOnUpdates(true);
+        vehiclesTable.setRowSorter(sorter);
         vehiclesTable.setFont(new Font("Segoe UI", Font.PLAIN, 14));
         vehiclesTable.setRowHeight(25);
         JScrollPane scrollPane = new JScrollPane(vehiclesTable);
@@ -79,7 +83,31 @@ public class MainView extends JFrame {
 
         southPanel.add(entryPanel);
         southPanel.add(exitPanel);
-        add(southPanel, BorderLayout.SOUTH);
+
+        // Status Bar: progress of the operation in course, with the option to cancel it
+        JPanel statusPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        statusPanel.setBorder(BorderFactory.createEmptyBorder(0, 10, 5, 10));
+        progressBar = new JProgressBar();
+        progressBar.setIndeterminate(true);
+        progressBar.setVisible(false);
+        statusLabel = new JLabel(" ");
+        cancelButton = new JButton("Cancelar");
+        cancelButton.setVisible(false);
+        statusPanel.add(progressBar);
+        statusPanel.add(statusLabel);
+        statusPanel.add(cancelButton);
+
+        // Printer status: tickets are printed in the background, so their progress has its own label
+        printerStatusLabel = new JLabel(" ");
+        printerStatusLabel.setBorder(BorderFactory.createEmptyBorder(0, 10, 5, 10));
+        JPanel statusBar = new JPanel(new BorderLayout());
+        statusBar.add(statusPanel, BorderLayout.CENTER);
+        statusBar.add(printerStatusLabel, BorderLayout.EAST);
+
+        JPanel bottomPanel = new JPanel(new BorderLayout());
+        bottomPanel.add(southPanel, BorderLayout.CENTER);
+        bottomPanel.add(statusBar, BorderLayout.SOUTH);
+        add(bottomPanel, BorderLayout.SOUTH);
     }
 
     // --- Getters for Controller ---
@@ -97,17 +125,64 @@ public class MainView extends JFrame {
     }
 
     public void addVehicleToTable(Object[] rowData) {
-        tableModel.addRow(rowData);
+        tableModel.addVehicle(rowData);
+    }
+
+    /**
+     * Replaces the content of the table with the given rows, in a single refresh.
+     * @param rows The rows to show ({plate, type, entry date}).
+     */
+    public void loadVehiclesIntoTable(List<Object[]> rows) {
+        tableModel.setVehicles(rows);
+    }
+
+    /**
+     * Updates the row of a vehicle. Bursts of updates are coalesced into one refresh.
+     * @param rowData The new content of the row ({plate, type, entry date}).
+     */
+    public void updateVehicleInTable(Object[] rowData) {
+        tableModel.updateVehicle(rowData);
     }
 
     public void removeVehicleFromTable(String plate) {
-        // Find and remove the row corresponding to the plate
-        for (int i = 0; i < tableModel.getRowCount(); i++) {
-            if (tableModel.getValueAt(i, 0).equals(plate)) {
-                tableModel.removeRow(i);
-                break;
-            }
-        }
+        // O(1): the model keeps an index from plate to row
+        tableModel.removeVehicle(plate);
+    }
+
+    /**
+     * Shows the progress bar and the cancel button while an operation is running,
+     * and disables the entry and exit actions until it finishes.
+     * @param message The description of the running operation.
+     */
+    public void showBusy(String message) {
+        statusLabel.setText(message);
+        progressBar.setVisible(true);
+        cancelButton.setVisible(true);
+        registerEntryButton.setEnabled(false);
+        registerExitButton.setEnabled(false);
+    }
+
+    /**
+     * Hides the progress indicators and enables the entry and exit actions again.
+     */
+    public void hideBusy() {
+        statusLabel.setText(" ");
+        progressBar.setVisible(false);
+        cancelButton.setVisible(false);
+        registerEntryButton.setEnabled(true);
+        registerExitButton.setEnabled(true);
+    }
+
+    public void setStatusMessage(String message) {
+        statusLabel.setText(message);
+    }
+
+    /**
+     * Shows the state of the background ticket printing (queued, printing, retrying...).
+     * @param message The message to show, or null to clear it.
+     */
+    public void setPrinterStatus(String message) {
+        printerStatusLabel.setText(message == null || message.isEmpty() ? " " : message);
     }
 
     public void clearEntryPlateField() {
@@ -130,4 +205,8 @@ public class MainView extends JFrame {
     public void addLogoutListener(ActionListener listener) {
         logoutButton.addActionListener(listener);
     }
+
+    public void addCancelListener(ActionListener listener) {
+        cancelButton.addActionListener(listener);
+    }
 }
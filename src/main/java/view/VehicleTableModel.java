@@ -0,0 +1,171 @@
+package view;
+
+import javax.swing.Timer;
+import javax.swing.table.AbstractTableModel;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Table model for the vehicles currently inside the parking lot.
+ * It keeps an index from plate to row so adding, removing and updating a vehicle is O(1):
+ * - A bulk load fires a single change event.
+ * - Adding or removing a row fires only the events of the affected rows. A removal moves the
+ *   last row into the freed slot, so the table should be sorted by a RowSorter (MainView sorts
+ *   by entry date) to keep a stable visual order.
+ * - Bursts of updates are coalesced and published together in one event.
+ *
+ * Must be used from the Event Dispatch Thread, like any Swing model.
+ * Each row is {plate, stay type, formatted entry date}.
+ */
+public class VehicleTableModel extends AbstractTableModel {
+
+    private static final String[] COLUMN_NAMES = {"Placa", "Tipo", "Fecha y Hora de Ingreso"};
+    private static final int PLATE_COLUMN = 0;
+    private static final int COALESCE_DELAY_MILLIS = 50;
+
+    private final List<Object[]> rows = new ArrayList<>();
+    private final Map<String, Integer> rowByPlate = new HashMap<>();
+    private final Map<String, Object[]> pendingUpdates = new LinkedHashMap<>();
+    private final Timer flushTimer;
+
+    public VehicleTableModel() {
+        flushTimer = new Timer(COALESCE_DELAY_MILLIS, e -> flushUpdates());
+        flushTimer.setRepeats(false);
+    }
+
+    @Override
+    public int getRowCount() {
+        return rows.size();
+    }
+
+    @Override
+    public int getColumnCount() {
+        return COLUMN_NAMES.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return COLUMN_NAMES[column];
+    }
+
+    @Override
+    public Object getValueAt(int rowIndex, int columnIndex) {
+        return rows.get(rowIndex)[columnIndex];
+    }
+
+    @Override
+    public boolean isCellEditable(int row, int column) {
+        // Make table cells non-editable
+        return false;
+    }
+
+    /**
+     * Replaces every row with the given ones, firing a single change event.
+     * @param vehicles The rows to show.
+     */
+    public void setVehicles(List<Object[]> vehicles) {
+        rows.clear();
+        rowByPlate.clear();
+        pendingUpdates.clear();
+        for (Object[] row : vehicles) {
+            Integer existing = rowByPlate.get(plateOf(row));
+            if (existing != null) {
+                rows.set(existing, row);
+            } else {
+                rowByPlate.put(plateOf(row), rows.size());
+                rows.add(row);
+            }
+        }
+        fireTableDataChanged();
+    }
+
+    /**
+     * Adds a vehicle, or replaces its row if the plate is already shown.
+     * @param row The row to add.
+     */
+    public void addVehicle(Object[] row) {
+        String plate = plateOf(row);
+        pendingUpdates.remove(plate);
+        Integer existing = rowByPlate.get(plate);
+        if (existing != null) {
+            rows.set(existing, row);
+            fireTableRowsUpdated(existing, existing);
+            return;
+        }
+        int index = rows.size();
+        rows.add(row);
+        rowByPlate.put(plate, index);
+        fireTableRowsInserted(index, index);
+    }
+
+    /**
+     * Removes the row of a plate, if present.
+     * @param plate The vehicle's plate.
+     * @return true if a row was removed.
+     */
+    public boolean removeVehicle(String plate) {
+        pendingUpdates.remove(plate);
+        Integer index = rowByPlate.remove(plate);
+        if (index == null) {
+            return false;
+        }
+
+        int last = rows.size() - 1;
+        Object[] lastRow = rows.remove(last);
+        if (index != last) {
+            // Move the last row into the freed slot instead of shifting every following row.
+            rows.set(index, lastRow);
+            rowByPlate.put(plateOf(lastRow), index);
+            fireTableRowsDeleted(last, last);
+            fireTableRowsUpdated(index, index);
+        } else {
+            fireTableRowsDeleted(last, last);
+        }
+        return true;
+    }
+
+    /**
+     * Schedules an update of a vehicle's row. Updates arriving within a short window are
+     * applied together and published in a single event.
+     * @param row The new content of the row; ignored if the plate is no longer shown.
+     */
+    public void updateVehicle(Object[] row) {
+        pendingUpdates.put(plateOf(row), row);
+        if (!flushTimer.isRunning()) {
+            flushTimer.start();
+        }
+    }
+
+    /**
+     * Checks whether a plate is shown in the table.
+     * @param plate The vehicle's plate.
+     * @return true if the plate has a row.
+     */
+    public boolean containsVehicle(String plate) {
+        return rowByPlate.containsKey(plate);
+    }
+
+    private void flushUpdates() {
+        int first = Integer.MAX_VALUE;
+        int last = -1;
+        for (Map.Entry<String, Object[]> update : pendingUpdates.entrySet()) {
+            Integer index = rowByPlate.get(update.getKey());
+            if (index != null) {
+                rows.set(index, update.getValue());
+                first = Math.min(first, index);
+                last = Math.max(last, index);
+            }
+        }
+        pendingUpdates.clear();
+        if (last >= 0) {
+            fireTableRowsUpdated(first, last);
+        }
+    }
+
+    private static String plateOf(Object[] row) {
+        return (String) row[PLATE_COLUMN];
+    }
+}